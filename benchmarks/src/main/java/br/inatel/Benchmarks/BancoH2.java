@@ -0,0 +1,191 @@
+package br.inatel.Benchmarks;
+
+import br.inatel.Database.ConnectionPool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+/**
+ * Banco H2 em memória (modo MySQL) que faz o papel do MySQL nos benchmarks.
+ * Cada instância é um banco independente, com o esquema de schema-h2.sql.
+ */
+public class BancoH2 implements AutoCloseable {
+    private static int contador;
+
+    private final String url;
+    private final ConnectionPool pool;
+    // Mantém o banco em memória vivo enquanto o objeto existir.
+    private final Connection ancora;
+
+    public BancoH2(int tamanhoPool) throws SQLException {
+        this.url = "jdbc:h2:mem:bench" + proximoId() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000";
+        this.ancora = DriverManager.getConnection(url);
+        criarEsquema();
+        this.pool = new ConnectionPool(() -> DriverManager.getConnection(url), 1, tamanhoPool,
+                5_000, 5 * 60_000, 30 * 60_000);
+    }
+
+    private static synchronized int proximoId() {
+        return ++contador;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public ConnectionPool getPool() {
+        return pool;
+    }
+
+    private void criarEsquema() throws SQLException {
+        String script;
+        try (InputStream in = BancoH2.class.getResourceAsStream("/schema-h2.sql")) {
+            if (in == null) {
+                throw new SQLException("schema-h2.sql não encontrado no classpath.");
+            }
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException("Erro ao ler schema-h2.sql", e);
+        }
+        try (Statement stmt = ancora.createStatement()) {
+            for (String comando : script.replaceAll("(?m)^--.*$", "").split(";")) {
+                if (!comando.isBlank()) {
+                    stmt.execute(comando);
+                }
+            }
+        }
+    }
+
+    /**
+     * Popula o catálogo: 'livros' livros com 'autoresPorLivro' autores cada (sorteados de um
+     * conjunto fixo), 'exemplaresPorLivro' exemplares por livro, 'usuarios' usuários,
+     * um empréstimo por exemplar e uma multa a cada dez empréstimos.
+     */
+    public void popular(int livros, int autoresPorLivro, int exemplaresPorLivro, int usuarios) throws SQLException {
+        int totalAutores = Math.max(autoresPorLivro, 1_000);
+        ancora.setAutoCommit(false);
+        try {
+            executarEmLote("INSERT INTO categoria (idCategoria, nomeCategoria) VALUES (?, ?)", 20, (ps, i) -> {
+                ps.setInt(1, i + 1);
+                ps.setString(2, "Categoria " + (i + 1));
+            });
+            executarEmLote("INSERT INTO autor (id, nome, paisOrigem) VALUES (?, ?, ?)", totalAutores, (ps, i) -> {
+                ps.setInt(1, i + 1);
+                ps.setString(2, "Autor " + (i + 1));
+                ps.setString(3, "País " + (i % 50));
+            });
+            executarEmLote("INSERT INTO usuario (idUsuario, nome, email, telefone, tipo) VALUES (?, ?, ?, ?, ?)",
+                    usuarios, (ps, i) -> {
+                        ps.setInt(1, i + 1);
+                        ps.setString(2, "Usuário " + (i + 1));
+                        ps.setString(3, "usuario" + (i + 1) + "@biblioteca.br");
+                        ps.setString(4, "(35) 9" + String.format("%04d-%04d", i / 10_000, i % 10_000));
+                        ps.setString(5, i % 5 == 0 ? "Professor" : "Aluno");
+                    });
+            executarEmLote("INSERT INTO livro (isbn, titulo, anoPublicacao, categoria_idCategoria) VALUES (?, ?, ?, ?)",
+                    livros, (ps, i) -> {
+                        ps.setString(1, isbn(i));
+                        ps.setString(2, "Livro " + (i + 1));
+                        ps.setInt(3, 1950 + i % 75);
+                        ps.setInt(4, 1 + i % 20);
+                    });
+            executarEmLote("INSERT INTO livro_has_autor (livro_ISBN, autor_idAutor) VALUES (?, ?)",
+                    livros * autoresPorLivro, (ps, i) -> {
+                        int livro = i / autoresPorLivro;
+                        int posicao = i % autoresPorLivro;
+                        ps.setString(1, isbn(livro));
+                        ps.setInt(2, 1 + (livro * 7 + posicao) % totalAutores);
+                    });
+            int exemplares = livros * exemplaresPorLivro;
+            executarEmLote("INSERT INTO exemplar_livro (id_livro, isbn_livro, status) VALUES (?, ?, ?)",
+                    exemplares, (ps, i) -> {
+                        ps.setInt(1, i + 1);
+                        ps.setString(2, isbn(i / exemplaresPorLivro));
+                        ps.setBoolean(3, i % 2 == 0);
+                    });
+            // Um empréstimo por exemplar emprestado (os de índice par).
+            LocalDate hoje = LocalDate.now();
+            executarEmLote("INSERT INTO emprestimo (idEmprestimo, dataEmprestimo, dataDevolucao, usuario_idUsuario, livro_id) "
+                    + "VALUES (?, ?, ?, ?, ?)", (exemplares + 1) / 2, (ps, i) -> {
+                ps.setInt(1, i + 1);
+                ps.setDate(2, java.sql.Date.valueOf(hoje.minusDays(i % 365)));
+                ps.setDate(3, i % 3 == 0 ? java.sql.Date.valueOf(hoje.minusDays(i % 365).plusDays(14)) : null);
+                ps.setInt(4, 1 + i % usuarios);
+                ps.setInt(5, 2 * i + 1);
+            });
+            executarEmLote("INSERT INTO multa (idMulta, multa, juros, emprestimo_idEmprestimo) VALUES (?, ?, ?, ?)",
+                    (exemplares + 1) / 20, (ps, i) -> {
+                        ps.setInt(1, i + 1);
+                        ps.setDouble(2, 2.5 * (1 + i % 40));
+                        ps.setDouble(3, 0.01 * (i % 10));
+                        ps.setInt(4, 10 * i + 1);
+                    });
+            ancora.commit();
+        } catch (SQLException e) {
+            ancora.rollback();
+            throw e;
+        } finally {
+            ancora.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Cria 'quantidade' exemplares disponíveis de um único livro e os usuários que vão disputá-los.
+     */
+    public void popularParaEmprestimos(int quantidade, int usuarios) throws SQLException {
+        popular(1, 1, 0, usuarios);
+        executarEmLote("INSERT INTO exemplar_livro (id_livro, isbn_livro, status) VALUES (?, ?, false)",
+                quantidade, (ps, i) -> {
+                    ps.setInt(1, i + 1);
+                    ps.setString(2, isbn(0));
+                });
+    }
+
+    public void executar(String sql) throws SQLException {
+        try (Statement stmt = ancora.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    public long contar(String sql) throws SQLException {
+        try (Statement stmt = ancora.createStatement();
+             var rs = stmt.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    public static String isbn(int i) {
+        return String.format("978%010d", i);
+    }
+
+    private interface Preenchedor {
+        void preencher(PreparedStatement ps, int i) throws SQLException;
+    }
+
+    private void executarEmLote(String sql, int quantidade, Preenchedor preenchedor) throws SQLException {
+        try (PreparedStatement ps = ancora.prepareStatement(sql)) {
+            for (int i = 0; i < quantidade; i++) {
+                preenchedor.preencher(ps, i);
+                ps.addBatch();
+                if ((i + 1) % 1_000 == 0) {
+                    ps.executeBatch();
+                }
+            }
+            ps.executeBatch();
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        pool.close();
+        ancora.close();
+    }
+}
@@ -0,0 +1,100 @@
+package br.inatel.Benchmarks;
+
+import br.inatel.Biblioteca.Emprestimo;
+import br.inatel.Biblioteca.Exemplar_livro;
+import br.inatel.Biblioteca.Usuario;
+import br.inatel.DAO.EmprestimoDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Empréstimos por segundo com várias threads, cada uma emprestando e devolvendo o próprio exemplar.
+ * Mede o custo do empréstimo em si (idas ao banco e travas) na versão atual e na antiga.
+ * A disputa pelo mesmo exemplar é verificada em CheckoutStress.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class CheckoutBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Banco {
+        BancoH2 banco;
+        EmprestimoDao emprestimoDao;
+        final AtomicInteger proximoExemplar = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setup() throws SQLException {
+            banco = new BancoH2(16);
+            banco.popularParaEmprestimos(64, 64);
+            emprestimoDao = new EmprestimoDao(banco.getPool());
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            banco.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Exemplar {
+        int exemplarId;
+        Emprestimo emprestimo;
+        PreparedStatement devolucao;
+        private Connection conexao;
+
+        @Setup(Level.Trial)
+        public void setup(Banco banco) throws SQLException {
+            exemplarId = banco.proximoExemplar.incrementAndGet();
+            emprestimo = new Emprestimo(LocalDate.now(),
+                    new Usuario(exemplarId, null, null, null, null),
+                    new Exemplar_livro(exemplarId, null, false));
+            // Conexão própria para liberar o exemplar fora do pool medido.
+            conexao = DriverManager.getConnection(banco.banco.getUrl());
+            devolucao = conexao.prepareStatement("UPDATE exemplar_livro SET status = false WHERE id_livro = ?");
+            devolucao.setInt(1, exemplarId);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws SQLException {
+            devolucao.close();
+            conexao.close();
+        }
+    }
+
+    @Benchmark
+    public boolean updateCondicional(Banco banco, Exemplar exemplar) throws SQLException {
+        boolean emprestado = banco.emprestimoDao.create(exemplar.emprestimo) != null;
+        exemplar.devolucao.executeUpdate();
+        return emprestado;
+    }
+
+    @Benchmark
+    public boolean versaoAntiga(Banco banco, Exemplar exemplar) throws SQLException {
+        boolean emprestado = CheckoutLegado.emprestar(banco.banco.getPool(), exemplar.exemplarId, exemplar.exemplarId);
+        exemplar.devolucao.executeUpdate();
+        return emprestado;
+    }
+}
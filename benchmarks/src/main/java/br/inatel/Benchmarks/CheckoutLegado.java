@@ -0,0 +1,56 @@
+package br.inatel.Benchmarks;
+
+import br.inatel.Interfaces.ConnectionProvider;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+
+/**
+ * Cópia do empréstimo antigo (SELECT status, INSERT, UPDATE status), mantida só para
+ * comparar com o UPDATE condicional atual de EmprestimoDao.create.
+ * Entre o SELECT e o UPDATE outra transação pode emprestar o mesmo exemplar.
+ */
+public final class CheckoutLegado {
+
+    private CheckoutLegado() {
+    }
+
+    public static boolean emprestar(ConnectionProvider connectionProvider, int exemplarId, int usuarioId) throws SQLException {
+        try (Connection conn = connectionProvider.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement stmtCheck = conn.prepareStatement("SELECT status FROM exemplar_livro WHERE id_livro = ?")) {
+                    stmtCheck.setInt(1, exemplarId);
+                    try (ResultSet rs = stmtCheck.executeQuery()) {
+                        if (!rs.next() || rs.getBoolean("status")) {
+                            conn.rollback();
+                            return false;
+                        }
+                    }
+                }
+                try (PreparedStatement stmtInsert = conn.prepareStatement(
+                        "INSERT INTO emprestimo (dataEmprestimo, usuario_idUsuario, livro_id) VALUES (?, ?, ?)")) {
+                    stmtInsert.setDate(1, java.sql.Date.valueOf(LocalDate.now()));
+                    stmtInsert.setInt(2, usuarioId);
+                    stmtInsert.setInt(3, exemplarId);
+                    stmtInsert.executeUpdate();
+                }
+                try (PreparedStatement stmtUpdate = conn.prepareStatement("UPDATE exemplar_livro SET status = ? WHERE id_livro = ?")) {
+                    stmtUpdate.setBoolean(1, true);
+                    stmtUpdate.setInt(2, exemplarId);
+                    stmtUpdate.executeUpdate();
+                }
+                conn.commit();
+                return true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+}
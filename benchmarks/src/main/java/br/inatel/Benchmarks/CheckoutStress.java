@@ -0,0 +1,112 @@
+package br.inatel.Benchmarks;
+
+import br.inatel.Biblioteca.Emprestimo;
+import br.inatel.Biblioteca.Exemplar_livro;
+import br.inatel.Biblioteca.Usuario;
+import br.inatel.DAO.EmprestimoDao;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Teste de estresse do empréstimo: várias threads disputam o MESMO exemplar ao mesmo tempo.
+ * Em cada rodada só um empréstimo pode ser gravado; o resultado mostra quantas rodadas
+ * terminaram com o exemplar emprestado mais de uma vez (versão antiga x UPDATE condicional)
+ * e quantos empréstimos por segundo cada versão confirma.
+ *
+ * Uso: java -cp benchmarks/target/benchmarks.jar br.inatel.Benchmarks.CheckoutStress [rodadas] [threads]
+ */
+public class CheckoutStress {
+
+    private interface Checkout {
+        boolean emprestar(int exemplarId, int usuarioId) throws SQLException;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rodadas = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+
+        try (BancoH2 banco = new BancoH2(threads)) {
+            banco.popularParaEmprestimos(1, threads);
+            EmprestimoDao emprestimoDao = new EmprestimoDao(banco.getPool());
+
+            Checkout atomico = (exemplarId, usuarioId) -> emprestimoDao.create(new Emprestimo(
+                    LocalDate.now(),
+                    new Usuario(usuarioId, null, null, null, null),
+                    new Exemplar_livro(exemplarId, null, false))) != null;
+            Checkout legado = (exemplarId, usuarioId) -> CheckoutLegado.emprestar(banco.getPool(), exemplarId, usuarioId);
+
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            // As threads que perdem a disputa imprimem aviso no System.err; silenciado durante o teste.
+            PrintStream errOriginal = System.err;
+            System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+            try {
+                executar("Versão antiga (SELECT + UPDATE)", legado, banco, executor, rodadas, threads, errOriginal);
+                executar("UPDATE condicional", atomico, banco, executor, rodadas, threads, errOriginal);
+            } finally {
+                System.setErr(errOriginal);
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static void executar(String nome, Checkout checkout, BancoH2 banco, ExecutorService executor,
+                                 int rodadas, int threads, PrintStream saida) throws Exception {
+        int rodadasComDuplicidade = 0;
+        long confirmados = 0;
+        long erros = 0;
+        long nanos = 0;
+
+        for (int r = 0; r < rodadas; r++) {
+            banco.executar("DELETE FROM emprestimo");
+            banco.executar("UPDATE exemplar_livro SET status = false");
+
+            CountDownLatch largada = new CountDownLatch(1);
+            AtomicInteger sucessos = new AtomicInteger();
+            AtomicInteger falhas = new AtomicInteger();
+            List<Future<?>> tarefas = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                int usuarioId = t + 1;
+                tarefas.add(executor.submit(() -> {
+                    largada.await();
+                    try {
+                        if (checkout.emprestar(1, usuarioId)) {
+                            sucessos.incrementAndGet();
+                        }
+                    } catch (SQLException e) {
+                        // Conflito de trava/deadlock detectado pelo banco: conta como tentativa recusada.
+                        falhas.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+
+            long inicio = System.nanoTime();
+            largada.countDown();
+            for (Future<?> tarefa : tarefas) {
+                tarefa.get();
+            }
+            nanos += System.nanoTime() - inicio;
+
+            long gravados = banco.contar("SELECT COUNT(*) FROM emprestimo WHERE livro_id = 1");
+            if (gravados > 1) {
+                rodadasComDuplicidade++;
+            }
+            confirmados += sucessos.get();
+            erros += falhas.get();
+        }
+
+        double porSegundo = confirmados / (nanos / 1_000_000_000.0);
+        saida.printf("%-32s rodadas=%d threads=%d duplicados=%d erros=%d empréstimos/s=%.1f%n",
+                nome, rodadas, threads, rodadasComDuplicidade, erros, porSegundo);
+    }
+}
@@ -0,0 +1,245 @@
+package br.inatel.Benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compara dois resultados JMH em JSON (-rf json) e mostra a variação de cada benchmark:
+ * tempo/vazão (métrica principal) e bytes alocados por operação (gc.alloc.rate.norm, com -prof gc).
+ * Sai com status 1 se alguma métrica piorar mais que a tolerância (padrão 10%).
+ *
+ * Uso: java -cp benchmarks/target/benchmarks.jar br.inatel.Benchmarks.CompararBaseline baseline.json atual.json [tolerancia%]
+ */
+public class CompararBaseline {
+    private static final String ALOCACAO = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: CompararBaseline <baseline.json> <atual.json> [tolerancia%]");
+            System.exit(2);
+        }
+        double tolerancia = args.length > 2 ? Double.parseDouble(args[2]) / 100.0 : 0.10;
+        Map<String, Resultado> baseline = carregar(Path.of(args[0]));
+        Map<String, Resultado> atual = carregar(Path.of(args[1]));
+
+        int pioras = 0;
+        System.out.printf("%-90s %14s %14s %9s %12s %12s %9s%n",
+                "Benchmark", "baseline", "atual", "Δ", "B/op base", "B/op atual", "Δ");
+        for (Map.Entry<String, Resultado> entrada : atual.entrySet()) {
+            Resultado depois = entrada.getValue();
+            Resultado antes = baseline.get(entrada.getKey());
+            if (antes == null) {
+                System.out.printf("%-90s %14s %14.3f (novo)%n", entrada.getKey(), "-", depois.score);
+                continue;
+            }
+            // Na vazão (thrpt) maior é melhor; nos modos de tempo, menor é melhor.
+            double variacao = variacao(antes.score, depois.score);
+            boolean piorou = depois.maiorMelhor ? variacao < -tolerancia : variacao > tolerancia;
+            double variacaoAlocacao = variacao(antes.alocacao, depois.alocacao);
+            boolean alocouMais = !Double.isNaN(variacaoAlocacao) && variacaoAlocacao > tolerancia;
+            if (piorou || alocouMais) {
+                pioras++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %8.1f%% %12.1f %12.1f %8.1f%% %s%n",
+                    entrada.getKey(), antes.score, depois.score, variacao * 100,
+                    antes.alocacao, depois.alocacao, variacaoAlocacao * 100,
+                    piorou || alocouMais ? "<-- PIOROU" : "");
+        }
+        for (String chave : baseline.keySet()) {
+            if (!atual.containsKey(chave)) {
+                System.out.printf("%-90s (removido)%n", chave);
+            }
+        }
+
+        System.out.println(pioras == 0 ? "Nenhuma piora acima da tolerância." : pioras + " benchmark(s) pioraram.");
+        System.exit(pioras == 0 ? 0 : 1);
+    }
+
+    private static double variacao(double antes, double depois) {
+        if (Double.isNaN(antes) || Double.isNaN(depois) || antes == 0) {
+            return Double.NaN;
+        }
+        return (depois - antes) / antes;
+    }
+
+    private static final class Resultado {
+        private final double score;
+        private final boolean maiorMelhor;
+        private final double alocacao;
+
+        private Resultado(double score, boolean maiorMelhor, double alocacao) {
+            this.score = score;
+            this.maiorMelhor = maiorMelhor;
+            this.alocacao = alocacao;
+        }
+    }
+
+    /**
+     * Lê o arquivo JMH e indexa por "benchmark [param=valor, ...]".
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Resultado> carregar(Path arquivo) throws IOException {
+        Object raiz = new Json(Files.readString(arquivo, StandardCharsets.UTF_8)).valor();
+        if (!(raiz instanceof List<?> execucoes)) {
+            throw new IllegalArgumentException(arquivo + " não é um resultado JMH em JSON.");
+        }
+        Map<String, Resultado> resultados = new LinkedHashMap<>();
+        for (Object item : execucoes) {
+            Map<String, Object> execucao = (Map<String, Object>) item;
+            String chave = execucao.get("benchmark") + " " + execucao.get("mode");
+            Object params = execucao.get("params");
+            if (params instanceof Map<?, ?> mapa) {
+                chave += " " + new TreeMap<>(mapa);
+            }
+            Map<String, Object> principal = (Map<String, Object>) execucao.get("primaryMetric");
+            double alocacao = Double.NaN;
+            Object secundarias = execucao.get("secondaryMetrics");
+            if (secundarias instanceof Map<?, ?> metricas) {
+                for (Map.Entry<?, ?> metrica : metricas.entrySet()) {
+                    if (metrica.getKey().toString().endsWith(ALOCACAO)) {
+                        alocacao = numero(((Map<String, Object>) metrica.getValue()).get("score"));
+                    }
+                }
+            }
+            boolean maiorMelhor = "thrpt".equals(execucao.get("mode"));
+            resultados.put(chave, new Resultado(numero(principal.get("score")), maiorMelhor, alocacao));
+        }
+        return resultados;
+    }
+
+    private static double numero(Object valor) {
+        if (valor instanceof Double d) {
+            return d;
+        }
+        // O JMH escreve "NaN" como texto quando não há medição.
+        return valor == null ? Double.NaN : Double.parseDouble(valor.toString());
+    }
+
+    /**
+     * Leitor JSON mínimo: objetos, arrays, textos, números, true/false/null.
+     */
+    private static final class Json {
+        private final String s;
+        private int pos;
+
+        private Json(String s) {
+            this.s = s;
+        }
+
+        private Object valor() {
+            espacos();
+            char c = s.charAt(pos);
+            switch (c) {
+                case '{' -> {
+                    pos++;
+                    Map<String, Object> objeto = new LinkedHashMap<>();
+                    espacos();
+                    if (s.charAt(pos) == '}') {
+                        pos++;
+                        return objeto;
+                    }
+                    while (true) {
+                        espacos();
+                        String chave = texto();
+                        espacos();
+                        esperar(':');
+                        objeto.put(chave, valor());
+                        espacos();
+                        char d = s.charAt(pos++);
+                        if (d == '}') {
+                            return objeto;
+                        }
+                        if (d != ',') {
+                            throw erro("esperado ',' ou '}'");
+                        }
+                    }
+                }
+                case '[' -> {
+                    pos++;
+                    List<Object> lista = new ArrayList<>();
+                    espacos();
+                    if (s.charAt(pos) == ']') {
+                        pos++;
+                        return lista;
+                    }
+                    while (true) {
+                        lista.add(valor());
+                        espacos();
+                        char d = s.charAt(pos++);
+                        if (d == ']') {
+                            return lista;
+                        }
+                        if (d != ',') {
+                            throw erro("esperado ',' ou ']'");
+                        }
+                    }
+                }
+                case '"' -> {
+                    return texto();
+                }
+                default -> {
+                    int inicio = pos;
+                    while (pos < s.length() && ",}] \t\r\n".indexOf(s.charAt(pos)) < 0) {
+                        pos++;
+                    }
+                    String literal = s.substring(inicio, pos);
+                    return switch (literal) {
+                        case "null" -> null;
+                        case "true" -> Boolean.TRUE;
+                        case "false" -> Boolean.FALSE;
+                        default -> Double.parseDouble(literal);
+                    };
+                }
+            }
+        }
+
+        private String texto() {
+            esperar('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = s.charAt(pos++);
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c == '\\') {
+                    char e = s.charAt(pos++);
+                    switch (e) {
+                        case 'n' -> sb.append('\n');
+                        case 't' -> sb.append('\t');
+                        case 'r' -> sb.append('\r');
+                        case 'u' -> {
+                            sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                            pos += 4;
+                        }
+                        default -> sb.append(e);
+                    }
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+
+        private void espacos() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private void esperar(char c) {
+            if (s.charAt(pos++) != c) {
+                throw erro("esperado '" + c + "'");
+            }
+        }
+
+        private IllegalArgumentException erro(String mensagem) {
+            return new IllegalArgumentException("JSON inválido na posição " + pos + ": " + mensagem);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package br.inatel.Benchmarks;
+
+import br.inatel.DAO.CopyCountCache;
+import br.inatel.DAO.EmprestimoDao;
+import br.inatel.DAO.ExemplarDao;
+import br.inatel.DAO.LivroDao;
+import br.inatel.DAO.MultaDao;
+import br.inatel.DAO.UsuarioDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * readAll() de ponta a ponta (pool, consulta, JOINs e mapeamento) contra o H2 em memória.
+ * Os números absolutos não valem para o MySQL, mas servem para comparar versões do código.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadAllBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int autoresPorLivro;
+
+    @Param({"1000", "10000"})
+    public int livros;
+
+    private BancoH2 banco;
+    private LivroDao livroDao;
+    private ExemplarDao exemplarDao;
+    private EmprestimoDao emprestimoDao;
+    private MultaDao multaDao;
+    private UsuarioDao usuarioDao;
+
+    @Setup
+    public void setup() throws SQLException {
+        banco = new BancoH2(4);
+        banco.popular(livros, autoresPorLivro, 2, 1_000);
+        CopyCountCache copyCounts = new CopyCountCache(banco.getPool());
+        livroDao = new LivroDao(banco.getPool(), copyCounts);
+        exemplarDao = new ExemplarDao(banco.getPool(), copyCounts);
+        emprestimoDao = new EmprestimoDao(banco.getPool());
+        multaDao = new MultaDao(banco.getPool());
+        usuarioDao = new UsuarioDao(banco.getPool());
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        banco.close();
+    }
+
+    @Benchmark
+    public List<?> livroReadAll() throws SQLException {
+        return livroDao.readAll();
+    }
+
+    @Benchmark
+    public void livroStreamAll(Blackhole bh) throws SQLException {
+        livroDao.streamAll(bh::consume);
+    }
+
+    @Benchmark
+    public List<?> exemplarReadAll() throws SQLException {
+        return exemplarDao.readAll();
+    }
+
+    @Benchmark
+    public List<?> emprestimoReadAll() throws SQLException {
+        return emprestimoDao.readAll();
+    }
+
+    @Benchmark
+    public List<?> multaReadAll() throws SQLException {
+        return multaDao.readAll();
+    }
+
+    @Benchmark
+    public List<?> usuarioReadAll() throws SQLException {
+        return usuarioDao.readAll();
+    }
+}
@@ -0,0 +1,143 @@
+package br.inatel.DAO;
+
+import br.inatel.Benchmarks.BancoH2;
+import br.inatel.Biblioteca.Emprestimo;
+import br.inatel.Biblioteca.Exemplar_livro;
+import br.inatel.Biblioteca.Livro;
+import br.inatel.Biblioteca.Usuario;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Histórico de empréstimos com 1 milhão de linhas: mapeamento por índice (EmprestimoDao atual,
+ * colunas resolvidas uma vez por ResultSet) contra o mapeamento antigo, que buscava cada coluna
+ * pelo rótulo em toda linha.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class HistoricoEmprestimosBenchmark {
+
+    @Param({"1000000"})
+    public int linhas;
+
+    private BancoH2 banco;
+    private EmprestimoDao emprestimoDao;
+    private SimpleResultSet historico;
+
+    @Setup
+    public void setup() throws SQLException {
+        banco = new BancoH2(1);
+        emprestimoDao = new EmprestimoDao(banco.getPool());
+
+        historico = new SimpleResultSet();
+        historico.addColumn("idEmprestimo", Types.INTEGER, 10, 0);
+        historico.addColumn("dataEmprestimo", Types.DATE, 10, 0);
+        historico.addColumn("dataDevolucao", Types.DATE, 10, 0);
+        historico.addColumn("idUsuario", Types.INTEGER, 10, 0);
+        historico.addColumn("nome", Types.VARCHAR, 150, 0);
+        historico.addColumn("email", Types.VARCHAR, 150, 0);
+        historico.addColumn("telefone", Types.VARCHAR, 30, 0);
+        historico.addColumn("tipo", Types.VARCHAR, 30, 0);
+        historico.addColumn("id_livro", Types.INTEGER, 10, 0);
+        historico.addColumn("status", Types.BOOLEAN, 1, 0);
+        historico.addColumn("isbn", Types.VARCHAR, 20, 0);
+        historico.addColumn("titulo", Types.VARCHAR, 255, 0);
+
+        // Valores repetidos são compartilhados entre as linhas para o milhão de linhas caber no heap.
+        Date[] datas = new Date[730];
+        for (int i = 0; i < datas.length; i++) {
+            datas[i] = Date.valueOf(LocalDate.of(2023, 1, 1).plusDays(i));
+        }
+        int usuarios = 5_000;
+        String[] nomes = new String[usuarios];
+        String[] emails = new String[usuarios];
+        for (int i = 0; i < usuarios; i++) {
+            nomes[i] = "Usuário " + i;
+            emails[i] = "usuario" + i + "@biblioteca.br";
+        }
+        int exemplares = 50_000;
+        String[] isbns = new String[exemplares];
+        String[] titulos = new String[exemplares];
+        for (int i = 0; i < exemplares; i++) {
+            isbns[i] = BancoH2.isbn(i);
+            titulos[i] = "Livro " + i;
+        }
+        for (int i = 0; i < linhas; i++) {
+            int u = i % usuarios;
+            int e = i % exemplares;
+            historico.addRow(
+                    i + 1, datas[i % datas.length], i % 4 == 0 ? null : datas[(i + 14) % datas.length],
+                    u + 1, nomes[u], emails[u], "(35) 99999-0000", u % 5 == 0 ? "Professor" : "Aluno",
+                    e + 1, i % 4 == 0,
+                    isbns[e], titulos[e]);
+        }
+        historico.setAutoClose(false);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        banco.close();
+    }
+
+    @Benchmark
+    public List<Emprestimo> porIndice() throws SQLException {
+        historico.beforeFirst();
+        return emprestimoDao.processResultSet(historico);
+    }
+
+    @Benchmark
+    public List<Emprestimo> porRotulo() throws SQLException {
+        historico.beforeFirst();
+        List<Emprestimo> emprestimos = new ArrayList<>(linhas);
+        while (historico.next()) {
+            emprestimos.add(mapearPorRotulo(historico));
+        }
+        return emprestimos;
+    }
+
+    // Mapeamento como era antes dos índices resolvidos: uma busca de coluna por rótulo em cada getXxx.
+    private static Emprestimo mapearPorRotulo(ResultSet rs) throws SQLException {
+        Usuario usuario = new Usuario(
+                rs.getInt("idUsuario"), rs.getString("nome"),
+                rs.getString("email"), rs.getString("telefone"), rs.getString("tipo")
+        );
+        Livro livro = new Livro(
+                rs.getString("isbn"), null, rs.getString("titulo"), null, new ArrayList<>()
+        );
+        Exemplar_livro exemplar = new Exemplar_livro(
+                rs.getInt("id_livro"), livro, rs.getBoolean("status")
+        );
+        Date dataDevolucaoSQL = rs.getDate("dataDevolucao");
+        return new Emprestimo(
+                rs.getInt("idEmprestimo"),
+                rs.getDate("dataEmprestimo").toLocalDate(),
+                dataDevolucaoSQL != null ? dataDevolucaoSQL.toLocalDate() : null,
+                usuario,
+                exemplar
+        );
+    }
+}
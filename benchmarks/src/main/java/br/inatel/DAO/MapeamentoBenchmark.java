@@ -0,0 +1,272 @@
+package br.inatel.DAO;
+
+import br.inatel.Benchmarks.BancoH2;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede só a camada de mapeamento (processResultSet e mapRowToMainEntity de cada DAO),
+ * sem banco: os ResultSets são montados em memória com as mesmas colunas das consultas reais.
+ *
+ * Largura = autores por livro (linhas por entidade no JOIN); profundidade = número de livros.
+ * Os DAOs de empréstimo e multa não têm filhos: para eles só a profundidade importa.
+ * Com -prof gc, gc.alloc.rate.norm dividido por (livros × autoresPorLivro) dá os bytes alocados por linha.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapeamentoBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int autoresPorLivro;
+
+    @Param({"100", "10000"})
+    public int livros;
+
+    private BancoH2 banco;
+    private LivroDao livroDao;
+    private ExemplarDao exemplarDao;
+    private EmprestimoDao emprestimoDao;
+    private MultaDao multaDao;
+
+    private SimpleResultSet livrosRs;
+    private SimpleResultSet exemplaresRs;
+    private SimpleResultSet emprestimosRs;
+    private SimpleResultSet multasRs;
+
+    // ResultSets de uma linha, já posicionados, para medir mapRowToMainEntity isolado.
+    private SimpleResultSet linhaLivro;
+    private SimpleResultSet linhaExemplar;
+    private SimpleResultSet linhaEmprestimo;
+    private SimpleResultSet linhaMulta;
+    private int[] colunasLivro;
+    private int[] colunasExemplar;
+    private int[] colunasEmprestimo;
+    private int[] colunasMulta;
+
+    @Setup
+    public void setup() throws SQLException {
+        // Banco vazio: só atende a carga (única) do CopyCountCache usado pelo LivroDao.
+        banco = new BancoH2(2);
+        CopyCountCache copyCounts = new CopyCountCache(banco.getPool());
+        livroDao = new LivroDao(banco.getPool(), copyCounts);
+        exemplarDao = new ExemplarDao(banco.getPool(), copyCounts);
+        emprestimoDao = new EmprestimoDao(banco.getPool());
+        multaDao = new MultaDao(banco.getPool());
+
+        livrosRs = colunasLivro();
+        exemplaresRs = colunasExemplar();
+        emprestimosRs = colunasEmprestimo();
+        multasRs = colunasMulta();
+        for (int l = 0; l < livros; l++) {
+            for (int a = 0; a < autoresPorLivro; a++) {
+                livrosRs.addRow(linhaLivro(l, a));
+                exemplaresRs.addRow(linhaExemplar(l, a));
+            }
+            emprestimosRs.addRow(linhaEmprestimo(l));
+            multasRs.addRow(linhaMulta(l));
+        }
+
+        linhaLivro = colunasLivro();
+        linhaLivro.addRow(linhaLivro(0, 0));
+        linhaExemplar = colunasExemplar();
+        linhaExemplar.addRow(linhaExemplar(0, 0));
+        linhaEmprestimo = colunasEmprestimo();
+        linhaEmprestimo.addRow(linhaEmprestimo(0));
+        linhaMulta = colunasMulta();
+        linhaMulta.addRow(linhaMulta(0));
+        for (SimpleResultSet rs : List.of(linhaLivro, linhaExemplar, linhaEmprestimo, linhaMulta)) {
+            rs.setAutoClose(false);
+            rs.next();
+        }
+        colunasLivro = ColumnIndexes.resolve(linhaLivro, livroDao.getColumnLabels());
+        colunasExemplar = ColumnIndexes.resolve(linhaExemplar, exemplarDao.getColumnLabels());
+        colunasEmprestimo = ColumnIndexes.resolve(linhaEmprestimo, emprestimoDao.getColumnLabels());
+        colunasMulta = ColumnIndexes.resolve(linhaMulta, multaDao.getColumnLabels());
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        banco.close();
+    }
+
+    // ---------- processResultSet ----------
+
+    @Benchmark
+    public List<?> livroProcessResultSet() throws SQLException {
+        return livroDao.processResultSet(rebobinar(livrosRs));
+    }
+
+    @Benchmark
+    public void livroProcessResultSetStreaming(Blackhole bh) throws SQLException {
+        livroDao.processResultSet(rebobinar(livrosRs), bh::consume);
+    }
+
+    @Benchmark
+    public List<?> exemplarProcessResultSet() throws SQLException {
+        return exemplarDao.processResultSet(rebobinar(exemplaresRs));
+    }
+
+    @Benchmark
+    public List<?> emprestimoProcessResultSet() throws SQLException {
+        return emprestimoDao.processResultSet(rebobinar(emprestimosRs));
+    }
+
+    @Benchmark
+    public List<?> multaProcessResultSet() throws SQLException {
+        return multaDao.processResultSet(rebobinar(multasRs));
+    }
+
+    // ---------- mapRowToMainEntity ----------
+
+    @Benchmark
+    public Object livroMapRow() throws SQLException {
+        return livroDao.mapRowToMainEntity(linhaLivro, colunasLivro);
+    }
+
+    @Benchmark
+    public Object exemplarMapRow() throws SQLException {
+        return exemplarDao.mapRowToMainEntity(linhaExemplar, colunasExemplar);
+    }
+
+    @Benchmark
+    public Object emprestimoMapRow() throws SQLException {
+        return emprestimoDao.mapRowToMainEntity(linhaEmprestimo, colunasEmprestimo);
+    }
+
+    @Benchmark
+    public Object multaMapRow() throws SQLException {
+        return multaDao.mapRowToMainEntity(linhaMulta, colunasMulta);
+    }
+
+    private static SimpleResultSet rebobinar(SimpleResultSet rs) throws SQLException {
+        rs.setAutoClose(false);
+        rs.beforeFirst();
+        return rs;
+    }
+
+    // ---------- ResultSets sintéticos (mesmas colunas das consultas dos DAOs) ----------
+
+    private static SimpleResultSet colunasLivro() {
+        SimpleResultSet rs = new SimpleResultSet();
+        rs.addColumn("isbn", Types.VARCHAR, 20, 0);
+        rs.addColumn("titulo", Types.VARCHAR, 255, 0);
+        rs.addColumn("anoPublicacao", Types.INTEGER, 10, 0);
+        rs.addColumn("idCategoria", Types.INTEGER, 10, 0);
+        rs.addColumn("nomeCategoria", Types.VARCHAR, 100, 0);
+        rs.addColumn("id", Types.INTEGER, 10, 0);
+        rs.addColumn("nome", Types.VARCHAR, 150, 0);
+        rs.addColumn("paisOrigem", Types.VARCHAR, 100, 0);
+        return rs;
+    }
+
+    private static Object[] linhaLivro(int livro, int autor) {
+        return new Object[]{
+                BancoH2.isbn(livro), "Livro " + livro, 1950 + livro % 75,
+                1 + livro % 20, "Categoria " + (1 + livro % 20),
+                1 + livro * 7 + autor, "Autor " + (livro * 7 + autor), "País " + autor % 50
+        };
+    }
+
+    private static SimpleResultSet colunasExemplar() {
+        SimpleResultSet rs = new SimpleResultSet();
+        rs.addColumn("id_livro", Types.INTEGER, 10, 0);
+        rs.addColumn("status", Types.BOOLEAN, 1, 0);
+        rs.addColumn("isbn", Types.VARCHAR, 20, 0);
+        rs.addColumn("titulo", Types.VARCHAR, 255, 0);
+        rs.addColumn("anoPublicacao", Types.INTEGER, 10, 0);
+        rs.addColumn("idCategoria", Types.INTEGER, 10, 0);
+        rs.addColumn("nomeCategoria", Types.VARCHAR, 100, 0);
+        rs.addColumn("id", Types.INTEGER, 10, 0);
+        rs.addColumn("nome", Types.VARCHAR, 150, 0);
+        rs.addColumn("paisOrigem", Types.VARCHAR, 100, 0);
+        return rs;
+    }
+
+    private static Object[] linhaExemplar(int livro, int autor) {
+        Object[] doLivro = linhaLivro(livro, autor);
+        Object[] linha = new Object[doLivro.length + 2];
+        linha[0] = livro + 1;
+        linha[1] = livro % 2 == 0;
+        System.arraycopy(doLivro, 0, linha, 2, doLivro.length);
+        return linha;
+    }
+
+    private static SimpleResultSet colunasEmprestimo() {
+        SimpleResultSet rs = new SimpleResultSet();
+        rs.addColumn("idEmprestimo", Types.INTEGER, 10, 0);
+        rs.addColumn("dataEmprestimo", Types.DATE, 10, 0);
+        rs.addColumn("dataDevolucao", Types.DATE, 10, 0);
+        rs.addColumn("idUsuario", Types.INTEGER, 10, 0);
+        rs.addColumn("nome", Types.VARCHAR, 150, 0);
+        rs.addColumn("email", Types.VARCHAR, 150, 0);
+        rs.addColumn("telefone", Types.VARCHAR, 30, 0);
+        rs.addColumn("tipo", Types.VARCHAR, 30, 0);
+        rs.addColumn("id_livro", Types.INTEGER, 10, 0);
+        rs.addColumn("status", Types.BOOLEAN, 1, 0);
+        rs.addColumn("isbn", Types.VARCHAR, 20, 0);
+        rs.addColumn("titulo", Types.VARCHAR, 255, 0);
+        return rs;
+    }
+
+    private static Object[] linhaEmprestimo(int i) {
+        LocalDate data = LocalDate.of(2024, 1, 1).plusDays(i % 365);
+        return new Object[]{
+                i + 1, Date.valueOf(data), i % 3 == 0 ? Date.valueOf(data.plusDays(14)) : null,
+                1 + i % 500, "Usuário " + i % 500, "usuario" + i % 500 + "@biblioteca.br", "(35) 99999-0000", "Aluno",
+                i + 1, i % 3 != 0,
+                BancoH2.isbn(i), "Livro " + i
+        };
+    }
+
+    private static SimpleResultSet colunasMulta() {
+        SimpleResultSet rs = new SimpleResultSet();
+        rs.addColumn("idMulta", Types.INTEGER, 10, 0);
+        rs.addColumn("multa", Types.DOUBLE, 17, 0);
+        rs.addColumn("juros", Types.DOUBLE, 17, 0);
+        rs.addColumn("idEmprestimo", Types.INTEGER, 10, 0);
+        rs.addColumn("dataEmprestimo", Types.DATE, 10, 0);
+        rs.addColumn("dataDevolucao", Types.DATE, 10, 0);
+        rs.addColumn("idUsuario", Types.INTEGER, 10, 0);
+        rs.addColumn("nome", Types.VARCHAR, 150, 0);
+        rs.addColumn("email", Types.VARCHAR, 150, 0);
+        rs.addColumn("id_livro", Types.INTEGER, 10, 0);
+        rs.addColumn("status", Types.BOOLEAN, 1, 0);
+        rs.addColumn("isbn", Types.VARCHAR, 20, 0);
+        rs.addColumn("titulo", Types.VARCHAR, 255, 0);
+        return rs;
+    }
+
+    private static Object[] linhaMulta(int i) {
+        Object[] emprestimo = linhaEmprestimo(i);
+        return new Object[]{
+                i + 1, 2.5 * (1 + i % 40), 0.01 * (i % 10),
+                emprestimo[0], emprestimo[1], emprestimo[2],
+                emprestimo[3], emprestimo[4], emprestimo[5],
+                emprestimo[8], emprestimo[9],
+                emprestimo[10], emprestimo[11]
+        };
+    }
+}
@@ -0,0 +1,61 @@
+-- Esquema da biblioteca para o H2 (modo MySQL) usado nos benchmarks.
+CREATE TABLE categoria (
+    idCategoria INT AUTO_INCREMENT PRIMARY KEY,
+    nomeCategoria VARCHAR(100) NOT NULL
+);
+CREATE TABLE autor (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    nome VARCHAR(150) NOT NULL,
+    paisOrigem VARCHAR(100)
+);
+CREATE TABLE usuario (
+    idUsuario INT AUTO_INCREMENT PRIMARY KEY,
+    nome VARCHAR(150) NOT NULL,
+    email VARCHAR(150),
+    telefone VARCHAR(30),
+    tipo VARCHAR(30)
+);
+CREATE TABLE livro (
+    isbn VARCHAR(20) PRIMARY KEY,
+    titulo VARCHAR(255) NOT NULL,
+    anoPublicacao INT,
+    categoria_idCategoria INT NOT NULL
+);
+CREATE TABLE livro_has_autor (
+    livro_ISBN VARCHAR(20) NOT NULL,
+    autor_idAutor INT NOT NULL,
+    PRIMARY KEY (livro_ISBN, autor_idAutor)
+);
+CREATE TABLE exemplar_livro (
+    id_livro INT AUTO_INCREMENT PRIMARY KEY,
+    isbn_livro VARCHAR(20) NOT NULL,
+    status BOOLEAN NOT NULL DEFAULT FALSE
+);
+CREATE INDEX idx_exemplar_isbn_status ON exemplar_livro (isbn_livro, status);
+CREATE TABLE emprestimo (
+    idEmprestimo INT AUTO_INCREMENT PRIMARY KEY,
+    dataEmprestimo DATE NOT NULL,
+    dataDevolucao DATE,
+    usuario_idUsuario INT NOT NULL,
+    livro_id INT NOT NULL
+);
+-- Os mesmos índices da migração 2 (br.inatel.Migracao.Migracoes).
+CREATE INDEX idx_emprestimo_usuario ON emprestimo (usuario_idUsuario);
+CREATE INDEX idx_emprestimo_exemplar ON emprestimo (livro_id);
+CREATE INDEX idx_emprestimo_data ON emprestimo (dataEmprestimo);
+-- Empréstimos abertos em ordem de chave (GeradorMultas).
+CREATE INDEX idx_emprestimo_abertos ON emprestimo (dataDevolucao, idEmprestimo);
+CREATE TABLE multa (
+    idMulta INT AUTO_INCREMENT PRIMARY KEY,
+    multa DOUBLE NOT NULL,
+    juros DOUBLE NOT NULL,
+    emprestimo_idEmprestimo INT NOT NULL
+);
+-- Uma multa por empréstimo (MultaDao.upsertAll usa ON DUPLICATE KEY UPDATE).
+CREATE UNIQUE INDEX uq_multa_emprestimo ON multa (emprestimo_idEmprestimo);
+CREATE TABLE tarefa_checkpoint (
+    tarefa VARCHAR(50) PRIMARY KEY,
+    dataReferencia DATE NOT NULL,
+    ultimaChave INT NOT NULL,
+    concluida BOOLEAN NOT NULL
+);
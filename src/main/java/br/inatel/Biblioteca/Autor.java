@@ -4,7 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class Autor {
-    private final int id;
+    private int id;
     private final String nome;
     private final String nacionalidade;
 
@@ -18,6 +18,10 @@ public class Autor {
         return id;
     }
 
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public String getNome() {
         return nome;
     }
@@ -5,7 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class Categoria {
-    private final int id;
+    private int id;
     private final String nome;
 
     public Categoria(int id, String nome) {
@@ -16,6 +16,10 @@ public class Categoria {
     public int getId() {
         return id;
     }
+
+    public void setId(int id) {
+        this.id = id;
+    }
     public String getNome() {
         return nome;
     }
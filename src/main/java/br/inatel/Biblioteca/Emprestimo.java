@@ -3,20 +3,25 @@ package br.inatel.Biblioteca;
 import java.time.LocalDate;
 
 public class Emprestimo {
-    private final Integer id;
+    private Integer id;
     private final LocalDate dataEmprestimo;
     private final LocalDate dataDevolucao;
-    private final Usuario usuario;
-    private final Exemplar_livro livro;
+    private final Lazy<Usuario> usuario;
+    private final Lazy<Exemplar_livro> livro;
 
     public Emprestimo(LocalDate dataEmprestimo, Usuario usuario, Exemplar_livro livro) {
         this.id = null;
         this.dataEmprestimo = dataEmprestimo;
         this.dataDevolucao = null;
-        this.usuario = usuario;
-        this.livro = livro;
+        this.usuario = Lazy.of(usuario);
+        this.livro = Lazy.of(livro);
     }
     public Emprestimo(Integer id, LocalDate dataEmprestimo, LocalDate dataDevolucao, Usuario usuario, Exemplar_livro livro) {
+        this(id, dataEmprestimo, dataDevolucao, Lazy.of(usuario), Lazy.of(livro));
+    }
+
+    // Usuário e exemplar carregados sob demanda (modo LAZY dos DAOs).
+    public Emprestimo(Integer id, LocalDate dataEmprestimo, LocalDate dataDevolucao, Lazy<Usuario> usuario, Lazy<Exemplar_livro> livro) {
         this.id = id;
         this.dataEmprestimo = dataEmprestimo;
         this.dataDevolucao = dataDevolucao;
@@ -28,6 +33,10 @@ public class Emprestimo {
         return id;
     }
 
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public LocalDate getDataEmprestimo() {
         return dataEmprestimo;
     }
@@ -37,10 +46,10 @@ public class Emprestimo {
     }
 
     public Usuario getUsuario() {
-        return usuario;
+        return usuario.get();
     }
 
     public Exemplar_livro getLivro() {
-        return livro;
+        return livro.get();
     }
 }
@@ -1,7 +1,7 @@
 package br.inatel.Biblioteca;
 
 public class Exemplar_livro {
-    private final int id;
+    private int id;
     private final Livro livro;
     private final boolean status;
 
@@ -14,6 +14,10 @@ public class Exemplar_livro {
     public int getId() {
         return id;
     }
+
+    public void setId(int id) {
+        this.id = id;
+    }
     public Livro getLivro() {
         return livro;
     }
@@ -0,0 +1,63 @@
+package br.inatel.Biblioteca;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Referência para um valor que pode ser carregado só no primeiro acesso.
+ * As entidades guardam suas associações (autores de um livro, usuário e exemplar
+ * de um empréstimo) em um Lazy: no modo EAGER dos DAOs ele já vem preenchido;
+ * no modo LAZY o DAO entrega uma função que busca o valor no banco quando get() é chamado.
+ *
+ * A carga roda com um ReentrantLock, não com synchronized: ela vai ao banco, e uma thread
+ * virtual (AsyncDao, servidor HTTP) bloqueada dentro de um monitor prenderia a thread portadora.
+ */
+public final class Lazy<T> implements Supplier<T> {
+    private Supplier<? extends T> loader;
+    private T value;
+    private volatile boolean loaded;
+    // Só nos que carregam sob demanda (null em Lazy.of).
+    private final ReentrantLock carga;
+
+    private Lazy(T value, Supplier<? extends T> loader, boolean loaded) {
+        this.value = value;
+        this.loader = loader;
+        this.loaded = loaded;
+        this.carga = loaded ? null : new ReentrantLock();
+    }
+
+    /**
+     * Valor já conhecido; get() nunca vai ao banco.
+     */
+    public static <T> Lazy<T> of(T value) {
+        return new Lazy<>(value, null, true);
+    }
+
+    /**
+     * Valor buscado por 'loader' no primeiro get(); as chamadas seguintes devolvem o mesmo objeto.
+     */
+    public static <T> Lazy<T> loading(Supplier<? extends T> loader) {
+        return new Lazy<>(null, loader, false);
+    }
+
+    @Override
+    public T get() {
+        if (!loaded) {
+            carga.lock();
+            try {
+                if (!loaded) {
+                    value = loader.get();
+                    loader = null; // Libera o carregador (e o que ele referencia) depois do uso.
+                    loaded = true;
+                }
+            } finally {
+                carga.unlock();
+            }
+        }
+        return value;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+}
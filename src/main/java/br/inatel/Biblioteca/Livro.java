@@ -11,10 +11,15 @@ public class Livro{
     private final String titulo;
     private final Integer anoPublicacao;
     private final Categoria categoria;
-    private final List<Autor> autores;
+    private final Lazy<List<Autor>> autores;
     private int quantidadeExemplares;
 
     public Livro(String isbn, Categoria categoria, String titulo, Integer anoPublicacao, List<Autor> autores) {
+        this(isbn, categoria, titulo, anoPublicacao, Lazy.of(autores));
+    }
+
+    // Autores carregados sob demanda (modo LAZY dos DAOs).
+    public Livro(String isbn, Categoria categoria, String titulo, Integer anoPublicacao, Lazy<List<Autor>> autores) {
         this.isbn = isbn;
         this.categoria = categoria;
         this.titulo = titulo;
@@ -24,7 +29,7 @@ public class Livro{
     }
 
     public List<Autor> getAutores() {
-        return Collections.unmodifiableList(this.autores);
+        return Collections.unmodifiableList(this.autores.get());
     }
 
     public String getIsbn() {
@@ -43,7 +48,7 @@ public class Livro{
         return categoria;
     }
     public void addAutor(Autor autor) {
-        this.autores.add(autor);
+        this.autores.get().add(autor);
     }
 
     public int getQuantidadeExemplares() {
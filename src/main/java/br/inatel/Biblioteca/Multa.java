@@ -1,7 +1,7 @@
 package br.inatel.Biblioteca;
 
 public class Multa {
-    private final int id;
+    private int id;
     private final double multa;
     private final double juros;
     private final Emprestimo emprestimo;
@@ -17,6 +17,10 @@ public class Multa {
         return id;
     }
 
+    public void setId(int id) {
+        this.id = id;
+    }
+
     public double getMulta() {
         return multa;
     }
@@ -1,7 +1,7 @@
 package br.inatel.Biblioteca;
 
 public class Usuario {
-    private final int id;
+    private int id;
     private final String nome;
     private final String email;
     private final String telefone;
@@ -34,4 +34,8 @@ public class Usuario {
     public int getId() {
         return id;
     }
+
+    public void setId(int id) {
+        this.id = id;
+    }
 }
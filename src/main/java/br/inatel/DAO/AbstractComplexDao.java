@@ -1,70 +1,286 @@
 package br.inatel.DAO;
 
+import br.inatel.Metricas.EventoMapeamento;
+import br.inatel.Metricas.Operacao;
+import br.inatel.Metricas.RegistroMetricas;
+
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
-import java.util.LinkedHashMap; // Usamos LinkedHashMap para manter a ordem de inserção
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Classe abstrata que implementa o padrão Template Method para DAOs complexos.
  * Ela gerencia o processo de montar objetos que têm relações um-para-muitos
  * a partir de um ResultSet.
+ * Cada processResultSet gera um EventoMapeamento do Java Flight Recorder quando há gravação ativa.
  *
  * @param <T> O tipo da entidade principal (ex: Livro, Emprestimo).
  * @param <K> O tipo da chave primária da entidade principal (ex: String, Integer).
  */
 public abstract class AbstractComplexDao<T, K> {
+    // Linhas por ida ao servidor no streaming dos bancos que não são MySQL.
+    private static final int STREAMING_FETCH_SIZE = 1_000;
+
+    // null: sem métricas do mapeamento.
+    private Operacao mapeamento;
+
+    /**
+     * Passa a registrar o tempo e as linhas lidas de cada processResultSet na operação
+     * "NomeDaClasse.processResultSet". Chame antes de compartilhar o DAO entre threads.
+     */
+    public void setMetricas(RegistroMetricas metricas) {
+        this.mapeamento = metricas.operacaoDao(getClass().getSimpleName() + ".processResultSet");
+    }
 
     /**
      * O "Template Method". Ele define o esqueleto do algoritmo de processamento.
      * Este metodo não pode ser sobrescrito (é final).
+     * Como na variante em streaming, a consulta PRECISA estar ordenada pela chave principal:
+     * só o conjunto de filhos da entidade em montagem fica em memória. Linhas de uma chave
+     * que reaparece depois de outra viram IllegalStateException.
      */
     protected final List<T> processResultSet(ResultSet rs) throws SQLException {
-        // Usamos um Map para agrupar as entidades filhas sob a entidade principal.
-        Map<K, T> map = new LinkedHashMap<>();
+        EventoMapeamento evento = new EventoMapeamento();
+        evento.begin();
+        Operacao metrica = mapeamento;
+        long inicio = metrica == null ? 0 : System.nanoTime();
+        long linhas = 0;
+        // As linhas de uma entidade vêm seguidas (a consulta é ordenada pela chave), então basta
+        // um conjunto de filhos, reaproveitado: ao trocar de chave o grupo anterior está completo.
+        // 'vistas' só confere esse contrato; uma chave por entidade, que já ficaria na lista.
+        List<T> result = new ArrayList<>();
+        Set<K> vistas = new HashSet<>();
+        K lastKey = null;
+        T entity = null;
+        ChildIdSet children = new ChildIdSet();
+        // Os rótulos das colunas viram índices uma vez só; dentro do laço tudo é lido por índice.
+        int[] columns = ColumnIndexes.resolve(rs, getColumnLabels());
 
         while (rs.next()) {
+            linhas++;
             // Pede para a subclasse extrair a chave da linha atual.
-            K key = getKeyFromResultSet(rs);
-
-            // Pega a entidade principal do mapa. Se não existir, pede para a subclasse criar.
-            T mainEntity = map.computeIfAbsent(key, k -> {
-                try {
-                    return mapRowToMainEntity(rs);
-                } catch (SQLException e) {
-                    throw new RuntimeException(e);
+            K key = getKeyFromResultSet(rs, columns);
+
+            if (entity == null || !Objects.equals(key, lastKey)) {
+                if (!vistas.add(key)) {
+                    throw new IllegalStateException(getClass().getSimpleName()
+                            + ": linhas da chave " + key + " fora de sequência; ordene a consulta pela chave.");
                 }
-            });
+                // Primeira linha desta entidade: pede para a subclasse criá-la.
+                entity = mapRowToMainEntity(rs, columns);
+                result.add(entity);
+                children.clear();
+                lastKey = key;
+            }
 
             // Pede para a subclasse adicionar a entidade aninhada (o lado "muitos" da relação).
-            addNestedEntity(mainEntity, rs);
+            addNestedEntity(entity, children, rs, columns);
+        }
+
+        if (metrica != null) {
+            metrica.registrar(System.nanoTime() - inicio, linhas);
+        }
+        evento.concluir(getClass(), linhas, result.size(), false);
+        return result;
+    }
+
+    /**
+     * Variante em streaming do Template Method: em vez de montar a lista inteira,
+     * entrega cada entidade principal para 'action' assim que a chave muda.
+     * Só uma entidade fica em memória por vez, mas a consulta PRECISA estar ordenada
+     * pela chave principal (todas as linhas de uma mesma entidade devem vir juntas).
+     * Com métricas ligadas, o tempo registrado inclui o que 'action' gasta com cada entidade.
+     */
+    protected final void processResultSet(ResultSet rs, Consumer<? super T> action) throws SQLException {
+        EventoMapeamento evento = new EventoMapeamento();
+        evento.begin();
+        Operacao metrica = mapeamento;
+        long inicio = metrica == null ? 0 : System.nanoTime();
+        long linhas = 0;
+        long entidades = 0;
+        K currentKey = null;
+        T currentEntity = null;
+        // Um único conjunto reaproveitado: ao trocar de entidade o grupo anterior está completo.
+        ChildIdSet children = new ChildIdSet();
+        int[] columns = ColumnIndexes.resolve(rs, getColumnLabels());
+
+        while (rs.next()) {
+            linhas++;
+            K key = getKeyFromResultSet(rs, columns);
+
+            // Mudou a chave: a entidade anterior está completa e pode ser entregue.
+            if (currentEntity == null || !Objects.equals(key, currentKey)) {
+                if (currentEntity != null) {
+                    action.accept(currentEntity);
+                    entidades++;
+                }
+                currentKey = key;
+                currentEntity = mapRowToMainEntity(rs, columns);
+                children.clear();
+            }
+
+            addNestedEntity(currentEntity, children, rs, columns);
+        }
+        if (currentEntity != null) {
+            action.accept(currentEntity);
+            entidades++;
+        }
+        if (metrica != null) {
+            metrica.registrar(System.nanoTime() - inicio, linhas);
         }
-        return new ArrayList<>(map.values());
+        evento.concluir(getClass(), linhas, entidades, true);
+    }
+
+    /**
+     * Cria um Statement que lê o ResultSet linha a linha do servidor.
+     * No MySQL, forward-only + read-only + fetchSize Integer.MIN_VALUE ativa o modo streaming,
+     * então o driver não carrega o resultado inteiro na memória.
+     * Enquanto o ResultSet estiver aberto a conexão não pode ser usada para outra consulta.
+     * Outros bancos (ex.: o H2 dos benchmarks) rejeitam fetchSize negativo e recebem um lote fixo.
+     */
+    protected static Statement createStreamingStatement(Connection conn) throws SQLException {
+        Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        boolean mysql = "MySQL".equalsIgnoreCase(conn.getMetaData().getDatabaseProductName());
+        stmt.setFetchSize(mysql ? Integer.MIN_VALUE : STREAMING_FETCH_SIZE);
+        return stmt;
     }
 
+    /**
+     * As subclasses DEVEM implementar este metodo para informar os rótulos das colunas que
+     * leem. Antes do laço eles são resolvidos para índices (ver ColumnIndexes), e os métodos
+     * abaixo recebem esses índices na mesma ordem: columns[i] é o índice de getColumnLabels()[i].
+     * @return Os rótulos das colunas usadas no mapeamento.
+     */
+    protected abstract String[] getColumnLabels();
+
     /**
      * As subclasses DEVEM implementar este metodo para extrair a chave primária
      * da entidade principal a partir de uma linha do ResultSet.
      * @param rs O ResultSet na linha atual.
+     * @param columns Índices das colunas de getColumnLabels().
      * @return A chave primária.
      */
-    protected abstract K getKeyFromResultSet(ResultSet rs) throws SQLException;
+    protected abstract K getKeyFromResultSet(ResultSet rs, int[] columns) throws SQLException;
 
     /**
      * As subclasses DEVEM implementar este metodo para criar a entidade principal
      * (o lado "um" da relação) a partir de uma linha do ResultSet.
      * @param rs O ResultSet na linha atual.
+     * @param columns Índices das colunas de getColumnLabels().
      * @return O objeto da entidade principal.
      */
-    protected abstract T mapRowToMainEntity(ResultSet rs) throws SQLException;
+    protected abstract T mapRowToMainEntity(ResultSet rs, int[] columns) throws SQLException;
 
     /**
      * As subclasses DEVEM implementar este metodo para criar e adicionar a entidade
      * aninhada (o lado "muitos") à entidade principal.
      * @param mainEntity A entidade principal onde a entidade aninhada será adicionada.
+     * @param seenChildren Ids dos filhos já adicionados a esta entidade principal;
+     *                     use {@code seenChildren.add(id)} para saber se o filho é novo.
      * @param rs O ResultSet na linha atual.
+     * @param columns Índices das colunas de getColumnLabels().
+     */
+    protected abstract void addNestedEntity(T mainEntity, ChildIdSet seenChildren, ResultSet rs, int[] columns) throws SQLException;
+
+    /**
+     * Conjunto de ids inteiros (endereçamento aberto, sem boxing) usado para evitar
+     * filhos repetidos quando o JOIN multiplica as linhas da entidade principal.
+     * A tabela só é alocada quando o primeiro filho aparece.
      */
-    protected abstract void addNestedEntity(T mainEntity, ResultSet rs) throws SQLException;
+    protected static final class ChildIdSet {
+        private static final int INITIAL_CAPACITY = 8; // potência de 2
+
+        private int[] table; // 0 marca posição vazia
+        private int size;
+        private boolean containsZero;
+
+        /**
+         * Adiciona o id e diz se ele ainda não estava no conjunto.
+         */
+        public boolean add(int id) {
+            if (id == 0) {
+                boolean added = !containsZero;
+                containsZero = true;
+                return added;
+            }
+            if (table == null) {
+                table = new int[INITIAL_CAPACITY];
+            }
+            int mask = table.length - 1;
+            int i = mix(id) & mask;
+            while (table[i] != 0) {
+                if (table[i] == id) {
+                    return false;
+                }
+                i = (i + 1) & mask;
+            }
+            table[i] = id;
+            if (++size * 2 > table.length) { // mantém a ocupação abaixo de 50%
+                grow();
+            }
+            return true;
+        }
+
+        public boolean contains(int id) {
+            if (id == 0) {
+                return containsZero;
+            }
+            if (table == null) {
+                return false;
+            }
+            int mask = table.length - 1;
+            int i = mix(id) & mask;
+            while (table[i] != 0) {
+                if (table[i] == id) {
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            return false;
+        }
+
+        public int size() {
+            return size + (containsZero ? 1 : 0);
+        }
+
+        /**
+         * Esvazia o conjunto mantendo a tabela já alocada.
+         */
+        public void clear() {
+            if (table != null && size > 0) {
+                Arrays.fill(table, 0);
+            }
+            size = 0;
+            containsZero = false;
+        }
+
+        private void grow() {
+            int[] old = table;
+            table = new int[old.length * 2];
+            int mask = table.length - 1;
+            for (int id : old) {
+                if (id != 0) {
+                    int i = mix(id) & mask;
+                    while (table[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    table[i] = id;
+                }
+            }
+        }
+
+        // Espalha ids sequenciais (auto_increment) pela tabela.
+        private static int mix(int id) {
+            int h = id * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
 }
\ No newline at end of file
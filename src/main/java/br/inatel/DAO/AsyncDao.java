@@ -0,0 +1,136 @@
+package br.inatel.DAO;
+
+import br.inatel.Interfaces.Dao;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Fachada assíncrona sobre qualquer Dao: cada chamada roda em uma virtual thread e
+ * devolve um CompletableFuture, para disparar leituras independentes ao mesmo tempo.
+ *
+ * - O DAO embrulhado pega uma conexão própria do pool em cada operação, então chamadas
+ *   simultâneas não disputam a mesma conexão.
+ * - Um semáforo por fachada limita quantas chamadas deste DAO rodam ao mesmo tempo.
+ *   Sem ele, centenas de virtual threads ficariam na fila do pool até estourar o timeout
+ *   de empréstimo de conexão.
+ * - Uma SQLException chega no futuro como CompletionException; join() a desembrulha.
+ * - Cancelar o futuro antes de a chamada conseguir sua vez no semáforo faz ela não rodar;
+ *   uma chamada já em andamento termina (para limitar, use LimiteTempoConsultas).
+ *
+ * @param <T> Tipo da entidade.
+ * @param <K> Tipo da chave.
+ */
+public class AsyncDao<T, K> {
+    // Virtual threads são baratas: uma por chamada, sem pool de threads para dimensionar.
+    private static final ExecutorService VIRTUAL_THREADS = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Dao<T, K> delegate;
+    private final Semaphore permits;
+
+    /**
+     * @param maxConcurrency Máximo de chamadas simultâneas; não adianta passar do tamanho do pool.
+     */
+    public AsyncDao(Dao<T, K> delegate, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency deve ser positivo: " + maxConcurrency);
+        }
+        this.delegate = delegate;
+        this.permits = new Semaphore(maxConcurrency, true);
+    }
+
+    /**
+     * Uma operação de DAO que pode lançar SQLException.
+     */
+    @FunctionalInterface
+    public interface DaoCall<R> {
+        R call() throws SQLException;
+    }
+
+    public CompletableFuture<K> create(T entity) {
+        return submit(() -> delegate.create(entity));
+    }
+
+    public CompletableFuture<T> read(K id) {
+        return submit(() -> delegate.read(id));
+    }
+
+    public CompletableFuture<List<T>> readMany(Collection<K> ids) {
+        return submit(() -> delegate.readMany(ids));
+    }
+
+    public CompletableFuture<List<T>> readAll() {
+        return submit(delegate::readAll);
+    }
+
+    public CompletableFuture<List<T>> readPage(K after, int limit) {
+        return submit(() -> delegate.readPage(after, limit));
+    }
+
+    public CompletableFuture<Boolean> delete(K id) {
+        return submit(() -> delegate.delete(id));
+    }
+
+    public CompletableFuture<List<K>> createAll(Collection<T> entities) {
+        return submit(() -> delegate.createAll(entities));
+    }
+
+    public CompletableFuture<Integer> deleteAll(Collection<K> ids) {
+        return submit(() -> delegate.deleteAll(ids));
+    }
+
+    /**
+     * Roda qualquer operação com as mesmas regras (virtual thread + limite deste DAO),
+     * inclusive as que não estão na interface, como {@code dao.submit(() -> livroDao.readPage(...))}.
+     */
+    public <R> CompletableFuture<R> submit(DaoCall<R> call) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        VIRTUAL_THREADS.execute(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.completeExceptionally(e);
+                return;
+            }
+            try {
+                // Quem esperava desistiu (cancel, prazo estourado) enquanto a chamada estava na fila.
+                if (!future.isDone()) {
+                    future.complete(call.call());
+                }
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                permits.release();
+            }
+        });
+        return future;
+    }
+
+    public Dao<T, K> getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * Espera o resultado e devolve a SQLException original, para quem continua no mundo síncrono.
+     */
+    public static <R> R join(CompletableFuture<R> future) throws SQLException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException sql) {
+                throw sql;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+}
@@ -1,31 +1,46 @@
 package br.inatel.DAO;
 
 import br.inatel.Biblioteca.Autor;
+import br.inatel.Interfaces.ConnectionProvider;
 import br.inatel.Interfaces.Dao; // Garanta que o pacote da interface está correto
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class AutorDao implements Dao<Autor, Integer> {
-    private Connection conn;
+    // Colunas lidas pelas listagens; resolvidas para índices uma vez por ResultSet.
+    private static final String[] COLUNAS = {"id", "nome", "paisOrigem"};
+    private static final int ID = 0;
+    private static final int NOME = 1;
+    private static final int PAIS_ORIGEM = 2;
 
-    public AutorDao(Connection connection) {
-        this.conn = connection;
+    private final ConnectionProvider connectionProvider;
+
+    public AutorDao(ConnectionProvider connectionProvider) {
+        this.connectionProvider = connectionProvider;
     }
     @Override
-    public boolean create(Autor autor) throws SQLException {
+    public Integer create(Autor autor) throws SQLException {
         String sql = "INSERT INTO autor (nome, paisOrigem) VALUES (?, ?)";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, autor.getNome());
             stmt.setString(2, autor.getNacionalidade());
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() == 0) {
+                return null;
+            }
+            int id = GeneratedKeys.single(stmt);
+            autor.setId(id);
+            return id;
         }
     }
     @Override
     public Autor read(Integer id) throws SQLException {
         String sql = "SELECT * FROM autor WHERE id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
@@ -40,30 +55,88 @@ public class AutorDao implements Dao<Autor, Integer> {
         return null;
     }
 
+    // Uma consulta IN (...) por bloco de chaves, em vez de um read(id) por chave.
+    @Override
+    public List<Autor> readMany(Collection<Integer> ids) throws SQLException {
+        List<Autor> autores = new ArrayList<>();
+        String sql = "SELECT * FROM autor WHERE id IN (%s)";
+        InLists.query(connectionProvider, sql, ids, rs -> {
+            int[] col = ColumnIndexes.resolve(rs, COLUNAS);
+            while (rs.next()) {
+                autores.add(new Autor(
+                        rs.getInt(col[ID]),
+                        rs.getString(col[NOME]),
+                        rs.getString(col[PAIS_ORIGEM])
+                ));
+            }
+        });
+        return InLists.inKeyOrder(ids, autores, Autor::getId);
+    }
+
     @Override
     public List<Autor> readAll() throws SQLException {
         List<Autor> autores = new ArrayList<>();
         String sql = "SELECT * FROM autor";
-        try (Statement stmt = conn.createStatement();
+        try (Connection conn = connectionProvider.getConnection();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
+            int[] col = ColumnIndexes.resolve(rs, COLUNAS);
             while (rs.next()) {
                 // Os nomes das colunas aqui já estavam corretos
                 autores.add(new Autor(
-                        rs.getInt("id"),
-                        rs.getString("nome"),
-                        rs.getString("paisOrigem")
+                        rs.getInt(col[ID]),
+                        rs.getString(col[NOME]),
+                        rs.getString(col[PAIS_ORIGEM])
                 ));
             }
         }
         return autores;
     }
 
+    @Override
+    public List<Autor> readPage(Integer after, int limit) throws SQLException {
+        List<Autor> autores = new ArrayList<>();
+        String sql = "SELECT * FROM autor WHERE id > ? ORDER BY id LIMIT ?";
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, after == null ? 0 : after);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                int[] col = ColumnIndexes.resolve(rs, COLUNAS);
+                while (rs.next()) {
+                    autores.add(new Autor(
+                            rs.getInt(col[ID]),
+                            rs.getString(col[NOME]),
+                            rs.getString(col[PAIS_ORIGEM])
+                    ));
+                }
+            }
+        }
+        return autores;
+    }
+
     @Override
     public boolean delete(Integer id) throws SQLException {
         String sql = "DELETE FROM autor WHERE id = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             return stmt.executeUpdate() > 0;
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public List<Integer> createAll(Collection<Autor> autores) throws SQLException {
+        String sql = "INSERT INTO autor (nome, paisOrigem) VALUES (?, ?)";
+        return Batches.insertInChunks(connectionProvider, sql, autores, (stmt, autor) -> {
+            stmt.setString(1, autor.getNome());
+            stmt.setString(2, autor.getNacionalidade());
+        }, Autor::setId);
+    }
+
+    @Override
+    public int deleteAll(Collection<Integer> ids) throws SQLException {
+        String sql = "DELETE FROM autor WHERE id = ?";
+        return Batches.executeInChunks(connectionProvider, sql, ids, (stmt, id) -> stmt.setInt(1, id));
+    }
+}
@@ -0,0 +1,329 @@
+package br.inatel.DAO;
+
+import br.inatel.Interfaces.ConnectionProvider;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Índice em memória dos exemplares disponíveis de cada livro, para o balcão responder
+ * "tem exemplar livre deste ISBN?" sem listar e percorrer todos os exemplares.
+ *
+ * Por ISBN guarda os ids dos exemplares e um BitSet com as posições dos que estão livres,
+ * mais a contagem de livres. availableCount é O(1) e firstAvailableCopy é um nextSetBit
+ * (uma palavra de 64 exemplares por passo), sem ida ao banco.
+ *
+ * É carregado com uma única consulta (load() na inicialização, ou no primeiro uso) e
+ * mantido pelos métodos de escrita: ExemplarDao.create/delete, EmprestimoDao.create/update/delete
+ * e LivroDao.delete. Escritas em lote que não informam quais exemplares mudaram chamam
+ * invalidate(), e a próxima leitura recarrega.
+ *
+ * Concorrência: as consultas usam a trava de leitura e as escritas, a de escrita (poucas e
+ * curtas). A carga roda sem nenhuma das duas: monta um índice novo enquanto o atual continua
+ * respondendo, reaplica nele as escritas que chegaram durante a consulta e só então o troca.
+ * Só uma carga roda por vez; quem precisa do índice ainda não carregado espera por ela.
+ *
+ * Só enxerga as escritas feitas por este processo: se outro processo também grava no banco,
+ * o resultado é uma sugestão. EmprestimoDao.create continua reservando o exemplar com um
+ * UPDATE condicional, então uma sugestão desatualizada só faz o empréstimo falhar (null).
+ */
+public class AvailabilityIndex {
+    private final ConnectionProvider connectionProvider;
+    // Consultas em paralelo; escritas e a troca do índice, uma de cada vez.
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Uma carga por vez. Não é um monitor: a thread virtual que espera não prende a thread portadora.
+    private final ReentrantLock carga = new ReentrantLock();
+    private Indice indice; // null: não carregado
+    // Escritas recebidas durante a carga em andamento (null: nenhuma carga), reaplicadas no índice novo.
+    private List<Alteracao> duranteCarga;
+    private boolean cargaDescartada;
+
+    public AvailabilityIndex(ConnectionProvider connectionProvider) {
+        this.connectionProvider = connectionProvider;
+    }
+
+    /**
+     * Id de um exemplar disponível do livro (o mais antigo), ou null se não houver nenhum.
+     */
+    public Integer firstAvailableCopy(String isbn) throws SQLException {
+        return consultar(indice -> indice.primeiroLivre(isbn));
+    }
+
+    /**
+     * Quantidade de exemplares disponíveis do livro (0 se não houver nenhum).
+     */
+    public int availableCount(String isbn) throws SQLException {
+        return consultar(indice -> indice.quantidadeLivres(isbn));
+    }
+
+    /**
+     * (Re)constrói o índice com uma consulta só. Chamado na inicialização para que a
+     * primeira consulta do balcão não pague a carga.
+     */
+    public void load() throws SQLException {
+        carregar(true);
+    }
+
+    /**
+     * Chamado depois que um exemplar foi inserido com sucesso.
+     */
+    public void addCopy(String isbn, int id, boolean available) {
+        alterar(indice -> {
+            indice.adicionarOuMarcar(isbn, id, available);
+            return true;
+        });
+    }
+
+    /**
+     * Chamado depois que um exemplar foi excluído.
+     */
+    public void removeCopy(int id) {
+        alterar(indice -> {
+            indice.removerExemplar(id);
+            return true;
+        });
+    }
+
+    /**
+     * Chamado depois que o livro e todos os seus exemplares foram excluídos.
+     */
+    public void removeBook(String isbn) {
+        alterar(indice -> {
+            indice.removerLivro(isbn);
+            return true;
+        });
+    }
+
+    /**
+     * Chamado depois que o empréstimo do exemplar foi confirmado.
+     */
+    public void markLent(int id) {
+        alterar(indice -> indice.marcar(id, false));
+    }
+
+    /**
+     * Chamado depois que o exemplar voltou a ficar disponível (devolução ou empréstimo excluído).
+     */
+    public void markReturned(int id) {
+        alterar(indice -> indice.marcar(id, true));
+    }
+
+    /**
+     * Descarta o índice; a próxima leitura recarrega do banco.
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            indice = null;
+            if (duranteCarga != null) {
+                // A consulta em andamento pode ter lido antes da escrita que motivou isto.
+                cargaDescartada = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private <R> R consultar(Function<Indice, R> consulta) throws SQLException {
+        lock.readLock().lock();
+        try {
+            if (indice != null) {
+                return consulta.apply(indice);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Indice carregado = carregar(false);
+        lock.readLock().lock();
+        try {
+            // Se a carga foi descartada por um invalidate(), ainda serve para esta consulta.
+            return consulta.apply(indice != null ? indice : carregado);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Monta o índice fora das travas de leitura e escrita e o troca pelo atual, se nada o invalidou.
+    // Sem 'forcar', aproveita o índice que outra carga acabou de instalar enquanto esta esperava.
+    private Indice carregar(boolean forcar) throws SQLException {
+        String sql = "SELECT id_livro, isbn_livro, status FROM exemplar_livro ORDER BY id_livro";
+        carga.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                if (!forcar && indice != null) {
+                    return indice;
+                }
+                duranteCarga = new ArrayList<>();
+                cargaDescartada = false;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            Indice novo = new Indice();
+            boolean lido = false;
+            try {
+                try (Connection conn = connectionProvider.getConnection();
+                     Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
+                    while (rs.next()) {
+                        // status true = emprestado.
+                        novo.adicionar(rs.getString(2), rs.getInt(1), !rs.getBoolean(3));
+                    }
+                }
+                lido = true;
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    if (lido) {
+                        boolean valido = !cargaDescartada;
+                        for (Alteracao alteracao : duranteCarga) {
+                            valido = valido && alteracao.aplicar(novo);
+                        }
+                        indice = valido ? novo : null;
+                    }
+                    duranteCarga = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            return novo;
+        } finally {
+            carga.unlock();
+        }
+    }
+
+    // Aplica a escrita no índice atual e a guarda para o índice que está sendo carregado, se houver.
+    private void alterar(Alteracao alteracao) {
+        lock.writeLock().lock();
+        try {
+            if (indice != null && !alteracao.aplicar(indice)) {
+                indice = null;
+            }
+            if (duranteCarga != null) {
+                duranteCarga.add(alteracao);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Uma escrita aplicada ao índice.
+     */
+    @FunctionalInterface
+    private interface Alteracao {
+        /**
+         * @return false se o índice não conhece o exemplar e precisa ser recarregado.
+         */
+        boolean aplicar(Indice indice);
+    }
+
+    /**
+     * O índice propriamente dito. Não é thread-safe: a classe de fora cuida das travas.
+     */
+    private static final class Indice {
+        private final Map<String, Copias> porIsbn = new HashMap<>();
+        private final Map<Integer, Posicao> posicoes = new HashMap<>();
+
+        private Integer primeiroLivre(String isbn) {
+            Copias copias = porIsbn.get(isbn);
+            if (copias == null || copias.quantidadeLivres == 0) {
+                return null;
+            }
+            return copias.ids[copias.livres.nextSetBit(0)];
+        }
+
+        private int quantidadeLivres(String isbn) {
+            Copias copias = porIsbn.get(isbn);
+            return copias == null ? 0 : copias.quantidadeLivres;
+        }
+
+        private void adicionarOuMarcar(String isbn, int id, boolean livre) {
+            Posicao posicao = posicoes.get(id);
+            if (posicao != null) {
+                posicao.copias.marcar(posicao.indice, livre);
+            } else {
+                adicionar(isbn, id, livre);
+            }
+        }
+
+        private void removerExemplar(int id) {
+            Posicao posicao = posicoes.remove(id);
+            if (posicao != null) {
+                // A posição fica vazia: não é reaproveitada, só deixa de contar como livre.
+                posicao.copias.marcar(posicao.indice, false);
+            }
+        }
+
+        private void removerLivro(String isbn) {
+            Copias copias = porIsbn.remove(isbn);
+            if (copias == null) {
+                return;
+            }
+            for (int i = 0; i < copias.tamanho; i++) {
+                Posicao posicao = posicoes.get(copias.ids[i]);
+                if (posicao != null && posicao.copias == copias) {
+                    posicoes.remove(copias.ids[i]);
+                }
+            }
+        }
+
+        // false: exemplar criado fora deste processo, o índice não o conhece.
+        private boolean marcar(int id, boolean livre) {
+            Posicao posicao = posicoes.get(id);
+            if (posicao == null) {
+                return false;
+            }
+            posicao.copias.marcar(posicao.indice, livre);
+            return true;
+        }
+
+        private void adicionar(String isbn, int id, boolean livre) {
+            Copias copias = porIsbn.computeIfAbsent(isbn, k -> new Copias());
+            int indice = copias.adicionar(id);
+            copias.marcar(indice, livre);
+            posicoes.put(id, new Posicao(copias, indice));
+        }
+    }
+
+    /**
+     * Exemplares de um ISBN: ids[i] é o exemplar da posição i; o bit i de 'livres' diz se ele
+     * está disponível. Os ids vêm em ordem de inserção, então o primeiro livre é o mais antigo.
+     */
+    private static final class Copias {
+        private int[] ids = new int[4];
+        private int tamanho;
+        private final BitSet livres = new BitSet();
+        private int quantidadeLivres;
+
+        private int adicionar(int id) {
+            if (tamanho == ids.length) {
+                ids = Arrays.copyOf(ids, tamanho * 2);
+            }
+            ids[tamanho] = id;
+            return tamanho++;
+        }
+
+        private void marcar(int indice, boolean livre) {
+            if (livres.get(indice) != livre) {
+                livres.set(indice, livre);
+                quantidadeLivres += livre ? 1 : -1;
+            }
+        }
+    }
+
+    private record Posicao(Copias copias, int indice) {
+    }
+}
@@ -0,0 +1,85 @@
+package br.inatel.DAO;
+
+import br.inatel.Biblioteca.Lazy;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Carregador em lote das associações do modo LAZY.
+ *
+ * Cada entidade lida recebe um Lazy ligado a este carregador. No primeiro acesso a
+ * qualquer um deles, todas as chaves ainda pendentes são buscadas juntas com consultas
+ * IN (...) em blocos (ver InLists), em vez de uma consulta por entidade (N+1).
+ *
+ * Um carregador vale para uma leitura (um readAll, uma página...): ele guarda os valores
+ * carregados e é descartado junto com as entidades.
+ *
+ * A carga roda com um ReentrantLock, não com synchronized: uma thread virtual bloqueada
+ * no banco dentro de um monitor prenderia a thread de plataforma que a carrega.
+ *
+ * @param <K> Tipo da chave da associação (ex: ISBN do livro, id do usuário).
+ * @param <V> Tipo do valor carregado (ex: lista de autores, Usuario).
+ */
+class BatchLoader<K, V> {
+    /**
+     * Busca os valores de várias chaves de uma vez. Chaves sem valor podem ficar de fora do mapa.
+     */
+    @FunctionalInterface
+    interface Loader<K, V> {
+        Map<K, V> loadAll(List<K> keys) throws SQLException;
+    }
+
+    private final String description;
+    private final Loader<K, V> loader;
+    // Protegidos por 'lock', que também serializa as cargas.
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Set<K> pending = new LinkedHashSet<>();
+    private final Map<K, V> loaded = new HashMap<>();
+
+    BatchLoader(String description, Loader<K, V> loader) {
+        this.description = description;
+        this.loader = loader;
+    }
+
+    /**
+     * Registra a chave para a próxima carga em lote e devolve a referência que a resolve.
+     */
+    Lazy<V> lazy(K key) {
+        lock.lock();
+        try {
+            if (!loaded.containsKey(key)) {
+                pending.add(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return Lazy.loading(() -> get(key));
+    }
+
+    private V get(K key) {
+        lock.lock();
+        try {
+            if (!loaded.containsKey(key)) {
+                pending.add(key);
+                List<K> keys = new ArrayList<>(pending);
+                Map<K, V> values = loader.loadAll(keys);
+                for (K k : keys) {
+                    loaded.put(k, values.get(k));
+                }
+                pending.clear();
+            }
+            return loaded.get(key);
+        } catch (SQLException e) {
+            throw new LazyLoadException("Erro ao carregar " + description + " sob demanda.", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
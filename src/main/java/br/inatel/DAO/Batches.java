@@ -0,0 +1,155 @@
+package br.inatel.DAO;
+
+import br.inatel.Interfaces.ConnectionProvider;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Utilitários de escrita em lote usados pelos createAll/deleteAll dos DAOs.
+ *
+ * Os itens são divididos em blocos de CHUNK_SIZE; cada bloco roda em uma transação
+ * própria com addBatch/executeBatch (com rewriteBatchedStatements=true o driver do MySQL
+ * junta os INSERTs de um bloco em um único INSERT multi-linha).
+ * Se um bloco falhar ele é revertido e a exceção sobe; os blocos anteriores já estão confirmados.
+ * Dentro de uma transação do TransactionManager cada bloco vira um savepoint e nada é
+ * confirmado antes da transação externa.
+ */
+final class Batches {
+    static final int CHUNK_SIZE = 500;
+
+    private Batches() {
+    }
+
+    /**
+     * Preenche os parâmetros do PreparedStatement para um item.
+     */
+    @FunctionalInterface
+    interface Binder<E> {
+        void bind(PreparedStatement stmt, E item) throws SQLException;
+    }
+
+    /**
+     * Recebe a chave gerada pelo banco para um item inserido.
+     */
+    @FunctionalInterface
+    interface KeySetter<E> {
+        void setKey(E item, int key);
+    }
+
+    /**
+     * Grava um bloco usando a conexão (já em transação) e devolve quantas linhas afetou.
+     */
+    @FunctionalInterface
+    interface ChunkWriter<E> {
+        int write(Connection conn, List<E> chunk) throws SQLException;
+    }
+
+    /**
+     * Divide os itens em blocos e chama 'writer' para cada um, cada bloco em um inTransaction próprio.
+     */
+    static <E> int inChunks(ConnectionProvider connectionProvider, Collection<? extends E> items,
+                            ChunkWriter<E> writer) throws SQLException {
+        if (items.isEmpty()) {
+            return 0;
+        }
+        int affected = 0;
+        List<E> chunk = new ArrayList<>(Math.min(CHUNK_SIZE, items.size()));
+        for (E item : items) {
+            chunk.add(item);
+            if (chunk.size() == CHUNK_SIZE) {
+                affected += writeChunk(connectionProvider, chunk, writer);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            affected += writeChunk(connectionProvider, chunk, writer);
+        }
+        return affected;
+    }
+
+    private static <E> int writeChunk(ConnectionProvider connectionProvider, List<E> chunk,
+                                      ChunkWriter<E> writer) throws SQLException {
+        return connectionProvider.inTransaction(conn -> writer.write(conn, chunk));
+    }
+
+    /**
+     * Atalho para o caso comum: um único comando SQL por item, em blocos transacionais.
+     */
+    static <E> int executeInChunks(ConnectionProvider connectionProvider, String sql,
+                                   Collection<? extends E> items, Binder<? super E> binder) throws SQLException {
+        return inChunks(connectionProvider, items, (conn, chunk) -> sum(executeBatch(conn, sql, chunk, binder)));
+    }
+
+    /**
+     * Como executeInChunks, para INSERTs em tabelas com auto_increment: cada item recebe
+     * a chave gerada por 'keySetter'.
+     * Se um bloco falhar, os itens dele podem ter recebido chaves de linhas que foram revertidas.
+     * @return As chaves geradas, na ordem dos itens.
+     */
+    static <E> List<Integer> insertInChunks(ConnectionProvider connectionProvider, String sql,
+                                            Collection<? extends E> items, Binder<? super E> binder,
+                                            KeySetter<? super E> keySetter) throws SQLException {
+        List<Integer> keys = new ArrayList<>(items.size());
+        inChunks(connectionProvider, items, (conn, chunk) -> {
+            int[] generated = insertBatch(conn, sql, chunk, binder);
+            for (int i = 0; i < generated.length; i++) {
+                keySetter.setKey(chunk.get(i), generated[i]);
+                keys.add(generated[i]);
+            }
+            return generated.length;
+        });
+        return keys;
+    }
+
+    /**
+     * Executa um INSERT para cada item do bloco em um único executeBatch.
+     * @return As chaves geradas, na mesma ordem dos itens.
+     */
+    static <E> int[] insertBatch(Connection conn, String sql, List<? extends E> chunk,
+                                 Binder<? super E> binder) throws SQLException {
+        if (chunk.isEmpty()) {
+            return new int[0];
+        }
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            for (E item : chunk) {
+                binder.bind(stmt, item);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            return GeneratedKeys.all(stmt, chunk.size());
+        }
+    }
+
+    /**
+     * Executa um comando para cada item do bloco em um único executeBatch.
+     * @return As contagens de linhas afetadas, na mesma ordem dos itens.
+     */
+    static <E> int[] executeBatch(Connection conn, String sql, List<? extends E> chunk,
+                                  Binder<? super E> binder) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (E item : chunk) {
+                binder.bind(stmt, item);
+                stmt.addBatch();
+            }
+            return stmt.executeBatch();
+        }
+    }
+
+    /**
+     * Soma as contagens de um executeBatch. SUCCESS_NO_INFO (devolvido pelo driver quando
+     * reescreve o lote) conta como uma linha.
+     */
+    static int sum(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            total += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+        }
+        return total;
+    }
+}
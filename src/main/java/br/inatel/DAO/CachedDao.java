@@ -0,0 +1,274 @@
+package br.inatel.DAO;
+
+import br.inatel.Interfaces.ConnectionProvider;
+import br.inatel.Interfaces.Dao;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Cache de leitura (read-through) que embrulha qualquer Dao.
+ * Pensado para dados de referência que quase não mudam (Categoria, Autor, Usuario).
+ *
+ * - read(id) consulta o cache antes do banco; readMany(ids) só vai ao banco pelas chaves
+ *   que faltam; readAll() guarda a lista inteira e também preenche o cache por id.
+ * - Tamanho limitado com despejo LRU e validade (TTL) por entrada.
+ * - create/delete passam direto para o DAO e invalidam o que pode ter ficado velho, na hora e
+ *   de novo depois do commit (afterCommit): uma leitura feita entre a escrita e o commit ainda
+ *   vê o valor antigo. A entidade criada (já com a chave gerada) só entra no cache por id
+ *   depois do commit; se a transação for revertida, ela nunca existiu.
+ * - readPage não é cacheado: páginas são usadas para tabelas grandes.
+ */
+public class CachedDao<T, K> implements Dao<T, K> {
+    private final Dao<T, K> delegate;
+    private final ConnectionProvider connectionProvider;
+    private final Function<T, K> keyOf;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    // LinkedHashMap em ordem de acesso = LRU. Protegido por 'this'.
+    private final Map<K, Entry<T>> entries;
+    private Entry<List<T>> all;
+    // Incrementada a cada escrita: um valor lido do banco antes de uma escrita não entra no cache.
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param connectionProvider O mesmo do DAO embrulhado: as atualizações do cache que dependem
+     *                           de uma escrita esperam o commit dela (afterCommit).
+     */
+    public CachedDao(Dao<T, K> delegate, Function<T, K> keyOf, int maxSize, Duration ttl,
+                     ConnectionProvider connectionProvider) {
+        this.delegate = delegate;
+        this.connectionProvider = connectionProvider;
+        this.keyOf = keyOf;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<T>> eldest) {
+                if (size() > CachedDao.this.maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public T read(K id) throws SQLException {
+        long now = System.nanoTime();
+        long readGeneration;
+        synchronized (this) {
+            Entry<T> entry = entries.get(id);
+            if (entry != null && !entry.isExpired(now)) {
+                hits.increment();
+                return entry.value;
+            }
+            readGeneration = generation;
+        }
+        misses.increment();
+        T value = delegate.read(id);
+        if (value != null) {
+            synchronized (this) {
+                if (generation == readGeneration) {
+                    entries.put(id, new Entry<>(value, now + ttlNanos));
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Responde do cache as chaves que ele tem e busca só as que faltam, com um único readMany.
+     */
+    @Override
+    public List<T> readMany(Collection<K> ids) throws SQLException {
+        long now = System.nanoTime();
+        long readGeneration;
+        List<T> values = new ArrayList<>(ids.size());
+        List<K> missing = new ArrayList<>();
+        synchronized (this) {
+            for (K id : ids) {
+                Entry<T> entry = entries.get(id);
+                if (entry != null && !entry.isExpired(now)) {
+                    hits.increment();
+                    values.add(entry.value);
+                } else {
+                    misses.increment();
+                    missing.add(id);
+                }
+            }
+            readGeneration = generation;
+        }
+        if (!missing.isEmpty()) {
+            List<T> loaded = delegate.readMany(missing);
+            values.addAll(loaded);
+            synchronized (this) {
+                if (generation == readGeneration) {
+                    long expiresAt = now + ttlNanos;
+                    for (T value : loaded) {
+                        entries.put(keyOf.apply(value), new Entry<>(value, expiresAt));
+                    }
+                }
+            }
+        }
+        return InLists.inKeyOrder(ids, values, keyOf);
+    }
+
+    @Override
+    public List<T> readAll() throws SQLException {
+        long now = System.nanoTime();
+        long readGeneration;
+        synchronized (this) {
+            if (all != null && !all.isExpired(now)) {
+                hits.increment();
+                return all.value;
+            }
+            readGeneration = generation;
+        }
+        misses.increment();
+        List<T> values = List.copyOf(delegate.readAll());
+        synchronized (this) {
+            if (generation != readGeneration) {
+                return values;
+            }
+            long expiresAt = now + ttlNanos;
+            all = new Entry<>(values, expiresAt);
+            // Aproveita a lista para responder os próximos read(id) sem ir ao banco.
+            for (T value : values) {
+                entries.put(keyOf.apply(value), new Entry<>(value, expiresAt));
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public List<T> readPage(K after, int limit) throws SQLException {
+        return delegate.readPage(after, limit);
+    }
+
+    @Override
+    public K create(T entity) throws SQLException {
+        K key;
+        try {
+            key = delegate.create(entity);
+        } finally {
+            // A lista completa passou a ter um item a mais.
+            invalidate(List.of());
+        }
+        if (key != null) {
+            connectionProvider.afterCommit(() -> {
+                synchronized (this) {
+                    generation++;
+                    all = null;
+                    entries.put(key, new Entry<>(entity, System.nanoTime() + ttlNanos));
+                }
+            });
+        }
+        return key;
+    }
+
+    @Override
+    public boolean delete(K id) throws SQLException {
+        try {
+            return delegate.delete(id);
+        } finally {
+            invalidateNowAndAfterCommit(List.of(id));
+        }
+    }
+
+    @Override
+    public List<K> createAll(Collection<T> entities) throws SQLException {
+        try {
+            return delegate.createAll(entities);
+        } finally {
+            invalidateNowAndAfterCommit(List.of());
+        }
+    }
+
+    @Override
+    public int deleteAll(Collection<K> ids) throws SQLException {
+        try {
+            return delegate.deleteAll(ids);
+        } finally {
+            invalidateNowAndAfterCommit(ids);
+        }
+    }
+
+    private void invalidateNowAndAfterCommit(Collection<K> ids) {
+        invalidate(ids);
+        connectionProvider.afterCommit(() -> invalidate(ids));
+    }
+
+    // Remove as chaves e a lista completa; leituras já em andamento não entram no cache.
+    private synchronized void invalidate(Collection<K> ids) {
+        generation++;
+        for (K id : ids) {
+            entries.remove(id);
+        }
+        all = null;
+    }
+
+    /**
+     * Descarta todo o conteúdo do cache (as estatísticas são mantidas).
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+        all = null;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Cache: entradas=%d, acertos=%d, faltas=%d, despejos=%d, taxa de acerto=%.1f%%",
+                size(), getHits(), getMisses(), getEvictions(), getHitRate() * 100);
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt > 0;
+        }
+    }
+}
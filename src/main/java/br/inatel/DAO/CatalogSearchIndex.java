@@ -0,0 +1,421 @@
+package br.inatel.DAO;
+
+import br.inatel.Biblioteca.Autor;
+import br.inatel.Biblioteca.Livro;
+
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido em memória para a busca do catálogo (digitação com sugestões).
+ *
+ * Cada livro é indexado pelas palavras do título, dos nomes dos autores e do nome da
+ * categoria, normalizadas (minúsculas, sem acento). O dicionário de palavras é ordenado,
+ * então as palavras que começam com um prefixo formam um intervalo contíguo.
+ *
+ * search("dom cas", 10): cada palavra da busca é um prefixo e todas precisam casar com
+ * alguma palavra do livro. A nota soma, por palavra da busca, o peso do campo onde ela casou
+ * (título 3, autor 2, categoria 1), em dobro se a palavra for exata e não só prefixo.
+ * A palavra mais seletiva (menos ocorrências) é processada primeiro, para que as outras
+ * só filtrem candidatos.
+ *
+ * Carregado com load(livroDao) na inicialização e mantido por LivroDao.create/createAll/delete/deleteAll.
+ * Mudanças de nome de autor ou categoria não são vistas até o próximo load().
+ * Buscas rodam em paralelo entre si; escritas travam o índice por um instante.
+ * O load() monta um índice novo fora da trava, enquanto o atual continua respondendo às buscas,
+ * reaplica nele os add/remove que chegaram durante a leitura e só então o troca, como o
+ * AvailabilityIndex. Antes do primeiro load() as buscas não encontram nada.
+ */
+public class CatalogSearchIndex {
+    private static final int PESO_TITULO = 3;
+    private static final int PESO_AUTOR = 2;
+    private static final int PESO_CATEGORIA = 1;
+    private static final byte CAMPO_TITULO = 1;
+    private static final byte CAMPO_AUTOR = 2;
+    private static final byte CAMPO_CATEGORIA = 4;
+    // Livros excluídos (ou substituídos por add) continuam nas listas até a próxima compactação.
+    private static final int MIN_EXCLUIDOS_PARA_COMPACTAR = 1_024;
+
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    // Escritas são raras e buscas são constantes: várias buscas podem ler ao mesmo tempo.
+    // Protege 'indice' e 'duranteCarga'.
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Um load() por vez.
+    private final ReentrantLock carga = new ReentrantLock();
+    private Indice indice = new Indice();
+    // add/remove recebidos durante o load() em andamento (null: nenhum), reaplicados no índice novo.
+    private List<Consumer<Indice>> duranteCarga;
+
+    /**
+     * Um livro encontrado: o que a lista de sugestões mostra, mais a nota usada na ordenação.
+     */
+    public record Hit(String isbn, String titulo, int score) {
+    }
+
+    /**
+     * (Re)constrói o índice percorrendo todos os livros em streaming (autores e categoria
+     * vêm no mesmo SELECT). As buscas feitas durante a carga usam o índice anterior.
+     */
+    public void load(LivroDao livroDao) throws SQLException {
+        carga.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                duranteCarga = new ArrayList<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            Indice novo = new Indice();
+            boolean lido = false;
+            try {
+                livroDao.streamAll(novo::indexar);
+                lido = true;
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    if (lido) {
+                        // add/remove são idempotentes: reaplicar o que o SELECT já viu não muda nada.
+                        for (Consumer<Indice> alteracao : duranteCarga) {
+                            alteracao.accept(novo);
+                        }
+                        indice = novo;
+                    }
+                    duranteCarga = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        } finally {
+            carga.unlock();
+        }
+    }
+
+    /**
+     * Chamado depois que o livro foi inserido. Se o ISBN já estava indexado, substitui.
+     */
+    public void add(Livro livro) {
+        alterar(indice -> indice.adicionar(livro));
+    }
+
+    /**
+     * Chamado depois que o livro foi excluído.
+     */
+    public void remove(String isbn) {
+        alterar(indice -> indice.remover(isbn));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return indice.documentoDoIsbn.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void alterar(Consumer<Indice> alteracao) {
+        lock.writeLock().lock();
+        try {
+            alteracao.accept(indice);
+            if (duranteCarga != null) {
+                duranteCarga.add(alteracao);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Os até 'limit' livros mais relevantes para 'query'; cada palavra da busca vale como prefixo.
+     * Empates: título mais curto primeiro, depois ordem alfabética.
+     */
+    public List<Hit> search(String query, int limit) {
+        String[] palavras = palavras(query);
+        if (palavras.length == 0 || limit < 1) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Indice indice = this.indice;
+            List<NavigableMap<String, Ocorrencias>> intervalos = new ArrayList<>(palavras.length);
+            for (String palavra : palavras) {
+                NavigableMap<String, Ocorrencias> intervalo = indice.termos.subMap(palavra, true, palavra + Character.MAX_VALUE, false);
+                if (intervalo.isEmpty()) {
+                    return List.of(); // todas as palavras precisam casar
+                }
+                intervalos.add(intervalo);
+            }
+            // A palavra com menos ocorrências define os candidatos; as outras só filtram.
+            Integer[] ordem = new Integer[palavras.length];
+            long[] tamanhos = new long[palavras.length];
+            for (int i = 0; i < palavras.length; i++) {
+                ordem[i] = i;
+                for (Ocorrencias ocorrencias : intervalos.get(i).values()) {
+                    tamanhos[i] += ocorrencias.tamanho;
+                }
+            }
+            Arrays.sort(ordem, Comparator.comparingLong(i -> tamanhos[i]));
+
+            Pontuacao pontuacao = new Pontuacao(tamanhos[ordem[0]]);
+            for (int passo = 0; passo < ordem.length; passo++) {
+                int i = ordem[passo];
+                pontuacao.pontuar(palavras[i], intervalos.get(i), passo);
+            }
+            return melhores(indice, pontuacao, palavras.length, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<Hit> melhores(Indice indice, Pontuacao pontuacao, int palavras, int limit) {
+        Comparator<Hit> ordem = Comparator.comparingInt(Hit::score).reversed()
+                .thenComparingInt(hit -> hit.titulo().length())
+                .thenComparing(Hit::titulo);
+        // Heap com os 'limit' melhores; o pior deles fica no topo para ser trocado.
+        PriorityQueue<Hit> melhores = new PriorityQueue<>(limit + 1, ordem.reversed());
+        for (int k = 0; k < pontuacao.tocados; k++) {
+            int slot = pontuacao.candidatos[k];
+            int doc = pontuacao.documentos[slot] - 1;
+            if (pontuacao.casadas[slot] != palavras || indice.excluidos.get(doc)) {
+                continue;
+            }
+            melhores.add(new Hit(indice.isbns.get(doc), indice.titulos.get(doc), pontuacao.notas[slot]));
+            if (melhores.size() > limit) {
+                melhores.poll();
+            }
+        }
+        List<Hit> resultado = new ArrayList<>(melhores);
+        resultado.sort(ordem);
+        return resultado;
+    }
+
+    private static void marcar(Map<String, Byte> campos, String texto, byte campo) {
+        for (String palavra : palavras(texto)) {
+            campos.merge(palavra, campo, (a, b) -> (byte) (a | b));
+        }
+    }
+
+    /**
+     * Minúsculas, sem acento, quebrado em letras e dígitos: "São Paulo!" vira ["sao", "paulo"].
+     */
+    static String[] palavras(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return new String[0];
+        }
+        String normalizado = ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        return Arrays.stream(SEPARADORES.split(normalizado)).filter(p -> !p.isEmpty()).toArray(String[]::new);
+    }
+
+    private static int peso(byte campos) {
+        if ((campos & CAMPO_TITULO) != 0) {
+            return PESO_TITULO;
+        }
+        return (campos & CAMPO_AUTOR) != 0 ? PESO_AUTOR : PESO_CATEGORIA;
+    }
+
+    /**
+     * O índice propriamente dito. Só é lido ou alterado com a trava de CatalogSearchIndex,
+     * exceto o índice novo de um load(), que ninguém mais enxerga até a troca.
+     */
+    private static final class Indice {
+        private final TreeMap<String, Ocorrencias> termos = new TreeMap<>();
+        // Documento = posição nestas listas; o ISBN é a chave externa.
+        private final List<String> isbns = new ArrayList<>();
+        private final List<String> titulos = new ArrayList<>();
+        private final Map<String, Integer> documentoDoIsbn = new HashMap<>();
+        private final BitSet excluidos = new BitSet();
+        private int quantidadeExcluidos;
+
+        private void adicionar(Livro livro) {
+            excluir(livro.getIsbn());
+            indexar(livro);
+            compactarSeNecessario();
+        }
+
+        private void remover(String isbn) {
+            excluir(isbn);
+            compactarSeNecessario();
+        }
+
+        private void indexar(Livro livro) {
+            int doc = isbns.size();
+            isbns.add(livro.getIsbn());
+            titulos.add(livro.getTitulo());
+            documentoDoIsbn.put(livro.getIsbn(), doc);
+
+            // Uma ocorrência por palavra do livro, com os campos em que ela aparece.
+            Map<String, Byte> campos = new HashMap<>();
+            marcar(campos, livro.getTitulo(), CAMPO_TITULO);
+            for (Autor autor : livro.getAutores()) {
+                marcar(campos, autor.getNome(), CAMPO_AUTOR);
+            }
+            if (livro.getCategoria() != null) {
+                marcar(campos, livro.getCategoria().getNome(), CAMPO_CATEGORIA);
+            }
+            campos.forEach((termo, campo) -> termos.computeIfAbsent(termo, t -> new Ocorrencias()).adicionar(doc, campo));
+        }
+
+        private void excluir(String isbn) {
+            Integer doc = documentoDoIsbn.remove(isbn);
+            if (doc != null) {
+                excluidos.set(doc);
+                quantidadeExcluidos++;
+            }
+        }
+
+        // Compacta quando metade ou mais dos documentos já não vale (isbns tem vivos + excluídos).
+        private void compactarSeNecessario() {
+            if (quantidadeExcluidos >= MIN_EXCLUIDOS_PARA_COMPACTAR && quantidadeExcluidos * 2 >= isbns.size()) {
+                compactar();
+            }
+        }
+
+        // Renumera os documentos vivos em sequência (0, 1, 2...), na mesma ordem, liberando as
+        // posições dos excluídos em isbns/titulos, e descarta palavras que ficaram sem livro.
+        private void compactar() {
+            int[] novoNumero = new int[isbns.size()];
+            List<String> isbnsVivos = new ArrayList<>(isbns.size() - quantidadeExcluidos);
+            List<String> titulosVivos = new ArrayList<>(isbns.size() - quantidadeExcluidos);
+            for (int doc = 0; doc < isbns.size(); doc++) {
+                if (excluidos.get(doc)) {
+                    novoNumero[doc] = -1;
+                } else {
+                    novoNumero[doc] = isbnsVivos.size();
+                    isbnsVivos.add(isbns.get(doc));
+                    titulosVivos.add(titulos.get(doc));
+                }
+            }
+            termos.values().removeIf(ocorrencias -> ocorrencias.renumerar(novoNumero));
+            documentoDoIsbn.replaceAll((isbn, doc) -> novoNumero[doc]);
+            isbns.clear();
+            isbns.addAll(isbnsVivos);
+            titulos.clear();
+            titulos.addAll(titulosVivos);
+            excluidos.clear();
+            quantidadeExcluidos = 0;
+        }
+    }
+
+    /**
+     * Livros em que uma palavra aparece, em ordem de inserção, e os campos de cada ocorrência.
+     */
+    private static final class Ocorrencias {
+        private int[] documentos = new int[2];
+        private byte[] campos = new byte[2];
+        private int tamanho;
+
+        private void adicionar(int doc, byte campo) {
+            if (tamanho == documentos.length) {
+                documentos = Arrays.copyOf(documentos, tamanho * 2);
+                campos = Arrays.copyOf(campos, tamanho * 2);
+            }
+            documentos[tamanho] = doc;
+            campos[tamanho] = campo;
+            tamanho++;
+        }
+
+        // Troca cada documento pelo novo número (-1: excluído, sai da lista); true se não sobrou nenhum livro.
+        private boolean renumerar(int[] novoNumero) {
+            int j = 0;
+            for (int i = 0; i < tamanho; i++) {
+                int doc = novoNumero[documentos[i]];
+                if (doc >= 0) {
+                    documentos[j] = doc;
+                    campos[j] = campos[i];
+                    j++;
+                }
+            }
+            tamanho = j;
+            return tamanho == 0;
+        }
+    }
+
+    /**
+     * Estado de uma busca: uma tabela hash (endereçamento aberto) dos livros candidatos,
+     * dimensionada pela palavra mais seletiva, em vez de arrays do tamanho do catálogo.
+     * casadas[slot] conta quantas palavras da busca já casaram; um livro só continua
+     * candidato se casou todas as anteriores.
+     */
+    private static final class Pontuacao {
+        private final int mascara;
+        private final int deslocamento;
+        private final int[] documentos; // doc + 1; 0 = slot vazio
+        private final int[] notas;
+        private final int[] casadas;
+        private final int[] ultimaNota;
+        private final int[] candidatos; // slots ocupados, em ordem de chegada
+        private int tocados;
+
+        private Pontuacao(long maximoCandidatos) {
+            int capacidade = Integer.highestOneBit((int) Math.min(1 << 30, Math.max(8, maximoCandidatos * 2))) << 1;
+            mascara = capacidade - 1;
+            deslocamento = Integer.numberOfLeadingZeros(capacidade) + 1;
+            documentos = new int[capacidade];
+            notas = new int[capacidade];
+            casadas = new int[capacidade];
+            ultimaNota = new int[capacidade];
+            candidatos = new int[(int) Math.min(capacidade, maximoCandidatos)];
+        }
+
+        private void pontuar(String palavra, NavigableMap<String, Ocorrencias> intervalo, int passo) {
+            for (Map.Entry<String, Ocorrencias> termo : intervalo.entrySet()) {
+                boolean exata = termo.getKey().length() == palavra.length();
+                Ocorrencias ocorrencias = termo.getValue();
+                for (int i = 0; i < ocorrencias.tamanho; i++) {
+                    int slot = slot(ocorrencias.documentos[i], passo == 0);
+                    if (slot < 0) {
+                        continue; // não casou alguma palavra anterior
+                    }
+                    int nota = peso(ocorrencias.campos[i]) * (exata ? 2 : 1);
+                    if (casadas[slot] == passo) {
+                        // Primeira palavra do livro que casa com esta palavra da busca.
+                        casadas[slot]++;
+                        notas[slot] += nota;
+                        ultimaNota[slot] = nota;
+                    } else if (casadas[slot] == passo + 1 && nota > ultimaNota[slot]) {
+                        // Outra palavra do livro casa melhor: vale a maior nota.
+                        notas[slot] += nota - ultimaNota[slot];
+                        ultimaNota[slot] = nota;
+                    }
+                }
+            }
+        }
+
+        // Slot do documento; -1 se ele não é candidato e 'criar' é false.
+        private int slot(int doc, boolean criar) {
+            // Hash de Fibonacci: os bits altos do produto espalham ids consecutivos pela tabela.
+            int i = (doc * 0x9E3779B9) >>> deslocamento;
+            while (documentos[i] != 0) {
+                if (documentos[i] == doc + 1) {
+                    return i;
+                }
+                i = (i + 1) & mascara;
+            }
+            if (!criar) {
+                return -1;
+            }
+            documentos[i] = doc + 1;
+            candidatos[tocados++] = i;
+            return i;
+        }
+    }
+}
@@ -1,33 +1,46 @@
 package br.inatel.DAO;
 
 import br.inatel.Biblioteca.Categoria;
+import br.inatel.Interfaces.ConnectionProvider;
 import br.inatel.Interfaces.Dao;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class CategoriaDao implements Dao<Categoria, Integer> {
-    private Connection conn;
+    // Colunas lidas pelas listagens; resolvidas para índices uma vez por ResultSet.
+    private static final String[] COLUNAS = {"idCategoria", "nomeCategoria"};
+    private static final int ID = 0;
+    private static final int NOME = 1;
 
-    public CategoriaDao(Connection conn) {
-        this.conn = conn;
+    private final ConnectionProvider connectionProvider;
+
+    public CategoriaDao(ConnectionProvider connectionProvider) {
+        this.connectionProvider = connectionProvider;
     }
 
     @Override
-    public boolean create(Categoria categoria) throws SQLException {
+    public Integer create(Categoria categoria) throws SQLException {
         String sql = "INSERT INTO categoria (nomeCategoria) VALUES (?)";
-        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, categoria.getNome());
-            ResultSet rs = stmt.getGeneratedKeys();
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() == 0) {
+                return null;
+            }
+            int id = GeneratedKeys.single(stmt);
+            categoria.setId(id);
+            return id;
         }
     }
 
     @Override
     public Categoria read(Integer id) throws SQLException {
         String sql = "SELECT * FROM categoria WHERE idCategoria = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
@@ -40,28 +53,83 @@ public class CategoriaDao implements Dao<Categoria, Integer> {
         return null;
     }
 
+    // Uma consulta IN (...) por bloco de chaves, em vez de um read(id) por chave.
+    @Override
+    public List<Categoria> readMany(Collection<Integer> ids) throws SQLException {
+        List<Categoria> categorias = new ArrayList<>();
+        String sql = "SELECT * FROM categoria WHERE idCategoria IN (%s)";
+        InLists.query(connectionProvider, sql, ids, rs -> {
+            int[] col = ColumnIndexes.resolve(rs, COLUNAS);
+            while (rs.next()) {
+                categorias.add(new Categoria(
+                        rs.getInt(col[ID]),
+                        rs.getString(col[NOME])
+                ));
+            }
+        });
+        return InLists.inKeyOrder(ids, categorias, Categoria::getId);
+    }
+
     @Override
     public List<Categoria> readAll() throws SQLException {
         List<Categoria> categorias = new ArrayList<>();
         String sql = "SELECT * FROM categoria";
-        try (Statement stmt = conn.createStatement();
+        try (Connection conn = connectionProvider.getConnection();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
+            int[] col = ColumnIndexes.resolve(rs, COLUNAS);
             while (rs.next()) {
                 categorias.add(new Categoria(
-                        rs.getInt("idCategoria"),
-                        rs.getString("nomeCategoria")
+                        rs.getInt(col[ID]),
+                        rs.getString(col[NOME])
                 ));
             }
         }
         return categorias;
     }
 
+    @Override
+    public List<Categoria> readPage(Integer after, int limit) throws SQLException {
+        List<Categoria> categorias = new ArrayList<>();
+        String sql = "SELECT * FROM categoria WHERE idCategoria > ? ORDER BY idCategoria LIMIT ?";
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, after == null ? 0 : after);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                int[] col = ColumnIndexes.resolve(rs, COLUNAS);
+                while (rs.next()) {
+                    categorias.add(new Categoria(
+                            rs.getInt(col[ID]),
+                            rs.getString(col[NOME])
+                    ));
+                }
+            }
+        }
+        return categorias;
+    }
+
     @Override
     public boolean delete(Integer id) throws SQLException {
         String sql = "DELETE FROM categoria WHERE idCategoria = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             return stmt.executeUpdate() > 0;
         }
     }
+
+    @Override
+    public List<Integer> createAll(Collection<Categoria> categorias) throws SQLException {
+        String sql = "INSERT INTO categoria (nomeCategoria) VALUES (?)";
+        return Batches.insertInChunks(connectionProvider, sql, categorias, (stmt, categoria) -> {
+            stmt.setString(1, categoria.getNome());
+        }, Categoria::setId);
+    }
+
+    @Override
+    public int deleteAll(Collection<Integer> ids) throws SQLException {
+        String sql = "DELETE FROM categoria WHERE idCategoria = ?";
+        return Batches.executeInChunks(connectionProvider, sql, ids, (stmt, id) -> stmt.setInt(1, id));
+    }
 }
@@ -0,0 +1,56 @@
+package br.inatel.DAO;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Resolve rótulos de coluna para índices uma única vez por ResultSet.
+ *
+ * rs.getInt("nome") faz o driver procurar a coluna pelo nome (sem diferenciar maiúsculas)
+ * em toda chamada, ou seja, em toda linha. Com os índices resolvidos antes do laço,
+ * cada linha só faz rs.getInt(indice).
+ *
+ * Uso:
+ * <pre>
+ *   private static final String[] COLUNAS = {"id", "nome"};
+ *   private static final int ID = 0, NOME = 1;
+ *   ...
+ *   int[] col = ColumnIndexes.resolve(rs, COLUNAS);
+ *   while (rs.next()) {
+ *       new Autor(rs.getInt(col[ID]), rs.getString(col[NOME]), ...);
+ *   }
+ * </pre>
+ */
+final class ColumnIndexes {
+
+    private ColumnIndexes() {
+    }
+
+    /**
+     * Devolve, para cada rótulo, o índice JDBC (1-based) da coluna no ResultSet.
+     * Como no findColumn do driver, a comparação ignora maiúsculas e vale a primeira coluna com o rótulo.
+     * @throws SQLException se algum rótulo não existir no resultado.
+     */
+    static int[] resolve(ResultSet rs, String... labels) throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int count = meta.getColumnCount();
+        Map<String, Integer> byLabel = new HashMap<>(count * 2);
+        for (int i = 1; i <= count; i++) {
+            byLabel.putIfAbsent(meta.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+
+        int[] indexes = new int[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            Integer index = byLabel.get(labels[i].toLowerCase(Locale.ROOT));
+            if (index == null) {
+                throw new SQLException("Coluna '" + labels[i] + "' não encontrada no resultado da consulta.");
+            }
+            indexes[i] = index;
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,210 @@
+package br.inatel.DAO;
+
+import br.inatel.Interfaces.ConnectionProvider;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Projeção em memória da quantidade de exemplares de cada livro.
+ * Substitui o "SELECT COUNT(*) FROM exemplar_livro" correlacionado que rodava
+ * uma vez para cada linha da consulta de livros.
+ *
+ * A projeção é carregada com uma única consulta no primeiro uso e depois mantida pelos
+ * métodos de escrita: ExemplarDao.create incrementa, ExemplarDao.delete decrementa e
+ * LivroDao.delete remove o livro.
+ *
+ * Guarda os ids dos exemplares de cada livro (um int por exemplar), não só a contagem:
+ * assim incrementar um exemplar que já está lá, ou decrementar um que não está, não faz nada.
+ * Uma escrita confirmada pouco antes da carga e avisada depois dela não é contada duas vezes,
+ * e as escritas que chegam durante a consulta são reaplicadas no resultado antes da troca,
+ * como no AvailabilityIndex. A consulta roda sem trava nenhuma além da que deixa uma carga
+ * por vez (um ReentrantLock: a thread virtual que espera não prende a thread portadora).
+ */
+public class CopyCountCache {
+    private final ConnectionProvider connectionProvider;
+    // Protege as alterações, a troca da projeção e o estado da carga. Nunca é mantida durante I/O.
+    private final ReentrantLock lock = new ReentrantLock();
+    // Uma carga por vez.
+    private final ReentrantLock carga = new ReentrantLock();
+    // ISBN -> ids dos exemplares em ordem crescente; os arrays não são alterados, só trocados.
+    // null: não carregado. Lido sem trava.
+    private volatile Map<String, int[]> exemplares;
+    // Alterações recebidas durante a carga em andamento (null: nenhuma carga).
+    private List<Consumer<Map<String, int[]>>> duranteCarga;
+    private boolean cargaDescartada;
+
+    public CopyCountCache(ConnectionProvider connectionProvider) {
+        this.connectionProvider = connectionProvider;
+    }
+
+    /**
+     * Quantidade de exemplares do livro (0 se não houver nenhum).
+     */
+    public int get(String isbn) throws SQLException {
+        Map<String, int[]> atual = exemplares;
+        if (atual == null) {
+            atual = carregar();
+        }
+        int[] ids = atual.get(isbn);
+        return ids == null ? 0 : ids.length;
+    }
+
+    // Monta a projeção fora de 'lock', reaplica o que chegou durante a consulta e a instala,
+    // se nada a invalidou. Uma carga descartada ainda responde a leitura que a pediu.
+    private Map<String, int[]> carregar() throws SQLException {
+        String sql = "SELECT isbn_livro, id_livro FROM exemplar_livro ORDER BY isbn_livro, id_livro";
+        carga.lock();
+        try {
+            lock.lock();
+            try {
+                if (exemplares != null) {
+                    return exemplares;
+                }
+                duranteCarga = new ArrayList<>();
+                cargaDescartada = false;
+            } finally {
+                lock.unlock();
+            }
+            Map<String, int[]> nova = new ConcurrentHashMap<>();
+            boolean lida = false;
+            try {
+                try (Connection conn = connectionProvider.getConnection();
+                     Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(sql)) {
+                    String isbn = null;
+                    int[] ids = new int[16];
+                    int quantidade = 0;
+                    while (rs.next()) {
+                        String isbnDaLinha = rs.getString(1);
+                        if (!isbnDaLinha.equals(isbn)) {
+                            if (isbn != null) {
+                                nova.put(isbn, Arrays.copyOf(ids, quantidade));
+                            }
+                            isbn = isbnDaLinha;
+                            quantidade = 0;
+                        }
+                        if (quantidade == ids.length) {
+                            ids = Arrays.copyOf(ids, quantidade * 2);
+                        }
+                        ids[quantidade++] = rs.getInt(2);
+                    }
+                    if (isbn != null) {
+                        nova.put(isbn, Arrays.copyOf(ids, quantidade));
+                    }
+                }
+                lida = true;
+            } finally {
+                lock.lock();
+                try {
+                    if (lida && !cargaDescartada) {
+                        for (Consumer<Map<String, int[]>> alteracao : duranteCarga) {
+                            alteracao.accept(nova);
+                        }
+                        exemplares = nova;
+                    }
+                    duranteCarga = null;
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return nova;
+        } finally {
+            carga.unlock();
+        }
+    }
+
+    /**
+     * Chamado depois que o exemplar 'id' do livro foi inserido com sucesso.
+     */
+    public void increment(String isbn, int id) {
+        alterar(projecao -> projecao.compute(isbn, (chave, ids) -> comId(ids, id)));
+    }
+
+    /**
+     * Chamado depois que o exemplar 'id' do livro foi excluído com sucesso.
+     */
+    public void decrement(String isbn, int id) {
+        alterar(projecao -> projecao.computeIfPresent(isbn, (chave, ids) -> semId(ids, id)));
+    }
+
+    /**
+     * Chamado depois que o livro (e todos os seus exemplares) foi excluído.
+     */
+    public void remove(String isbn) {
+        alterar(projecao -> projecao.remove(isbn));
+    }
+
+    /**
+     * Descarta a projeção; a próxima leitura recarrega do banco.
+     */
+    public void invalidate() {
+        lock.lock();
+        try {
+            exemplares = null;
+            if (duranteCarga != null) {
+                // A consulta em andamento pode ter lido antes da escrita que motivou isto.
+                cargaDescartada = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Aplica na projeção atual e guarda para a carga em andamento. Sem projeção nem carga,
+    // não há o que manter: a próxima carga já lê a escrita do banco.
+    private void alterar(Consumer<Map<String, int[]>> alteracao) {
+        lock.lock();
+        try {
+            Map<String, int[]> atual = exemplares;
+            if (atual != null) {
+                alteracao.accept(atual);
+            }
+            if (duranteCarga != null) {
+                duranteCarga.add(alteracao);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int[] comId(int[] ids, int id) {
+        if (ids == null) {
+            return new int[]{id};
+        }
+        int posicao = Arrays.binarySearch(ids, id);
+        if (posicao >= 0) {
+            return ids;
+        }
+        int insercao = -posicao - 1;
+        int[] novos = new int[ids.length + 1];
+        System.arraycopy(ids, 0, novos, 0, insercao);
+        novos[insercao] = id;
+        System.arraycopy(ids, insercao, novos, insercao + 1, ids.length - insercao);
+        return novos;
+    }
+
+    // null remove o livro da projeção.
+    private static int[] semId(int[] ids, int id) {
+        int posicao = Arrays.binarySearch(ids, id);
+        if (posicao < 0) {
+            return ids;
+        }
+        if (ids.length == 1) {
+            return null;
+        }
+        int[] novos = new int[ids.length - 1];
+        System.arraycopy(ids, 0, novos, 0, posicao);
+        System.arraycopy(ids, posicao + 1, novos, posicao, ids.length - posicao - 1);
+        return novos;
+    }
+}
@@ -1,12 +1,17 @@
 package br.inatel.DAO;
 
 import br.inatel.Biblioteca.*;
+import br.inatel.Interfaces.ConnectionProvider;
 import br.inatel.Interfaces.Dao;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * DAO para a entidade complexa 'Emprestimo'.
@@ -14,28 +19,74 @@ import java.util.List;
  * e implementa a interface Dao para as operações de CRUD.
  */
 public class EmprestimoDao extends AbstractComplexDao<Emprestimo, Integer> implements Dao<Emprestimo, Integer> {
-    private final Connection conn;
+    private final ConnectionProvider connectionProvider;
+    private final FetchMode fetchMode;
+    private final AvailabilityIndex availability; // null: sem índice de disponibilidade
+    // Passa a true na primeira vez que o driver não informa quantas linhas cada UPDATE do lote alterou.
+    private volatile boolean reservaPorLinha;
+
+    public EmprestimoDao(ConnectionProvider connectionProvider) {
+        this(connectionProvider, FetchMode.EAGER);
+    }
+
+    /**
+     * @param fetchMode EAGER traz usuário, exemplar e livro no mesmo SELECT (JOIN); LAZY lê só
+     *                  a tabela emprestimo e busca usuário e exemplar no primeiro acesso, em lote.
+     */
+    public EmprestimoDao(ConnectionProvider connectionProvider, FetchMode fetchMode) {
+        this(connectionProvider, fetchMode, null);
+    }
 
-    public EmprestimoDao(Connection connection) {
-        this.conn = connection;
+    /**
+     * @param availability Índice de disponibilidade; empréstimos, devoluções e exclusões
+     *                     marcam nele o exemplar como emprestado ou livre (pode ser null).
+     */
+    public EmprestimoDao(ConnectionProvider connectionProvider, FetchMode fetchMode, AvailabilityIndex availability) {
+        this.connectionProvider = connectionProvider;
+        this.fetchMode = fetchMode;
+        this.availability = availability;
     }
 
     // O metodo readAll agora é muito mais simples!
     @Override
     public List<Emprestimo> readAll() throws SQLException {
-        String sql = getCompletaQuery() + " ORDER BY em.dataEmprestimo DESC";
-        try (Statement stmt = conn.createStatement();
+        if (fetchMode == FetchMode.LAZY) {
+            return readLazy(CONSULTA_SIMPLES + " ORDER BY em.dataEmprestimo DESC");
+        }
+        String sql = CONSULTA_COMPLETA + " ORDER BY em.dataEmprestimo DESC";
+        try (Connection conn = connectionProvider.getConnection();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             // Chama o metodo da classe pai para fazer o trabalho pesado.
             return processResultSet(rs);
         }
     }
 
+    /**
+     * Percorre todos os registros sem carregá-los de uma vez: cada Emprestimo é entregue
+     * para 'action' assim que todas as suas linhas forem lidas. A ordenação inclui a chave
+     * principal para que as linhas de uma mesma entidade venham juntas.
+     * Sempre usa os JOINs: carregar as associações sob demanda aqui seria uma consulta por empréstimo.
+     */
+    public void streamAll(Consumer<? super Emprestimo> action) throws SQLException {
+        String sql = CONSULTA_COMPLETA + " ORDER BY em.dataEmprestimo DESC, em.idEmprestimo";
+        try (Connection conn = connectionProvider.getConnection();
+             Statement stmt = createStreamingStatement(conn);
+             ResultSet rs = stmt.executeQuery(sql)) {
+            processResultSet(rs, action);
+        }
+    }
+
     // O metodo read também é simplificado.
     @Override
     public Emprestimo read(Integer id) throws SQLException {
-        String sql = getCompletaQuery() + " WHERE em.idEmprestimo = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        if (fetchMode == FetchMode.LAZY) {
+            List<Emprestimo> emprestimos = readLazy(POR_ID_SIMPLES, id);
+            return emprestimos.isEmpty() ? null : emprestimos.getFirst();
+        }
+        String sql = POR_ID;
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 List<Emprestimo> emprestimos = processResultSet(rs);
@@ -44,37 +95,185 @@ public class EmprestimoDao extends AbstractComplexDao<Emprestimo, Integer> imple
         }
     }
 
+    // Uma consulta IN (...) por bloco de chaves, em vez de um read(id) por chave.
+    @Override
+    public List<Emprestimo> readMany(Collection<Integer> ids) throws SQLException {
+        List<Emprestimo> emprestimos = new ArrayList<>();
+        if (fetchMode == FetchMode.LAZY) {
+            // Carregadores compartilhados por todos os blocos: usuários e exemplares também vêm em lote.
+            BatchLoader<Integer, Usuario> usuarios = usuariosLoader();
+            BatchLoader<Integer, Exemplar_livro> exemplares = exemplaresLoader();
+            InLists.query(connectionProvider, POR_IDS_SIMPLES, ids,
+                    rs -> mapLazyRows(rs, usuarios, exemplares, emprestimos));
+        } else {
+            InLists.query(connectionProvider, POR_IDS, ids,
+                    rs -> emprestimos.addAll(processResultSet(rs)));
+        }
+        return InLists.inKeyOrder(ids, emprestimos, Emprestimo::getId);
+    }
+
+    // Cada empréstimo ocupa uma única linha, então o LIMIT pode ir direto na consulta completa.
+    @Override
+    public List<Emprestimo> readPage(Integer after, int limit) throws SQLException {
+        if (fetchMode == FetchMode.LAZY) {
+            return readLazy(PAGINA_SIMPLES,
+                    after == null ? 0 : after, limit);
+        }
+        String sql = PAGINA;
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, after == null ? 0 : after);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return processResultSet(rs);
+            }
+        }
+    }
+
+    /**
+     * Uma página dos empréstimos ainda abertos (sem data de devolução) feitos antes de
+     * 'emprestadoAntesDe', em ordem de chave e com o usuário completo (inclui o tipo).
+     * Paginação por chave: cada página custa o mesmo, não importa quantos empréstimos já passaram.
+     * Sempre usa os JOINs, independente do FetchMode: quem chama precisa do usuário de todos.
+     */
+    public List<Emprestimo> readOpenPage(Integer after, LocalDate emprestadoAntesDe, int limit) throws SQLException {
+        String sql = PAGINA_ABERTOS;
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setDate(1, java.sql.Date.valueOf(emprestadoAntesDe));
+            stmt.setInt(2, after == null ? 0 : after);
+            stmt.setInt(3, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return processResultSet(rs);
+            }
+        }
+    }
+
+    /**
+     * Leitura do modo LAZY: só a tabela emprestimo. Usuário e exemplar viram referências
+     * que, no primeiro acesso, buscam juntos os de todos os empréstimos desta leitura.
+     */
+    private List<Emprestimo> readLazy(String sql, Object... params) throws SQLException {
+        BatchLoader<Integer, Usuario> usuarios = usuariosLoader();
+        BatchLoader<Integer, Exemplar_livro> exemplares = exemplaresLoader();
+        List<Emprestimo> emprestimos = new ArrayList<>();
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                mapLazyRows(rs, usuarios, exemplares, emprestimos);
+            }
+        }
+        return emprestimos;
+    }
+
+    private void mapLazyRows(ResultSet rs, BatchLoader<Integer, Usuario> usuarios,
+                             BatchLoader<Integer, Exemplar_livro> exemplares, List<Emprestimo> emprestimos) throws SQLException {
+        int[] columns = ColumnIndexes.resolve(rs, COLUNAS_SIMPLES);
+        while (rs.next()) {
+            Date dataDevolucaoSQL = rs.getDate(columns[DATA_DEVOLUCAO]);
+            emprestimos.add(new Emprestimo(
+                    rs.getInt(columns[ID_EMPRESTIMO]),
+                    rs.getDate(columns[DATA_EMPRESTIMO]).toLocalDate(),
+                    dataDevolucaoSQL != null ? dataDevolucaoSQL.toLocalDate() : null,
+                    usuarios.lazy(rs.getInt(columns[USUARIO_FK])),
+                    exemplares.lazy(rs.getInt(columns[EXEMPLAR_FK]))
+            ));
+        }
+    }
+
+    // Usuários completos: a mesma leitura em lote do UsuarioDao.
+    private BatchLoader<Integer, Usuario> usuariosLoader() {
+        UsuarioDao usuarioDao = new UsuarioDao(connectionProvider);
+        return new BatchLoader<>("os usuários dos empréstimos", ids -> {
+            Map<Integer, Usuario> usuarios = new HashMap<>();
+            for (Usuario usuario : usuarioDao.readMany(ids)) {
+                usuarios.put(usuario.getId(), usuario);
+            }
+            return usuarios;
+        });
+    }
+
+    private BatchLoader<Integer, Exemplar_livro> exemplaresLoader() {
+        return new BatchLoader<>("os exemplares dos empréstimos", ids -> {
+            String sql = EXEMPLARES_POR_IDS;
+            Map<Integer, Exemplar_livro> exemplares = new HashMap<>();
+            InLists.query(connectionProvider, sql, ids, rs -> {
+                while (rs.next()) {
+                    // Livro simplificado, como no modo EAGER.
+                    Livro livro = new Livro(rs.getString(3), null, rs.getString(4), null, new ArrayList<>());
+                    exemplares.put(rs.getInt(1), new Exemplar_livro(rs.getInt(1), livro, rs.getBoolean(2)));
+                }
+            });
+            return exemplares;
+        });
+    }
+
     // MÉTODOS ABSTRATOS IMPLEMENTADOS:
     // Aqui fornecemos os detalhes que a AbstractComplexDao precisa.
 
+    // Colunas lidas de CONSULTA_COMPLETA; resolvidas para índices uma vez por ResultSet.
+    private static final String[] COLUNAS = {
+            "idEmprestimo", "dataEmprestimo", "dataDevolucao",
+            "idUsuario", "nome", "email", "telefone", "tipo",
+            "id_livro", "status",
+            "isbn", "titulo"
+    };
+    private static final int ID_EMPRESTIMO = 0;
+    private static final int DATA_EMPRESTIMO = 1;
+    private static final int DATA_DEVOLUCAO = 2;
+    private static final int ID_USUARIO = 3;
+    private static final int USUARIO_NOME = 4;
+    private static final int USUARIO_EMAIL = 5;
+    private static final int USUARIO_TELEFONE = 6;
+    private static final int USUARIO_TIPO = 7;
+    private static final int ID_EXEMPLAR = 8;
+    private static final int STATUS = 9;
+    private static final int ISBN = 10;
+    private static final int TITULO = 11;
+    // Modo LAZY: só a tabela emprestimo, com as chaves estrangeiras no lugar das associações.
+    private static final String[] COLUNAS_SIMPLES = {
+            "idEmprestimo", "dataEmprestimo", "dataDevolucao",
+            "usuario_idUsuario", "livro_id"
+    };
+    private static final int USUARIO_FK = 3;
+    private static final int EXEMPLAR_FK = 4;
+
     @Override
-    protected Integer getKeyFromResultSet(ResultSet rs) throws SQLException {
-        return rs.getInt("idEmprestimo");
+    protected String[] getColumnLabels() {
+        return COLUNAS;
     }
 
     @Override
-    protected Emprestimo mapRowToMainEntity(ResultSet rs) throws SQLException {
+    protected Integer getKeyFromResultSet(ResultSet rs, int[] columns) throws SQLException {
+        return rs.getInt(columns[ID_EMPRESTIMO]);
+    }
+
+    @Override
+    protected Emprestimo mapRowToMainEntity(ResultSet rs, int[] columns) throws SQLException {
         // 1. Cria o Usuário
         Usuario usuario = new Usuario(
-                rs.getInt("idUsuario"), rs.getString("nome"),
-                rs.getString("email"), rs.getString("telefone"), rs.getString("tipo")
+                rs.getInt(columns[ID_USUARIO]), rs.getString(columns[USUARIO_NOME]),
+                rs.getString(columns[USUARIO_EMAIL]), rs.getString(columns[USUARIO_TELEFONE]), rs.getString(columns[USUARIO_TIPO])
         );
 
         // 2. Cria o Livro (de forma simplificada, pois não é o foco principal aqui)
         Livro livro = new Livro(
-                rs.getString("isbn"), null, rs.getString("titulo"), null, new ArrayList<>()
+                rs.getString(columns[ISBN]), null, rs.getString(columns[TITULO]), null, new ArrayList<>()
         );
 
         // 3. Cria o Exemplar
         Exemplar_livro exemplar = new Exemplar_livro(
-                rs.getInt("id_livro"), livro, rs.getBoolean("status")
+                rs.getInt(columns[ID_EXEMPLAR]), livro, rs.getBoolean(columns[STATUS])
         );
 
         // 4. Finalmente, cria o Emprestimo
-        Date dataDevolucaoSQL = rs.getDate("dataDevolucao");
+        Date dataDevolucaoSQL = rs.getDate(columns[DATA_DEVOLUCAO]);
         return new Emprestimo(
-                rs.getInt("idEmprestimo"),
-                rs.getDate("dataEmprestimo").toLocalDate(),
+                rs.getInt(columns[ID_EMPRESTIMO]),
+                rs.getDate(columns[DATA_EMPRESTIMO]).toLocalDate(),
                 dataDevolucaoSQL != null ? dataDevolucaoSQL.toLocalDate() : null,
                 usuario,
                 exemplar
@@ -82,10 +281,14 @@ public class EmprestimoDao extends AbstractComplexDao<Emprestimo, Integer> imple
     }
 
     @Override
-    protected void addNestedEntity(Emprestimo mainEntity, ResultSet rs) throws SQLException{}
+    protected void addNestedEntity(Emprestimo mainEntity, ChildIdSet seenChildren, ResultSet rs, int[] columns) throws SQLException {}
+
+    private static final String CONSULTA_SIMPLES = """
+        SELECT em.idEmprestimo, em.dataEmprestimo, em.dataDevolucao, em.usuario_idUsuario, em.livro_id
+        FROM emprestimo em
+        """;
 
-    private String getCompletaQuery() {
-        return """
+    private static final String CONSULTA_COMPLETA = """
         SELECT
             em.idEmprestimo, em.dataEmprestimo, em.dataDevolucao,
             u.idUsuario, u.nome, u.email, u.telefone, u.tipo,
@@ -96,59 +299,83 @@ public class EmprestimoDao extends AbstractComplexDao<Emprestimo, Integer> imple
         JOIN exemplar_livro ex ON em.livro_id = ex.id_livro
         JOIN livro l ON ex.isbn_livro = l.isbn
         """;
+
+    // Variantes por chave, por lista de chaves e por página (também verificadas por indexedQueries).
+    private static final String POR_ID = CONSULTA_COMPLETA + " WHERE em.idEmprestimo = ?";
+    private static final String POR_ID_SIMPLES = CONSULTA_SIMPLES + " WHERE em.idEmprestimo = ?";
+    private static final String POR_IDS = CONSULTA_COMPLETA + " WHERE em.idEmprestimo IN (%s) ORDER BY em.idEmprestimo";
+    private static final String POR_IDS_SIMPLES = CONSULTA_SIMPLES + " WHERE em.idEmprestimo IN (%s)";
+    private static final String PAGINA = CONSULTA_COMPLETA + " WHERE em.idEmprestimo > ? ORDER BY em.idEmprestimo LIMIT ?";
+    private static final String PAGINA_SIMPLES = CONSULTA_SIMPLES + " WHERE em.idEmprestimo > ? ORDER BY em.idEmprestimo LIMIT ?";
+    private static final String PAGINA_ABERTOS = CONSULTA_COMPLETA + """
+            WHERE em.dataDevolucao IS NULL AND em.dataEmprestimo < ? AND em.idEmprestimo > ?
+            ORDER BY em.idEmprestimo LIMIT ?""";
+    private static final String EXEMPLARES_POR_IDS = """
+            SELECT ex.id_livro, ex.status, l.isbn, l.titulo
+            FROM exemplar_livro ex
+            JOIN livro l ON ex.isbn_livro = l.isbn
+            WHERE ex.id_livro IN (%s)""";
+
+    /**
+     * As consultas seletivas deste DAO, nos dois FetchMode, para a verificação de planos.
+     * Os usuários do modo LAZY vêm do UsuarioDao.readMany, pela chave primária.
+     */
+    public static List<IndexedQuery> indexedQueries() {
+        return List.of(
+                IndexedQuery.of("EmprestimoDao.read", POR_ID, 1),
+                IndexedQuery.of("EmprestimoDao.read (LAZY)", POR_ID_SIMPLES, 1),
+                IndexedQuery.in("EmprestimoDao.readMany", POR_IDS, 1, 2, 3),
+                IndexedQuery.in("EmprestimoDao.readMany (LAZY)", POR_IDS_SIMPLES, 1, 2, 3),
+                IndexedQuery.of("EmprestimoDao.readPage", PAGINA, 0, 100),
+                IndexedQuery.of("EmprestimoDao.readPage (LAZY)", PAGINA_SIMPLES, 0, 100),
+                IndexedQuery.of("EmprestimoDao.readOpenPage", PAGINA_ABERTOS, java.sql.Date.valueOf(LocalDate.now()), 0, 1_000),
+                IndexedQuery.in("EmprestimoDao.exemplaresLoader", EXEMPLARES_POR_IDS, 1, 2, 3));
     }
 
     @Override
-    public boolean create(Emprestimo emprestimo) throws SQLException {
-        // SQL para verificar o status atual do exemplar.
-        String sqlCheckStatus = "SELECT status FROM exemplar_livro WHERE id_livro = ?";
-
+    public Integer create(Emprestimo emprestimo) throws SQLException {
+        // Reserva atômica: o UPDATE só altera a linha se o exemplar existir e estiver disponível.
+        // O banco trava a linha durante o UPDATE, então dois empréstimos simultâneos do mesmo
+        // exemplar não conseguem passar os dois por esta verificação.
+        String sqlReservaExemplar = "UPDATE exemplar_livro SET status = true WHERE id_livro = ? AND status = false";
         String sqlInsertEmprestimo = "INSERT INTO emprestimo (dataEmprestimo, usuario_idUsuario, livro_id) VALUES (?, ?, ?)";
-        String sqlUpdateExemplar = "UPDATE exemplar_livro SET status = ? WHERE id_livro = ?";
-
-        conn.setAutoCommit(false); // Inicia a transação
+        int exemplarId = emprestimo.getLivro().getId();
 
-        try (PreparedStatement stmtCheck = conn.prepareStatement(sqlCheckStatus)) {
-            // Passo 1: Verificar o status do exemplar
-            int exemplarId = emprestimo.getLivro().getId();
-            stmtCheck.setInt(1, exemplarId);
-
-            try (ResultSet rs = stmtCheck.executeQuery()) {
-                // Se não encontrou o exemplar ou se ele já está emprestado, aborte.
-                if (!rs.next() || rs.getBoolean("status") == true) {
-                    conn.rollback(); // Desfaz a transação (embora nada tenha sido feito ainda)
-                    System.err.println("Operação abortada: O exemplar não existe ou já está emprestado.");
-                    return false; // Retorna false para indicar falha
+        Integer idEmprestimo;
+        try {
+            idEmprestimo = connectionProvider.inTransaction(conn -> {
+                // Passo 1: Reservar o exemplar (marcar como emprestado) se ele estiver disponível
+                try (PreparedStatement stmtReserva = conn.prepareStatement(sqlReservaExemplar)) {
+                    stmtReserva.setInt(1, exemplarId);
+                    // Nenhuma linha alterada: o exemplar não existe ou já está emprestado.
+                    if (stmtReserva.executeUpdate() == 0) {
+                        return null;
+                    }
                 }
-            }
-
-            // Se o código chegou até aqui, o exemplar está disponível. Prossiga.
-
-            // Passo 2: Inserir o novo registro na tabela de empréstimos
-            try (PreparedStatement stmtInsert = conn.prepareStatement(sqlInsertEmprestimo)) {
-                stmtInsert.setDate(1, java.sql.Date.valueOf(emprestimo.getDataEmprestimo()));
-                stmtInsert.setInt(2, emprestimo.getUsuario().getId());
-                stmtInsert.setInt(3, exemplarId);
-                stmtInsert.executeUpdate();
-            }
-
-            // Passo 3: Atualizar o status do exemplar para emprestado (true)
-            try (PreparedStatement stmtUpdate = conn.prepareStatement(sqlUpdateExemplar)) {
-                stmtUpdate.setBoolean(1, true);
-                stmtUpdate.setInt(2, exemplarId);
-                stmtUpdate.executeUpdate();
-            }
-
-            conn.commit(); // Confirma a transação
-            return true;
 
+                // Passo 2: O exemplar é nosso; inserir o registro do empréstimo
+                try (PreparedStatement stmtInsert = conn.prepareStatement(sqlInsertEmprestimo, Statement.RETURN_GENERATED_KEYS)) {
+                    stmtInsert.setDate(1, java.sql.Date.valueOf(emprestimo.getDataEmprestimo()));
+                    stmtInsert.setInt(2, emprestimo.getUsuario().getId());
+                    stmtInsert.setInt(3, exemplarId);
+                    stmtInsert.executeUpdate();
+                    return GeneratedKeys.single(stmtInsert);
+                }
+            });
         } catch (SQLException e) {
-            conn.rollback();
             System.err.println("Erro ao criar empréstimo. A transação foi revertida.");
             throw e;
-        } finally {
-            conn.setAutoCommit(true);
         }
+
+        if (idEmprestimo == null) {
+            System.err.println("Operação abortada: O exemplar não existe ou já está emprestado.");
+            return null; // Retorna null para indicar falha
+        }
+        emprestimo.setId(idEmprestimo);
+        if (availability != null) {
+            connectionProvider.afterCommit(() -> availability.markLent(exemplarId));
+        }
+        return idEmprestimo;
     }
 
     // Em: src/main/java/br/inatel/DAO/EmprestimoDao.java
@@ -156,73 +383,236 @@ public class EmprestimoDao extends AbstractComplexDao<Emprestimo, Integer> imple
     @Override
     public boolean delete(Integer idEmprestimo) throws SQLException {
         // Declaração dos SQLs que serão usados na transação
-        String sqlSelectEmprestimo = "SELECT livro_id FROM emprestimo WHERE idEmprestimo = ?";
+        // FOR UPDATE: uma devolução simultânea não muda o empréstimo entre a leitura e a exclusão.
+        String sqlSelectEmprestimo = "SELECT livro_id, dataDevolucao FROM emprestimo WHERE idEmprestimo = ? FOR UPDATE";
         String sqlDeleteEmprestimo = "DELETE FROM emprestimo WHERE idEmprestimo = ?";
         String sqlUpdateExemplar = "UPDATE exemplar_livro SET status = ? WHERE id_livro = ?";
 
-        // Inicia a transação
-        conn.setAutoCommit(false);
-        int exemplarId = -1; // Variável para guardar o ID do exemplar
+        Devolucao excluido; // exemplar do empréstimo excluído, ou null se não havia o que excluir
+        try {
+            excluido = connectionProvider.inTransaction(conn -> {
+                Devolucao encontrado;
+                // Passo 1: Descobrir qual exemplar está associado a este empréstimo
+                try (PreparedStatement stmtSelect = conn.prepareStatement(sqlSelectEmprestimo)) {
+                    stmtSelect.setInt(1, idEmprestimo);
+                    try (ResultSet rs = stmtSelect.executeQuery()) {
+                        if (!rs.next()) {
+                            // Se não existe empréstimo com esse ID, não há nada a fazer.
+                            return null;
+                        }
+                        encontrado = new Devolucao(rs.getInt("livro_id"), rs.getDate("dataDevolucao") == null);
+                    }
+                }
+
+                // Passo 2: Deletar o registro do empréstimo
+                try (PreparedStatement stmtDelete = conn.prepareStatement(sqlDeleteEmprestimo)) {
+                    stmtDelete.setInt(1, idEmprestimo);
+                    if (stmtDelete.executeUpdate() == 0) {
+                        // Outra transação excluiu antes: nada foi alterado.
+                        return null;
+                    }
+                }
+
+                // Passo 3: Se o empréstimo ainda estava aberto, o exemplar volta a ficar disponível (false).
+                // Um empréstimo já devolvido não mexe no exemplar, que pode estar emprestado de novo.
+                if (encontrado.estavaAberto()) {
+                    try (PreparedStatement stmtUpdate = conn.prepareStatement(sqlUpdateExemplar)) {
+                        stmtUpdate.setBoolean(1, false); // false = disponível
+                        stmtUpdate.setInt(2, encontrado.exemplarId());
+                        stmtUpdate.executeUpdate();
+                    }
+                }
+                return encontrado;
+            });
+        } catch (SQLException e) {
+            // Em caso de qualquer erro, a transação inteira já foi desfeita
+            System.err.println("Erro ao deletar empréstimo. A transação foi revertida.");
+            throw e;
+        }
+
+        if (excluido == null) {
+            return false;
+        }
+        if (excluido.estavaAberto() && availability != null) {
+            connectionProvider.afterCommit(() -> availability.markReturned(excluido.exemplarId()));
+        }
+        return true;
+    }
 
+    // Resultado da devolução (ou exclusão) dentro da transação do update() e do delete().
+    private record Devolucao(int exemplarId, boolean estavaAberto) {
+    }
+
+    /**
+     * Registra a devolução: grava a data e, se o empréstimo ainda estava aberto, libera o
+     * exemplar, na mesma transação. Corrigir a data de um empréstimo já devolvido não mexe
+     * no exemplar, que pode estar emprestado de novo.
+     * @return false se não houver empréstimo com esse id.
+     */
+    public boolean update(int idEmprestimo, LocalDate dataDevolucao) throws SQLException {
+        // FOR UPDATE trava o empréstimo: duas devoluções simultâneas não liberam o exemplar duas vezes.
+        String sqlSelectEmprestimo = "SELECT livro_id, dataDevolucao FROM emprestimo WHERE idEmprestimo = ? FOR UPDATE";
+        String sqlUpdateEmprestimo = "UPDATE emprestimo SET dataDevolucao = ? WHERE idEmprestimo = ?";
+        String sqlLiberaExemplar = "UPDATE exemplar_livro SET status = false WHERE id_livro = ?";
+
+        Devolucao devolucao;
         try {
-            // Passo 1: Descobrir qual exemplar está associado a este empréstimo
-            try (PreparedStatement stmtSelect = conn.prepareStatement(sqlSelectEmprestimo)) {
-                stmtSelect.setInt(1, idEmprestimo);
-                try (ResultSet rs = stmtSelect.executeQuery()) {
-                    if (rs.next()) {
-                        exemplarId = rs.getInt("livro_id");
-                    } else {
-                        // Se não existe empréstimo com esse ID, não há nada a fazer.
-                        conn.rollback();
-                        return false;
+            devolucao = connectionProvider.inTransaction(conn -> {
+                Devolucao encontrada;
+                try (PreparedStatement stmtSelect = conn.prepareStatement(sqlSelectEmprestimo)) {
+                    stmtSelect.setInt(1, idEmprestimo);
+                    try (ResultSet rs = stmtSelect.executeQuery()) {
+                        if (!rs.next()) {
+                            return null;
+                        }
+                        encontrada = new Devolucao(rs.getInt("livro_id"), rs.getDate("dataDevolucao") == null);
+                    }
+                }
+
+                try (PreparedStatement stmtUpdate = conn.prepareStatement(sqlUpdateEmprestimo)) {
+                    stmtUpdate.setDate(1, java.sql.Date.valueOf(dataDevolucao));
+                    stmtUpdate.setInt(2, idEmprestimo);
+                    stmtUpdate.executeUpdate();
+                }
+
+                if (encontrada.estavaAberto()) {
+                    try (PreparedStatement stmtLibera = conn.prepareStatement(sqlLiberaExemplar)) {
+                        stmtLibera.setInt(1, encontrada.exemplarId());
+                        stmtLibera.executeUpdate();
                     }
                 }
+                return encontrada;
+            });
+        } catch (SQLException e) {
+            System.err.println("Erro ao registrar devolução. A transação foi revertida.");
+            throw e;
+        }
+
+        if (devolucao == null) {
+            return false;
+        }
+        if (devolucao.estavaAberto() && availability != null) {
+            connectionProvider.afterCommit(() -> availability.markReturned(devolucao.exemplarId()));
+        }
+        return true;
+    }
+
+    /**
+     * Registra vários empréstimos. Em cada bloco, primeiro um UPDATE condicional tenta
+     * reservar cada exemplar (só passa se ele estiver disponível); apenas os empréstimos
+     * cujo exemplar foi reservado são inseridos. Os demais são ignorados.
+     */
+    @Override
+    public List<Integer> createAll(Collection<Emprestimo> emprestimos) throws SQLException {
+        List<Integer> ids = new ArrayList<>(emprestimos.size());
+        List<Integer> exemplaresReservados = new ArrayList<>(emprestimos.size());
+        try {
+            reservarEInserir(emprestimos, ids, exemplaresReservados);
+        } catch (SQLException e) {
+            // Blocos anteriores à falha já foram confirmados: o índice não sabe quais.
+            if (availability != null) {
+                connectionProvider.afterCommit(availability::invalidate);
             }
+            throw e;
+        }
+        if (availability != null) {
+            connectionProvider.afterCommit(() -> exemplaresReservados.forEach(availability::markLent));
+        }
+        return ids;
+    }
 
-            // Passo 2: Deletar o registro do empréstimo
-            try (PreparedStatement stmtDelete = conn.prepareStatement(sqlDeleteEmprestimo)) {
-                stmtDelete.setInt(1, idEmprestimo);
-                int affectedRows = stmtDelete.executeUpdate();
-                if (affectedRows == 0) {
-                    // Se o delete falhou por algum motivo, reverte.
-                    conn.rollback();
-                    return false;
+    // Os ids gerados vão para 'ids' e os exemplares reservados para 'exemplaresReservados'.
+    private void reservarEInserir(Collection<Emprestimo> emprestimos, List<Integer> ids,
+                                  List<Integer> exemplaresReservados) throws SQLException {
+        String sqlInsertEmprestimo = "INSERT INTO emprestimo (dataEmprestimo, usuario_idUsuario, livro_id) VALUES (?, ?, ?)";
+        List<Emprestimo> todos = new ArrayList<>(emprestimos);
+        int[] processados = {0}; // itens dos blocos já gravados
+        Batches.ChunkWriter<Emprestimo> writer = (conn, chunk) -> {
+            int[] reservados = reservar(conn, chunk);
+            List<Emprestimo> aceitos = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                // Só uma linha alterada garante a reserva: 0 é exemplar inexistente ou já emprestado.
+                if (reservados[i] > 0) {
+                    aceitos.add(chunk.get(i));
                 }
             }
+            if (aceitos.size() < chunk.size()) {
+                System.err.println((chunk.size() - aceitos.size()) + " empréstimo(s) ignorado(s): exemplar inexistente ou já emprestado.");
+            }
+            int[] gerados = Batches.insertBatch(conn, sqlInsertEmprestimo, aceitos, (stmt, emprestimo) -> {
+                stmt.setDate(1, java.sql.Date.valueOf(emprestimo.getDataEmprestimo()));
+                stmt.setInt(2, emprestimo.getUsuario().getId());
+                stmt.setInt(3, emprestimo.getLivro().getId());
+            });
+            for (int i = 0; i < gerados.length; i++) {
+                aceitos.get(i).setId(gerados[i]);
+                ids.add(gerados[i]);
+                exemplaresReservados.add(aceitos.get(i).getLivro().getId());
+            }
+            processados[0] += chunk.size();
+            return gerados.length;
+        };
+        try {
+            Batches.inChunks(connectionProvider, todos, writer);
+        } catch (SemContagemPorLinha e) {
+            // O bloco que recebeu SUCCESS_NO_INFO foi revertido; ele e os seguintes reservam linha a linha.
+            reservaPorLinha = true;
+            Batches.inChunks(connectionProvider, todos.subList(processados[0], todos.size()), writer);
+        }
+    }
 
-            // Passo 3: Atualizar o status do exemplar para disponível (false)
-            try (PreparedStatement stmtUpdate = conn.prepareStatement(sqlUpdateExemplar)) {
-                stmtUpdate.setBoolean(1, false); // false = disponível
-                stmtUpdate.setInt(2, exemplarId);
-                stmtUpdate.executeUpdate();
+    // Linhas alteradas pela reserva de cada exemplar do bloco, na ordem do bloco.
+    private int[] reservar(Connection conn, List<Emprestimo> chunk) throws SQLException {
+        String sqlReservaExemplar = "UPDATE exemplar_livro SET status = true WHERE id_livro = ? AND status = false";
+        if (!reservaPorLinha) {
+            int[] reservados = Batches.executeBatch(conn, sqlReservaExemplar, chunk,
+                    (stmt, emprestimo) -> stmt.setInt(1, emprestimo.getLivro().getId()));
+            for (int reservado : reservados) {
+                if (reservado == Statement.SUCCESS_NO_INFO) {
+                    // Não dá para saber quais exemplares já estavam emprestados: desfaz o bloco.
+                    throw new SemContagemPorLinha();
+                }
             }
+            return reservados;
+        }
+        int[] reservados = new int[chunk.size()];
+        try (PreparedStatement stmt = conn.prepareStatement(sqlReservaExemplar)) {
+            for (int i = 0; i < chunk.size(); i++) {
+                stmt.setInt(1, chunk.get(i).getLivro().getId());
+                reservados[i] = stmt.executeUpdate();
+            }
+        }
+        return reservados;
+    }
 
-            // Se todos os passos foram concluídos com sucesso, confirma a transação
-            conn.commit();
-            return true;
+    /**
+     * O driver devolveu SUCCESS_NO_INFO para o lote de reservas (ex.: ao reescrevê-lo).
+     */
+    private static final class SemContagemPorLinha extends SQLException {
+        private static final long serialVersionUID = 1L;
 
-        } catch (SQLException e) {
-            // Em caso de qualquer erro, desfaz a transação inteira
-            conn.rollback();
-            System.err.println("Erro ao deletar empréstimo. A transação foi revertida.");
-            throw e;
-        } finally {
-            // Restaura o modo de auto-commit da conexão
-            conn.setAutoCommit(true);
+        private SemContagemPorLinha() {
+            super("O driver não informou as linhas alteradas por cada reserva do lote.");
         }
     }
-    public boolean update(int idEmprestimo, LocalDate dataDevolucao) throws SQLException {
-        String sqlUpdateEmprestimo = "UPDATE emprestimo SET dataDevolucao = ? WHERE idEmprestimo = ?";
-        try (PreparedStatement stmtUpdate = conn.prepareStatement(sqlUpdateEmprestimo)) {
-            stmtUpdate.setDate(1, java.sql.Date.valueOf(dataDevolucao));
-            stmtUpdate.setInt(2, idEmprestimo);
-            int affectedRows = stmtUpdate.executeUpdate();
-            if (affectedRows == 0) {
-                conn.rollback();
-                return false;
+
+    // Libera o exemplar de cada empréstimo ainda aberto antes de excluí-lo, como no delete().
+    @Override
+    public int deleteAll(Collection<Integer> ids) throws SQLException {
+        String sqlLiberaExemplar = "UPDATE exemplar_livro SET status = false WHERE id_livro = "
+                + "(SELECT livro_id FROM emprestimo WHERE idEmprestimo = ? AND dataDevolucao IS NULL)";
+        String sqlDeleteEmprestimo = "DELETE FROM emprestimo WHERE idEmprestimo = ?";
+        Batches.Binder<Integer> porId = (stmt, id) -> stmt.setInt(1, id);
+        try {
+            return Batches.inChunks(connectionProvider, ids, (conn, chunk) -> {
+                Batches.executeBatch(conn, sqlLiberaExemplar, chunk, porId);
+                return Batches.sum(Batches.executeBatch(conn, sqlDeleteEmprestimo, chunk, porId));
+            });
+        } finally {
+            // Só os ids dos empréstimos são conhecidos, não os dos exemplares liberados.
+            if (availability != null) {
+                connectionProvider.afterCommit(availability::invalidate);
             }
-            conn.commit();
         }
-        return true;
     }
-}
\ No newline at end of file
+}
@@ -1,12 +1,16 @@
 package br.inatel.DAO;
 
 import br.inatel.Biblioteca.*;
+import br.inatel.Interfaces.ConnectionProvider;
 import br.inatel.Interfaces.Dao;
 
 import java.sql.*;
 import java.time.Year;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * DAO para a entidade mais complexa 'Exemplar_livro'.
@@ -14,27 +18,73 @@ import java.util.List;
  * e implementa a interface Dao para as operações de CRUD.
  */
 public class ExemplarDao extends AbstractComplexDao<Exemplar_livro, Integer> implements Dao<Exemplar_livro, Integer> {
-    private final Connection conn;
+    private final ConnectionProvider connectionProvider;
+    private final CopyCountCache copyCounts;
+    private final FetchMode fetchMode;
+    private final AvailabilityIndex availability; // null: sem índice de disponibilidade
 
-    public ExemplarDao(Connection connection) {
-        this.conn = connection;
+    public ExemplarDao(ConnectionProvider connectionProvider, CopyCountCache copyCounts) {
+        this(connectionProvider, copyCounts, FetchMode.EAGER);
+    }
+
+    /**
+     * @param fetchMode EAGER traz os autores do livro no mesmo SELECT (JOIN); LAZY lê exemplar,
+     *                  livro e categoria e busca os autores no primeiro getAutores(), em lote.
+     */
+    public ExemplarDao(ConnectionProvider connectionProvider, CopyCountCache copyCounts, FetchMode fetchMode) {
+        this(connectionProvider, copyCounts, fetchMode, null);
+    }
+
+    /**
+     * @param availability Índice de disponibilidade mantido por este DAO (pode ser null).
+     */
+    public ExemplarDao(ConnectionProvider connectionProvider, CopyCountCache copyCounts, FetchMode fetchMode,
+                       AvailabilityIndex availability) {
+        this.connectionProvider = connectionProvider;
+        this.copyCounts = copyCounts;
+        this.fetchMode = fetchMode;
+        this.availability = availability;
     }
 
     // readAll agora é simples e consistente.
     @Override
     public List<Exemplar_livro> readAll() throws SQLException {
-        String sql = getCompletaQuery() + " ORDER BY e.id_livro, a.nome";
-        try (Statement stmt = conn.createStatement();
+        if (fetchMode == FetchMode.LAZY) {
+            return readLazy(CONSULTA_SIMPLES + " ORDER BY e.id_livro");
+        }
+        String sql = CONSULTA_COMPLETA + " ORDER BY e.id_livro, a.nome";
+        try (Connection conn = connectionProvider.getConnection();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             return processResultSet(rs);
         }
     }
 
+    /**
+     * Percorre todos os registros sem carregá-los de uma vez: cada Exemplar_livro é entregue
+     * para 'action' assim que todas as suas linhas forem lidas. A ordenação inclui a chave
+     * principal para que as linhas de uma mesma entidade venham juntas.
+     * Sempre usa o JOIN com os autores: carregá-los sob demanda aqui seria uma consulta por exemplar.
+     */
+    public void streamAll(Consumer<? super Exemplar_livro> action) throws SQLException {
+        String sql = CONSULTA_COMPLETA + " ORDER BY e.id_livro, a.nome";
+        try (Connection conn = connectionProvider.getConnection();
+             Statement stmt = createStreamingStatement(conn);
+             ResultSet rs = stmt.executeQuery(sql)) {
+            processResultSet(rs, action);
+        }
+    }
+
     // read também é simplificado.
     @Override
     public Exemplar_livro read(Integer id) throws SQLException {
-        String sql = getCompletaQuery() + " WHERE e.id_livro = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        if (fetchMode == FetchMode.LAZY) {
+            List<Exemplar_livro> exemplares = readLazy(POR_ID_SIMPLES, id);
+            return exemplares.isEmpty() ? null : exemplares.getFirst();
+        }
+        String sql = POR_ID;
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 List<Exemplar_livro> exemplares = processResultSet(rs);
@@ -43,53 +93,153 @@ public class ExemplarDao extends AbstractComplexDao<Exemplar_livro, Integer> imp
         }
     }
 
+    // Uma consulta IN (...) por bloco de chaves, em vez de um read(id) por chave.
+    @Override
+    public List<Exemplar_livro> readMany(Collection<Integer> ids) throws SQLException {
+        List<Exemplar_livro> exemplares = new ArrayList<>();
+        if (fetchMode == FetchMode.LAZY) {
+            // Um só carregador para todos os blocos: os autores também vêm em lote.
+            BatchLoader<String, List<Autor>> autores = LivroDao.autoresLoader(connectionProvider);
+            InLists.query(connectionProvider, POR_IDS_SIMPLES, ids,
+                    rs -> mapLazyRows(rs, autores, exemplares));
+        } else {
+            InLists.query(connectionProvider, POR_IDS, ids,
+                    rs -> exemplares.addAll(processResultSet(rs)));
+        }
+        return InLists.inKeyOrder(ids, exemplares, Exemplar_livro::getId);
+    }
+
+    // Paginação pela chave do exemplar: a subconsulta escolhe os exemplares da página e o JOIN
+    // traz todos os autores do livro de cada um, sem dividir um exemplar entre duas páginas.
+    @Override
+    public List<Exemplar_livro> readPage(Integer after, int limit) throws SQLException {
+        if (fetchMode == FetchMode.LAZY) {
+            return readLazy(PAGINA_SIMPLES,
+                    after == null ? 0 : after, limit);
+        }
+        String sql = PAGINA;
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, after == null ? 0 : after);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return processResultSet(rs);
+            }
+        }
+    }
+
+    /**
+     * Leitura do modo LAZY: uma linha por exemplar, sem os JOINs de autor. Listar exemplares
+     * por id e status não paga por autores que ninguém lê; se algum getAutores() for chamado,
+     * os autores de todos os livros desta leitura vêm em uma consulta só.
+     */
+    private List<Exemplar_livro> readLazy(String sql, Object... params) throws SQLException {
+        BatchLoader<String, List<Autor>> autores = LivroDao.autoresLoader(connectionProvider);
+        List<Exemplar_livro> exemplares = new ArrayList<>();
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                mapLazyRows(rs, autores, exemplares);
+            }
+        }
+        return exemplares;
+    }
+
+    private void mapLazyRows(ResultSet rs, BatchLoader<String, List<Autor>> autores, List<Exemplar_livro> exemplares) throws SQLException {
+        int[] columns = ColumnIndexes.resolve(rs, COLUNAS_SEM_AUTORES);
+        while (rs.next()) {
+            String isbn = rs.getString(columns[ISBN]);
+            Livro livro = new Livro(
+                    isbn,
+                    new Categoria(rs.getInt(columns[ID_CATEGORIA]), rs.getString(columns[NOME_CATEGORIA])),
+                    rs.getString(columns[TITULO]),
+                    rs.getInt(columns[ANO_PUBLICACAO]),
+                    autores.lazy(isbn)
+            );
+            exemplares.add(new Exemplar_livro(rs.getInt(columns[ID_EXEMPLAR]), livro, rs.getBoolean(columns[STATUS])));
+        }
+    }
+
     // MÉTODOS ABSTRATOS IMPLEMENTADOS:
     // Aqui fornecemos os "detalhes" que a classe abstrata precisa.
 
+    // Colunas lidas de CONSULTA_COMPLETA; resolvidas para índices uma vez por ResultSet.
+    private static final String[] COLUNAS = {
+            "id_livro", "status",
+            "isbn", "titulo", "anoPublicacao",
+            "idCategoria", "nomeCategoria",
+            "id", "nome", "paisOrigem"
+    };
+    private static final int ID_EXEMPLAR = 0;
+    private static final int STATUS = 1;
+    private static final int ISBN = 2;
+    private static final int TITULO = 3;
+    private static final int ANO_PUBLICACAO = 4;
+    private static final int ID_CATEGORIA = 5;
+    private static final int NOME_CATEGORIA = 6;
+    private static final int AUTOR_ID = 7;
+    private static final int AUTOR_NOME = 8;
+    private static final int AUTOR_PAIS = 9;
+    // Modo LAZY: as mesmas colunas, sem as do autor.
+    private static final String[] COLUNAS_SEM_AUTORES = Arrays.copyOf(COLUNAS, AUTOR_ID);
+
+    @Override
+    protected String[] getColumnLabels() {
+        return COLUNAS;
+    }
+
     @Override
-    protected Integer getKeyFromResultSet(ResultSet rs) throws SQLException {
-        return rs.getInt("id_livro");
+    protected Integer getKeyFromResultSet(ResultSet rs, int[] columns) throws SQLException {
+        return rs.getInt(columns[ID_EXEMPLAR]);
     }
 
     @Override
-    protected Exemplar_livro mapRowToMainEntity(ResultSet rs) throws SQLException {
+    protected Exemplar_livro mapRowToMainEntity(ResultSet rs, int[] columns) throws SQLException {
         // 1. Cria a Categoria
-        Categoria categoria = new Categoria(rs.getInt("idCategoria"), rs.getString("nomeCategoria"));
+        Categoria categoria = new Categoria(rs.getInt(columns[ID_CATEGORIA]), rs.getString(columns[NOME_CATEGORIA]));
 
         // 2. Cria o Livro (com lista de autores vazia por enquanto)
         Livro livro = new Livro(
-                rs.getString("isbn"),
+                rs.getString(columns[ISBN]),
                 categoria,
-                rs.getString("titulo"),
-                rs.getInt("anoPublicacao"),
+                rs.getString(columns[TITULO]),
+                rs.getInt(columns[ANO_PUBLICACAO]),
                 new ArrayList<>()
         );
 
         // 3. Cria o Exemplar, que é a entidade principal
         return new Exemplar_livro(
-                rs.getInt("id_livro"),
+                rs.getInt(columns[ID_EXEMPLAR]),
                 livro,
-                rs.getBoolean("status")
+                rs.getBoolean(columns[STATUS])
         );
     }
 
     @Override
-    protected void addNestedEntity(Exemplar_livro exemplar, ResultSet rs) throws SQLException {
+    protected void addNestedEntity(Exemplar_livro exemplar, ChildIdSet autoresVistos, ResultSet rs, int[] columns) throws SQLException {
         // A entidade aninhada aqui é o Autor, que pertence ao Livro dentro do Exemplar.
-        int autorId = rs.getInt("id");
-        if (autorId != 0) {
-            Livro livroDoExemplar = exemplar.getLivro();
-            boolean autorJaAdicionado = livroDoExemplar.getAutores().stream().anyMatch(a -> a.getId() == autorId);
-            if (!autorJaAdicionado) {
-                Autor autor = new Autor(autorId, rs.getString("nome"), rs.getString("paisOrigem"));
-                livroDoExemplar.addAutor(autor);
-            }
+        int autorId = rs.getInt(columns[AUTOR_ID]);
+        if (autorId != 0 && autoresVistos.add(autorId)) {
+            Autor autor = new Autor(autorId, rs.getString(columns[AUTOR_NOME]), rs.getString(columns[AUTOR_PAIS]));
+            exemplar.getLivro().addAutor(autor);
         }
     }
 
-    private String getCompletaQuery() {
-        // A "Super Query" que busca tudo de uma vez.
-        return """
+    private static final String CONSULTA_SIMPLES = """
+        SELECT
+            e.id_livro, e.status,
+            l.isbn, l.titulo, l.anoPublicacao,
+            c.idCategoria, c.nomeCategoria
+        FROM exemplar_livro e
+        JOIN livro l ON e.isbn_livro = l.isbn
+        JOIN categoria c ON l.categoria_idCategoria = c.idCategoria
+        """;
+
+    // A "Super Query" que busca tudo de uma vez.
+    private static final String CONSULTA_COMPLETA = """
         SELECT
             e.id_livro, e.status,
             l.isbn, l.titulo, l.anoPublicacao,
@@ -101,25 +251,135 @@ public class ExemplarDao extends AbstractComplexDao<Exemplar_livro, Integer> imp
         LEFT JOIN livro_has_autor lha ON l.isbn = lha.livro_ISBN
         LEFT JOIN autor a ON lha.autor_idAutor = a.id
         """;
+
+    // Variantes por chave, por lista de chaves e por página (também verificadas por indexedQueries).
+    private static final String POR_ID = CONSULTA_COMPLETA + " WHERE e.id_livro = ?";
+    private static final String POR_ID_SIMPLES = CONSULTA_SIMPLES + " WHERE e.id_livro = ?";
+    private static final String POR_IDS = CONSULTA_COMPLETA + " WHERE e.id_livro IN (%s) ORDER BY e.id_livro, a.nome";
+    private static final String POR_IDS_SIMPLES = CONSULTA_SIMPLES + " WHERE e.id_livro IN (%s)";
+    private static final String PAGINA = CONSULTA_COMPLETA + """
+            WHERE e.id_livro IN (
+                SELECT id_livro FROM (SELECT id_livro FROM exemplar_livro WHERE id_livro > ? ORDER BY id_livro LIMIT ?) pagina
+            )
+            ORDER BY e.id_livro, a.nome""";
+    private static final String PAGINA_SIMPLES = CONSULTA_SIMPLES + " WHERE e.id_livro > ? ORDER BY e.id_livro LIMIT ?";
+
+    /**
+     * As consultas seletivas deste DAO, nos dois FetchMode, para a verificação de planos.
+     * Os autores do modo LAZY vêm do carregador do LivroDao, verificado lá.
+     */
+    public static List<IndexedQuery> indexedQueries() {
+        return List.of(
+                IndexedQuery.of("ExemplarDao.read", POR_ID, 1),
+                IndexedQuery.of("ExemplarDao.read (LAZY)", POR_ID_SIMPLES, 1),
+                IndexedQuery.in("ExemplarDao.readMany", POR_IDS, 1, 2, 3),
+                IndexedQuery.in("ExemplarDao.readMany (LAZY)", POR_IDS_SIMPLES, 1, 2, 3),
+                IndexedQuery.of("ExemplarDao.readPage", PAGINA, 0, 100),
+                IndexedQuery.of("ExemplarDao.readPage (LAZY)", PAGINA_SIMPLES, 0, 100));
     }
 
-    // Os métodos de escrita (create, update, delete) permanecem inalterados.
+    // Escritas: depois do commit, cada uma atualiza o CopyCountCache e o AvailabilityIndex
+    // (afterCommit), então um rollback não deixa as projeções adiantadas.
     @Override
-    public boolean create(Exemplar_livro exemplar) throws SQLException {
+    public Integer create(Exemplar_livro exemplar) throws SQLException {
         String sql = "INSERT INTO exemplar_livro (isbn_livro, status) VALUES (?, ?)";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        int id;
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, exemplar.getLivro().getIsbn());
             stmt.setBoolean(2, exemplar.isStatus());
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() == 0) {
+                return null;
+            }
+            id = GeneratedKeys.single(stmt);
         }
+        exemplar.setId(id);
+        connectionProvider.afterCommit(() -> {
+            copyCounts.increment(exemplar.getLivro().getIsbn(), id);
+            if (availability != null) {
+                availability.addCopy(exemplar.getLivro().getIsbn(), id, !exemplar.isStatus());
+            }
+        });
+        return id;
     }
 
     @Override
     public boolean delete(Integer id) throws SQLException {
+        // FOR UPDATE: o ISBN lido é o do exemplar que o DELETE vai remover.
+        String sqlSelect = "SELECT isbn_livro FROM exemplar_livro WHERE id_livro = ? FOR UPDATE";
+        String sqlDelete = "DELETE FROM exemplar_livro WHERE id_livro = ?";
+        String isbn = connectionProvider.inTransaction(conn -> {
+            String isbnDoExemplar;
+            try (PreparedStatement stmt = conn.prepareStatement(sqlSelect)) {
+                stmt.setInt(1, id);
+                try (ResultSet rs = stmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return null;
+                    }
+                    isbnDoExemplar = rs.getString("isbn_livro");
+                }
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(sqlDelete)) {
+                stmt.setInt(1, id);
+                return stmt.executeUpdate() == 0 ? null : isbnDoExemplar;
+            }
+        });
+        if (isbn == null) {
+            return false;
+        }
+        connectionProvider.afterCommit(() -> {
+            copyCounts.decrement(isbn, id);
+            if (availability != null) {
+                availability.removeCopy(id);
+            }
+        });
+        return true;
+    }
+
+    @Override
+    public List<Integer> createAll(Collection<Exemplar_livro> exemplares) throws SQLException {
+        String sql = "INSERT INTO exemplar_livro (isbn_livro, status) VALUES (?, ?)";
+        try {
+            List<Integer> ids = Batches.insertInChunks(connectionProvider, sql, exemplares, (stmt, exemplar) -> {
+                stmt.setString(1, exemplar.getLivro().getIsbn());
+                stmt.setBoolean(2, exemplar.isStatus());
+            }, Exemplar_livro::setId);
+            if (availability != null) {
+                connectionProvider.afterCommit(() -> {
+                    for (Exemplar_livro exemplar : exemplares) {
+                        availability.addCopy(exemplar.getLivro().getIsbn(), exemplar.getId(), !exemplar.isStatus());
+                    }
+                });
+            }
+            return ids;
+        } catch (SQLException e) {
+            // Não se sabe quais blocos foram confirmados antes da falha.
+            if (availability != null) {
+                connectionProvider.afterCommit(availability::invalidate);
+            }
+            throw e;
+        } finally {
+            // Mesmo com falha no meio, blocos anteriores já foram confirmados.
+            connectionProvider.afterCommit(copyCounts::invalidate);
+        }
+    }
+
+    @Override
+    public int deleteAll(Collection<Integer> ids) throws SQLException {
         String sql = "DELETE FROM exemplar_livro WHERE id_livro = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
-            stmt.setInt(1, id);
-            return stmt.executeUpdate() > 0;
+        try {
+            int excluidos = Batches.executeInChunks(connectionProvider, sql, ids, (stmt, id) -> stmt.setInt(1, id));
+            if (availability != null) {
+                connectionProvider.afterCommit(() -> ids.forEach(availability::removeCopy));
+            }
+            return excluidos;
+        } catch (SQLException e) {
+            if (availability != null) {
+                connectionProvider.afterCommit(availability::invalidate);
+            }
+            throw e;
+        } finally {
+            connectionProvider.afterCommit(copyCounts::invalidate);
         }
     }
-}
\ No newline at end of file
+}
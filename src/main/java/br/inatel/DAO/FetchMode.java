@@ -0,0 +1,17 @@
+package br.inatel.DAO;
+
+/**
+ * Como os DAOs carregam as associações das entidades.
+ */
+public enum FetchMode {
+    /**
+     * Tudo na mesma consulta, com JOINs (autores de cada livro, usuário e exemplar de cada empréstimo).
+     */
+    EAGER,
+
+    /**
+     * Só as colunas da própria entidade; as associações são buscadas no primeiro acesso,
+     * em lote (uma consulta IN (...) para todas as entidades lidas juntas).
+     */
+    LAZY
+}
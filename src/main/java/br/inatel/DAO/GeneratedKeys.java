@@ -0,0 +1,45 @@
+package br.inatel.DAO;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Lê as chaves auto_increment geradas por um INSERT preparado com Statement.RETURN_GENERATED_KEYS.
+ * Evita que quem chamou o create precise reler a tabela para descobrir o id da nova linha.
+ */
+final class GeneratedKeys {
+
+    private GeneratedKeys() {
+    }
+
+    /**
+     * Chave gerada por um INSERT de uma linha.
+     */
+    static int single(Statement stmt) throws SQLException {
+        try (ResultSet rs = stmt.getGeneratedKeys()) {
+            if (!rs.next()) {
+                throw new SQLException("O banco não devolveu a chave gerada.");
+            }
+            return rs.getInt(1);
+        }
+    }
+
+    /**
+     * Chaves geradas por um executeBatch, na ordem dos itens do lote.
+     * @param expected Quantidade de linhas inseridas no lote.
+     */
+    static int[] all(Statement stmt, int expected) throws SQLException {
+        int[] keys = new int[expected];
+        int count = 0;
+        try (ResultSet rs = stmt.getGeneratedKeys()) {
+            while (rs.next() && count < expected) {
+                keys[count++] = rs.getInt(1);
+            }
+        }
+        if (count < expected) {
+            throw new SQLException("O banco devolveu " + count + " chaves geradas para " + expected + " linhas.");
+        }
+        return keys;
+    }
+}
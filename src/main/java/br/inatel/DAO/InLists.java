@@ -0,0 +1,148 @@
+package br.inatel.DAO;
+
+import br.inatel.Interfaces.ConnectionProvider;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Consultas por várias chaves com WHERE chave IN (?, ?, ...).
+ *
+ * As chaves são divididas em blocos de até MAX_KEYS_PER_QUERY. O número de marcadores de
+ * cada bloco é arredondado para a próxima potência de 2, repetindo a última chave
+ * (chave repetida no IN não muda o resultado). Assim uma mesma consulta tem no máximo
+ * 11 formatos (1, 2, 4, ..., 1024 marcadores), e o cache de statements do pool e do
+ * servidor reaproveita o plano em vez de compilar um SQL novo para cada quantidade de chaves.
+ * O texto de cada formato é montado uma vez e guardado.
+ *
+ * Uso:
+ * <pre>
+ *   InLists.query(connectionProvider, "SELECT * FROM autor WHERE id IN (%s)", ids, rs -> {
+ *       while (rs.next()) { ... }
+ *   });
+ * </pre>
+ */
+final class InLists {
+    static final int MAX_KEYS_PER_QUERY = 1_024; // potência de 2
+
+    // PLACEHOLDERS[i] tem 2^i marcadores.
+    private static final String[] PLACEHOLDERS = new String[Integer.numberOfTrailingZeros(MAX_KEYS_PER_QUERY) + 1];
+
+    // Formatos já montados de cada consulta: SHAPES.get(template)[i] tem 2^i marcadores.
+    // Os templates são constantes dos DAOs, então o mapa não cresce sem limite.
+    private static final Map<String, String[]> SHAPES = new ConcurrentHashMap<>();
+
+    static {
+        for (int i = 0; i < PLACEHOLDERS.length; i++) {
+            PLACEHOLDERS[i] = String.join(", ", Collections.nCopies(1 << i, "?"));
+        }
+    }
+
+    private InLists() {
+    }
+
+    /**
+     * Recebe o ResultSet de um bloco. Pode ser chamado várias vezes em uma mesma consulta.
+     */
+    @FunctionalInterface
+    interface ResultSetReader {
+        void read(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Executa 'sqlTemplate' para todas as chaves, um bloco por vez, na mesma conexão.
+     * @param sqlTemplate Consulta com "%s" no lugar dos marcadores do IN (...).
+     * @param keys Chaves pedidas; repetidas e nulas são ignoradas.
+     * @param reader Chamado com o ResultSet de cada bloco.
+     */
+    static <K> void query(ConnectionProvider connectionProvider, String sqlTemplate, Collection<K> keys,
+                          ResultSetReader reader) throws SQLException {
+        List<K> distinct = distinct(keys);
+        if (distinct.isEmpty()) {
+            return;
+        }
+        try (Connection conn = connectionProvider.getConnection()) {
+            for (int from = 0; from < distinct.size(); from += MAX_KEYS_PER_QUERY) {
+                List<K> chunk = distinct.subList(from, Math.min(from + MAX_KEYS_PER_QUERY, distinct.size()));
+                int bucket = bucketSize(chunk.size());
+                try (PreparedStatement stmt = conn.prepareStatement(shape(sqlTemplate, bucket))) {
+                    for (int i = 0; i < bucket; i++) {
+                        stmt.setObject(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                    }
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        reader.read(rs);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Quantidade de marcadores usada para 'n' chaves: a menor potência de 2 que comporta todas.
+     */
+    static int bucketSize(int n) {
+        if (n < 1 || n > MAX_KEYS_PER_QUERY) {
+            throw new IllegalArgumentException("Quantidade de chaves fora do intervalo: " + n);
+        }
+        return Integer.highestOneBit(n) == n ? n : Integer.highestOneBit(n) << 1;
+    }
+
+    /**
+     * "?, ?, ?, ?" com 'bucket' marcadores; 'bucket' deve vir de bucketSize.
+     */
+    static String placeholders(int bucket) {
+        return PLACEHOLDERS[Integer.numberOfTrailingZeros(bucket)];
+    }
+
+    /**
+     * O SQL de 'sqlTemplate' com 'bucket' marcadores, montado só na primeira vez.
+     */
+    static String shape(String sqlTemplate, int bucket) {
+        String[] shapes = SHAPES.computeIfAbsent(sqlTemplate, t -> new String[PLACEHOLDERS.length]);
+        int i = Integer.numberOfTrailingZeros(bucket);
+        String sql = shapes[i];
+        if (sql == null) {
+            // Corrida benigna: duas threads podem montar o mesmo texto.
+            sql = sqlTemplate.formatted(PLACEHOLDERS[i]);
+            shapes[i] = sql;
+        }
+        return sql;
+    }
+
+    /**
+     * Ordena as entidades encontradas na ordem das chaves pedidas (sem repetir).
+     * Chaves sem entidade correspondente ficam de fora.
+     */
+    static <K, T> List<T> inKeyOrder(Collection<K> keys, Collection<T> found, Function<T, K> keyOf) {
+        Map<K, T> byKey = new HashMap<>();
+        for (T entity : found) {
+            byKey.put(keyOf.apply(entity), entity);
+        }
+        List<T> result = new ArrayList<>(byKey.size());
+        for (K key : distinct(keys)) {
+            T entity = byKey.get(key);
+            if (entity != null) {
+                result.add(entity);
+            }
+        }
+        return result;
+    }
+
+    private static <K> List<K> distinct(Collection<K> keys) {
+        LinkedHashSet<K> distinct = new LinkedHashSet<>(keys);
+        distinct.removeIf(Objects::isNull);
+        return new ArrayList<>(distinct);
+    }
+}
@@ -0,0 +1,35 @@
+package br.inatel.DAO;
+
+import java.util.List;
+
+/**
+ * Uma consulta seletiva de um DAO (por chave, por lista de chaves, por página) que deve ser
+ * resolvida por índice, com valores de exemplo para os '?'.
+ * Os DAOs complexos listam as suas em indexedQueries(); o VerificadorPlanos roda EXPLAIN em
+ * cada uma e acusa as que varrem uma tabela grande.
+ *
+ * As leituras completas (readAll, streamAll) ficam de fora: elas percorrem a tabela de propósito.
+ *
+ * @param nome       Identificação na saída da verificação (ex.: "LivroDao.read").
+ * @param sql        O mesmo texto que o DAO executa; nas consultas IN (%s), já com os marcadores.
+ * @param parametros Um valor para cada '?', na ordem.
+ */
+public record IndexedQuery(String nome, String sql, List<Object> parametros) {
+
+    static IndexedQuery of(String nome, String sql, Object... parametros) {
+        return new IndexedQuery(nome, sql, List.of(parametros));
+    }
+
+    /**
+     * Consulta IN (%s) de InLists, no formato que InLists usaria para essas chaves.
+     */
+    static IndexedQuery in(String nome, String sqlTemplate, Object... chaves) {
+        int bloco = InLists.bucketSize(chaves.length);
+        Object[] parametros = new Object[bloco];
+        // InLists repete a última chave para completar o bloco.
+        for (int i = 0; i < bloco; i++) {
+            parametros[i] = chaves[Math.min(i, chaves.length - 1)];
+        }
+        return new IndexedQuery(nome, InLists.shape(sqlTemplate, bloco), List.of(parametros));
+    }
+}
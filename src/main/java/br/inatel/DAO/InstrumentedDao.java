@@ -0,0 +1,133 @@
+package br.inatel.DAO;
+
+import br.inatel.Interfaces.Dao;
+import br.inatel.Metricas.EventoDao;
+import br.inatel.Metricas.Operacao;
+import br.inatel.Metricas.RegistroMetricas;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Mede cada método de qualquer Dao: latência (histograma), erros e quantas entidades
+ * foram lidas ou gravadas, numa Operacao "nome.metodo" do RegistroMetricas.
+ *
+ * As Operacao são buscadas no construtor; cada chamada lê o relógio duas vezes e faz
+ * incrementos atômicos. Além do que o DAO embrulhado aloca, cada chamada cria o lambda que
+ * a repassa (e boxing no deleteAll). O EventoDao do Java Flight Recorder só é criado quando
+ * há uma gravação ativa com ele habilitado.
+ * Para medir só o banco, embrulhe o DAO antes do CachedDao/AsyncDao.
+ *
+ * @param <T> Tipo da entidade.
+ * @param <K> Tipo da chave.
+ */
+public class InstrumentedDao<T, K> implements Dao<T, K> {
+    // Linhas de cada tipo de resultado; sem captura, o mesmo objeto serve a todas as chamadas.
+    private static final ToLongFunction<Object> UMA_SE_EXISTE = resultado -> resultado == null ? 0 : 1;
+    private static final ToLongFunction<List<?>> TAMANHO = List::size;
+    private static final ToLongFunction<Boolean> UMA_SE_VERDADEIRO = resultado -> resultado ? 1 : 0;
+    private static final ToLongFunction<Integer> QUANTIDADE = Integer::longValue;
+
+    private final Dao<T, K> delegate;
+    private final String nome;
+    private final Operacao create;
+    private final Operacao read;
+    private final Operacao readMany;
+    private final Operacao readAll;
+    private final Operacao readPage;
+    private final Operacao delete;
+    private final Operacao createAll;
+    private final Operacao deleteAll;
+
+    /**
+     * @param nome Prefixo das operações no registro (ex.: "livro" gera "livro.read", "livro.create"...).
+     */
+    public InstrumentedDao(Dao<T, K> delegate, String nome, RegistroMetricas metricas) {
+        this.delegate = delegate;
+        this.nome = nome;
+        this.create = metricas.operacaoDao(nome + ".create");
+        this.read = metricas.operacaoDao(nome + ".read");
+        this.readMany = metricas.operacaoDao(nome + ".readMany");
+        this.readAll = metricas.operacaoDao(nome + ".readAll");
+        this.readPage = metricas.operacaoDao(nome + ".readPage");
+        this.delete = metricas.operacaoDao(nome + ".delete");
+        this.createAll = metricas.operacaoDao(nome + ".createAll");
+        this.deleteAll = metricas.operacaoDao(nome + ".deleteAll");
+    }
+
+    @Override
+    public K create(T entity) throws SQLException {
+        return medir(create, "create", () -> delegate.create(entity), UMA_SE_EXISTE);
+    }
+
+    @Override
+    public T read(K id) throws SQLException {
+        return medir(read, "read", () -> delegate.read(id), UMA_SE_EXISTE);
+    }
+
+    @Override
+    public List<T> readMany(Collection<K> ids) throws SQLException {
+        return medir(readMany, "readMany", () -> delegate.readMany(ids), TAMANHO);
+    }
+
+    @Override
+    public List<T> readAll() throws SQLException {
+        return medir(readAll, "readAll", delegate::readAll, TAMANHO);
+    }
+
+    @Override
+    public List<T> readPage(K after, int limit) throws SQLException {
+        return medir(readPage, "readPage", () -> delegate.readPage(after, limit), TAMANHO);
+    }
+
+    @Override
+    public boolean delete(K id) throws SQLException {
+        return medir(delete, "delete", () -> delegate.delete(id), UMA_SE_VERDADEIRO);
+    }
+
+    @Override
+    public List<K> createAll(Collection<T> entities) throws SQLException {
+        return medir(createAll, "createAll", () -> delegate.createAll(entities), TAMANHO);
+    }
+
+    @Override
+    public int deleteAll(Collection<K> ids) throws SQLException {
+        return medir(deleteAll, "deleteAll", () -> delegate.deleteAll(ids), QUANTIDADE);
+    }
+
+    /**
+     * Uma chamada ao DAO embrulhado.
+     */
+    @FunctionalInterface
+    private interface Chamada<R> {
+        R executar() throws SQLException;
+    }
+
+    // Mede 'chamada' na 'operacao' ('linhas' conta as entidades do resultado) e gera o EventoDao.
+    private <R> R medir(Operacao operacao, String metodo, Chamada<R> chamada,
+                        ToLongFunction<? super R> linhas) throws SQLException {
+        EventoDao evento = null;
+        if (EventoDao.ativo()) {
+            evento = new EventoDao();
+            evento.begin();
+        }
+        long inicio = System.nanoTime();
+        try {
+            R resultado = chamada.executar();
+            long quantidade = linhas.applyAsLong(resultado);
+            operacao.registrar(System.nanoTime() - inicio, quantidade);
+            if (evento != null) {
+                evento.concluir(nome, metodo, quantidade, true);
+            }
+            return resultado;
+        } catch (SQLException | RuntimeException e) {
+            operacao.erro(System.nanoTime() - inicio);
+            if (evento != null) {
+                evento.concluir(nome, metodo, 0, false);
+            }
+            throw e;
+        }
+    }
+}
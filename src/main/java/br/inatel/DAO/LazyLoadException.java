@@ -0,0 +1,21 @@
+package br.inatel.DAO;
+
+import java.sql.SQLException;
+
+/**
+ * Falha ao carregar uma associação sob demanda (modo LAZY).
+ * O acesso acontece em um getter da entidade, que não pode lançar SQLException;
+ * a SQLException original fica em getCause().
+ */
+public class LazyLoadException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public LazyLoadException(String message, SQLException cause) {
+        super(message, cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
@@ -3,12 +3,20 @@ package br.inatel.DAO;
 import br.inatel.Biblioteca.Autor;
 import br.inatel.Biblioteca.Categoria;
 import br.inatel.Biblioteca.Livro;
+import br.inatel.Interfaces.ConnectionProvider;
 import br.inatel.Interfaces.Dao;
 
 import java.sql.*;
 import java.time.Year;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * DAO para a entidade complexa 'Livro'.
@@ -16,28 +24,84 @@ import java.util.List;
  * e implementa a interface Dao para as operações de CRUD.
  */
 public class LivroDao extends AbstractComplexDao<Livro, String> implements Dao<Livro, String> {
-    private final Connection conn;
+    private final ConnectionProvider connectionProvider;
+    private final CopyCountCache copyCounts;
+    private final FetchMode fetchMode;
+    private final AvailabilityIndex availability; // null: sem índice de disponibilidade
+    private final CatalogSearchIndex searchIndex; // null: sem índice de busca
 
-    public LivroDao(Connection conn) {
-        this.conn = conn;
+    public LivroDao(ConnectionProvider connectionProvider, CopyCountCache copyCounts) {
+        this(connectionProvider, copyCounts, FetchMode.EAGER);
+    }
+
+    /**
+     * @param fetchMode EAGER traz os autores no mesmo SELECT (JOIN); LAZY lê só os livros
+     *                  e busca os autores no primeiro getAutores(), em lote.
+     */
+    public LivroDao(ConnectionProvider connectionProvider, CopyCountCache copyCounts, FetchMode fetchMode) {
+        this(connectionProvider, copyCounts, fetchMode, null);
+    }
+
+    /**
+     * @param availability Índice de disponibilidade; delete remove dele os exemplares do livro (pode ser null).
+     */
+    public LivroDao(ConnectionProvider connectionProvider, CopyCountCache copyCounts, FetchMode fetchMode,
+                    AvailabilityIndex availability) {
+        this(connectionProvider, copyCounts, fetchMode, availability, null);
+    }
+
+    /**
+     * @param searchIndex Índice de busca do catálogo; create e delete o mantêm atualizado (pode ser null).
+     */
+    public LivroDao(ConnectionProvider connectionProvider, CopyCountCache copyCounts, FetchMode fetchMode,
+                    AvailabilityIndex availability, CatalogSearchIndex searchIndex) {
+        this.connectionProvider = connectionProvider;
+        this.copyCounts = copyCounts;
+        this.fetchMode = fetchMode;
+        this.availability = availability;
+        this.searchIndex = searchIndex;
     }
 
     // readAll agora é extremamente simples.
     @Override
     public List<Livro> readAll() throws SQLException {
-        String sql = getCompletaQuery() + " ORDER BY l.titulo, a.nome";
-        try (Statement stmt = conn.createStatement();
+        if (fetchMode == FetchMode.LAZY) {
+            return readLazy(CONSULTA_SIMPLES + " ORDER BY l.titulo");
+        }
+        String sql = CONSULTA_COMPLETA + " ORDER BY l.titulo, l.isbn, a.nome";
+        try (Connection conn = connectionProvider.getConnection();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             // Delega o trabalho pesado para a classe pai.
             return processResultSet(rs);
         }
     }
 
+    /**
+     * Percorre todos os registros sem carregá-los de uma vez: cada Livro é entregue
+     * para 'action' assim que todas as suas linhas forem lidas. A ordenação inclui a chave
+     * principal para que as linhas de uma mesma entidade venham juntas.
+     * Sempre usa o JOIN com os autores: carregá-los sob demanda aqui seria uma consulta por livro.
+     */
+    public void streamAll(Consumer<? super Livro> action) throws SQLException {
+        String sql = CONSULTA_COMPLETA + " ORDER BY l.titulo, l.isbn, a.nome";
+        try (Connection conn = connectionProvider.getConnection();
+             Statement stmt = createStreamingStatement(conn);
+             ResultSet rs = stmt.executeQuery(sql)) {
+            processResultSet(rs, action);
+        }
+    }
+
     // read também é simplificado.
     @Override
     public Livro read(String isbn) throws SQLException {
-        String sql = getCompletaQuery() + " WHERE l.isbn = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        if (fetchMode == FetchMode.LAZY) {
+            List<Livro> livros = readLazy(POR_ISBN_SIMPLES, isbn);
+            return livros.isEmpty() ? null : livros.getFirst();
+        }
+        String sql = POR_ISBN;
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, isbn);
             try (ResultSet rs = stmt.executeQuery()) {
                 List<Livro> livros = processResultSet(rs);
@@ -46,98 +110,265 @@ public class LivroDao extends AbstractComplexDao<Livro, String> implements Dao<L
         }
     }
 
+    // Uma consulta IN (...) por bloco de chaves, em vez de um read(isbn) por chave.
+    @Override
+    public List<Livro> readMany(Collection<String> isbns) throws SQLException {
+        List<Livro> livros = new ArrayList<>();
+        if (fetchMode == FetchMode.LAZY) {
+            // Um só carregador para todos os blocos: os autores também vêm em lote.
+            BatchLoader<String, List<Autor>> autores = autoresLoader(connectionProvider);
+            InLists.query(connectionProvider, POR_ISBNS_SIMPLES, isbns,
+                    rs -> mapLazyRows(rs, autores, livros));
+        } else {
+            InLists.query(connectionProvider, POR_ISBNS, isbns,
+                    rs -> livros.addAll(processResultSet(rs)));
+        }
+        return InLists.inKeyOrder(isbns, livros, Livro::getIsbn);
+    }
+
+    /**
+     * Quais destes ISBNs já estão cadastrados. Só lê a chave, sem categoria nem autores.
+     */
+    public Set<String> existentes(Collection<String> isbns) throws SQLException {
+        Set<String> existentes = new HashSet<>();
+        InLists.query(connectionProvider, ISBNS_EXISTENTES, isbns, rs -> {
+            while (rs.next()) {
+                existentes.add(rs.getString(1));
+            }
+        });
+        return existentes;
+    }
+
+    // Paginação pela chave do livro: a subconsulta escolhe os ISBNs da página e o JOIN
+    // traz todos os autores deles, então um livro nunca fica dividido entre duas páginas.
+    @Override
+    public List<Livro> readPage(String after, int limit) throws SQLException {
+        if (fetchMode == FetchMode.LAZY) {
+            // Sem o JOIN não há linhas repetidas por autor: basta o LIMIT direto.
+            return readLazy(PAGINA_SIMPLES,
+                    after == null ? "" : after, limit);
+        }
+        String sql = PAGINA;
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, after == null ? "" : after);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return processResultSet(rs);
+            }
+        }
+    }
+
+    /**
+     * Leitura do modo LAZY: uma linha por livro, sem os JOINs de autor.
+     * Todos os livros lidos aqui compartilham um carregador, então o primeiro getAutores()
+     * busca os autores de todos eles em uma consulta só.
+     */
+    private List<Livro> readLazy(String sql, Object... params) throws SQLException {
+        BatchLoader<String, List<Autor>> autores = autoresLoader(connectionProvider);
+        List<Livro> livros = new ArrayList<>();
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                mapLazyRows(rs, autores, livros);
+            }
+        }
+        return livros;
+    }
+
+    private void mapLazyRows(ResultSet rs, BatchLoader<String, List<Autor>> autores, List<Livro> livros) throws SQLException {
+        int[] columns = ColumnIndexes.resolve(rs, COLUNAS_SEM_AUTORES);
+        while (rs.next()) {
+            String isbn = rs.getString(columns[ISBN]);
+            Livro livro = new Livro(
+                    isbn,
+                    new Categoria(rs.getInt(columns[ID_CATEGORIA]), rs.getString(columns[NOME_CATEGORIA])),
+                    rs.getString(columns[TITULO]),
+                    rs.getInt(columns[ANO_PUBLICACAO]),
+                    autores.lazy(isbn)
+            );
+            livro.setQuantidadeExemplares(copyCounts.get(isbn));
+            livros.add(livro);
+        }
+    }
+
+    /**
+     * Carregador em lote dos autores de vários livros, para o modo LAZY.
+     * Usado também pelo ExemplarDao, cujos exemplares trazem o livro.
+     */
+    static BatchLoader<String, List<Autor>> autoresLoader(ConnectionProvider connectionProvider) {
+        return new BatchLoader<>("os autores dos livros", isbns -> {
+            String sql = AUTORES_POR_ISBNS;
+            // Todo livro pedido recebe uma lista, mesmo que vazia (livro sem autores).
+            Map<String, List<Autor>> autores = new HashMap<>();
+            for (String isbn : isbns) {
+                autores.put(isbn, new ArrayList<>());
+            }
+            InLists.query(connectionProvider, sql, isbns, rs -> {
+                while (rs.next()) {
+                    autores.computeIfAbsent(rs.getString(1), isbn -> new ArrayList<>())
+                            .add(new Autor(rs.getInt(2), rs.getString(3), rs.getString(4)));
+                }
+            });
+            return autores;
+        });
+    }
+
     // MÉTODOS ABSTRATOS IMPLEMENTADOS:
     // Aqui fornecemos os "detalhes" que a classe abstrata precisa.
 
+    // Colunas lidas de CONSULTA_COMPLETA; resolvidas para índices uma vez por ResultSet.
+    private static final String[] COLUNAS = {
+            "isbn", "titulo", "anoPublicacao",
+            "idCategoria", "nomeCategoria",
+            "id", "nome", "paisOrigem"
+    };
+    private static final int ISBN = 0;
+    private static final int TITULO = 1;
+    private static final int ANO_PUBLICACAO = 2;
+    private static final int ID_CATEGORIA = 3;
+    private static final int NOME_CATEGORIA = 4;
+    private static final int AUTOR_ID = 5;
+    private static final int AUTOR_NOME = 6;
+    private static final int AUTOR_PAIS = 7;
+    // Modo LAZY: as mesmas colunas, sem as do autor.
+    private static final String[] COLUNAS_SEM_AUTORES = Arrays.copyOf(COLUNAS, AUTOR_ID);
+
+    @Override
+    protected String[] getColumnLabels() {
+        return COLUNAS;
+    }
+
     @Override
-    protected String getKeyFromResultSet(ResultSet rs) throws SQLException {
-        return rs.getString("isbn");
+    protected String getKeyFromResultSet(ResultSet rs, int[] columns) throws SQLException {
+        return rs.getString(columns[ISBN]);
     }
 
     @Override
-    protected Livro mapRowToMainEntity(ResultSet rs) throws SQLException {
-        Categoria categoria = new Categoria(rs.getInt("idCategoria"), rs.getString("nomeCategoria"));
+    protected Livro mapRowToMainEntity(ResultSet rs, int[] columns) throws SQLException {
+        Categoria categoria = new Categoria(rs.getInt(columns[ID_CATEGORIA]), rs.getString(columns[NOME_CATEGORIA]));
         Livro livro = new Livro(
-                rs.getString("isbn"),
+                rs.getString(columns[ISBN]),
                 categoria,
-                rs.getString("titulo"),
-                rs.getInt("anoPublicacao"),
+                rs.getString(columns[TITULO]),
+                rs.getInt(columns[ANO_PUBLICACAO]),
                 new ArrayList<>() // A lista de autores começa vazia
         );
-        livro.setQuantidadeExemplares(rs.getInt("quantidadeExemplares"));
+        // A quantidade vem da projeção mantida pelas escritas, sem varrer exemplar_livro.
+        livro.setQuantidadeExemplares(copyCounts.get(livro.getIsbn()));
         return livro;
     }
 
     @Override
-    protected void addNestedEntity(Livro livro, ResultSet rs) throws SQLException {
+    protected void addNestedEntity(Livro livro, ChildIdSet autoresVistos, ResultSet rs, int[] columns) throws SQLException {
         // Adiciona o autor (a entidade aninhada) se ele existir na linha atual.
-        int autorId = rs.getInt("id");
-        if (autorId != 0) {
-            // Garante que o mesmo autor não seja adicionado múltiplas vezes ao mesmo livro.
-            boolean autorJaAdicionado = livro.getAutores().stream().anyMatch(a -> a.getId() == autorId);
-            if (!autorJaAdicionado) {
-                Autor autor = new Autor(autorId, rs.getString("nome"), rs.getString("paisOrigem"));
-                livro.addAutor(autor);
-            }
+        int autorId = rs.getInt(columns[AUTOR_ID]);
+        // Garante que o mesmo autor não seja adicionado múltiplas vezes ao mesmo livro.
+        if (autorId != 0 && autoresVistos.add(autorId)) {
+            Autor autor = new Autor(autorId, rs.getString(columns[AUTOR_NOME]), rs.getString(columns[AUTOR_PAIS]));
+            livro.addAutor(autor);
         }
     }
 
-    private String getCompletaQuery() {
-        return """
+    // Constantes de verdade: "CONSULTA_COMPLETA + \" WHERE ...\"" é resolvido pelo compilador,
+    // então cada SQL composto é uma String única (interned) em vez de ser montado a cada chamada,
+    // e o cache de statements do pool o encontra sempre pelo mesmo texto.
+    private static final String CONSULTA_SIMPLES = """
+        SELECT
+            l.isbn, l.titulo, l.anoPublicacao,
+            c.idCategoria, c.nomeCategoria
+        FROM livro l
+        JOIN categoria c ON l.categoria_idCategoria = c.idCategoria
+        """;
+
+    private static final String CONSULTA_COMPLETA = """
         SELECT
             l.isbn, l.titulo, l.anoPublicacao,
             c.idCategoria, c.nomeCategoria,
-            a.id, a.nome, a.paisOrigem,
-            (SELECT COUNT(*) FROM exemplar_livro ex WHERE ex.isbn_livro = l.isbn) AS quantidadeExemplares
+            a.id, a.nome, a.paisOrigem
         FROM livro l
         JOIN categoria c ON l.categoria_idCategoria = c.idCategoria
         LEFT JOIN livro_has_autor lha ON l.isbn = lha.livro_ISBN
         LEFT JOIN autor a ON lha.autor_idAutor = a.id
         """;
+
+    // Variantes por chave, por lista de chaves e por página (também verificadas por indexedQueries).
+    private static final String POR_ISBN = CONSULTA_COMPLETA + " WHERE l.isbn = ?";
+    private static final String POR_ISBN_SIMPLES = CONSULTA_SIMPLES + " WHERE l.isbn = ?";
+    private static final String POR_ISBNS = CONSULTA_COMPLETA + " WHERE l.isbn IN (%s) ORDER BY l.isbn, a.nome";
+    private static final String POR_ISBNS_SIMPLES = CONSULTA_SIMPLES + " WHERE l.isbn IN (%s)";
+    private static final String PAGINA = CONSULTA_COMPLETA + """
+            WHERE l.isbn IN (
+                SELECT isbn FROM (SELECT isbn FROM livro WHERE isbn > ? ORDER BY isbn LIMIT ?) pagina
+            )
+            ORDER BY l.isbn, a.nome""";
+    private static final String PAGINA_SIMPLES = CONSULTA_SIMPLES + " WHERE l.isbn > ? ORDER BY l.isbn LIMIT ?";
+    private static final String AUTORES_POR_ISBNS = """
+            SELECT lha.livro_ISBN, a.id, a.nome, a.paisOrigem
+            FROM livro_has_autor lha
+            JOIN autor a ON lha.autor_idAutor = a.id
+            WHERE lha.livro_ISBN IN (%s)
+            ORDER BY a.nome""";
+    private static final String ISBNS_EXISTENTES = "SELECT isbn FROM livro WHERE isbn IN (%s)";
+
+    /**
+     * As consultas seletivas deste DAO, nos dois FetchMode, para a verificação de planos.
+     */
+    public static List<IndexedQuery> indexedQueries() {
+        return List.of(
+                IndexedQuery.of("LivroDao.read", POR_ISBN, "9780000000000"),
+                IndexedQuery.of("LivroDao.read (LAZY)", POR_ISBN_SIMPLES, "9780000000000"),
+                IndexedQuery.in("LivroDao.readMany", POR_ISBNS, "9780000000000", "9780000000001", "9780000000002"),
+                IndexedQuery.in("LivroDao.readMany (LAZY)", POR_ISBNS_SIMPLES, "9780000000000", "9780000000001", "9780000000002"),
+                IndexedQuery.of("LivroDao.readPage", PAGINA, "", 100),
+                IndexedQuery.of("LivroDao.readPage (LAZY)", PAGINA_SIMPLES, "", 100),
+                IndexedQuery.in("LivroDao.autoresLoader", AUTORES_POR_ISBNS, "9780000000000", "9780000000001", "9780000000002"),
+                IndexedQuery.in("LivroDao.existentes", ISBNS_EXISTENTES, "9780000000000", "9780000000001", "9780000000002"));
     }
 
-    // Os métodos de escrita (create, update, delete) não mudam.
+    // Escritas: depois do commit (afterCommit), atualizam o CatalogSearchIndex e, nas exclusões,
+    // também o CopyCountCache e o AvailabilityIndex.
     @Override
-    public boolean create(Livro livro) throws SQLException {
-        conn.setAutoCommit(false);
+    public String create(Livro livro) throws SQLException {
         String sqlLivro = "INSERT INTO livro (isbn, titulo, anoPublicacao, categoria_idCategoria) VALUES (?, ?, ?, ?)";
         String sqlAutores = "INSERT INTO livro_has_autor (livro_ISBN, autor_idAutor) VALUES (?, ?)";
 
-        try (PreparedStatement stmtLivro = conn.prepareStatement(sqlLivro);
-             PreparedStatement stmtAutores = conn.prepareStatement(sqlAutores)) {
+        boolean inserido = connectionProvider.inTransaction(conn -> {
+            try (PreparedStatement stmtLivro = conn.prepareStatement(sqlLivro);
+                 PreparedStatement stmtAutores = conn.prepareStatement(sqlAutores)) {
 
-            stmtLivro.setString(1, livro.getIsbn());
-            stmtLivro.setString(2, livro.getTitulo());
-            stmtLivro.setInt(3, livro.getAnoPublicacao());
-            stmtLivro.setInt(4, livro.getCategoria().getId());
-            int affectedRows = stmtLivro.executeUpdate();
+                stmtLivro.setString(1, livro.getIsbn());
+                stmtLivro.setString(2, livro.getTitulo());
+                stmtLivro.setInt(3, livro.getAnoPublicacao());
+                stmtLivro.setInt(4, livro.getCategoria().getId());
+                if (stmtLivro.executeUpdate() == 0) {
+                    return false;
+                }
 
-            if (affectedRows == 0) {
-                conn.rollback();
-                return false;
+                for (Autor autor : livro.getAutores()) {
+                    stmtAutores.setString(1, livro.getIsbn());
+                    stmtAutores.setInt(2, autor.getId());
+                    stmtAutores.addBatch();
+                }
+                stmtAutores.executeBatch();
+                return true;
             }
-
-            for (Autor autor : livro.getAutores()) {
-                stmtAutores.setString(1, livro.getIsbn());
-                stmtAutores.setInt(2, autor.getId());
-                stmtAutores.addBatch();
-            }
-            stmtAutores.executeBatch();
-            conn.commit();
-            return true;
-
-        } catch (SQLException e) {
-            conn.rollback();
-            throw e;
-        } finally {
-            conn.setAutoCommit(true);
+        });
+        if (!inserido) {
+            return null;
+        }
+        if (searchIndex != null) {
+            connectionProvider.afterCommit(() -> searchIndex.add(livro));
         }
+        // A chave do livro é o ISBN informado, não há chave gerada.
+        return livro.getIsbn();
     }
 
     @Override
     public boolean delete(String isbn) throws SQLException {
-        conn.setAutoCommit(false); // Inicia a transação
-
         // 1. SQL para deletar os exemplares (NOVO)
         String sqlDeleteExemplares = "DELETE FROM exemplar_livro WHERE isbn_livro = ?";
         // 2. SQL para deletar as associações com autores
@@ -145,34 +376,102 @@ public class LivroDao extends AbstractComplexDao<Livro, String> implements Dao<L
         // 3. SQL para deletar o livro principal
         String sqlDeleteLivro = "DELETE FROM livro WHERE isbn = ?";
 
-        // Usamos um bloco try-with-resources para garantir que todos os Statements sejam fechados
-        try (PreparedStatement stmtExemplares = conn.prepareStatement(sqlDeleteExemplares); // NOVO
-             PreparedStatement stmtAutores = conn.prepareStatement(sqlDeleteAutores);
-             PreparedStatement stmtLivro = conn.prepareStatement(sqlDeleteLivro)) {
-
-            // --- Ordem de execução é importante por causa das chaves estrangeiras ---
-
-            // Passo 1: Deleta os exemplares associados ao livro
-            stmtExemplares.setString(1, isbn);
-            stmtExemplares.executeUpdate();
+        int affectedRows;
+        try {
+            // Os três passos na mesma transação: se qualquer um falhar, todos são desfeitos
+            affectedRows = connectionProvider.inTransaction(conn -> {
+                // Usamos um bloco try-with-resources para garantir que todos os Statements sejam fechados
+                try (PreparedStatement stmtExemplares = conn.prepareStatement(sqlDeleteExemplares); // NOVO
+                     PreparedStatement stmtAutores = conn.prepareStatement(sqlDeleteAutores);
+                     PreparedStatement stmtLivro = conn.prepareStatement(sqlDeleteLivro)) {
 
-            // Passo 2: Deleta as associações na tabela livro_has_autor
-            stmtAutores.setString(1, isbn);
-            stmtAutores.executeUpdate();
+                    // --- Ordem de execução é importante por causa das chaves estrangeiras ---
 
-            // Passo 3: Finalmente, deleta o livro
-            stmtLivro.setString(1, isbn);
-            int affectedRows = stmtLivro.executeUpdate(); // O resultado final depende desta operação
+                    // Passo 1: Deleta os exemplares associados ao livro
+                    stmtExemplares.setString(1, isbn);
+                    stmtExemplares.executeUpdate();
 
-            conn.commit(); // Se tudo deu certo, confirma a transação
-            return affectedRows > 0;
+                    // Passo 2: Deleta as associações na tabela livro_has_autor
+                    stmtAutores.setString(1, isbn);
+                    stmtAutores.executeUpdate();
 
+                    // Passo 3: Finalmente, deleta o livro
+                    stmtLivro.setString(1, isbn);
+                    return stmtLivro.executeUpdate(); // O resultado final depende desta operação
+                }
+            });
         } catch (SQLException e) {
-            conn.rollback(); // Se qualquer passo falhar, desfaz todas as operações
             System.err.println("Erro ao deletar livro. A transação foi revertida.");
             throw e; // Lança a exceção para a camada superior (o Menu) tratar
-        } finally {
-            conn.setAutoCommit(true); // Restaura o modo padrão de auto-commit
         }
+
+        connectionProvider.afterCommit(() -> {
+            copyCounts.remove(isbn);
+            if (availability != null) {
+                availability.removeBook(isbn);
+            }
+            if (searchIndex != null) {
+                searchIndex.remove(isbn);
+            }
+        });
+        return affectedRows > 0;
+    }
+
+    // Insere os livros e as associações com autores de cada bloco na mesma transação.
+    @Override
+    public List<String> createAll(Collection<Livro> livros) throws SQLException {
+        String sqlLivro = "INSERT INTO livro (isbn, titulo, anoPublicacao, categoria_idCategoria) VALUES (?, ?, ?, ?)";
+        String sqlAutores = "INSERT INTO livro_has_autor (livro_ISBN, autor_idAutor) VALUES (?, ?)";
+        List<String> isbns = new ArrayList<>(livros.size());
+        Batches.inChunks(connectionProvider, livros, (conn, chunk) -> {
+            int inserted = Batches.sum(Batches.executeBatch(conn, sqlLivro, chunk, (stmt, livro) -> {
+                stmt.setString(1, livro.getIsbn());
+                stmt.setString(2, livro.getTitulo());
+                stmt.setInt(3, livro.getAnoPublicacao());
+                stmt.setInt(4, livro.getCategoria().getId());
+            }));
+            try (PreparedStatement stmtAutores = conn.prepareStatement(sqlAutores)) {
+                for (Livro livro : chunk) {
+                    for (Autor autor : livro.getAutores()) {
+                        stmtAutores.setString(1, livro.getIsbn());
+                        stmtAutores.setInt(2, autor.getId());
+                        stmtAutores.addBatch();
+                    }
+                }
+                stmtAutores.executeBatch();
+            }
+            for (Livro livro : chunk) {
+                isbns.add(livro.getIsbn());
+            }
+            return inserted;
+        });
+        // Se um bloco falhar, os já confirmados só aparecem na busca depois de um novo load().
+        if (searchIndex != null) {
+            connectionProvider.afterCommit(() -> livros.forEach(searchIndex::add));
+        }
+        return isbns;
+    }
+
+    // Mesma ordem do delete(): exemplares, associações com autores e por fim os livros.
+    @Override
+    public int deleteAll(Collection<String> isbns) throws SQLException {
+        Batches.Binder<String> porIsbn = (stmt, isbn) -> stmt.setString(1, isbn);
+        int deleted = Batches.inChunks(connectionProvider, isbns, (conn, chunk) -> {
+            Batches.executeBatch(conn, "DELETE FROM exemplar_livro WHERE isbn_livro = ?", chunk, porIsbn);
+            Batches.executeBatch(conn, "DELETE FROM livro_has_autor WHERE livro_ISBN = ?", chunk, porIsbn);
+            return Batches.sum(Batches.executeBatch(conn, "DELETE FROM livro WHERE isbn = ?", chunk, porIsbn));
+        });
+        connectionProvider.afterCommit(() -> {
+            for (String isbn : isbns) {
+                copyCounts.remove(isbn);
+                if (availability != null) {
+                    availability.removeBook(isbn);
+                }
+                if (searchIndex != null) {
+                    searchIndex.remove(isbn);
+                }
+            }
+        });
+        return deleted;
     }
-}
\ No newline at end of file
+}
@@ -1,10 +1,14 @@
 package br.inatel.DAO;
 
 import br.inatel.Biblioteca.*;
+import br.inatel.Interfaces.ConnectionProvider;
 import br.inatel.Interfaces.Dao;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * DAO para a entidade complexa 'Multa'.
@@ -12,28 +16,44 @@ import java.util.List;
  * e implementa a interface Dao para as operações de CRUD.
  */
 public class MultaDao extends AbstractComplexDao<Multa, Integer> implements Dao<Multa, Integer> {
-    private final Connection conn;
+    private final ConnectionProvider connectionProvider;
 
-    public MultaDao(Connection connection) {
-        this.conn = connection;
+    public MultaDao(ConnectionProvider connectionProvider) {
+        this.connectionProvider = connectionProvider;
     }
 
     // readAll agora é simples e consistente com os outros DAOs.
     @Override
     public List<Multa> readAll() throws SQLException {
-        String sql = getCompletaQuery() + " ORDER BY m.valor DESC";
-        try (Statement stmt = conn.createStatement();
+        String sql = CONSULTA_COMPLETA + " ORDER BY m.multa DESC";
+        try (Connection conn = connectionProvider.getConnection();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             // Chama o metodo da classe pai para fazer o trabalho pesado.
             return processResultSet(rs);
         }
     }
 
+    /**
+     * Percorre todos os registros sem carregá-los de uma vez: cada Multa é entregue
+     * para 'action' assim que todas as suas linhas forem lidas. A ordenação inclui a chave
+     * principal para que as linhas de uma mesma entidade venham juntas.
+     */
+    public void streamAll(Consumer<? super Multa> action) throws SQLException {
+        String sql = CONSULTA_COMPLETA + " ORDER BY m.multa DESC, m.idMulta";
+        try (Connection conn = connectionProvider.getConnection();
+             Statement stmt = createStreamingStatement(conn);
+             ResultSet rs = stmt.executeQuery(sql)) {
+            processResultSet(rs, action);
+        }
+    }
+
     // read também é simplificado.
     @Override
     public Multa read(Integer id) throws SQLException {
-        String sql = getCompletaQuery() + " WHERE m.id_multa = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        String sql = POR_ID;
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 List<Multa> multas = processResultSet(rs);
@@ -42,24 +62,74 @@ public class MultaDao extends AbstractComplexDao<Multa, Integer> implements Dao<
         }
     }
 
+    // Uma consulta IN (...) por bloco de chaves, em vez de um read(id) por chave.
+    @Override
+    public List<Multa> readMany(Collection<Integer> ids) throws SQLException {
+        List<Multa> multas = new ArrayList<>();
+        String sql = POR_IDS;
+        InLists.query(connectionProvider, sql, ids, rs -> multas.addAll(processResultSet(rs)));
+        return InLists.inKeyOrder(ids, multas, Multa::getId);
+    }
+
+    // Cada multa ocupa uma única linha, então o LIMIT pode ir direto na consulta completa.
+    @Override
+    public List<Multa> readPage(Integer after, int limit) throws SQLException {
+        String sql = PAGINA;
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, after == null ? 0 : after);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return processResultSet(rs);
+            }
+        }
+    }
+
     // MÉTODOS ABSTRATOS IMPLEMENTADOS:
     // Fornecemos os detalhes específicos que a classe abstrata precisa.
 
+    // Colunas lidas de CONSULTA_COMPLETA; resolvidas para índices uma vez por ResultSet.
+    private static final String[] COLUNAS = {
+            "idMulta", "multa", "juros",
+            "idEmprestimo", "dataEmprestimo", "dataDevolucao",
+            "idUsuario", "nome", "email",
+            "id_livro", "status",
+            "isbn", "titulo"
+    };
+    private static final int ID_MULTA = 0;
+    private static final int MULTA = 1;
+    private static final int JUROS = 2;
+    private static final int ID_EMPRESTIMO = 3;
+    private static final int DATA_EMPRESTIMO = 4;
+    private static final int DATA_DEVOLUCAO = 5;
+    private static final int ID_USUARIO = 6;
+    private static final int USUARIO_NOME = 7;
+    private static final int USUARIO_EMAIL = 8;
+    private static final int ID_EXEMPLAR = 9;
+    private static final int STATUS = 10;
+    private static final int ISBN = 11;
+    private static final int TITULO = 12;
+
+    @Override
+    protected String[] getColumnLabels() {
+        return COLUNAS;
+    }
+
     @Override
-    protected Integer getKeyFromResultSet(ResultSet rs) throws SQLException {
-        return rs.getInt("idMulta");
+    protected Integer getKeyFromResultSet(ResultSet rs, int[] columns) throws SQLException {
+        return rs.getInt(columns[ID_MULTA]);
     }
 
     @Override
-    protected Multa mapRowToMainEntity(ResultSet rs) throws SQLException {
+    protected Multa mapRowToMainEntity(ResultSet rs, int[] columns) throws SQLException {
         // 1. Monta o Empréstimo associado (lógica similar ao EmprestimoDao)
-        Usuario usuario = new Usuario(rs.getInt("idUsuario"), rs.getString("nome"), rs.getString("email"), null, null);
-        Livro livro = new Livro(rs.getString("isbn"), null, rs.getString("titulo"), null, null);
-        Exemplar_livro exemplar = new Exemplar_livro(rs.getInt("id_livro"), livro, rs.getBoolean("status"));
-        Date dataDevolucaoSQL = rs.getDate("dataDevolucao");
+        Usuario usuario = new Usuario(rs.getInt(columns[ID_USUARIO]), rs.getString(columns[USUARIO_NOME]), rs.getString(columns[USUARIO_EMAIL]), null, null);
+        Livro livro = new Livro(rs.getString(columns[ISBN]), null, rs.getString(columns[TITULO]), null, new ArrayList<>());
+        Exemplar_livro exemplar = new Exemplar_livro(rs.getInt(columns[ID_EXEMPLAR]), livro, rs.getBoolean(columns[STATUS]));
+        Date dataDevolucaoSQL = rs.getDate(columns[DATA_DEVOLUCAO]);
         Emprestimo emprestimo = new Emprestimo(
-                rs.getInt("idEmprestimo"),
-                rs.getDate("dataEmprestimo").toLocalDate(),
+                rs.getInt(columns[ID_EMPRESTIMO]),
+                rs.getDate(columns[DATA_EMPRESTIMO]).toLocalDate(),
                 dataDevolucaoSQL != null ? dataDevolucaoSQL.toLocalDate() : null,
                 usuario,
                 exemplar
@@ -68,17 +138,16 @@ public class MultaDao extends AbstractComplexDao<Multa, Integer> implements Dao<
         // 2. Monta a Multa, que é a entidade principal aqui
         return new Multa(
                 emprestimo,
-                rs.getDouble("valor"),
-                rs.getDouble("juros"),
-                rs.getInt("idMulta")
+                rs.getDouble(columns[JUROS]),
+                rs.getDouble(columns[MULTA]),
+                rs.getInt(columns[ID_MULTA])
         );
     }
 
     @Override
-    protected void addNestedEntity(Multa mainEntity, ResultSet rs) throws SQLException {}
+    protected void addNestedEntity(Multa mainEntity, ChildIdSet seenChildren, ResultSet rs, int[] columns) throws SQLException {}
 
-    private String getCompletaQuery() {
-        return """
+    private static final String CONSULTA_COMPLETA = """
         SELECT
             m.idMulta, m.multa, m.juros,
             em.idEmprestimo, em.dataEmprestimo, em.dataDevolucao,
@@ -91,25 +160,88 @@ public class MultaDao extends AbstractComplexDao<Multa, Integer> implements Dao<
         JOIN exemplar_livro ex ON em.livro_id = ex.id_livro
         JOIN livro l ON ex.isbn_livro = l.isbn
         """;
+
+    // Variantes por chave, por lista de chaves e por página (também verificadas por indexedQueries).
+    private static final String POR_ID = CONSULTA_COMPLETA + " WHERE m.idMulta = ?";
+    private static final String POR_IDS = CONSULTA_COMPLETA + " WHERE m.idMulta IN (%s) ORDER BY m.idMulta";
+    private static final String PAGINA = CONSULTA_COMPLETA + " WHERE m.idMulta > ? ORDER BY m.idMulta LIMIT ?";
+
+    /**
+     * As consultas seletivas deste DAO, para a verificação de planos.
+     */
+    public static List<IndexedQuery> indexedQueries() {
+        return List.of(
+                IndexedQuery.of("MultaDao.read", POR_ID, 1),
+                IndexedQuery.in("MultaDao.readMany", POR_IDS, 1, 2, 3),
+                IndexedQuery.of("MultaDao.readPage", PAGINA, 0, 100));
     }
 
-    // Os métodos de escrita (create, update, delete) permanecem inalterados.
+    // Escritas: uma por chamada (create, delete) ou em lotes (createAll, upsertAll, deleteAll).
     @Override
-    public boolean create(Multa multa) throws SQLException {
+    public Integer create(Multa multa) throws SQLException {
         String sql = "INSERT INTO multa (multa, juros, emprestimo_idEmprestimo) VALUES (?, ?, ?)";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setDouble(1, multa.getMulta());
             stmt.setDouble(2, multa.getJuros());
             stmt.setInt(3, multa.getEmprestimo().getId());
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() == 0) {
+                return null;
+            }
+            int id = GeneratedKeys.single(stmt);
+            multa.setId(id);
+            return id;
         }
     }
     @Override
     public boolean delete(Integer id) throws SQLException {
         String sql = "DELETE FROM multa WHERE idMulta = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             return stmt.executeUpdate() > 0;
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public List<Integer> createAll(Collection<Multa> multas) throws SQLException {
+        String sql = "INSERT INTO multa (multa, juros, emprestimo_idEmprestimo) VALUES (?, ?, ?)";
+        return Batches.insertInChunks(connectionProvider, sql, multas, (stmt, multa) -> {
+            stmt.setDouble(1, multa.getMulta());
+            stmt.setDouble(2, multa.getJuros());
+            stmt.setInt(3, multa.getEmprestimo().getId());
+        }, Multa::setId);
+    }
+
+    /**
+     * Grava a multa de cada empréstimo: atualiza a que já existe ou insere uma nova, com um
+     * INSERT ... ON DUPLICATE KEY UPDATE em lote por bloco. Quem decide entre inserir e atualizar
+     * é o índice único multa (emprestimo_idEmprestimo) (migração 4), então duas gravações
+     * simultâneas do mesmo empréstimo não criam duas multas. Rodar de novo com os mesmos valores
+     * não duplica nada, e quem reprocessa um bloco (ex.: ao retomar um job) não precisa saber
+     * onde parou exatamente.
+     * Os ids das multas não são preenchidos: num lote assim o driver não informa quais linhas
+     * foram inseridas e quais atualizadas.
+     * @return Quantidade de multas gravadas (inseridas ou atualizadas).
+     */
+    public int upsertAll(Collection<Multa> multas) throws SQLException {
+        String sql = """
+                INSERT INTO multa (multa, juros, emprestimo_idEmprestimo) VALUES (?, ?, ?)
+                ON DUPLICATE KEY UPDATE multa = VALUES(multa), juros = VALUES(juros)""";
+        return Batches.inChunks(connectionProvider, multas, (conn, chunk) -> {
+            Batches.executeBatch(conn, sql, chunk, (stmt, multa) -> {
+                stmt.setDouble(1, multa.getMulta());
+                stmt.setDouble(2, multa.getJuros());
+                stmt.setInt(3, multa.getEmprestimo().getId());
+            });
+            // As contagens não servem: 1 inserida, 2 atualizada, 0 ou 1 sem mudança, ou SUCCESS_NO_INFO.
+            return chunk.size();
+        });
+    }
+
+    @Override
+    public int deleteAll(Collection<Integer> ids) throws SQLException {
+        String sql = "DELETE FROM multa WHERE idMulta = ?";
+        return Batches.executeInChunks(connectionProvider, sql, ids, (stmt, id) -> stmt.setInt(1, id));
+    }
+}
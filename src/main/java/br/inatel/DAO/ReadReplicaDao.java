@@ -0,0 +1,69 @@
+package br.inatel.DAO;
+
+import br.inatel.Database.RoteadorLeituraEscrita;
+import br.inatel.Interfaces.Dao;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Manda as leituras de qualquer Dao (read, readMany, readAll, readPage) para as réplicas do
+ * RoteadorLeituraEscrita; as escritas seguem para o primário como sempre.
+ *
+ * O DAO embrulhado precisa ter sido criado com um ConnectionProvider que passa pelo mesmo
+ * roteador. O roteio vale para a thread que chama, então este decorador fica por dentro do
+ * AsyncDao (new AsyncDao<>(new ReadReplicaDao<>(dao, roteador), ...)), que executa em outra.
+ *
+ * @param <T> Tipo da entidade.
+ * @param <K> Tipo da chave.
+ */
+public class ReadReplicaDao<T, K> implements Dao<T, K> {
+    private final Dao<T, K> delegate;
+    private final RoteadorLeituraEscrita roteador;
+
+    public ReadReplicaDao(Dao<T, K> delegate, RoteadorLeituraEscrita roteador) {
+        this.delegate = delegate;
+        this.roteador = roteador;
+    }
+
+    @Override
+    public K create(T entity) throws SQLException {
+        return delegate.create(entity);
+    }
+
+    @Override
+    public T read(K id) throws SQLException {
+        return roteador.lendo(() -> delegate.read(id));
+    }
+
+    @Override
+    public List<T> readMany(Collection<K> ids) throws SQLException {
+        return roteador.lendo(() -> delegate.readMany(ids));
+    }
+
+    @Override
+    public List<T> readAll() throws SQLException {
+        return roteador.lendo(delegate::readAll);
+    }
+
+    @Override
+    public List<T> readPage(K after, int limit) throws SQLException {
+        return roteador.lendo(() -> delegate.readPage(after, limit));
+    }
+
+    @Override
+    public boolean delete(K id) throws SQLException {
+        return delegate.delete(id);
+    }
+
+    @Override
+    public List<K> createAll(Collection<T> entities) throws SQLException {
+        return delegate.createAll(entities);
+    }
+
+    @Override
+    public int deleteAll(Collection<K> ids) throws SQLException {
+        return delegate.deleteAll(ids);
+    }
+}
@@ -1,35 +1,52 @@
 package br.inatel.DAO;
 
 import br.inatel.Biblioteca.Usuario;
+import br.inatel.Interfaces.ConnectionProvider;
 import br.inatel.Interfaces.Dao;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class UsuarioDao implements Dao<Usuario, Integer> {
-    private final Connection conn;
+    // Colunas lidas pelas listagens; resolvidas para índices uma vez por ResultSet.
+    private static final String[] COLUNAS = {"idUsuario", "nome", "email", "telefone", "tipo"};
+    private static final int ID = 0;
+    private static final int NOME = 1;
+    private static final int EMAIL = 2;
+    private static final int TELEFONE = 3;
+    private static final int TIPO = 4;
 
-    public UsuarioDao(Connection conn) {
-        this.conn = conn;
+    private final ConnectionProvider connectionProvider;
+
+    public UsuarioDao(ConnectionProvider connectionProvider) {
+        this.connectionProvider = connectionProvider;
     }
 
     @Override
-    public boolean create(Usuario usuario) throws SQLException {
+    public Integer create(Usuario usuario) throws SQLException {
         String sql = "INSERT INTO usuario (nome, telefone, email, tipo) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, usuario.getNome());
             stmt.setString(2, usuario.getTelefone());
             stmt.setString(3, usuario.getEmail());
             stmt.setString(4, usuario.getTipo());
-            return stmt.executeUpdate() > 0;
+            if (stmt.executeUpdate() == 0) {
+                return null;
+            }
+            int id = GeneratedKeys.single(stmt);
+            usuario.setId(id);
+            return id;
         }
     }
 
     @Override
     public Usuario read(Integer id) throws SQLException {
         String sql = "SELECT * FROM usuario WHERE idUsuario = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             ResultSet rs = stmt.executeQuery();
             if (rs.next()) {
@@ -37,8 +54,8 @@ public class UsuarioDao implements Dao<Usuario, Integer> {
                 return new Usuario(
                         rs.getInt("idUsuario"),
                         rs.getString("nome"),
-                        rs.getString("telefone"),
                         rs.getString("email"),
+                        rs.getString("telefone"),
                         rs.getString("tipo")
                 );
             }
@@ -46,32 +63,96 @@ public class UsuarioDao implements Dao<Usuario, Integer> {
         return null;
     }
 
+    // Uma consulta IN (...) por bloco de chaves, em vez de um read(id) por chave.
+    @Override
+    public List<Usuario> readMany(Collection<Integer> ids) throws SQLException {
+        List<Usuario> usuarios = new ArrayList<>();
+        String sql = "SELECT * FROM usuario WHERE idUsuario IN (%s)";
+        InLists.query(connectionProvider, sql, ids, rs -> {
+            int[] col = ColumnIndexes.resolve(rs, COLUNAS);
+            while (rs.next()) {
+                usuarios.add(new Usuario(
+                        rs.getInt(col[ID]),
+                        rs.getString(col[NOME]),
+                        rs.getString(col[EMAIL]),
+                        rs.getString(col[TELEFONE]),
+                        rs.getString(col[TIPO])
+                ));
+            }
+        });
+        return InLists.inKeyOrder(ids, usuarios, Usuario::getId);
+    }
+
     @Override
     public List<Usuario> readAll() throws SQLException {
         List<Usuario> usuarios = new ArrayList<>();
         String sql = "SELECT * FROM usuario";
-        try (Statement stmt = conn.createStatement();
+        try (Connection conn = connectionProvider.getConnection();
+             Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
+            int[] col = ColumnIndexes.resolve(rs, COLUNAS);
             while (rs.next()) {
                 // Os nomes das colunas aqui já estavam corretos
                 usuarios.add(new Usuario(
-                        rs.getInt("idUsuario"),
-                        rs.getString("nome"),
-                        rs.getString("telefone"),
-                        rs.getString("email"),
-                        rs.getString("tipo")
+                        rs.getInt(col[ID]),
+                        rs.getString(col[NOME]),
+                        rs.getString(col[EMAIL]),
+                        rs.getString(col[TELEFONE]),
+                        rs.getString(col[TIPO])
                 ));
             }
         }
         return usuarios;
     }
 
+    @Override
+    public List<Usuario> readPage(Integer after, int limit) throws SQLException {
+        List<Usuario> usuarios = new ArrayList<>();
+        String sql = "SELECT * FROM usuario WHERE idUsuario > ? ORDER BY idUsuario LIMIT ?";
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, after == null ? 0 : after);
+            stmt.setInt(2, limit);
+            try (ResultSet rs = stmt.executeQuery()) {
+                int[] col = ColumnIndexes.resolve(rs, COLUNAS);
+                while (rs.next()) {
+                    usuarios.add(new Usuario(
+                            rs.getInt(col[ID]),
+                            rs.getString(col[NOME]),
+                            rs.getString(col[EMAIL]),
+                            rs.getString(col[TELEFONE]),
+                            rs.getString(col[TIPO])
+                    ));
+                }
+            }
+        }
+        return usuarios;
+    }
+
     @Override
     public boolean delete(Integer id) throws SQLException {
         String sql = "DELETE FROM usuario WHERE idUsuario = ?";
-        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setInt(1, id);
             return stmt.executeUpdate() > 0;
         }
     }
+
+    @Override
+    public List<Integer> createAll(Collection<Usuario> usuarios) throws SQLException {
+        String sql = "INSERT INTO usuario (nome, telefone, email, tipo) VALUES (?, ?, ?, ?)";
+        return Batches.insertInChunks(connectionProvider, sql, usuarios, (stmt, usuario) -> {
+            stmt.setString(1, usuario.getNome());
+            stmt.setString(2, usuario.getTelefone());
+            stmt.setString(3, usuario.getEmail());
+            stmt.setString(4, usuario.getTipo());
+        }, Usuario::setId);
+    }
+
+    @Override
+    public int deleteAll(Collection<Integer> ids) throws SQLException {
+        String sql = "DELETE FROM usuario WHERE idUsuario = ?";
+        return Batches.executeInChunks(connectionProvider, sql, ids, (stmt, id) -> stmt.setInt(1, id));
+    }
 }
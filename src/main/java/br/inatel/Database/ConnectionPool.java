@@ -0,0 +1,479 @@
+package br.inatel.Database;
+
+import br.inatel.Interfaces.ConnectionProvider;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool de conexões limitado.
+ * As conexões físicas vêm de um ConnectionProvider (normalmente o DriverManager) e
+ * são entregues aos DAOs embrulhadas em um proxy: chamar close() devolve a conexão
+ * ao pool em vez de encerrá-la.
+ *
+ * - Aquecimento: abre 'minIdle' conexões já no construtor.
+ * - Limite: no máximo 'maxSize' conexões emprestadas ao mesmo tempo; quem passar
+ *   disso espera até 'borrowTimeoutMillis'.
+ * - Validação: toda conexão ociosa é validada (isValid) antes de ser entregue.
+ * - Expiração: conexões ociosas há mais de 'idleTimeoutMillis' ou abertas há mais
+ *   de 'maxLifetimeMillis' são fechadas pela tarefa de manutenção.
+ * - Statements: com 'statementCacheSize' > 0, cada conexão física guarda até esse número
+ *   de PreparedStatement por texto SQL (ver StatementCache) e os reaproveita entre empréstimos.
+ * - Métricas: quantidade de empréstimos, tempo de espera médio/máximo, timeouts e
+ *   acertos/preparações do cache de statements.
+ */
+public class ConnectionPool implements ConnectionProvider, AutoCloseable {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final ConnectionProvider physicalConnections;
+    private final int minIdle;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final int statementCacheSize;
+
+    // Cada conexão emprestada segura uma permissão; é isso que limita o pool.
+    private final Semaphore permits;
+    // Pilha de conexões ociosas (LIFO: a mais recente é reutilizada primeiro). Protegida por 'this'.
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    // Métricas
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder timeoutCount = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder destroyedCount = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+
+    /**
+     * Pool sem cache de statements.
+     */
+    public ConnectionPool(ConnectionProvider physicalConnections, int minIdle, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis, long maxLifetimeMillis) throws SQLException {
+        this(physicalConnections, minIdle, maxSize, borrowTimeoutMillis, idleTimeoutMillis, maxLifetimeMillis, 0);
+    }
+
+    /**
+     * @param statementCacheSize Máximo de PreparedStatement guardados por conexão física (0 desliga o cache).
+     */
+    public ConnectionPool(ConnectionProvider physicalConnections, int minIdle, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis, long maxLifetimeMillis,
+                          int statementCacheSize) throws SQLException {
+        if (maxSize < 1 || minIdle < 0 || minIdle > maxSize || statementCacheSize < 0) {
+            throw new IllegalArgumentException("Configuração inválida do pool: minIdle=" + minIdle + ", maxSize=" + maxSize
+                    + ", statementCacheSize=" + statementCacheSize);
+        }
+        this.physicalConnections = physicalConnections;
+        this.minIdle = minIdle;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        // Aquecimento: se o banco estiver fora do ar, o erro aparece já aqui.
+        for (int i = 0; i < minIdle; i++) {
+            PooledConnection pooled = openPhysical();
+            synchronized (this) {
+                idle.push(pooled);
+            }
+        }
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, maxLifetimeMillis) / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeeping, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Empresta uma conexão. Ela DEVE ser fechada (try-with-resources) para voltar ao pool.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("O pool de conexões já foi encerrado.");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.increment();
+                throw new SQLException("Tempo esgotado aguardando uma conexão livre (" + borrowTimeoutMillis + " ms).");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompido aguardando uma conexão livre.", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = pollIdle()) != null) {
+                if (isUsable(pooled)) {
+                    return pooled.lend();
+                }
+                destroy(pooled);
+            }
+            return openPhysical().lend();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private synchronized PooledConnection pollIdle() {
+        return idle.poll();
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        if (pooled.isExpired(System.currentTimeMillis())) {
+            return false;
+        }
+        try {
+            if (pooled.physical.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                return true;
+            }
+        } catch (SQLException ignored) {
+            // Tratada abaixo como conexão inválida.
+        }
+        validationFailures.increment();
+        return false;
+    }
+
+    private PooledConnection openPhysical() throws SQLException {
+        Connection physical = physicalConnections.getConnection();
+        totalConnections.incrementAndGet();
+        createdCount.increment();
+        return new PooledConnection(physical);
+    }
+
+    private void destroy(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        destroyedCount.increment();
+        if (pooled.statements != null) {
+            pooled.statements.closeAll();
+        }
+        try {
+            pooled.physical.close();
+        } catch (SQLException ignored) {
+            // A conexão já estava quebrada; não há o que fazer.
+        }
+    }
+
+    /**
+     * Chamado pelo proxy quando o DAO fecha a conexão.
+     */
+    private void giveBack(PooledConnection pooled) {
+        try {
+            boolean reusable = !closed && !pooled.physical.isClosed()
+                    && !pooled.isExpired(System.currentTimeMillis())
+                    && totalConnections.get() <= maxSize;
+            if (reusable) {
+                // Desfaz qualquer transação esquecida aberta, para não vazar estado entre DAOs.
+                if (!pooled.physical.getAutoCommit()) {
+                    pooled.physical.rollback();
+                    pooled.physical.setAutoCommit(true);
+                }
+                if (pooled.statements != null) {
+                    pooled.statements.reclaim();
+                }
+                pooled.lastUsedAt = System.currentTimeMillis();
+                synchronized (this) {
+                    idle.push(pooled);
+                }
+            } else {
+                destroy(pooled);
+            }
+        } catch (SQLException e) {
+            destroy(pooled);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Tarefa periódica: fecha conexões expiradas ou ociosas demais e repõe o mínimo.
+     */
+    private void housekeeping() {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Iterator<PooledConnection> it = idle.descendingIterator(); // das mais antigas para as mais novas
+            while (it.hasNext()) {
+                PooledConnection pooled = it.next();
+                boolean idleTooLong = now - pooled.lastUsedAt > idleTimeoutMillis && totalConnections.get() > minIdle;
+                if (idleTooLong || pooled.isExpired(now)) {
+                    it.remove();
+                    destroy(pooled);
+                }
+            }
+        }
+        // Reposição: segura uma permissão enquanto abre, para nunca passar de maxSize.
+        while (!closed && totalConnections.get() < minIdle && permits.tryAcquire()) {
+            try {
+                PooledConnection pooled = openPhysical();
+                synchronized (this) {
+                    idle.push(pooled);
+                }
+            } catch (SQLException e) {
+                System.err.println("Pool de conexões: falha ao repor conexão ociosa: " + e.getMessage());
+                break;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    private void recordWait(long nanos) {
+        borrowCount.increment();
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Fecha as conexões ociosas e impede novos empréstimos.
+     * Conexões ainda emprestadas são fechadas quando forem devolvidas.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        synchronized (this) {
+            PooledConnection pooled;
+            while ((pooled = idle.poll()) != null) {
+                destroy(pooled);
+            }
+        }
+    }
+
+    public PoolStats getStats() {
+        int idleCount;
+        synchronized (this) {
+            idleCount = idle.size();
+        }
+        long borrows = borrowCount.sum();
+        return new PoolStats(
+                totalConnections.get(), idleCount, maxSize - permits.availablePermits(),
+                borrows, timeoutCount.sum(), createdCount.sum(), destroyedCount.sum(), validationFailures.sum(),
+                borrows == 0 ? 0 : totalWaitNanos.get() / borrows, maxWaitNanos.get(),
+                statementCounters.hits.sum(), statementCounters.prepares.sum(), statementCounters.evictions.sum()
+        );
+    }
+
+    /**
+     * Uma conexão física e seus dados de controle.
+     */
+    private final class PooledConnection {
+        private final Connection physical;
+        // null quando o cache de statements está desligado.
+        private final StatementCache statements;
+        private final long createdAt = System.currentTimeMillis();
+        private volatile long lastUsedAt = createdAt;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = statementCacheSize > 0
+                    ? new StatementCache(physical, statementCacheSize, statementCounters)
+                    : null;
+        }
+
+        private boolean isExpired(long now) {
+            return now - createdAt > maxLifetimeMillis;
+        }
+
+        private Connection lend() {
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new LentConnectionHandler(this));
+        }
+    }
+
+    /**
+     * Proxy entregue ao DAO: close() devolve ao pool e qualquer uso depois disso falha.
+     */
+    private final class LentConnectionHandler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean returned;
+
+        private LentConnectionHandler(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        giveBack(pooled);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + "]";
+                default:
+                    if (returned) {
+                        throw new SQLException("A conexão já foi devolvida ao pool.");
+                    }
+                    if (pooled.statements != null && isCacheablePrepare(method)) {
+                        int autoGeneratedKeys = args.length == 1 ? Statement.NO_GENERATED_KEYS : (Integer) args[1];
+                        return pooled.statements.prepare((Connection) proxy, (String) args[0], autoGeneratedKeys);
+                    }
+                    try {
+                        return method.invoke(pooled.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+
+        // prepareStatement(sql) e prepareStatement(sql, autoGeneratedKeys); as outras variantes não passam pelo cache.
+        private boolean isCacheablePrepare(Method method) {
+            if (!method.getName().equals("prepareStatement")) {
+                return false;
+            }
+            Class<?>[] types = method.getParameterTypes();
+            return types.length == 1 || (types.length == 2 && types[1] == int.class);
+        }
+    }
+
+    /**
+     * Fotografia das métricas do pool em um instante.
+     */
+    public static final class PoolStats {
+        private final int total;
+        private final int idle;
+        private final int active;
+        private final long borrows;
+        private final long timeouts;
+        private final long created;
+        private final long destroyed;
+        private final long validationFailures;
+        private final long averageWaitNanos;
+        private final long maxWaitNanos;
+        private final long statementHits;
+        private final long statementPrepares;
+        private final long statementEvictions;
+
+        private PoolStats(int total, int idle, int active, long borrows, long timeouts, long created,
+                          long destroyed, long validationFailures, long averageWaitNanos, long maxWaitNanos,
+                          long statementHits, long statementPrepares, long statementEvictions) {
+            this.total = total;
+            this.idle = idle;
+            this.active = active;
+            this.borrows = borrows;
+            this.timeouts = timeouts;
+            this.created = created;
+            this.destroyed = destroyed;
+            this.validationFailures = validationFailures;
+            this.averageWaitNanos = averageWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.statementHits = statementHits;
+            this.statementPrepares = statementPrepares;
+            this.statementEvictions = statementEvictions;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getIdle() {
+            return idle;
+        }
+
+        public int getActive() {
+            return active;
+        }
+
+        public long getBorrows() {
+            return borrows;
+        }
+
+        public long getTimeouts() {
+            return timeouts;
+        }
+
+        public long getCreated() {
+            return created;
+        }
+
+        public long getDestroyed() {
+            return destroyed;
+        }
+
+        public long getValidationFailures() {
+            return validationFailures;
+        }
+
+        public long getAverageWaitNanos() {
+            return averageWaitNanos;
+        }
+
+        public long getMaxWaitNanos() {
+            return maxWaitNanos;
+        }
+
+        /**
+         * prepareStatement atendidos pelo cache, sem preparar de novo.
+         */
+        public long getStatementHits() {
+            return statementHits;
+        }
+
+        /**
+         * prepareStatement que prepararam um statement de verdade no driver.
+         */
+        public long getStatementPrepares() {
+            return statementPrepares;
+        }
+
+        public long getStatementEvictions() {
+            return statementEvictions;
+        }
+
+        public double getStatementHitRate() {
+            long total = statementHits + statementPrepares;
+            return total == 0 ? 0 : (double) statementHits / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "Pool: total=%d, ociosas=%d, ativas=%d, empréstimos=%d, timeouts=%d, criadas=%d, descartadas=%d, " +
+                            "falhas de validação=%d, espera média=%.3f ms, espera máxima=%.3f ms, " +
+                            "statements: preparados=%d, reaproveitados=%d, despejados=%d, taxa de acerto=%.1f%%",
+                    total, idle, active, borrows, timeouts, created, destroyed, validationFailures,
+                    averageWaitNanos / 1_000_000.0, maxWaitNanos / 1_000_000.0,
+                    statementPrepares, statementHits, statementEvictions, getStatementHitRate() * 100);
+        }
+    }
+}
@@ -3,15 +3,111 @@ package br.inatel.Database;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 
 //CONEXÃO COM O BANCO DE DADOS
+// O primário e as réplicas de leitura podem ser trocados sem recompilar:
+//   -Dbiblioteca.db.url=jdbc:mysql://...                   (primário; padrão: URL abaixo)
+//   -Dbiblioteca.db.replicas=jdbc:mysql://...,jdbc:...     (réplicas, separadas por vírgula; padrão: nenhuma)
+// Para testar o roteamento localmente, suba uma segunda instância do MySQL (ex.: porta 3307)
+// e passe -Dbiblioteca.db.replicas=jdbc:mysql://localhost:3307/biblioteca.
 public class DatabaseFactory {
-    private static final String URL = "jdbc:mysql://localhost:3306/biblioteca";
+    // rewriteBatchedStatements: o driver junta os INSERTs de um executeBatch em um único INSERT multi-linha.
+    // useServerPrepStmts: o servidor analisa cada SQL uma vez por statement; com o cache de
+    // statements do pool, uma vez por conexão.
+    private static final String URL = System.getProperty("biblioteca.db.url",
+            "jdbc:mysql://localhost:3306/biblioteca?rewriteBatchedStatements=true&useServerPrepStmts=true");
+    private static final String REPLICAS = System.getProperty("biblioteca.db.replicas", "");
     private static final String USER = "root";
     private static final String PASSWORD = "root";
 
+    // Configuração do pool de conexões
+    private static final int POOL_MIN_IDLE = 2;
+    private static final int POOL_MAX_SIZE = 10;
+    private static final long POOL_BORROW_TIMEOUT_MILLIS = 5_000;
+    private static final long POOL_IDLE_TIMEOUT_MILLIS = 5 * 60_000;
+    private static final long POOL_MAX_LIFETIME_MILLIS = 30 * 60_000;
+    // PreparedStatement guardados por conexão; cobre com folga os SQLs distintos dos DAOs.
+    private static final int POOL_STATEMENT_CACHE_SIZE = 128;
+
+    // Depois de uma escrita, a sessão lê do primário por este tempo; deve passar do atraso da replicação.
+    private static final Duration JANELA_LEITURA_PROPRIA = Duration.ofSeconds(5);
+
+    private static ConnectionPool pool;
+    private static List<ConnectionPool> replicas;
+    private static RoteadorLeituraEscrita roteador;
+
+    /**
+     * Pool compartilhado pela aplicação, criado (e aquecido) no primeiro uso.
+     */
+    public static synchronized ConnectionPool getPool() throws SQLException {
+        if (pool == null) {
+            pool = new ConnectionPool(DatabaseFactory::openConnection, POOL_MIN_IDLE, POOL_MAX_SIZE,
+                    POOL_BORROW_TIMEOUT_MILLIS, POOL_IDLE_TIMEOUT_MILLIS, POOL_MAX_LIFETIME_MILLIS, POOL_STATEMENT_CACHE_SIZE);
+        }
+        return pool;
+    }
+
+    /**
+     * Um pool para cada réplica configurada em biblioteca.db.replicas (lista vazia se não houver),
+     * criados no primeiro uso.
+     */
+    public static synchronized List<ConnectionPool> getReplicas() throws SQLException {
+        if (replicas == null) {
+            List<ConnectionPool> pools = new ArrayList<>();
+            try {
+                for (String url : REPLICAS.split(",")) {
+                    if (!url.isBlank()) {
+                        String replica = url.strip();
+                        pools.add(new ConnectionPool(() -> DriverManager.getConnection(replica, USER, PASSWORD),
+                                POOL_MIN_IDLE, POOL_MAX_SIZE, POOL_BORROW_TIMEOUT_MILLIS, POOL_IDLE_TIMEOUT_MILLIS,
+                                POOL_MAX_LIFETIME_MILLIS, POOL_STATEMENT_CACHE_SIZE));
+                    }
+                }
+            } catch (SQLException e) {
+                pools.forEach(ConnectionPool::close);
+                throw e;
+            }
+            replicas = List.copyOf(pools);
+        }
+        return replicas;
+    }
+
+    /**
+     * Roteador entre o primário (getPool) e as réplicas (getReplicas), escolhendo a réplica
+     * de menor latência. Sem réplicas configuradas, tudo vai para o primário.
+     */
+    public static synchronized RoteadorLeituraEscrita getRoteador() throws SQLException {
+        if (roteador == null) {
+            roteador = new RoteadorLeituraEscrita(getPool(), getReplicas(),
+                    RoteadorLeituraEscrita.Selecao.MENOR_LATENCIA, JANELA_LEITURA_PROPRIA);
+        }
+        return roteador;
+    }
+
+    /**
+     * Fecha os pools das réplicas; o do primário é fechado por quem chamou getPool.
+     */
+    public static synchronized void closeReplicas() {
+        if (replicas != null) {
+            replicas.forEach(ConnectionPool::close);
+            replicas = null;
+            roteador = null;
+        }
+    }
+
+    /**
+     * Empresta uma conexão do pool. Fechar a conexão a devolve ao pool.
+     */
     public static Connection getConnection() throws SQLException {
+        return getPool().getConnection();
+    }
+
+    // Abre uma conexão física nova; usado apenas pelo pool.
+    private static Connection openConnection() throws SQLException {
         return DriverManager.getConnection(URL, USER, PASSWORD);
     }
 
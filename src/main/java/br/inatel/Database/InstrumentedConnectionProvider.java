@@ -0,0 +1,205 @@
+package br.inatel.Database;
+
+import br.inatel.Interfaces.ConnectionProvider;
+import br.inatel.Metricas.Operacao;
+import br.inatel.Metricas.RegistroMetricas;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Mede cada comando SQL que passa pelas conexões de outro ConnectionProvider.
+ *
+ * As conexões entregues são proxies (como as do ConnectionPool) que embrulham os
+ * Statement/PreparedStatement criados por elas:
+ * - execute/executeQuery/executeUpdate/executeBatch registram a latência na Operacao do
+ *   texto SQL (RegistroMetricas.operacaoSql) e as linhas afetadas;
+ * - os set* de parâmetros ficam guardados no statement para o log de consultas lentas.
+ *
+ * O ResultSet volta do driver sem embrulho: o laço de mapeamento dos DAOs não passa por
+ * reflexão. As linhas lidas e o tempo de percorrê-las ficam na operação
+ * "NomeDoDao.processResultSet" do AbstractComplexDao (setMetricas).
+ *
+ * Os histogramas e contadores não alocam; o proxy do statement, sim (um por statement e o
+ * array de argumentos de cada chamada a ele), o mesmo custo que o pool já tem por conexão.
+ *
+ * Deve ficar entre o pool e o TransactionManager: new TransactionManager(new InstrumentedConnectionProvider(pool, metricas)).
+ */
+public class InstrumentedConnectionProvider implements ConnectionProvider {
+    private static final Object[] SEM_PARAMETROS = new Object[0];
+
+    private final ConnectionProvider connections;
+    private final RegistroMetricas metricas;
+
+    public InstrumentedConnectionProvider(ConnectionProvider connections, RegistroMetricas metricas) {
+        this.connections = connections;
+        this.metricas = metricas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection conn = connections.getConnection();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ConnectionHandler(conn));
+    }
+
+    private static Object repassar(Object alvo, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(alvo, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Conexão instrumentada: só embrulha os statements criados; o resto vai direto.
+     */
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection conn;
+
+        private ConnectionHandler(Connection conn) {
+            this.conn = conn;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "prepareStatement", "prepareCall", "createStatement":
+                    Statement stmt = (Statement) repassar(conn, method, args);
+                    String sql = method.getName().equals("createStatement") ? null : (String) args[0];
+                    // O tipo do proxy é o do retorno: Statement, PreparedStatement ou CallableStatement.
+                    return Proxy.newProxyInstance(
+                            Connection.class.getClassLoader(),
+                            new Class<?>[]{method.getReturnType()},
+                            new StatementHandler(stmt, sql));
+                default:
+                    return repassar(conn, method, args);
+            }
+        }
+    }
+
+    /**
+     * Statement instrumentado. Usado por uma thread de cada vez, como qualquer Statement JDBC.
+     */
+    private final class StatementHandler implements InvocationHandler {
+        private final Statement stmt;
+        // null em um Statement comum até o primeiro execute(sql)/addBatch(sql).
+        private String sql;
+        private Object[] parametros = SEM_PARAMETROS;
+        private int quantidade; // maior índice de parâmetro preenchido
+        private int lote;
+
+        private StatementHandler(Statement stmt, String sql) {
+            this.stmt = stmt;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String nome = method.getName();
+            if (isParametro(method, args)) {
+                guardar((Integer) args[0], nome.equals("setNull") ? null : args[1]);
+                return repassar(stmt, method, args);
+            }
+            switch (nome) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "clearParameters":
+                    Arrays.fill(parametros, null);
+                    quantidade = 0;
+                    return repassar(stmt, method, args);
+                case "addBatch":
+                    if (args != null) {
+                        sql = (String) args[0];
+                    }
+                    lote++;
+                    return repassar(stmt, method, args);
+                case "clearBatch":
+                    lote = 0;
+                    return repassar(stmt, method, args);
+                case "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch":
+                    if (args != null && args[0] instanceof String texto) {
+                        sql = texto;
+                    }
+                    return executar(method, args);
+                default:
+                    return repassar(stmt, method, args);
+            }
+        }
+
+        private Object executar(Method method, Object[] args) throws Throwable {
+            Operacao operacao = operacao();
+            int itensDoLote = lote;
+            long inicio = System.nanoTime();
+            Object resultado;
+            try {
+                resultado = repassar(stmt, method, args);
+            } catch (Throwable e) {
+                operacao.erro(System.nanoTime() - inicio);
+                throw e;
+            } finally {
+                // O driver esvazia o lote no executeBatch, com ou sem erro.
+                if (method.getName().endsWith("Batch")) {
+                    lote = 0;
+                }
+            }
+            long nanos = System.nanoTime() - inicio;
+            operacao.registrar(nanos, afetadas(resultado));
+            metricas.verificarLenta(operacao, sql, parametros, quantidade, itensDoLote, nanos);
+            return resultado;
+        }
+
+        private Operacao operacao() {
+            return metricas.operacaoSql(sql == null ? "(sql desconhecido)" : sql);
+        }
+
+        private void guardar(int indice, Object valor) {
+            if (indice > parametros.length) {
+                parametros = Arrays.copyOf(parametros, Math.max(indice, parametros.length * 2));
+            }
+            parametros[indice - 1] = valor;
+            quantidade = Math.max(quantidade, indice);
+        }
+    }
+
+    // setInt(1, x), setString(2, y)...: os setters do Statement (setFetchSize etc.) têm um argumento só.
+    private static boolean isParametro(Method method, Object[] args) {
+        return args != null && args.length >= 2 && method.getName().startsWith("set")
+                && method.getParameterTypes()[0] == int.class;
+    }
+
+    // Linhas afetadas de executeUpdate/executeBatch; as lidas por executeQuery ficam no processResultSet do DAO.
+    private static long afetadas(Object resultado) {
+        if (resultado instanceof Integer n) {
+            return Math.max(0, n);
+        }
+        if (resultado instanceof Long n) {
+            return Math.max(0, n);
+        }
+        long total = 0;
+        if (resultado instanceof int[] contagens) {
+            for (int n : contagens) {
+                total += Math.max(0, n);
+            }
+        } else if (resultado instanceof long[] contagens) {
+            for (long n : contagens) {
+                total += Math.max(0, n);
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,89 @@
+package br.inatel.Database;
+
+import br.inatel.Interfaces.ConnectionProvider;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Põe um limite de tempo (Statement.setQueryTimeout) em todo comando criado pelas conexões de
+ * outro ConnectionProvider. Passado o limite, o driver cancela o comando no banco e ele falha
+ * com SQLTimeoutException: a conexão volta ao pool em vez de ficar presa a uma consulta que
+ * ninguém mais espera.
+ *
+ * O limite vale para cada execução, não para a operação inteira do DAO. No streaming o MySQL
+ * conta o tempo até começar a devolver as linhas; percorrê-las não tem limite aqui.
+ *
+ * Fica embaixo do TransactionManager, como o InstrumentedConnectionProvider.
+ */
+public class LimiteTempoConsultas implements ConnectionProvider {
+    private final ConnectionProvider connections;
+    private final int segundos;
+
+    /**
+     * @param limite Arredondado para cima em segundos, a unidade do setQueryTimeout.
+     */
+    public LimiteTempoConsultas(ConnectionProvider connections, Duration limite) {
+        if (limite.isNegative() || limite.isZero()) {
+            throw new IllegalArgumentException("O limite deve ser positivo: " + limite);
+        }
+        this.connections = connections;
+        this.segundos = (int) Math.min(Integer.MAX_VALUE, (limite.toMillis() + 999) / 1000);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Connection conn = connections.getConnection();
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ConnectionHandler(conn));
+    }
+
+    /**
+     * Repassa tudo à conexão; os statements criados saem com o limite já configurado.
+     */
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection conn;
+
+        private ConnectionHandler(Connection conn) {
+            this.conn = conn;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "prepareStatement", "prepareCall", "createStatement": {
+                    Statement stmt = (Statement) repassar(conn, method, args);
+                    try {
+                        stmt.setQueryTimeout(segundos);
+                    } catch (SQLException e) {
+                        stmt.close();
+                        throw e;
+                    }
+                    return stmt;
+                }
+                default:
+                    return repassar(conn, method, args);
+            }
+        }
+    }
+
+    private static Object repassar(Object alvo, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(alvo, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package br.inatel.Database;
+
+import br.inatel.Interfaces.ConnectionProvider;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Separa leituras e escritas entre o banco primário e suas réplicas.
+ *
+ * - getConnection() entrega uma conexão do primário, a não ser dentro de lendo(...): aí vem
+ *   de uma réplica (somente leitura), escolhida por rodízio ou pela menor latência.
+ * - Leitura própria: cada Sessao guarda até quando deve ler do primário. Cada escrita
+ *   confirmada por uma conexão do primário (o commit de uma transação que escreveu, ou o
+ *   próprio comando em auto-commit) estende esse prazo por 'janelaLeituraPropria', então o que
+ *   a sessão acabou de gravar não some por causa do atraso da replicação. Transações que só
+ *   leem, ou que são revertidas, não mexem no prazo. A janela deve ser maior que esse atraso.
+ * - A Sessao fica presa à thread (InheritableThreadLocal): cada thread tem a sua, e as threads
+ *   virtuais que o AsyncDao cria para uma requisição herdam a dela, desde que ela já exista
+ *   (sessaoAtual()) quando elas são criadas. Para continuar uma sessão entre requisições,
+ *   o prazo vai e volta pelo cliente (ServidorBiblioteca usa um cookie).
+ * - Uma réplica que falha ao entregar conexão fica de fora por PAUSA_REPLICA_FALHA;
+ *   sem réplica disponível a leitura vai para o primário.
+ *
+ * Fica embaixo do TransactionManager (new TransactionManager(... roteador ...)): dentro de uma
+ * transação toda leitura usa a conexão dela, no primário. Os caches em memória
+ * (CopyCountCache, AvailabilityIndex) continuam lendo direto do pool do primário.
+ */
+public class RoteadorLeituraEscrita implements ConnectionProvider {
+    private static final long PAUSA_REPLICA_FALHA_NANOS = TimeUnit.SECONDS.toNanos(30);
+    // Peso da amostra nova na média móvel da latência: 1/8.
+    private static final int SUAVIZACAO = 8;
+
+    /**
+     * Como escolher a réplica de cada leitura.
+     */
+    public enum Selecao {
+        /** Uma de cada vez, em ordem. */
+        RODIZIO,
+        /** A de menor latência média, ponderada pelas leituras em andamento nela. */
+        MENOR_LATENCIA
+    }
+
+    /**
+     * Leitura roteada para uma réplica.
+     */
+    @FunctionalInterface
+    public interface Leitura<T> {
+        T executar() throws SQLException;
+    }
+
+    /**
+     * Quem lê e escreve (um usuário do Menu, uma requisição do servidor) e até quando as
+     * leituras dele precisam ir para o primário.
+     */
+    public static final class Sessao {
+        private final AtomicLong primarioAte = new AtomicLong();
+
+        private Sessao() {
+        }
+
+        /**
+         * Instante (System.currentTimeMillis) até o qual as leituras vão para o primário.
+         */
+        public long getPrimarioAte() {
+            return primarioAte.get();
+        }
+
+        /**
+         * Estende o prazo até 'instante' (se ele já não for maior); retoma o prazo de uma
+         * sessão anterior do mesmo cliente.
+         */
+        public void lerDoPrimarioAte(long instante) {
+            primarioAte.accumulateAndGet(instante, Math::max);
+        }
+
+        boolean lePrimario() {
+            return System.currentTimeMillis() < primarioAte.get();
+        }
+    }
+
+    private final ConnectionProvider primario;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Selecao selecao;
+    private final long janelaLeituraPropriaMillis;
+    private final AtomicInteger proxima = new AtomicInteger();
+    private final ThreadLocal<Boolean> emLeitura = ThreadLocal.withInitial(() -> false);
+    private final InheritableThreadLocal<Sessao> sessao = new InheritableThreadLocal<>() {
+        @Override
+        protected Sessao initialValue() {
+            return new Sessao();
+        }
+    };
+
+    /**
+     * @param replicas Pode ser vazia: tudo vai para o primário.
+     * @param janelaLeituraPropria Por quanto tempo depois de uma escrita a sessão lê do primário.
+     */
+    public RoteadorLeituraEscrita(ConnectionProvider primario, List<? extends ConnectionProvider> replicas,
+                                  Selecao selecao, Duration janelaLeituraPropria) {
+        this.primario = primario;
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica("replica-" + (i + 1), replicas.get(i)));
+        }
+        this.selecao = selecao;
+        this.janelaLeituraPropriaMillis = janelaLeituraPropria.toMillis();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Sessao atual = sessao.get();
+        if (emLeitura.get()) {
+            if (!replicas.isEmpty() && !atual.lePrimario()) {
+                Connection conn = conexaoDeReplica();
+                if (conn != null) {
+                    return conn;
+                }
+            }
+            return primario.getConnection();
+        }
+        Connection conn = primario.getConnection();
+        if (replicas.isEmpty()) {
+            return conn;
+        }
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new EscritaHandler(conn, atual));
+    }
+
+    /**
+     * Executa 'leitura' com as conexões vindas de uma réplica (se a sessão não estiver lendo
+     * do primário). Só para leituras: as conexões de réplica recusam escritas.
+     */
+    public <T> T lendo(Leitura<T> leitura) throws SQLException {
+        if (emLeitura.get()) {
+            return leitura.executar();
+        }
+        emLeitura.set(true);
+        try {
+            return leitura.executar();
+        } finally {
+            emLeitura.set(false);
+        }
+    }
+
+    /**
+     * A sessão desta thread.
+     */
+    public Sessao sessaoAtual() {
+        return sessao.get();
+    }
+
+    public Duration getJanelaLeituraPropria() {
+        return Duration.ofMillis(janelaLeituraPropriaMillis);
+    }
+
+    // Uma conexão da réplica escolhida, tentando as outras se ela falhar; null se nenhuma responder.
+    private Connection conexaoDeReplica() {
+        long agora = System.nanoTime();
+        for (int tentativa = 0; tentativa < replicas.size(); tentativa++) {
+            Replica replica = escolher(agora);
+            if (replica == null) {
+                return null;
+            }
+            try {
+                return replica.emprestar();
+            } catch (SQLException e) {
+                replica.indisponivelAte = agora + PAUSA_REPLICA_FALHA_NANOS;
+                replica.falhas.incrementAndGet();
+                System.err.println("Réplica " + replica.nome + " indisponível; leituras vão para as outras: " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private Replica escolher(long agora) {
+        int n = replicas.size();
+        if (selecao == Selecao.RODIZIO) {
+            int inicio = Math.floorMod(proxima.getAndIncrement(), n);
+            for (int i = 0; i < n; i++) {
+                Replica replica = replicas.get((inicio + i) % n);
+                if (replica.disponivel(agora)) {
+                    return replica;
+                }
+            }
+            return null;
+        }
+        Replica melhor = null;
+        long melhorCusto = Long.MAX_VALUE;
+        for (Replica replica : replicas) {
+            if (!replica.disponivel(agora)) {
+                continue;
+            }
+            // Uma réplica lenta ou ocupada só recebe leituras depois que as outras igualarem o custo.
+            long custo = (replica.latenciaMediaNanos + 1) * (replica.emUso.get() + 1);
+            if (custo < melhorCusto) {
+                melhor = replica;
+                melhorCusto = custo;
+            }
+        }
+        return melhor;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder("Roteador[").append(selecao);
+        for (Replica replica : replicas) {
+            texto.append(", ").append(replica);
+        }
+        return texto.append(']').toString();
+    }
+
+    private static Object repassar(Object alvo, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(alvo, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Uma réplica com sua latência média (tempo com a conexão emprestada) e leituras em andamento.
+     */
+    private static final class Replica {
+        private final String nome;
+        private final ConnectionProvider connections;
+        private final AtomicInteger emUso = new AtomicInteger();
+        private final AtomicLong leituras = new AtomicLong();
+        private final AtomicLong falhas = new AtomicLong();
+        // Atualizações concorrentes podem perder uma amostra; para escolher réplica, tanto faz.
+        private volatile long latenciaMediaNanos;
+        private volatile long indisponivelAte;
+
+        private Replica(String nome, ConnectionProvider connections) {
+            this.nome = nome;
+            this.connections = connections;
+        }
+
+        private boolean disponivel(long agora) {
+            return agora - indisponivelAte >= 0;
+        }
+
+        private Connection emprestar() throws SQLException {
+            Connection conn = connections.getConnection();
+            try {
+                conn.setReadOnly(true);
+            } catch (SQLException e) {
+                conn.close();
+                throw e;
+            }
+            emUso.incrementAndGet();
+            leituras.incrementAndGet();
+            return (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new LeituraHandler(conn, this, System.nanoTime()));
+        }
+
+        private void devolvida(long nanos) {
+            emUso.decrementAndGet();
+            long media = latenciaMediaNanos;
+            latenciaMediaNanos = media == 0 ? nanos : media + (nanos - media) / SUAVIZACAO;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s{leituras=%d, emUso=%d, falhas=%d, latenciaMedia=%.1fms%s}",
+                    nome, leituras.get(), emUso.get(), falhas.get(), latenciaMediaNanos / 1_000_000.0,
+                    disponivel(System.nanoTime()) ? "" : ", indisponível");
+        }
+    }
+
+    /**
+     * Conexão de réplica: no close registra o tempo de uso na réplica (uma vez só).
+     */
+    private static final class LeituraHandler implements InvocationHandler {
+        private final Connection conn;
+        private final Replica replica;
+        private final long inicio;
+        private boolean fechada;
+
+        private LeituraHandler(Connection conn, Replica replica, long inicio) {
+            this.conn = conn;
+            this.replica = replica;
+            this.inicio = inicio;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "close":
+                    if (!fechada) {
+                        fechada = true;
+                        replica.devolvida(System.nanoTime() - inicio);
+                    }
+                    return repassar(conn, method, args);
+                default:
+                    return repassar(conn, method, args);
+            }
+        }
+    }
+
+    /**
+     * Conexão do primário fora de leitura: acompanha os comandos que escrevem e, quando a escrita
+     * é confirmada, a janela de leitura própria da sessão recomeça a partir dali.
+     */
+    private final class EscritaHandler implements InvocationHandler {
+        private final Connection conn;
+        private final Sessao dona;
+        // Houve escrita na transação aberta, ainda sem commit.
+        private boolean pendente;
+
+        private EscritaHandler(Connection conn, Sessao dona) {
+            this.conn = conn;
+            this.dona = dona;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "createStatement", "prepareStatement", "prepareCall":
+                    Object stmt = repassar(conn, method, args);
+                    return Proxy.newProxyInstance(
+                            Connection.class.getClassLoader(),
+                            new Class<?>[]{method.getReturnType()},
+                            new ComandoHandler(stmt, this, (Connection) proxy));
+                case "commit": {
+                    Object resultado = repassar(conn, method, args);
+                    confirmarPendente();
+                    return resultado;
+                }
+                case "rollback":
+                    // Até um savepoint: o que foi escrito antes dele continua pendente.
+                    if (args == null) {
+                        pendente = false;
+                    }
+                    return repassar(conn, method, args);
+                case "setAutoCommit": {
+                    // Ligar o auto-commit no meio de uma transação a confirma.
+                    Object resultado = repassar(conn, method, args);
+                    if ((Boolean) args[0]) {
+                        confirmarPendente();
+                    }
+                    return resultado;
+                }
+                default:
+                    return repassar(conn, method, args);
+            }
+        }
+
+        private void escreveu() throws SQLException {
+            if (conn.getAutoCommit()) {
+                dona.lerDoPrimarioAte(System.currentTimeMillis() + janelaLeituraPropriaMillis);
+            } else {
+                pendente = true;
+            }
+        }
+
+        private void confirmarPendente() {
+            if (pendente) {
+                pendente = false;
+                dona.lerDoPrimarioAte(System.currentTimeMillis() + janelaLeituraPropriaMillis);
+            }
+        }
+    }
+
+    /**
+     * Comando de uma conexão do primário: avisa a conexão quando executa uma escrita.
+     */
+    private static final class ComandoHandler implements InvocationHandler {
+        private final Object stmt;
+        private final EscritaHandler conexao;
+        private final Connection proxyConexao;
+
+        private ComandoHandler(Object stmt, EscritaHandler conexao, Connection proxyConexao) {
+            this.stmt = stmt;
+            this.conexao = conexao;
+            this.proxyConexao = proxyConexao;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "getConnection":
+                    return proxyConexao;
+                case "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch": {
+                    Object resultado = repassar(stmt, method, args);
+                    conexao.escreveu();
+                    return resultado;
+                }
+                case "execute": {
+                    // true: o comando devolveu um ResultSet (consulta); false: contagem de linhas.
+                    Object resultado = repassar(stmt, method, args);
+                    if (!(Boolean) resultado) {
+                        conexao.escreveu();
+                    }
+                    return resultado;
+                }
+                default:
+                    return repassar(stmt, method, args);
+            }
+        }
+    }
+}
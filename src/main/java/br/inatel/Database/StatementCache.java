@@ -0,0 +1,247 @@
+package br.inatel.Database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache de PreparedStatement de uma conexão física, pelo texto do SQL.
+ *
+ * Os DAOs continuam chamando conn.prepareStatement(sql) e fechando o statement no
+ * try-with-resources; o proxy da conexão emprestada (ver ConnectionPool) desvia a chamada
+ * para cá. Em um acerto o statement já preparado é reaproveitado e o driver (e o servidor,
+ * com useServerPrepStmts) não analisa o SQL de novo.
+ *
+ * - close() no statement não o fecha: limpa parâmetros e lote e o devolve ao cache.
+ * - Tamanho limitado com despejo LRU; o statement despejado é fechado de verdade.
+ * - Se o mesmo SQL for preparado de novo enquanto o primeiro ainda está aberto,
+ *   o segundo é um statement comum, fechado normalmente.
+ *
+ * Uma conexão emprestada é usada por uma thread de cada vez, então não há trava aqui.
+ */
+final class StatementCache {
+    private final Connection physical;
+    private final int maxSize;
+    private final Counters counters;
+    // LinkedHashMap em ordem de acesso = LRU.
+    private final Map<Key, CachedStatement> statements;
+
+    StatementCache(Connection physical, int maxSize, Counters counters) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.counters = counters;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CachedStatement> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    counters.evictions.increment();
+                    eldest.getValue().evict();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * prepareStatement(sql) ou prepareStatement(sql, autoGeneratedKeys) passando pelo cache.
+     * @param owner A conexão (proxy) que o statement devolve em getConnection().
+     */
+    PreparedStatement prepare(Connection owner, String sql, int autoGeneratedKeys) throws SQLException {
+        Key key = new Key(sql, autoGeneratedKeys);
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse) {
+            counters.hits.increment();
+            return cached.lend(owner);
+        }
+        counters.prepares.increment();
+        PreparedStatement stmt = autoGeneratedKeys == Statement.NO_GENERATED_KEYS
+                ? physical.prepareStatement(sql)
+                : physical.prepareStatement(sql, autoGeneratedKeys);
+        if (cached != null) {
+            // O do cache está aberto por quem pediu antes: este fica fora do cache.
+            return stmt;
+        }
+        cached = new CachedStatement(stmt);
+        statements.put(key, cached);
+        return cached.lend(owner);
+    }
+
+    /**
+     * Chamado quando a conexão volta ao pool: statements que o DAO esqueceu abertos
+     * voltam para o cache e os proxies antigos deixam de funcionar.
+     */
+    void reclaim() {
+        for (CachedStatement cached : new ArrayList<>(statements.values())) {
+            if (cached.inUse) {
+                cached.release();
+            }
+        }
+    }
+
+    /**
+     * Fecha todos os statements (a conexão física vai ser descartada).
+     */
+    void closeAll() {
+        List<CachedStatement> all = new ArrayList<>(statements.values());
+        statements.clear();
+        for (CachedStatement cached : all) {
+            cached.closePhysical();
+        }
+    }
+
+    int size() {
+        return statements.size();
+    }
+
+    /**
+     * Contadores somados de todos os caches do pool.
+     */
+    static final class Counters {
+        final LongAdder hits = new LongAdder();
+        final LongAdder prepares = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+    }
+
+    private static final class Key {
+        private final String sql;
+        private final int autoGeneratedKeys;
+        private final int hash;
+
+        private Key(String sql, int autoGeneratedKeys) {
+            this.sql = sql;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+            this.hash = sql.hashCode() * 31 + autoGeneratedKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && k.autoGeneratedKeys == autoGeneratedKeys && Objects.equals(k.sql, sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Um statement físico do cache e o proxy que está com ele no momento.
+     */
+    private final class CachedStatement {
+        private final PreparedStatement stmt;
+        private boolean inUse;
+        private boolean evicted;
+        private LentStatementHandler lentTo;
+
+        private CachedStatement(PreparedStatement stmt) {
+            this.stmt = stmt;
+        }
+
+        private PreparedStatement lend(Connection owner) {
+            inUse = true;
+            lentTo = new LentStatementHandler(this, owner);
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    lentTo);
+        }
+
+        /**
+         * Devolve ao cache deixando o statement como recém-preparado.
+         * Se não der para limpar, ele sai do cache e é fechado.
+         */
+        private void release() {
+            lentTo.returned = true;
+            lentTo = null;
+            inUse = false;
+            if (evicted) {
+                closePhysical();
+                return;
+            }
+            try {
+                ResultSet rs = stmt.getResultSet();
+                if (rs != null) {
+                    rs.close();
+                }
+                stmt.clearParameters();
+                stmt.clearBatch();
+                stmt.clearWarnings();
+            } catch (SQLException e) {
+                statements.values().remove(this);
+                closePhysical();
+            }
+        }
+
+        private void evict() {
+            evicted = true;
+            if (!inUse) {
+                closePhysical();
+            }
+        }
+
+        private void closePhysical() {
+            try {
+                stmt.close();
+            } catch (SQLException ignored) {
+                // O statement (ou a conexão) já estava quebrado; não há o que fazer.
+            }
+        }
+    }
+
+    /**
+     * Proxy entregue ao DAO: close() devolve o statement ao cache e qualquer uso depois disso falha.
+     */
+    private static final class LentStatementHandler implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection owner;
+        private boolean returned;
+
+        private LentStatementHandler(CachedStatement cached, Connection owner) {
+            this.cached = cached;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        cached.release();
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || cached.stmt.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + cached.stmt + "]";
+                default:
+                    if (returned) {
+                        throw new SQLException("O statement já foi fechado.");
+                    }
+                    try {
+                        return method.invoke(cached.stmt, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
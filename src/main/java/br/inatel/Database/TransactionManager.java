@@ -0,0 +1,197 @@
+package br.inatel.Database;
+
+import br.inatel.Interfaces.ConnectionProvider;
+import br.inatel.Metricas.EventoTransacao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transações que atravessam vários DAOs, presas à thread que as abriu.
+ *
+ * Envolve outro ConnectionProvider (normalmente o ConnectionPool) e é passado aos DAOs no lugar dele:
+ * - Fora de transação, getConnection() empresta uma conexão do provider como sempre.
+ * - inTransaction na thread sem transação pega uma conexão, desliga o auto-commit e a associa
+ *   à thread até o fim do trabalho (commit ou rollback, e a conexão volta ao pool).
+ * - Enquanto isso, todo getConnection() e inTransaction da mesma thread usa essa conexão:
+ *   vários DAOs chamados dentro do trabalho entram na mesma transação.
+ * - inTransaction aninhado cria um savepoint: se o trabalho interno falhar, só ele é desfeito
+ *   e a exceção sobe; quem chamou decide se trata e continua ou deixa tudo ser revertido.
+ * - afterCommit guarda as ações até o commit da transação externa; num rollback (inclusive
+ *   de um savepoint) as ações registradas dentro da parte revertida são descartadas.
+ *
+ * A associação é por ThreadLocal, então cada thread virtual tem a sua transação e milhares
+ * de empréstimos podem ser processados em paralelo sem uma transação enxergar a outra.
+ * Trabalho mandado para outra thread (AsyncDao, por exemplo) roda fora da transação de
+ * quem mandou. A conexão da transação recusa uso por outra thread, e commit, rollback,
+ * setAutoCommit e close dela ficam com o gerenciador.
+ *
+ * Transações e savepoints geram EventoTransacao do Java Flight Recorder quando há gravação ativa.
+ */
+public class TransactionManager implements ConnectionProvider {
+    private final ConnectionProvider connections;
+    private final ThreadLocal<Transaction> current = new ThreadLocal<>();
+
+    public TransactionManager(ConnectionProvider connections) {
+        this.connections = connections;
+    }
+
+    /**
+     * A conexão da transação aberta nesta thread (fechar não faz nada) ou, sem transação,
+     * uma conexão comum do provider.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        Transaction tx = current.get();
+        return tx == null ? connections.getConnection() : tx.shared;
+    }
+
+    @Override
+    public <T> T inTransaction(Work<T> work) throws SQLException {
+        Transaction tx = current.get();
+        return tx == null ? runOutermost(work) : runNested(tx, work);
+    }
+
+    @Override
+    public void afterCommit(Runnable action) {
+        Transaction tx = current.get();
+        if (tx == null) {
+            action.run();
+        } else {
+            tx.afterCommit.add(action);
+        }
+    }
+
+    /**
+     * Há uma transação aberta nesta thread?
+     */
+    public boolean isActive() {
+        return current.get() != null;
+    }
+
+    private <T> T runOutermost(Work<T> work) throws SQLException {
+        EventoTransacao evento = new EventoTransacao();
+        evento.begin();
+        try (Connection conn = connections.getConnection()) {
+            conn.setAutoCommit(false);
+            Transaction tx = new Transaction(conn);
+            current.set(tx);
+            T result;
+            try {
+                result = work.execute(tx.shared);
+                conn.commit();
+                evento.concluir(false, EventoTransacao.COMMIT);
+            } catch (Throwable e) {
+                // Também em Error: religar o auto-commit no finally confirmaria o trabalho pela metade.
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+                evento.concluir(false, EventoTransacao.ROLLBACK);
+                throw e;
+            } finally {
+                current.remove();
+                conn.setAutoCommit(true);
+            }
+            runAfterCommit(tx.afterCommit);
+            return result;
+        }
+    }
+
+    private <T> T runNested(Transaction tx, Work<T> work) throws SQLException {
+        EventoTransacao evento = new EventoTransacao();
+        evento.begin();
+        Savepoint savepoint = tx.physical.setSavepoint();
+        int registered = tx.afterCommit.size();
+        try {
+            T result = work.execute(tx.shared);
+            tx.physical.releaseSavepoint(savepoint);
+            evento.concluir(true, EventoTransacao.COMMIT);
+            return result;
+        } catch (Throwable e) {
+            // Também em Error: senão a parte interna seria confirmada junto com a transação externa.
+            try {
+                tx.physical.rollback(savepoint);
+            } catch (SQLException rollbackError) {
+                e.addSuppressed(rollbackError);
+            }
+            tx.afterCommit.subList(registered, tx.afterCommit.size()).clear();
+            evento.concluir(true, EventoTransacao.ROLLBACK);
+            throw e;
+        }
+    }
+
+    // Uma ação com erro não impede as outras: a transação já foi confirmada.
+    private static void runAfterCommit(List<Runnable> actions) {
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                System.err.println("Ação após o commit falhou: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Transação aberta em uma thread.
+     */
+    private static final class Transaction {
+        private final Connection physical;
+        private final Connection shared;
+        private final Thread owner = Thread.currentThread();
+        private final List<Runnable> afterCommit = new ArrayList<>();
+
+        private Transaction(Connection physical) {
+            this.physical = physical;
+            this.shared = (Connection) Proxy.newProxyInstance(
+                    Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new SharedConnectionHandler(this));
+        }
+    }
+
+    /**
+     * Proxy entregue aos DAOs dentro da transação: repassa tudo à conexão da transação,
+     * menos o que controlaria a transação por fora do gerenciador.
+     */
+    private static final class SharedConnectionHandler implements InvocationHandler {
+        private final Transaction tx;
+
+        private SharedConnectionHandler(Transaction tx) {
+            this.tx = tx;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    return null;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "TransactionalConnection[" + tx.physical + "]";
+                case "commit", "rollback", "setAutoCommit", "setSavepoint", "releaseSavepoint":
+                    throw new SQLException(method.getName() + " não é permitido na conexão de uma transação do TransactionManager.");
+                default:
+                    if (Thread.currentThread() != tx.owner) {
+                        throw new SQLException("A conexão da transação só pode ser usada pela thread que a abriu.");
+                    }
+                    try {
+                        return method.invoke(tx.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
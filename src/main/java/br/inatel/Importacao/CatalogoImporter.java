@@ -0,0 +1,432 @@
+package br.inatel.Importacao;
+
+import br.inatel.Biblioteca.Autor;
+import br.inatel.Biblioteca.Categoria;
+import br.inatel.Biblioteca.Exemplar_livro;
+import br.inatel.Biblioteca.Livro;
+import br.inatel.DAO.AutorDao;
+import br.inatel.DAO.CategoriaDao;
+import br.inatel.DAO.CopyCountCache;
+import br.inatel.DAO.ExemplarDao;
+import br.inatel.DAO.LivroDao;
+import br.inatel.Database.ConnectionPool;
+import br.inatel.Database.DatabaseFactory;
+import br.inatel.Database.TransactionManager;
+import br.inatel.Interfaces.Dao;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Importação em massa do catálogo (livros, autores, categorias e exemplares), sem o Menu.
+ *
+ * Funciona como uma linha de montagem com filas limitadas entre as etapas:
+ *   leitura/parse (1 thread) -> validação (1 thread) -> gravação em lote (N threads)
+ * Quando uma etapa mais lenta enche a fila, a anterior fica bloqueada esperando
+ * (backpressure), então a memória usada não depende do tamanho do arquivo.
+ *
+ * - A validação resolve categoria e autores (pelo id ou pelo nome) contra o banco.
+ * - Cada lote é gravado com LivroDao.createAll e ExemplarDao.createAll em uma única
+ *   transação (TransactionManager): ou entram os livros e os exemplares do lote, ou nada.
+ * - Depois de cada lote confirmado o checkpoint é atualizado; se o processo cair,
+ *   a próxima execução recomeça do último lote confirmado, sem livros gravados pela metade.
+ * - O checkpoint pode ficar atrás do que já foi gravado (com vários gravadores um lote
+ *   posterior confirma antes de um anterior falhar, ou o processo cai entre o commit e o
+ *   checkpoint). Por isso cada lote pula, na mesma transação, os ISBNs que já existem no banco:
+ *   reprocessar um lote confirmado não grava nada de novo. Um livro pulado não ganha exemplares.
+ *
+ * Uso: java br.inatel.Importacao.CatalogoImporter arquivo.csv|arquivo.jsonl [gravadores]
+ */
+public class CatalogoImporter {
+    private static final int REGISTROS_EM_ESPERA = 10_000;
+    private static final int LOTES_EM_ESPERA = 4;
+    private static final int REGISTROS_POR_LOTE = 1_000;
+    private static final long INTERVALO_RELATORIO_SEGUNDOS = 5;
+
+    // Marcadores de fim de fluxo entre as etapas.
+    private static final RegistroCatalogo FIM_REGISTROS = new RegistroCatalogo(-1, null, null, null, null, List.of(), null);
+    private static final Lote FIM_LOTES = new Lote(-1);
+
+    private final TransactionManager transacoes;
+    private final LivroDao livroDao;
+    private final ExemplarDao exemplarDao;
+    private final Dao<Categoria, Integer> categoriaDao;
+    private final Dao<Autor, Integer> autorDao;
+    private final int gravadores;
+
+    private final LongAdder linhasLidas = new LongAdder();
+    private final LongAdder registrosRejeitados = new LongAdder();
+    private final LongAdder livrosGravados = new LongAdder();
+    private final LongAdder livrosExistentes = new LongAdder();
+    private final LongAdder exemplaresGravados = new LongAdder();
+
+    /**
+     * @param transacoes O gerenciador com que livroDao e exemplarDao foram criados.
+     */
+    public CatalogoImporter(TransactionManager transacoes, LivroDao livroDao, ExemplarDao exemplarDao,
+                            Dao<Categoria, Integer> categoriaDao, Dao<Autor, Integer> autorDao, int gravadores) {
+        this.transacoes = transacoes;
+        this.livroDao = livroDao;
+        this.exemplarDao = exemplarDao;
+        this.categoriaDao = categoriaDao;
+        this.autorDao = autorDao;
+        this.gravadores = gravadores;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Uso: CatalogoImporter <arquivo.csv|arquivo.jsonl> [gravadores]");
+            System.exit(2);
+        }
+        int gravadores = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int status = 0;
+        ConnectionPool pool = null;
+        try {
+            pool = DatabaseFactory.getPool();
+            TransactionManager transacoes = new TransactionManager(pool);
+            CopyCountCache copyCounts = new CopyCountCache(pool);
+            CatalogoImporter importer = new CatalogoImporter(transacoes,
+                    new LivroDao(transacoes, copyCounts), new ExemplarDao(transacoes, copyCounts),
+                    new CategoriaDao(transacoes), new AutorDao(transacoes), gravadores);
+            importer.importar(Path.of(args[0]));
+        } catch (Exception e) {
+            System.err.println("Importação interrompida: " + e.getMessage());
+            e.printStackTrace();
+            status = 1;
+        } finally {
+            if (pool != null) {
+                System.out.println(pool.getStats());
+                pool.close();
+            }
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Importa o arquivo inteiro (ou o que faltou desde o último checkpoint).
+     */
+    public void importar(Path arquivo) throws IOException, SQLException, InterruptedException {
+        ImportCheckpoint checkpoint = new ImportCheckpoint(arquivo);
+        long retomarDepoisDe = checkpoint.carregar();
+        if (retomarDepoisDe > 0) {
+            System.out.println("Retomando a importação depois da linha " + retomarDepoisDe + ".");
+        }
+
+        BlockingQueue<RegistroCatalogo> registros = new ArrayBlockingQueue<>(REGISTROS_EM_ESPERA);
+        BlockingQueue<Lote> lotes = new ArrayBlockingQueue<>(LOTES_EM_ESPERA);
+        ProgressoLotes progresso = new ProgressoLotes(checkpoint, retomarDepoisDe);
+
+        ExecutorService etapas = Executors.newFixedThreadPool(2 + gravadores);
+        CompletionService<Void> conclusoes = new ExecutorCompletionService<>(etapas);
+        ScheduledExecutorService relatorio = Executors.newSingleThreadScheduledExecutor();
+        long inicio = System.nanoTime();
+        relatorio.scheduleAtFixedRate(() -> imprimirProgresso(inicio), INTERVALO_RELATORIO_SEGUNDOS,
+                INTERVALO_RELATORIO_SEGUNDOS, TimeUnit.SECONDS);
+
+        try {
+            conclusoes.submit(() -> ler(arquivo, retomarDepoisDe, registros));
+            conclusoes.submit(() -> validar(registros, lotes));
+            for (int i = 0; i < gravadores; i++) {
+                conclusoes.submit(() -> gravar(lotes, progresso));
+            }
+            // Espera todas as etapas; na primeira falha, interrompe as outras.
+            for (int i = 0; i < 2 + gravadores; i++) {
+                try {
+                    conclusoes.take().get();
+                } catch (ExecutionException e) {
+                    etapas.shutdownNow();
+                    Throwable causa = e.getCause();
+                    if (causa instanceof SQLException sql) {
+                        throw sql;
+                    }
+                    if (causa instanceof IOException io) {
+                        throw io;
+                    }
+                    throw new IllegalStateException("Falha na importação", causa);
+                }
+            }
+        } finally {
+            etapas.shutdownNow();
+            relatorio.shutdownNow();
+            imprimirProgresso(inicio);
+        }
+
+        checkpoint.apagar();
+        System.out.println("Importação concluída.");
+    }
+
+    // ETAPA 1: lê o arquivo e transforma cada linha em um RegistroCatalogo.
+    private Void ler(Path arquivo, long retomarDepoisDe, BlockingQueue<RegistroCatalogo> saida)
+            throws IOException, InterruptedException {
+        CatalogoParser parser = new CatalogoParser(CatalogoParser.detectarFormato(arquivo.getFileName().toString()));
+        try (BufferedReader reader = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            String linha;
+            long numero = 0;
+            while ((linha = reader.readLine()) != null) {
+                numero++;
+                if (parser.isCabecalho(numero)) {
+                    parser.lerCabecalho(linha);
+                    continue;
+                }
+                if (numero <= retomarDepoisDe || linha.isBlank()) {
+                    continue;
+                }
+                linhasLidas.increment();
+                try {
+                    saida.put(parser.parse(numero, linha));
+                } catch (IllegalArgumentException e) {
+                    rejeitar(numero, e.getMessage());
+                }
+            }
+        }
+        saida.put(FIM_REGISTROS);
+        return null;
+    }
+
+    // ETAPA 2: valida, resolve categoria/autores e agrupa em lotes.
+    private Void validar(BlockingQueue<RegistroCatalogo> entrada, BlockingQueue<Lote> saida)
+            throws SQLException, InterruptedException {
+        Resolvedor resolvedor = new Resolvedor(categoriaDao.readAll(), autorDao.readAll());
+        Set<String> isbnsVistos = new HashSet<>();
+        long sequencia = 0;
+        Lote lote = new Lote(sequencia++);
+
+        while (true) {
+            RegistroCatalogo registro = entrada.take();
+            if (registro == FIM_REGISTROS) {
+                break;
+            }
+            lote.ultimaLinha = registro.getLinha();
+            try {
+                Livro livro = resolvedor.montarLivro(registro);
+                int copias = resolvedor.quantidadeExemplares(registro);
+                if (!isbnsVistos.add(livro.getIsbn())) {
+                    throw new IllegalArgumentException("ISBN repetido no arquivo: " + livro.getIsbn());
+                }
+                lote.livros.add(livro);
+                for (int i = 0; i < copias; i++) {
+                    lote.exemplares.add(new Exemplar_livro(0, livro, false));
+                }
+            } catch (IllegalArgumentException e) {
+                rejeitar(registro.getLinha(), e.getMessage());
+            }
+            if (lote.livros.size() == REGISTROS_POR_LOTE) {
+                saida.put(lote);
+                lote = new Lote(sequencia++);
+                lote.ultimaLinha = registro.getLinha();
+            }
+        }
+        if (!lote.livros.isEmpty()) {
+            saida.put(lote);
+        }
+        for (int i = 0; i < gravadores; i++) {
+            saida.put(FIM_LOTES);
+        }
+        return null;
+    }
+
+    // ETAPA 3: grava os lotes pelos DAOs e avança o checkpoint.
+    private Void gravar(BlockingQueue<Lote> entrada, ProgressoLotes progresso)
+            throws SQLException, IOException, InterruptedException {
+        while (true) {
+            Lote lote = entrada.take();
+            if (lote == FIM_LOTES) {
+                return null;
+            }
+            Lote gravado = transacoes.inTransaction(conn -> {
+                Lote novos = semExistentes(lote);
+                livroDao.createAll(novos.livros);
+                exemplarDao.createAll(novos.exemplares);
+                return novos;
+            });
+            // Só conta o que foi confirmado.
+            livrosGravados.add(gravado.livros.size());
+            exemplaresGravados.add(gravado.exemplares.size());
+            livrosExistentes.add(lote.livros.size() - gravado.livros.size());
+            progresso.concluir(lote);
+        }
+    }
+
+    // O lote sem os livros (e os exemplares deles) cujo ISBN já está no banco.
+    private Lote semExistentes(Lote lote) throws SQLException {
+        Set<String> existentes = livroDao.existentes(lote.isbns());
+        if (existentes.isEmpty()) {
+            return lote;
+        }
+        Lote novos = new Lote(lote.sequencia);
+        novos.ultimaLinha = lote.ultimaLinha;
+        for (Livro livro : lote.livros) {
+            if (!existentes.contains(livro.getIsbn())) {
+                novos.livros.add(livro);
+            }
+        }
+        for (Exemplar_livro exemplar : lote.exemplares) {
+            if (!existentes.contains(exemplar.getLivro().getIsbn())) {
+                novos.exemplares.add(exemplar);
+            }
+        }
+        return novos;
+    }
+
+    private void rejeitar(long linha, String motivo) {
+        registrosRejeitados.increment();
+        System.err.println("Linha " + linha + " rejeitada: " + motivo);
+    }
+
+    private void imprimirProgresso(long inicio) {
+        double segundos = Math.max((System.nanoTime() - inicio) / 1e9, 1e-9);
+        long livros = livrosGravados.sum();
+        System.out.printf("Importação: linhas lidas=%d, rejeitadas=%d, livros gravados=%d (%.0f/s), já existentes=%d, exemplares gravados=%d (%.0f/s)%n",
+                linhasLidas.sum(), registrosRejeitados.sum(), livros, livros / segundos, livrosExistentes.sum(),
+                exemplaresGravados.sum(), exemplaresGravados.sum() / segundos);
+    }
+
+    /**
+     * Um grupo de livros (e seus exemplares) gravado de uma vez.
+     * 'ultimaLinha' é a última linha do arquivo coberta pelo lote, inclusive linhas rejeitadas.
+     */
+    private static final class Lote {
+        private final long sequencia;
+        private final List<Livro> livros = new ArrayList<>();
+        private final List<Exemplar_livro> exemplares = new ArrayList<>();
+        private long ultimaLinha;
+
+        private Lote(long sequencia) {
+            this.sequencia = sequencia;
+        }
+
+        private List<String> isbns() {
+            List<String> isbns = new ArrayList<>(livros.size());
+            for (Livro livro : livros) {
+                isbns.add(livro.getIsbn());
+            }
+            return isbns;
+        }
+    }
+
+    /**
+     * Com vários gravadores os lotes terminam fora de ordem; o checkpoint só avança
+     * até o maior lote que tem todos os anteriores confirmados. Os lotes confirmados depois
+     * dele são gravados de novo numa retomada, e semExistentes os deixa sem efeito.
+     */
+    private static final class ProgressoLotes {
+        private final ImportCheckpoint checkpoint;
+        private final TreeMap<Long, Long> concluidosForaDeOrdem = new TreeMap<>();
+        private long proximaSequencia;
+        private long ultimaLinhaConfirmada;
+
+        private ProgressoLotes(ImportCheckpoint checkpoint, long ultimaLinhaConfirmada) {
+            this.checkpoint = checkpoint;
+            this.ultimaLinhaConfirmada = ultimaLinhaConfirmada;
+        }
+
+        private synchronized void concluir(Lote lote) throws IOException {
+            concluidosForaDeOrdem.put(lote.sequencia, lote.ultimaLinha);
+            boolean avancou = false;
+            Long linha;
+            while ((linha = concluidosForaDeOrdem.remove(proximaSequencia)) != null) {
+                ultimaLinhaConfirmada = linha;
+                proximaSequencia++;
+                avancou = true;
+            }
+            if (avancou) {
+                checkpoint.salvar(ultimaLinhaConfirmada);
+            }
+        }
+    }
+
+    /**
+     * Resolve categoria e autores de um registro, aceitando o id ou o nome.
+     */
+    private static final class Resolvedor {
+        private final Map<String, Categoria> categorias = new HashMap<>();
+        private final Map<String, Autor> autores = new HashMap<>();
+
+        private Resolvedor(List<Categoria> todasCategorias, List<Autor> todosAutores) {
+            for (Categoria categoria : todasCategorias) {
+                categorias.put(Integer.toString(categoria.getId()), categoria);
+                categorias.putIfAbsent(normalizar(categoria.getNome()), categoria);
+            }
+            for (Autor autor : todosAutores) {
+                autores.put(Integer.toString(autor.getId()), autor);
+                autores.putIfAbsent(normalizar(autor.getNome()), autor);
+            }
+        }
+
+        private Livro montarLivro(RegistroCatalogo registro) {
+            if (registro.getIsbn() == null) {
+                throw new IllegalArgumentException("ISBN ausente.");
+            }
+            if (registro.getTitulo() == null) {
+                throw new IllegalArgumentException("Título ausente.");
+            }
+            int ano = inteiro(registro.getAnoPublicacao(), "Ano de publicação");
+            Categoria categoria = registro.getCategoria() == null ? null : categorias.get(normalizar(registro.getCategoria()));
+            if (categoria == null) {
+                throw new IllegalArgumentException("Categoria não encontrada: " + registro.getCategoria());
+            }
+            List<Autor> autoresDoLivro = new ArrayList<>();
+            for (String nomeOuId : registro.getAutores()) {
+                Autor autor = autores.get(normalizar(nomeOuId));
+                if (autor == null) {
+                    throw new IllegalArgumentException("Autor não encontrado: " + nomeOuId);
+                }
+                if (!autoresDoLivro.contains(autor)) {
+                    autoresDoLivro.add(autor);
+                }
+            }
+            if (autoresDoLivro.isEmpty()) {
+                throw new IllegalArgumentException("É necessário pelo menos um autor.");
+            }
+            return new Livro(registro.getIsbn(), categoria, registro.getTitulo(), ano, autoresDoLivro);
+        }
+
+        private int quantidadeExemplares(RegistroCatalogo registro) {
+            if (registro.getExemplares() == null) {
+                return 0;
+            }
+            int quantidade = inteiro(registro.getExemplares(), "Quantidade de exemplares");
+            if (quantidade < 0) {
+                throw new IllegalArgumentException("Quantidade de exemplares negativa.");
+            }
+            return quantidade;
+        }
+
+        private static int inteiro(String valor, String campo) {
+            if (valor == null) {
+                throw new IllegalArgumentException(campo + " ausente.");
+            }
+            try {
+                return Integer.parseInt(valor);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(campo + " inválido: " + valor);
+            }
+        }
+
+        private static String normalizar(String s) {
+            return s.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package br.inatel.Importacao;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Converte linhas de um arquivo de catálogo em RegistroCatalogo.
+ *
+ * Formatos aceitos:
+ * - CSV (separador ',' ou ';', aspas duplas opcionais) com cabeçalho na primeira linha:
+ *   isbn,titulo,ano,categoria,autores,exemplares
+ *   Os autores de um livro vão separados por '|'.
+ * - JSON Lines (.jsonl / .json): um objeto por linha, com as mesmas chaves;
+ *   "autores" pode ser um array ou um texto separado por '|'.
+ *
+ * Um objeto desta classe atende um único arquivo e não é thread-safe.
+ */
+public class CatalogoParser {
+    public enum Formato { CSV, JSON_LINES }
+
+    private static final String[] COLUNAS = {"isbn", "titulo", "ano", "categoria", "autores", "exemplares"};
+
+    private final Formato formato;
+    private char separador = ',';
+    private Map<String, Integer> posicoes;
+
+    public CatalogoParser(Formato formato) {
+        this.formato = formato;
+    }
+
+    public static Formato detectarFormato(String nomeArquivo) {
+        String nome = nomeArquivo.toLowerCase(Locale.ROOT);
+        return nome.endsWith(".json") || nome.endsWith(".jsonl") ? Formato.JSON_LINES : Formato.CSV;
+    }
+
+    /**
+     * Diz se a linha é cabeçalho (só no CSV, primeira linha do arquivo).
+     */
+    public boolean isCabecalho(long numeroLinha) {
+        return formato == Formato.CSV && numeroLinha == 1;
+    }
+
+    /**
+     * Lê o cabeçalho CSV e descobre a posição de cada coluna.
+     */
+    public void lerCabecalho(String linha) {
+        separador = linha.indexOf(';') >= 0 && linha.indexOf(',') < 0 ? ';' : ',';
+        List<String> nomes = dividirCsv(linha);
+        posicoes = new HashMap<>();
+        for (int i = 0; i < nomes.size(); i++) {
+            posicoes.put(nomes.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String coluna : COLUNAS) {
+            if (!coluna.equals("exemplares") && !posicoes.containsKey(coluna)) {
+                throw new IllegalArgumentException("Coluna obrigatória ausente no cabeçalho: " + coluna);
+            }
+        }
+    }
+
+    /**
+     * Converte uma linha de dados. Lança IllegalArgumentException se a linha estiver malformada.
+     */
+    public RegistroCatalogo parse(long numeroLinha, String linha) {
+        Map<String, Object> campos = formato == Formato.CSV ? camposCsv(linha) : new JsonLinha(linha).objeto();
+        return new RegistroCatalogo(
+                numeroLinha,
+                texto(campos.get("isbn")),
+                texto(campos.get("titulo")),
+                texto(campos.get("ano")),
+                texto(campos.get("categoria")),
+                autores(campos.get("autores")),
+                texto(campos.get("exemplares"))
+        );
+    }
+
+    private Map<String, Object> camposCsv(String linha) {
+        if (posicoes == null) {
+            throw new IllegalStateException("O cabeçalho CSV ainda não foi lido.");
+        }
+        List<String> valores = dividirCsv(linha);
+        Map<String, Object> campos = new HashMap<>();
+        for (String coluna : COLUNAS) {
+            Integer posicao = posicoes.get(coluna);
+            if (posicao != null && posicao < valores.size()) {
+                campos.put(coluna, valores.get(posicao));
+            }
+        }
+        return campos;
+    }
+
+    private List<String> dividirCsv(String linha) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (entreAspas) {
+                if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreAspas = false;
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == separador) {
+                valores.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        if (entreAspas) {
+            throw new IllegalArgumentException("Aspas não fechadas.");
+        }
+        valores.add(atual.toString());
+        return valores;
+    }
+
+    private static String texto(Object valor) {
+        if (valor == null) {
+            return null;
+        }
+        String s = valor.toString().trim();
+        return s.isEmpty() ? null : s;
+    }
+
+    private static List<String> autores(Object valor) {
+        List<String> autores = new ArrayList<>();
+        if (valor instanceof List<?> lista) {
+            for (Object item : lista) {
+                String s = texto(item);
+                if (s != null) {
+                    autores.add(s);
+                }
+            }
+        } else if (valor != null) {
+            for (String parte : valor.toString().split("\\|")) {
+                String s = texto(parte);
+                if (s != null) {
+                    autores.add(s);
+                }
+            }
+        }
+        return autores;
+    }
+
+    /**
+     * Leitor mínimo de um objeto JSON "raso": valores texto, número, booleano, null
+     * ou array desses. É o suficiente para o formato de importação.
+     */
+    private static final class JsonLinha {
+        private final String s;
+        private int pos;
+
+        private JsonLinha(String s) {
+            this.s = s;
+        }
+
+        private Map<String, Object> objeto() {
+            Map<String, Object> campos = new HashMap<>();
+            esperar('{');
+            espacos();
+            if (proximo() == '}') {
+                pos++;
+                return campos;
+            }
+            while (true) {
+                espacos();
+                String chave = texto().toLowerCase(Locale.ROOT);
+                espacos();
+                esperar(':');
+                campos.put(chave, valor());
+                espacos();
+                char c = ler();
+                if (c == '}') {
+                    return campos;
+                }
+                if (c != ',') {
+                    throw erro("esperado ',' ou '}'");
+                }
+            }
+        }
+
+        private Object valor() {
+            espacos();
+            char c = proximo();
+            if (c == '"') {
+                return texto();
+            }
+            if (c == '[') {
+                pos++;
+                List<Object> itens = new ArrayList<>();
+                espacos();
+                if (proximo() == ']') {
+                    pos++;
+                    return itens;
+                }
+                while (true) {
+                    itens.add(valor());
+                    espacos();
+                    char d = ler();
+                    if (d == ']') {
+                        return itens;
+                    }
+                    if (d != ',') {
+                        throw erro("esperado ',' ou ']'");
+                    }
+                }
+            }
+            int inicio = pos;
+            while (pos < s.length() && ",}] \t".indexOf(s.charAt(pos)) < 0) {
+                pos++;
+            }
+            String literal = s.substring(inicio, pos);
+            if (literal.isEmpty()) {
+                throw erro("valor esperado");
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        private String texto() {
+            esperar('"');
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                char c = ler();
+                if (c == '"') {
+                    return sb.toString();
+                }
+                if (c == '\\') {
+                    char e = ler();
+                    switch (e) {
+                        case 'n' -> sb.append('\n');
+                        case 't' -> sb.append('\t');
+                        case 'r' -> sb.append('\r');
+                        case 'b' -> sb.append('\b');
+                        case 'f' -> sb.append('\f');
+                        case 'u' -> {
+                            if (pos + 4 > s.length()) {
+                                throw erro("escape \\u incompleto");
+                            }
+                            sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                            pos += 4;
+                        }
+                        default -> sb.append(e);
+                    }
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+
+        private void espacos() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) {
+                pos++;
+            }
+        }
+
+        private void esperar(char c) {
+            espacos();
+            if (ler() != c) {
+                throw erro("esperado '" + c + "'");
+            }
+        }
+
+        private char proximo() {
+            if (pos >= s.length()) {
+                throw erro("fim inesperado da linha");
+            }
+            return s.charAt(pos);
+        }
+
+        private char ler() {
+            char c = proximo();
+            pos++;
+            return c;
+        }
+
+        private IllegalArgumentException erro(String mensagem) {
+            return new IllegalArgumentException("JSON inválido na coluna " + (pos + 1) + ": " + mensagem);
+        }
+    }
+}
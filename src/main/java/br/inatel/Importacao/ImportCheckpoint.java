@@ -0,0 +1,48 @@
+package br.inatel.Importacao;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Guarda em disco a última linha do arquivo cujo lote já foi confirmado no banco.
+ * Uma importação interrompida recomeça a partir da linha seguinte.
+ */
+public class ImportCheckpoint {
+    private final Path arquivo;
+
+    public ImportCheckpoint(Path arquivoImportado) {
+        this.arquivo = arquivoImportado.resolveSibling(arquivoImportado.getFileName() + ".checkpoint");
+    }
+
+    /**
+     * Última linha confirmada, ou 0 se a importação nunca começou.
+     */
+    public long carregar() throws IOException {
+        if (!Files.exists(arquivo)) {
+            return 0;
+        }
+        String conteudo = Files.readString(arquivo, StandardCharsets.UTF_8).trim();
+        return conteudo.isEmpty() ? 0 : Long.parseLong(conteudo);
+    }
+
+    /**
+     * Grava a linha de forma atômica (arquivo temporário + rename), para nunca deixar
+     * um checkpoint pela metade se o processo morrer no meio da escrita.
+     */
+    public void salvar(long ultimaLinha) throws IOException {
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        Files.writeString(temporario, Long.toString(ultimaLinha), StandardCharsets.UTF_8);
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public void apagar() throws IOException {
+        Files.deleteIfExists(arquivo);
+    }
+
+    public Path getArquivo() {
+        return arquivo;
+    }
+}
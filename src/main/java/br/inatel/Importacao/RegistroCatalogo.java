@@ -0,0 +1,56 @@
+package br.inatel.Importacao;
+
+import java.util.List;
+
+/**
+ * Uma linha do arquivo de importação, ainda sem validação.
+ * Categoria e autores vêm como texto: podem ser o id ou o nome.
+ */
+public class RegistroCatalogo {
+    private final long linha;
+    private final String isbn;
+    private final String titulo;
+    private final String anoPublicacao;
+    private final String categoria;
+    private final List<String> autores;
+    private final String exemplares;
+
+    public RegistroCatalogo(long linha, String isbn, String titulo, String anoPublicacao,
+                            String categoria, List<String> autores, String exemplares) {
+        this.linha = linha;
+        this.isbn = isbn;
+        this.titulo = titulo;
+        this.anoPublicacao = anoPublicacao;
+        this.categoria = categoria;
+        this.autores = autores;
+        this.exemplares = exemplares;
+    }
+
+    public long getLinha() {
+        return linha;
+    }
+
+    public String getIsbn() {
+        return isbn;
+    }
+
+    public String getTitulo() {
+        return titulo;
+    }
+
+    public String getAnoPublicacao() {
+        return anoPublicacao;
+    }
+
+    public String getCategoria() {
+        return categoria;
+    }
+
+    public List<String> getAutores() {
+        return autores;
+    }
+
+    public String getExemplares() {
+        return exemplares;
+    }
+}
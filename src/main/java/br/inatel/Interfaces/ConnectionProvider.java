@@ -0,0 +1,69 @@
+package br.inatel.Interfaces;
+
+import br.inatel.Metricas.EventoTransacao;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Fonte de conexões usada pelos DAOs.
+ * Cada operação pede uma conexão, usa e a fecha (try-with-resources);
+ * quem implementa decide se "fechar" encerra a conexão física ou apenas a devolve.
+ *
+ * Operações com mais de um comando usam inTransaction em vez de mexer no auto-commit
+ * da conexão; atualizações de caches em memória que dependem da escrita ter sido
+ * confirmada vão em afterCommit. Assim a mesma operação funciona sozinha ou dentro de
+ * uma transação maior do TransactionManager.
+ */
+@FunctionalInterface
+public interface ConnectionProvider {
+    Connection getConnection() throws SQLException;
+
+    /**
+     * Trabalho executado dentro de uma transação, com a conexão dela.
+     */
+    @FunctionalInterface
+    interface Work<T> {
+        T execute(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Executa 'work' em uma transação: commit se terminar normalmente, rollback se lançar qualquer Throwable.
+     * Esta versão abre uma transação local em uma conexão própria; o TransactionManager
+     * a substitui para juntar chamadas aninhadas na transação já aberta na thread.
+     * Cada transação gera um EventoTransacao do Java Flight Recorder quando há gravação ativa.
+     */
+    default <T> T inTransaction(Work<T> work) throws SQLException {
+        EventoTransacao evento = new EventoTransacao();
+        evento.begin();
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                T result = work.execute(conn);
+                conn.commit();
+                evento.concluir(false, EventoTransacao.COMMIT);
+                return result;
+            } catch (Throwable e) {
+                // Também em Error: religar o auto-commit no finally confirmaria o trabalho pela metade.
+                try {
+                    conn.rollback();
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+                evento.concluir(false, EventoTransacao.ROLLBACK);
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Executa 'action' quando o que foi escrito até aqui estiver confirmado.
+     * Sem transação aberta isso já aconteceu, então roda na hora; o TransactionManager
+     * adia até o commit da transação externa (e descarta se ela for revertida).
+     */
+    default void afterCommit(Runnable action) {
+        action.run();
+    }
+}
@@ -1,13 +1,45 @@
 package br.inatel.Interfaces;
 
-import br.inatel.Biblioteca.Autor;
-
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 
 public interface Dao<T, K> {
-    boolean create(T entity) throws SQLException;
+    /**
+     * Insere a entidade. Quando a chave é gerada pelo banco (auto_increment),
+     * ela também é gravada na entidade (setId).
+     * @return A chave da entidade inserida, ou null se nada foi inserido.
+     */
+    K create(T entity) throws SQLException;
     T read(K id) throws SQLException;
+
+    /**
+     * Lê várias entidades pela chave com consultas IN (...) em blocos, em vez de um read por chave.
+     * @return As entidades encontradas, na ordem das chaves (sem repetir); chaves inexistentes ficam de fora.
+     */
+    List<T> readMany(Collection<K> ids) throws SQLException;
+
     List<T> readAll() throws SQLException;
+
+    /**
+     * Paginação por chave (keyset): devolve até 'limit' entidades com chave maior que 'after',
+     * em ordem crescente de chave. Passe null para a primeira página e a chave do último
+     * item recebido para as seguintes. O custo não depende de quantas páginas já foram lidas.
+     */
+    List<T> readPage(K after, int limit) throws SQLException;
+
     boolean delete(K id) throws SQLException;
+
+    /**
+     * Insere várias entidades em lotes (executeBatch), com uma transação por bloco.
+     * As chaves geradas são gravadas nas entidades, como no create.
+     * @return As chaves das entidades inseridas, na ordem da coleção.
+     */
+    List<K> createAll(Collection<T> entities) throws SQLException;
+
+    /**
+     * Exclui várias entidades em lotes (executeBatch), com uma transação por bloco.
+     * @return Quantidade de entidades excluídas.
+     */
+    int deleteAll(Collection<K> ids) throws SQLException;
 }
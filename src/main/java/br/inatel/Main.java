@@ -1,49 +1,93 @@
 // Em: br/inatel/Main.java
 package br.inatel;
 
+import br.inatel.Biblioteca.Autor;
+import br.inatel.Biblioteca.Categoria;
 import br.inatel.Biblioteca.Exemplar_livro;
+import br.inatel.Biblioteca.Usuario;
 import br.inatel.DAO.*;
+import br.inatel.Database.ConnectionPool;
 import br.inatel.Database.DatabaseFactory;
+import br.inatel.Database.InstrumentedConnectionProvider;
+import br.inatel.Database.RoteadorLeituraEscrita;
+import br.inatel.Database.TransactionManager;
 import br.inatel.Menu.Menu; // Importe sua classe Menu
+import br.inatel.Metricas.ExportadorTexto;
+import br.inatel.Metricas.RegistroMetricas;
+import br.inatel.Migracao.MigradorEsquema;
+import br.inatel.Migracao.Migracoes;
 
-import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Duration;
 
 public class Main {
+    // Comandos SQL mais demorados que isso vão para o log de consultas lentas (System.err).
+    private static final Duration LIMITE_CONSULTA_LENTA = Duration.ofMillis(200);
+
     public static void main(String[] args) {
-        Connection conn = null;
+        ConnectionPool pool = null;
+        RegistroMetricas metricas = new RegistroMetricas(LIMITE_CONSULTA_LENTA, System.err);
         try {
-            // 1. Obter a conexão com o banco de dados
-            conn = DatabaseFactory.getConnection();
+            // 1. Obter o pool de conexões (já abre e valida as primeiras conexões)
+            pool = DatabaseFactory.getPool();
+            // Cria as tabelas e os índices que faltarem (versões em schema_versao).
+            new MigradorEsquema(pool, Migracoes.todas()).migrar();
 
-            // 2. Instanciar todos os DAOs, passando a mesma conexão para todos
-            AutorDao autorDao = new AutorDao(conn);
-            UsuarioDao usuarioDao = new UsuarioDao(conn);
-            CategoriaDao categoriaDao = new CategoriaDao(conn);
-            LivroDao livroDao = new LivroDao(conn);
-            EmprestimoDao emprestimoDao = new EmprestimoDao(conn);
-            ExemplarDao exemplarDao = new ExemplarDao(conn);
-            MultaDao multaDao = new MultaDao(conn);
+            // 2. Instanciar todos os DAOs, passando o mesmo gerenciador de transações para todos.
+            // Cada operação pega uma conexão do pool e a devolve ao terminar; dentro de um
+            // transacoes.inTransaction(...) todas usam a conexão da transação.
+            // Cada comando SQL é medido no caminho entre as transações e o pool.
+            // O roteador manda as leituras marcadas (ReadReplicaDao) para as réplicas, se houver.
+            RoteadorLeituraEscrita roteador = DatabaseFactory.getRoteador();
+            TransactionManager transacoes = new TransactionManager(new InstrumentedConnectionProvider(roteador, metricas));
+            // Autores, usuários e categorias mudam pouco: ficam atrás de um cache de leitura.
+            CachedDao<Autor, Integer> autorDao = new CachedDao<>(new InstrumentedDao<>(new ReadReplicaDao<>(new AutorDao(transacoes), roteador), "autor", metricas), Autor::getId, 10_000, Duration.ofMinutes(10), transacoes);
+            CachedDao<Usuario, Integer> usuarioDao = new CachedDao<>(new InstrumentedDao<>(new ReadReplicaDao<>(new UsuarioDao(transacoes), roteador), "usuario", metricas), Usuario::getId, 10_000, Duration.ofMinutes(5), transacoes);
+            CachedDao<Categoria, Integer> categoriaDao = new CachedDao<>(new InstrumentedDao<>(new ReadReplicaDao<>(new CategoriaDao(transacoes), roteador), "categoria", metricas), Categoria::getId, 1_000, Duration.ofMinutes(30), transacoes);
+            // Os caches leem pelo pool, fora de qualquer transação: só enxergam o que já foi confirmado.
+            CopyCountCache copyCounts = new CopyCountCache(pool);
+            // Exemplares livres por ISBN, carregado agora para o primeiro empréstimo não pagar a carga.
+            AvailabilityIndex availability = new AvailabilityIndex(pool);
+            availability.load();
+            CatalogSearchIndex searchIndex = new CatalogSearchIndex();
+            LivroDao livroDao = new LivroDao(transacoes, copyCounts, FetchMode.EAGER, availability, searchIndex);
+            livroDao.setMetricas(metricas);
+            // Índice de busca montado com uma passada em streaming pelo catálogo, lida de uma réplica.
+            roteador.lendo(() -> {
+                searchIndex.load(livroDao);
+                return null;
+            });
+            EmprestimoDao emprestimoDao = new EmprestimoDao(transacoes, FetchMode.EAGER, availability);
+            emprestimoDao.setMetricas(metricas);
+            // A listagem de exemplares mostra id, título e status: os autores só são buscados se alguém os ler.
+            ExemplarDao exemplarDao = new ExemplarDao(transacoes, copyCounts, FetchMode.LAZY, availability);
+            exemplarDao.setMetricas(metricas);
 
-            // 3. Instanciar o Menu, injetando os DAOs
-            Menu menu = new Menu(autorDao, usuarioDao, categoriaDao, livroDao, emprestimoDao, exemplarDao);
+            // 3. Instanciar o Menu, injetando os DAOs (medidos por método)
+            Menu menu = new Menu(autorDao, usuarioDao, categoriaDao,
+                    new InstrumentedDao<>(new ReadReplicaDao<>(livroDao, roteador), "livro", metricas),
+                    new InstrumentedDao<>(new ReadReplicaDao<>(emprestimoDao, roteador), "emprestimo", metricas), emprestimoDao,
+                    new InstrumentedDao<>(new ReadReplicaDao<>(exemplarDao, roteador), "exemplar", metricas),
+                    availability, searchIndex);
 
             // 4. Exibir o menu principal
             menu.showMainMenu();
 
+            System.out.println("Autores - " + autorDao);
+            System.out.println("Usuários - " + usuarioDao);
+            System.out.println("Categorias - " + categoriaDao);
+            new ExportadorTexto(System.out).exportar(metricas);
+
         } catch (SQLException e) {
             System.err.println("Não foi possível conectar ao banco de dados. Encerrando a aplicação.");
             e.printStackTrace();
         } finally {
-            // 5. Garantir que a conexão seja fechada ao final
-            if (conn != null) {
-                try {
-                    conn.close();
-                    System.out.println("Conexão com o banco de dados fechada.");
-                } catch (SQLException e) {
-                    System.err.println("Erro ao fechar a conexão com o banco de dados.");
-                    e.printStackTrace();
-                }
+            // 5. Garantir que as conexões do pool sejam fechadas ao final
+            if (pool != null) {
+                System.out.println(pool.getStats());
+                DatabaseFactory.closeReplicas();
+                pool.close();
+                System.out.println("Conexões com o banco de dados fechadas.");
             }
         }
     }
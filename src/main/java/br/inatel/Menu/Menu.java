@@ -2,6 +2,7 @@ package br.inatel.Menu;
 
 import br.inatel.Biblioteca.*;
 import br.inatel.DAO.*;
+import br.inatel.Interfaces.Dao;
 
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -13,26 +14,51 @@ import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class Menu {
+    // Quantidade de itens exibidos por vez nas listagens grandes (livros, exemplares, empréstimos).
+    private static final int PAGE_SIZE = 20;
+    // Leituras simultâneas por DAO nas telas que buscam várias coisas de uma vez.
+    private static final int ASYNC_CONCURRENCY = 4;
+
     private final Scanner scanner;
     // Os DAOs são agora campos de instância e são 'final' porque serão definidos uma vez no construtor.
-    private final AutorDao autorDao;
-    private final UsuarioDao usuarioDao;
-    private final CategoriaDao categoriaDao;
-    private final LivroDao livroDao;
+    // Dados de referência: recebidos pela interface para que possam vir embrulhados em cache.
+    private final Dao<Autor, Integer> autorDao;
+    private final Dao<Usuario, Integer> usuarioDao;
+    private final Dao<Categoria, Integer> categoriaDao;
+    private final Dao<Livro, String> livroDao;
+    // Empréstimos pela interface (medidos); o EmprestimoDao só para registrar devoluções.
+    private final Dao<Emprestimo, Integer> emprestimos;
     private final EmprestimoDao emprestimoDao;
-    private final ExemplarDao exemplarDao;
+    private final Dao<Exemplar_livro, Integer> exemplarDao;
+    // Exemplares livres por ISBN: o empréstimo não precisa listar todos os exemplares.
+    private final AvailabilityIndex availability;
+    // Busca por título, autor e categoria sem consultar o banco.
+    private final CatalogSearchIndex searchIndex;
+    // Fachadas assíncronas para as leituras independentes da tela de empréstimo.
+    private final AsyncDao<Usuario, Integer> usuarioDaoAsync;
+    private final AsyncDao<Exemplar_livro, Integer> exemplarDaoAsync;
 
     // O construtor recebe todos os DAOs de que precisa (Injeção de Dependência)
-    public Menu(AutorDao autorDao, UsuarioDao usuarioDao, CategoriaDao categoriaDao, LivroDao livroDao, EmprestimoDao emprestimoDao, ExemplarDao exemplarDao) {
+    public Menu(Dao<Autor, Integer> autorDao, Dao<Usuario, Integer> usuarioDao, Dao<Categoria, Integer> categoriaDao, Dao<Livro, String> livroDao,
+                Dao<Emprestimo, Integer> emprestimos, EmprestimoDao emprestimoDao, Dao<Exemplar_livro, Integer> exemplarDao,
+                AvailabilityIndex availability, CatalogSearchIndex searchIndex) {
         this.scanner = new Scanner(System.in);
         this.autorDao = autorDao;
         this.usuarioDao = usuarioDao;
         this.categoriaDao = categoriaDao;
         this.livroDao = livroDao;
+        this.emprestimos = emprestimos;
         this.emprestimoDao = emprestimoDao;
         this.exemplarDao = exemplarDao;
+        this.availability = availability;
+        this.searchIndex = searchIndex;
+        this.usuarioDaoAsync = new AsyncDao<>(usuarioDao, ASYNC_CONCURRENCY);
+        this.exemplarDaoAsync = new AsyncDao<>(exemplarDao, ASYNC_CONCURRENCY);
     }
 
     public void showMainMenu() throws SQLException {
@@ -162,9 +188,9 @@ public class Menu {
             System.out.print("Tipo: ");
             String userType = scanner.nextLine();
             // ID do usuário deve ser gerado pelo banco de dados, então passamos 0 ou um construtor sem ID.
-            Usuario usuario = new Usuario(0, userName, userPhone, userEmail, userType);
-            if (usuarioDao.create(usuario)) { // A chamada ao DAO agora funciona
-                System.out.println("Usuário inserido com sucesso!");
+            Usuario usuario = new Usuario(0, userName, userEmail, userPhone, userType);
+            if (usuarioDao.create(usuario) != null) { // O DAO preenche o ID gerado no objeto
+                System.out.println("Usuário inserido com sucesso! ID: " + usuario.getId());
             } else {
                 System.out.println("Falha ao inserir usuário.");
             }
@@ -259,8 +285,8 @@ public class Menu {
             String country = scanner.nextLine();
             // ID do autor deve ser gerado pelo banco de dados, então passamos 0 ou um construtor sem ID.
             Autor autor = new Autor(0, authorName, country);
-            if (autorDao.create(autor)) { // A chamada ao DAO agora funciona
-                System.out.println("Autor inserido com sucesso!");
+            if (autorDao.create(autor) != null) { // O DAO preenche o ID gerado no objeto
+                System.out.println("Autor inserido com sucesso! ID: " + autor.getId());
             } else {
                 System.out.println("Falha ao inserir autor.");
             }
@@ -352,8 +378,8 @@ public class Menu {
             String categoryName = scanner.nextLine();
             // ID da categoria deve ser gerado pelo banco de dados, então passamos 0 ou um construtor sem ID.
             Categoria categoria = new Categoria(0, categoryName);
-            if (categoriaDao.create(categoria)) {
-                System.out.println("Categoria inserida com sucesso!");
+            if (categoriaDao.create(categoria) != null) {
+                System.out.println("Categoria inserida com sucesso! ID: " + categoria.getId());
             } else {
                 System.out.println("Falha ao inserir categoria.");
             }
@@ -370,6 +396,7 @@ public class Menu {
             System.out.println("3. Excluir livro");
             System.out.println("4. Adicionar exemplar");
             System.out.println("5. Remover exemplar");
+            System.out.println("6. Buscar livros");
             System.out.println("0. Voltar");
             System.out.print("Escolha uma opção: ");
 
@@ -392,6 +419,9 @@ public class Menu {
                 case 5:
                     deleteCopy();
                     break;
+                case 6:
+                    searchBooks();
+                    break;
                 case 0:
                     return; // Retorna ao menu principal
                 default:
@@ -439,30 +469,41 @@ public class Menu {
             Livro livro = livroDao.read(bookIsbn);
             System.out.print("Quantidade de exemplares: ");
             int copies = scanner.nextInt();
+            // Todos os exemplares vão em lote, em vez de um INSERT por exemplar.
+            List<Exemplar_livro> exemplares = new ArrayList<>(copies);
             for (int i = 0; i < copies; i++) {
-                Exemplar_livro exemplarLivro = new Exemplar_livro(0, livro, false);
-                if (exemplarDao.create(exemplarLivro)) {
-                    System.out.println("Exemplar inserido com sucesso!");
-                } else {
-                    System.out.println("Falha ao inserir exemplar.");
-                }
+                exemplares.add(new Exemplar_livro(0, livro, false));
+            }
+            List<Integer> ids = exemplarDao.createAll(exemplares);
+            int inseridos = ids.size();
+            if (inseridos == copies) {
+                System.out.println(inseridos + " exemplar(es) inserido(s) com sucesso! IDs: " + ids);
+            } else {
+                System.out.println("Falha ao inserir exemplares: " + inseridos + " de " + copies + " inseridos.");
             }
         }catch(SQLException e){
             System.err.println("Erro de banco de dados ao inserir exemplar: " + e.getMessage());
         }
     }
+    private void searchBooks() {
+        System.out.print("Buscar (título, autor ou categoria): ");
+        String query = scanner.nextLine();
+        List<CatalogSearchIndex.Hit> hits = searchIndex.search(query, PAGE_SIZE);
+        if (hits.isEmpty()) {
+            System.out.println("Nenhum livro encontrado.");
+            return;
+        }
+        System.out.println("\n--- Resultados ---");
+        for (CatalogSearchIndex.Hit hit : hits) {
+            System.out.printf("ISBN: %s, Título: %s\n", hit.isbn(), hit.titulo());
+        }
+    }
+
     private void viewCopies(){
         try {
-            List<Exemplar_livro> exemplares = exemplarDao.readAll();
-            if (exemplares.isEmpty()) {
-                System.out.println("Nenhuma exemplar cadastrado.");
-                return;
-            }
-            System.out.println("\n--- Lista de exemplares ---");
-            for (Exemplar_livro exemplar : exemplares) {
-                System.out.printf("ID: %s, Título: %s, ISBN: %s, Status: %b\n",
-                        exemplar.getId(), exemplar.getLivro().getTitulo(), exemplar.getLivro().getIsbn(), exemplar.isStatus());
-            }
+            printPaged(exemplarDao, Exemplar_livro::getId, "Nenhuma exemplar cadastrado.", "\n--- Lista de exemplares ---",
+                    exemplar -> System.out.printf("ID: %s, Título: %s, ISBN: %s, Status: %b\n",
+                            exemplar.getId(), exemplar.getLivro().getTitulo(), exemplar.getLivro().getIsbn(), exemplar.isStatus()));
         } catch (SQLException e) {
             System.err.println("Erro de banco de dados ao visualizar livros: " + e.getMessage());
         }
@@ -499,16 +540,9 @@ public class Menu {
 
     private void viewBook() {
         try {
-            List<Livro> livros = livroDao.readAll();
-            if (livros.isEmpty()) {
-                System.out.println("Nenhuma livro cadastrado.");
-                return;
-            }
-            System.out.println("\n--- Lista de livros ---");
-            for (Livro livro : livros) {
-                System.out.printf("ISBN: %s, Título: %s, Ano de publicação: %s, Categoria: %s, Quantidade de exemplares: %d\n",
-                        livro.getIsbn(), livro.getTitulo(), livro.getAnoPublicacao(), livro.getCategoria().getNome(), livro.getQuantidadeExemplares());
-            }
+            printPaged(livroDao, Livro::getIsbn, "Nenhuma livro cadastrado.", "\n--- Lista de livros ---",
+                    livro -> System.out.printf("ISBN: %s, Título: %s, Ano de publicação: %s, Categoria: %s, Quantidade de exemplares: %d\n",
+                            livro.getIsbn(), livro.getTitulo(), livro.getAnoPublicacao(), livro.getCategoria().getNome(), livro.getQuantidadeExemplares()));
         } catch (SQLException e) {
             System.err.println("Erro de banco de dados ao visualizar livros: " + e.getMessage());
         }
@@ -575,7 +609,7 @@ public class Menu {
                 return;
             }
             Livro livro = new Livro(bookIsbn, categoria, bookName, year, authors);
-            if (livroDao.create(livro)) {
+            if (livroDao.create(livro) != null) {
                 System.out.println("Livro inserido com sucesso!");
             } else {
                 System.out.println("Falha ao inserir livro.");
@@ -646,18 +680,36 @@ public class Menu {
 
     private void viewLoans() {
         try {
-            List<Emprestimo> emprestimos = emprestimoDao.readAll();
-            if (emprestimos.isEmpty()) {
-                System.out.println("Nenhum empréstimo cadastrado.");
+            printPaged(emprestimos, Emprestimo::getId, "Nenhum empréstimo cadastrado.", "\n--- Lista de empréstimos ---",
+                    emprestimo -> System.out.printf("ID: %s, Data do empréstimo: %s, Data da devolução: %s, Usuário: %s, Livro: %s\n",
+                            emprestimo.getId(), emprestimo.getDataEmprestimo(), emprestimo.getDataDevolucao(), emprestimo.getUsuario().getNome(), emprestimo.getLivro().getLivro().getTitulo()));
+        } catch (SQLException e) {
+            System.err.println("Erro de banco de dados ao visualizar livros: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Lista uma tabela página por página (paginação por chave), perguntando antes de buscar
+     * a próxima. Assim a listagem custa o mesmo com 10 ou com 1 milhão de registros.
+     */
+    private <T, K> void printPaged(Dao<T, K> dao, Function<T, K> keyOf, String emptyMessage, String header,
+                                   Consumer<T> printer) throws SQLException {
+        List<T> page = dao.readPage(null, PAGE_SIZE);
+        if (page.isEmpty()) {
+            System.out.println(emptyMessage);
+            return;
+        }
+        System.out.println(header);
+        while (true) {
+            page.forEach(printer);
+            if (page.size() < PAGE_SIZE) {
                 return;
             }
-            System.out.println("\n--- Lista de empréstimos ---");
-            for (Emprestimo emprestimo : emprestimos) {
-                System.out.printf("ID: %s, Data do empréstimo: %s, Data da devolução: %s, Usuário: %s, Livro: %s\n",
-                        emprestimo.getId(), emprestimo.getDataEmprestimo(), emprestimo.getDataDevolucao(), emprestimo.getUsuario().getNome(), emprestimo.getLivro().getLivro().getTitulo());
+            System.out.print("Mostrar mais? (S/N): ");
+            if (!scanner.nextLine().trim().equalsIgnoreCase("S")) {
+                return;
             }
-        } catch (SQLException e) {
-            System.err.println("Erro de banco de dados ao visualizar livros: " + e.getMessage());
+            page = dao.readPage(keyOf.apply(page.getLast()), PAGE_SIZE);
         }
     }
 
@@ -686,14 +738,37 @@ public class Menu {
             viewUsers();
             System.out.print("Usuário: ");
             int userId = scanner.nextInt();
-            Usuario user = usuarioDao.read(userId);
-            viewCopies();
-            System.out.print("ID do exemplar: ");
-            int exemplarId = scanner.nextInt();
-            Exemplar_livro exemplar = exemplarDao.read(exemplarId);
+            scanner.nextLine();
+            System.out.print("ISBN do livro (ou Enter para escolher o exemplar na lista): ");
+            String isbn = scanner.nextLine().trim();
+            int exemplarId;
+            if (isbn.isEmpty()) {
+                viewCopies();
+                System.out.print("ID do exemplar: ");
+                exemplarId = scanner.nextInt();
+            } else {
+                // Resposta do índice em memória, sem consultar o banco.
+                Integer livre = availability.firstAvailableCopy(isbn);
+                if (livre == null) {
+                    System.out.println("Nenhum exemplar disponível para o ISBN " + isbn + ".");
+                    return;
+                }
+                exemplarId = livre;
+                System.out.println("Exemplar " + exemplarId + " (" + availability.availableCount(isbn) + " disponível(is)).");
+            }
+            // As duas leituras são independentes: rodam ao mesmo tempo, cada uma com sua conexão.
+            CompletableFuture<Usuario> userFuture = usuarioDaoAsync.read(userId);
+            CompletableFuture<Exemplar_livro> exemplarFuture = exemplarDaoAsync.read(exemplarId);
+            Usuario user = AsyncDao.join(userFuture);
+            Exemplar_livro exemplar = AsyncDao.join(exemplarFuture);
+            if (user == null || exemplar == null) {
+                System.out.println(user == null ? "Usuário não encontrado!" : "Exemplar não encontrado!");
+                return;
+            }
             Emprestimo emprestimo = new Emprestimo(loanDate, user, exemplar);
-            if (emprestimoDao.create(emprestimo)) { // A chamada ao DAO agora funciona
-                System.out.println("Empréstimo cadastrado com sucesso!");
+            Integer idEmprestimo = emprestimos.create(emprestimo);
+            if (idEmprestimo != null) {
+                System.out.println("Empréstimo cadastrado com sucesso! ID: " + idEmprestimo);
             } else {
                 System.out.println("Falha ao cadastrar empréstimo.");
             }
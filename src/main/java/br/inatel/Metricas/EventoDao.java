@@ -0,0 +1,56 @@
+package br.inatel.Metricas;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento do Java Flight Recorder para cada método de DAO medido pelo InstrumentedDao.
+ * O InstrumentedDao só cria o evento quando ativo() diz que há uma gravação que o registra.
+ *
+ * Para gravar: java -XX:StartFlightRecording=filename=biblioteca.jfr ...; no JDK Mission
+ * Control os eventos aparecem em Biblioteca/DAO, na mesma linha do tempo do GC e das travas.
+ */
+@Name("br.inatel.Dao")
+@Label("Chamada de DAO")
+@Category({"Biblioteca", "DAO"})
+@Description("Uma chamada de create/read/readMany/readAll/readPage/delete/createAll/deleteAll.")
+public class EventoDao extends Event {
+    private static final EventType TIPO = EventType.getEventType(EventoDao.class);
+
+    @Label("Entidade")
+    String entidade;
+
+    @Label("Método")
+    String metodo;
+
+    @Label("Linhas")
+    @Description("Entidades lidas, gravadas ou excluídas.")
+    long linhas;
+
+    @Label("Sucesso")
+    boolean sucesso;
+
+    /**
+     * Há uma gravação em andamento com este evento habilitado?
+     */
+    public static boolean ativo() {
+        return TIPO.isEnabled();
+    }
+
+    /**
+     * Preenche e grava o evento, se a gravação estiver ligada e ele passar do limite configurado.
+     */
+    public void concluir(String entidade, String metodo, long linhas, boolean sucesso) {
+        if (shouldCommit()) {
+            this.entidade = entidade;
+            this.metodo = metodo;
+            this.linhas = linhas;
+            this.sucesso = sucesso;
+            commit();
+        }
+    }
+}
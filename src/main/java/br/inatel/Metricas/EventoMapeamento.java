@@ -0,0 +1,40 @@
+package br.inatel.Metricas;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento do Java Flight Recorder para cada processResultSet dos DAOs complexos: quantas
+ * linhas do JOIN viraram quantas entidades principais.
+ */
+@Name("br.inatel.Mapeamento")
+@Label("Mapeamento de ResultSet")
+@Category({"Biblioteca", "DAO"})
+@Description("Um processResultSet: linhas lidas e entidades principais montadas.")
+public class EventoMapeamento extends Event {
+    @Label("DAO")
+    Class<?> dao;
+
+    @Label("Linhas")
+    long linhas;
+
+    @Label("Entidades")
+    long entidades;
+
+    @Label("Streaming")
+    @Description("Entidades entregues uma a uma; a duração inclui o que quem as recebe gasta.")
+    boolean streaming;
+
+    public void concluir(Class<?> dao, long linhas, long entidades, boolean streaming) {
+        if (shouldCommit()) {
+            this.dao = dao;
+            this.linhas = linhas;
+            this.entidades = entidades;
+            this.streaming = streaming;
+            commit();
+        }
+    }
+}
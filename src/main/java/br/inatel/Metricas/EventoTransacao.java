@@ -0,0 +1,35 @@
+package br.inatel.Metricas;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Evento do Java Flight Recorder para cada inTransaction: começa no início da transação
+ * (ou do savepoint, se aninhada) e termina no commit ou rollback.
+ */
+@Name("br.inatel.Transacao")
+@Label("Transação")
+@Category({"Biblioteca", "Banco de dados"})
+@Description("Do início ao commit ou rollback de uma transação ou savepoint.")
+public class EventoTransacao extends Event {
+    public static final String COMMIT = "commit";
+    public static final String ROLLBACK = "rollback";
+
+    @Label("Aninhada")
+    @Description("Savepoint dentro de uma transação do TransactionManager.")
+    boolean aninhada;
+
+    @Label("Resultado")
+    String resultado;
+
+    public void concluir(boolean aninhada, String resultado) {
+        if (shouldCommit()) {
+            this.aninhada = aninhada;
+            this.resultado = resultado;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package br.inatel.Metricas;
+
+import java.io.IOException;
+
+/**
+ * Escreve as métricas do registro em algum formato/destino.
+ */
+@FunctionalInterface
+public interface Exportador {
+    void exportar(RegistroMetricas registro) throws IOException;
+}
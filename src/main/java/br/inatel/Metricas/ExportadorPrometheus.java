@@ -0,0 +1,85 @@
+package br.inatel.Metricas;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Formato texto do Prometheus. Cada operação vira um summary de latência (quantis 0.5,
+ * 0.99 e 0.999 em segundos, _sum e _count) e contadores de erros, consultas lentas
+ * e linhas, com o nome da operação no rótulo "operacao".
+ *
+ * Como arquivo, serve para o textfile collector do node_exporter: é gravado em um
+ * temporário e movido por cima do anterior, então o coletor nunca lê um arquivo pela metade.
+ * O servidor HTTP usa escrever() direto na resposta de /metricas.
+ */
+public class ExportadorPrometheus implements Exportador {
+    private static final double[] QUANTIS = {0.5, 0.99, 0.999};
+
+    private final Path arquivo;
+
+    public ExportadorPrometheus(Path arquivo) {
+        this.arquivo = arquivo;
+    }
+
+    @Override
+    public void exportar(RegistroMetricas registro) throws IOException {
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try (Writer out = Files.newBufferedWriter(temporario, StandardCharsets.UTF_8)) {
+            escrever(registro, out);
+        }
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static void escrever(RegistroMetricas registro, Writer out) throws IOException {
+        familia(out, "biblioteca_dao", "métodos de DAO", registro.getOperacoesDao());
+        familia(out, "biblioteca_sql", "comandos SQL", registro.getOperacoesSql());
+    }
+
+    private static void familia(Writer out, String prefixo, String descricao, List<Operacao> operacoes) throws IOException {
+        if (operacoes.isEmpty()) {
+            return;
+        }
+        String latencia = prefixo + "_latencia_segundos";
+        out.write("# HELP " + latencia + " Latência dos " + descricao + ".\n");
+        out.write("# TYPE " + latencia + " summary\n");
+        for (Operacao operacao : operacoes) {
+            String rotulo = rotulo(operacao);
+            Histograma histograma = operacao.getLatencia();
+            for (double q : QUANTIS) {
+                out.write(latencia + "{" + rotulo + ",quantile=\"" + q + "\"} " + segundos(histograma.quantil(q)) + "\n");
+            }
+            out.write(latencia + "_sum{" + rotulo + "} " + segundos(histograma.getSoma()) + "\n");
+            out.write(latencia + "_count{" + rotulo + "} " + histograma.getContagem() + "\n");
+        }
+        contador(out, prefixo + "_erros_total", "Chamadas com erro dos " + descricao + ".", operacoes, Operacao::getErros);
+        contador(out, prefixo + "_lentas_total", "Execuções acima do limite de consulta lenta.", operacoes, Operacao::getLentas);
+        contador(out, prefixo + "_linhas_total", "Linhas lidas ou afetadas.", operacoes, Operacao::getLinhas);
+    }
+
+    private interface Valor {
+        long de(Operacao operacao);
+    }
+
+    private static void contador(Writer out, String nome, String ajuda, List<Operacao> operacoes, Valor valor) throws IOException {
+        out.write("# HELP " + nome + " " + ajuda + "\n");
+        out.write("# TYPE " + nome + " counter\n");
+        for (Operacao operacao : operacoes) {
+            out.write(nome + "{" + rotulo(operacao) + "} " + valor.de(operacao) + "\n");
+        }
+    }
+
+    // Aspas, barras e quebras de linha precisam de escape no valor do rótulo.
+    private static String rotulo(Operacao operacao) {
+        String nome = operacao.getNome().replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+        return "operacao=\"" + nome + "\"";
+    }
+
+    private static double segundos(long nanos) {
+        return nanos / 1e9;
+    }
+}
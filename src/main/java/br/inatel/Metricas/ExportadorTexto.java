@@ -0,0 +1,42 @@
+package br.inatel.Metricas;
+
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Tabela legível com uma linha por operação: chamadas, erros, p50/p99/p999 e máximo em
+ * milissegundos e linhas lidas ou afetadas. Usada no encerramento do Menu.
+ */
+public class ExportadorTexto implements Exportador {
+    private final PrintStream saida;
+
+    public ExportadorTexto(PrintStream saida) {
+        this.saida = saida;
+    }
+
+    @Override
+    public void exportar(RegistroMetricas registro) {
+        tabela("Operações de DAO", registro.getOperacoesDao());
+        tabela("Comandos SQL", registro.getOperacoesSql());
+    }
+
+    private void tabela(String titulo, List<Operacao> operacoes) {
+        if (operacoes.isEmpty()) {
+            return;
+        }
+        saida.println("--- " + titulo + " ---");
+        saida.printf("%10s %6s %6s %9s %9s %9s %9s %10s  %s%n",
+                "chamadas", "erros", "lentas", "p50 ms", "p99 ms", "p999 ms", "máx ms", "linhas", "operação");
+        for (Operacao operacao : operacoes) {
+            Histograma latencia = operacao.getLatencia();
+            saida.printf("%10d %6d %6d %9.3f %9.3f %9.3f %9.3f %10d  %s%n",
+                    operacao.getChamadas(), operacao.getErros(), operacao.getLentas(),
+                    ms(latencia.quantil(0.5)), ms(latencia.quantil(0.99)), ms(latencia.quantil(0.999)),
+                    ms(latencia.getMaximo()), operacao.getLinhas(), operacao.getNome());
+        }
+    }
+
+    private static double ms(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
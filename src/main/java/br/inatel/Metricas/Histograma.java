@@ -0,0 +1,93 @@
+package br.inatel.Metricas;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de valores não negativos (latências em nanossegundos) com faixas log-lineares:
+ * cada potência de 2 é dividida em SUBFAIXAS partes iguais, então o erro relativo de um
+ * quantil é no máximo 1/SUBFAIXAS (12,5%) e a tabela tem tamanho fixo para qualquer valor.
+ *
+ * registrar() só faz incrementos atômicos em arrays alocados no construtor: não aloca,
+ * não trava e pode ser chamado por várias threads ao mesmo tempo. As leituras (quantil,
+ * contagem) não param as gravações, então podem ver um estado levemente defasado.
+ */
+public final class Histograma {
+    private static final int BITS_SUBFAIXA = 3;
+    private static final int SUBFAIXAS = 1 << BITS_SUBFAIXA;
+    // Valores menores que SUBFAIXAS têm faixa própria; depois, SUBFAIXAS faixas por expoente até 2^62.
+    private static final int FAIXAS = (64 - BITS_SUBFAIXA) * SUBFAIXAS;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(FAIXAS);
+    private final LongAdder contagem = new LongAdder();
+    private final LongAdder soma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    public void registrar(long valor) {
+        if (valor < 0) {
+            valor = 0;
+        }
+        contagens.incrementAndGet(faixa(valor));
+        contagem.increment();
+        soma.add(valor);
+        long atual;
+        while (valor > (atual = maximo.get()) && !maximo.compareAndSet(atual, valor)) {
+            // Outra thread gravou um máximo no meio: tenta de novo com o valor novo.
+        }
+    }
+
+    public long getContagem() {
+        return contagem.sum();
+    }
+
+    public long getSoma() {
+        return soma.sum();
+    }
+
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    /**
+     * O valor abaixo do qual estão 'q' (0 a 1) dos registros: o limite superior da faixa
+     * onde ele cai, nunca acima do máximo visto. 0 se não houver registros.
+     */
+    public long quantil(double q) {
+        long total = 0;
+        for (int i = 0; i < FAIXAS; i++) {
+            total += contagens.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long posicao = Math.max(1, (long) Math.ceil(q * total));
+        long acumulado = 0;
+        for (int i = 0; i < FAIXAS; i++) {
+            acumulado += contagens.get(i);
+            if (acumulado >= posicao) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    static int faixa(long valor) {
+        if (valor < SUBFAIXAS) {
+            return (int) valor;
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);
+        int sub = (int) (valor >>> (expoente - BITS_SUBFAIXA)) & (SUBFAIXAS - 1);
+        return (expoente - BITS_SUBFAIXA + 1) * SUBFAIXAS + sub;
+    }
+
+    static long limiteSuperior(int faixa) {
+        if (faixa < SUBFAIXAS) {
+            return faixa;
+        }
+        int expoente = faixa / SUBFAIXAS + BITS_SUBFAIXA - 1;
+        long largura = 1L << (expoente - BITS_SUBFAIXA);
+        long inicio = (1L << expoente) + (faixa % SUBFAIXAS) * largura;
+        return inicio + largura - 1;
+    }
+}
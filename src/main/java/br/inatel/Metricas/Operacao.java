@@ -0,0 +1,64 @@
+package br.inatel.Metricas;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de uma operação (um método de DAO ou um comando SQL): latência, chamadas com
+ * erro e linhas lidas ou afetadas. Quem grava guarda a referência da Operacao e chama
+ * registrar()/erro() direto, sem procurar pelo nome a cada chamada.
+ */
+public final class Operacao {
+    private final String nome;
+    private final Histograma latencia = new Histograma();
+    private final LongAdder erros = new LongAdder();
+    private final LongAdder linhas = new LongAdder();
+    private final LongAdder lentas = new LongAdder();
+
+    Operacao(String nome) {
+        this.nome = nome;
+    }
+
+    public void registrar(long nanos, long linhasLidas) {
+        latencia.registrar(nanos);
+        linhas.add(linhasLidas);
+    }
+
+    public void erro(long nanos) {
+        latencia.registrar(nanos);
+        erros.increment();
+    }
+
+    void contarLenta() {
+        lentas.increment();
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    /**
+     * Latências em nanossegundos, com e sem erro.
+     */
+    public Histograma getLatencia() {
+        return latencia;
+    }
+
+    public long getChamadas() {
+        return latencia.getContagem();
+    }
+
+    public long getErros() {
+        return erros.sum();
+    }
+
+    public long getLinhas() {
+        return linhas.sum();
+    }
+
+    /**
+     * Execuções acima do limite do log de consultas lentas.
+     */
+    public long getLentas() {
+        return lentas.sum();
+    }
+}
@@ -0,0 +1,121 @@
+package br.inatel.Metricas;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Onde ficam as métricas da aplicação: uma Operacao por método de DAO (InstrumentedDao,
+ * AbstractComplexDao) e uma por texto SQL (InstrumentedConnectionProvider), mais o log de
+ * consultas lentas.
+ *
+ * - Cada Operacao é criada na primeira vez que o nome aparece e vive até o fim do processo.
+ *   Procurar uma que já existe não aloca (a chave é a própria String do SQL).
+ * - Consultas que passam de 'limiteLenta' saem em 'saidaLentas' com o SQL e os parâmetros.
+ *   Só essas montam texto; as rápidas não custam nada além do registro no histograma.
+ * - Exportador escreve tudo em algum formato (texto, Prometheus).
+ */
+public class RegistroMetricas {
+    // Parâmetros de texto maiores que isso são cortados no log de consultas lentas.
+    private static final int MAXIMO_CARACTERES_PARAMETRO = 100;
+
+    private final ConcurrentHashMap<String, Operacao> operacoesDao = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Operacao> operacoesSql = new ConcurrentHashMap<>();
+    private final long limiteLentaNanos;
+    private final PrintStream saidaLentas;
+
+    /**
+     * @param limiteLenta Duração a partir da qual um comando SQL vai para o log de consultas lentas.
+     * @param saidaLentas Para onde vai o log (ex.: System.err).
+     */
+    public RegistroMetricas(Duration limiteLenta, PrintStream saidaLentas) {
+        this.limiteLentaNanos = limiteLenta.toNanos();
+        this.saidaLentas = saidaLentas;
+    }
+
+    public Operacao operacaoDao(String nome) {
+        return operacoesDao.computeIfAbsent(nome, Operacao::new);
+    }
+
+    /**
+     * A Operacao de um texto SQL. O nome exibido é o SQL com os espaços e quebras de linha
+     * colapsados (os text blocks dos DAOs ocupam várias linhas).
+     */
+    public Operacao operacaoSql(String sql) {
+        Operacao operacao = operacoesSql.get(sql);
+        if (operacao != null) {
+            return operacao;
+        }
+        return operacoesSql.computeIfAbsent(sql, s -> new Operacao(s.strip().replaceAll("\\s+", " ")));
+    }
+
+    /**
+     * Conta e registra no log a execução de 'sql' se ela passou do limite.
+     * @param parametros Valores dos '?' (índice 0 = primeiro parâmetro); só os 'quantidade' primeiros valem.
+     * @param lote Quantidade de itens do executeBatch (0 para uma execução simples).
+     */
+    public void verificarLenta(Operacao operacao, String sql, Object[] parametros, int quantidade, int lote, long nanos) {
+        if (nanos < limiteLentaNanos) {
+            return;
+        }
+        operacao.contarLenta();
+        StringBuilder linha = new StringBuilder(256)
+                .append("[consulta lenta] ").append(LocalDateTime.now())
+                .append(String.format(" %.1f ms ", nanos / 1_000_000.0))
+                .append(sql == null ? operacao.getNome() : sql.strip().replaceAll("\\s+", " "));
+        if (lote > 0) {
+            linha.append(" | lote de ").append(lote).append(" (parâmetros do último)");
+        }
+        if (quantidade > 0) {
+            linha.append(" | parâmetros: [");
+            for (int i = 0; i < quantidade; i++) {
+                if (i > 0) {
+                    linha.append(", ");
+                }
+                linha.append(formatar(parametros[i]));
+            }
+            linha.append(']');
+        }
+        saidaLentas.println(linha);
+    }
+
+    private static String formatar(Object valor) {
+        if (valor == null) {
+            return "null";
+        }
+        if (valor instanceof byte[] bytes) {
+            return "<" + bytes.length + " bytes>";
+        }
+        if (valor instanceof String texto) {
+            if (texto.length() > MAXIMO_CARACTERES_PARAMETRO) {
+                texto = texto.substring(0, MAXIMO_CARACTERES_PARAMETRO) + "...";
+            }
+            return "'" + texto + "'";
+        }
+        return valor.toString();
+    }
+
+    /**
+     * Operações de DAO, em ordem de nome.
+     */
+    public List<Operacao> getOperacoesDao() {
+        return ordenadas(operacoesDao);
+    }
+
+    /**
+     * Operações por texto SQL, em ordem de nome.
+     */
+    public List<Operacao> getOperacoesSql() {
+        return ordenadas(operacoesSql);
+    }
+
+    private static List<Operacao> ordenadas(ConcurrentHashMap<String, Operacao> operacoes) {
+        List<Operacao> lista = new ArrayList<>(operacoes.values());
+        lista.sort(Comparator.comparing(Operacao::getNome));
+        return lista;
+    }
+}
@@ -0,0 +1,145 @@
+package br.inatel.Migracao;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Uma versão do esquema: os passos que levam o banco da versão anterior para esta.
+ * Depois de aplicada, a versão fica registrada em schema_versao e não roda de novo.
+ *
+ * Os passos devem poder rodar mais de uma vez sem erro (CREATE TABLE IF NOT EXISTS, indice(...)):
+ * no MySQL cada DDL confirma a transação sozinho, então uma migração interrompida no meio é
+ * simplesmente aplicada de novo, do começo, na próxima execução.
+ *
+ * @param versao    Número da versão; as migrações rodam em ordem crescente.
+ * @param descricao Texto curto gravado junto com a versão.
+ */
+public record Migracao(int versao, String descricao, List<Passo> passos) {
+
+    /**
+     * Um comando da migração, executado na conexão dela.
+     */
+    @FunctionalInterface
+    public interface Passo {
+        void aplicar(Connection conn) throws SQLException;
+    }
+
+    public Migracao {
+        passos = List.copyOf(passos);
+    }
+
+    public Migracao(int versao, String descricao, Passo... passos) {
+        this(versao, descricao, List.of(passos));
+    }
+
+    /**
+     * Executa um comando SQL (DDL) como está.
+     */
+    public static Passo sql(String comando) {
+        return conn -> {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute(comando);
+            }
+        };
+    }
+
+    /**
+     * Cria o índice 'nome' em 'tabela' (colunas), a não ser que a tabela já tenha um índice
+     * que comece por essas colunas: ele já serve para as mesmas buscas (ex.: a chave primária
+     * (livro_ISBN, autor_idAutor) já cobre livro_ISBN). Um índice com o mesmo nome e outras
+     * colunas também é mantido, com um aviso: trocá-lo é assunto de outra migração.
+     */
+    public static Passo indice(String nome, String tabela, String... colunas) {
+        List<String> pedidas = new ArrayList<>();
+        for (String coluna : colunas) {
+            pedidas.add(coluna.toLowerCase(Locale.ROOT));
+        }
+        return conn -> {
+            Map<String, Indice> existentes = indices(conn, tabela);
+            Indice mesmoNome = existentes.get(nome.toLowerCase(Locale.ROOT));
+            if (mesmoNome != null) {
+                if (!mesmoNome.colunas().equals(pedidas)) {
+                    System.err.println("Índice " + nome + " já existe em " + tabela + " com as colunas " + mesmoNome.colunas()
+                            + " (esperado " + pedidas + "); mantido como está.");
+                }
+                return;
+            }
+            for (Indice existente : existentes.values()) {
+                List<String> colunasExistentes = existente.colunas();
+                if (colunasExistentes.size() >= pedidas.size() && colunasExistentes.subList(0, pedidas.size()).equals(pedidas)) {
+                    return;
+                }
+            }
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE INDEX " + nome + " ON " + tabela + " (" + String.join(", ", colunas) + ")");
+            }
+        };
+    }
+
+    /**
+     * Cria o índice único 'nome' em 'tabela' (colunas), a não ser que a tabela já tenha um índice
+     * único com exatamente essas colunas. Os índices comuns com as mesmas colunas ficam
+     * redundantes e são removidos. Linhas repetidas impedem a criação: trate-as num passo anterior.
+     */
+    public static Passo indiceUnico(String nome, String tabela, String... colunas) {
+        List<String> pedidas = new ArrayList<>();
+        for (String coluna : colunas) {
+            pedidas.add(coluna.toLowerCase(Locale.ROOT));
+        }
+        return conn -> {
+            Map<String, Indice> existentes = indices(conn, tabela);
+            boolean existe = false;
+            for (Indice existente : existentes.values()) {
+                existe |= existente.unico() && existente.colunas().equals(pedidas);
+            }
+            try (Statement stmt = conn.createStatement()) {
+                if (!existe) {
+                    stmt.execute("CREATE UNIQUE INDEX " + nome + " ON " + tabela + " (" + String.join(", ", colunas) + ")");
+                }
+                for (Map.Entry<String, Indice> existente : existentes.entrySet()) {
+                    if (!existente.getValue().unico() && existente.getValue().colunas().equals(pedidas)) {
+                        stmt.execute("DROP INDEX " + existente.getKey() + " ON " + tabela);
+                    }
+                }
+            }
+        };
+    }
+
+    // Um índice existente: colunas em ordem (minúsculas) e se ele é único.
+    private record Indice(List<String> colunas, boolean unico) {
+    }
+
+    // Índices da tabela (nome em minúsculas -> índice), incluindo a chave primária.
+    private static Map<String, Indice> indices(Connection conn, String tabela) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        // O H2 guarda os nomes em maiúsculas; o MySQL, como foram escritos.
+        String nomeTabela = meta.storesUpperCaseIdentifiers() ? tabela.toUpperCase(Locale.ROOT) : tabela;
+        Map<String, Indice> indices = new LinkedHashMap<>();
+        try (ResultSet rs = meta.getIndexInfo(conn.getCatalog(), conn.getSchema(), nomeTabela, false, true)) {
+            while (rs.next()) {
+                String indice = rs.getString("INDEX_NAME");
+                String coluna = rs.getString("COLUMN_NAME");
+                if (indice == null || coluna == null) {
+                    continue; // linha de estatística da tabela, sem índice
+                }
+                boolean unico = !rs.getBoolean("NON_UNIQUE");
+                List<String> colunas = indices.computeIfAbsent(indice.toLowerCase(Locale.ROOT),
+                        i -> new Indice(new ArrayList<>(), unico)).colunas();
+                int posicao = rs.getShort("ORDINAL_POSITION") - 1;
+                while (colunas.size() <= posicao) {
+                    colunas.add(null);
+                }
+                colunas.set(posicao, coluna.toLowerCase(Locale.ROOT));
+            }
+        }
+        return indices;
+    }
+}
@@ -0,0 +1,113 @@
+package br.inatel.Migracao;
+
+import java.util.List;
+
+import static br.inatel.Migracao.Migracao.indice;
+import static br.inatel.Migracao.Migracao.indiceUnico;
+import static br.inatel.Migracao.Migracao.sql;
+
+/**
+ * Todas as versões do esquema 'biblioteca', em ordem. Uma mudança no esquema é uma migração
+ * nova no fim da lista; as que já existem não mudam, porque já rodaram em algum banco.
+ *
+ * O SQL roda no MySQL e no H2 em modo MySQL (benchmarks).
+ */
+public final class Migracoes {
+
+    private Migracoes() {
+    }
+
+    public static List<Migracao> todas() {
+        return List.of(
+                new Migracao(1, "Tabelas do acervo, usuários, empréstimos e multas",
+                        sql("""
+                                CREATE TABLE IF NOT EXISTS categoria (
+                                    idCategoria INT AUTO_INCREMENT PRIMARY KEY,
+                                    nomeCategoria VARCHAR(100) NOT NULL
+                                )"""),
+                        sql("""
+                                CREATE TABLE IF NOT EXISTS autor (
+                                    id INT AUTO_INCREMENT PRIMARY KEY,
+                                    nome VARCHAR(150) NOT NULL,
+                                    paisOrigem VARCHAR(100)
+                                )"""),
+                        sql("""
+                                CREATE TABLE IF NOT EXISTS usuario (
+                                    idUsuario INT AUTO_INCREMENT PRIMARY KEY,
+                                    nome VARCHAR(150) NOT NULL,
+                                    email VARCHAR(150),
+                                    telefone VARCHAR(30),
+                                    tipo VARCHAR(30)
+                                )"""),
+                        sql("""
+                                CREATE TABLE IF NOT EXISTS livro (
+                                    isbn VARCHAR(20) PRIMARY KEY,
+                                    titulo VARCHAR(255) NOT NULL,
+                                    anoPublicacao INT,
+                                    categoria_idCategoria INT NOT NULL
+                                )"""),
+                        sql("""
+                                CREATE TABLE IF NOT EXISTS livro_has_autor (
+                                    livro_ISBN VARCHAR(20) NOT NULL,
+                                    autor_idAutor INT NOT NULL,
+                                    PRIMARY KEY (livro_ISBN, autor_idAutor)
+                                )"""),
+                        sql("""
+                                CREATE TABLE IF NOT EXISTS exemplar_livro (
+                                    id_livro INT AUTO_INCREMENT PRIMARY KEY,
+                                    isbn_livro VARCHAR(20) NOT NULL,
+                                    status BOOLEAN NOT NULL DEFAULT FALSE
+                                )"""),
+                        sql("""
+                                CREATE TABLE IF NOT EXISTS emprestimo (
+                                    idEmprestimo INT AUTO_INCREMENT PRIMARY KEY,
+                                    dataEmprestimo DATE NOT NULL,
+                                    dataDevolucao DATE,
+                                    usuario_idUsuario INT NOT NULL,
+                                    livro_id INT NOT NULL
+                                )"""),
+                        sql("""
+                                CREATE TABLE IF NOT EXISTS multa (
+                                    idMulta INT AUTO_INCREMENT PRIMARY KEY,
+                                    multa DOUBLE NOT NULL,
+                                    juros DOUBLE NOT NULL,
+                                    emprestimo_idEmprestimo INT NOT NULL
+                                )""")),
+
+                // Buscas pelas colunas de ligação: empréstimos de um usuário ou de um exemplar,
+                // exemplares (livres) de um ISBN, autores de um livro, multa de um empréstimo
+                // (MultaDao.upsertAll), e o ORDER BY dataEmprestimo das listagens de empréstimos.
+                new Migracao(2, "Índices das consultas dos DAOs",
+                        indice("idx_emprestimo_usuario", "emprestimo", "usuario_idUsuario"),
+                        indice("idx_emprestimo_exemplar", "emprestimo", "livro_id"),
+                        indice("idx_emprestimo_data", "emprestimo", "dataEmprestimo"),
+                        indice("idx_exemplar_isbn_status", "exemplar_livro", "isbn_livro", "status"),
+                        indice("idx_livro_autor_livro", "livro_has_autor", "livro_ISBN"),
+                        indice("idx_multa_emprestimo", "multa", "emprestimo_idEmprestimo")),
+
+                // GeradorMultas: empréstimos abertos em ordem de chave e o progresso da tarefa.
+                new Migracao(3, "Empréstimos abertos e checkpoint das tarefas em lote",
+                        indice("idx_emprestimo_abertos", "emprestimo", "dataDevolucao", "idEmprestimo"),
+                        sql("""
+                                CREATE TABLE IF NOT EXISTS tarefa_checkpoint (
+                                    tarefa VARCHAR(50) PRIMARY KEY,
+                                    dataReferencia DATE NOT NULL,
+                                    ultimaChave INT NOT NULL,
+                                    concluida BOOLEAN NOT NULL
+                                )""")),
+
+                // Uma multa por empréstimo, garantida pelo banco: MultaDao.upsertAll grava com
+                // INSERT ... ON DUPLICATE KEY UPDATE. Multas repetidas (de gravações simultâneas
+                // antes desta versão) são descartadas antes, ficando a mais antiga de cada empréstimo.
+                // A tabela derivada evita o erro 1093 do MySQL (DELETE lendo a própria tabela).
+                new Migracao(4, "Multa única por empréstimo",
+                        sql("""
+                                DELETE FROM multa WHERE idMulta NOT IN (
+                                    SELECT idMulta FROM (
+                                        SELECT MIN(idMulta) AS idMulta FROM multa GROUP BY emprestimo_idEmprestimo
+                                    ) AS manter
+                                )"""),
+                        indiceUnico("uq_multa_emprestimo", "multa", "emprestimo_idEmprestimo"))
+        );
+    }
+}
@@ -0,0 +1,154 @@
+package br.inatel.Migracao;
+
+import br.inatel.Database.ConnectionPool;
+import br.inatel.Database.DatabaseFactory;
+import br.inatel.Interfaces.ConnectionProvider;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Cria e atualiza o esquema do banco aplicando as Migracao que ainda não rodaram.
+ *
+ * - As versões aplicadas ficam na tabela schema_versao (criada aqui se não existir).
+ * - Cada migração pendente roda em ordem de versão, com os passos e o registro da versão
+ *   na mesma transação. No MySQL o DDL confirma sozinho, então o que garante uma execução
+ *   interrompida é os passos poderem rodar de novo (ver Migracao).
+ * - Dois processos migrando ao mesmo tempo: o segundo falha no INSERT da versão (chave
+ *   primária) depois de repetir passos que já não fazem nada; basta rodar de novo.
+ *
+ * Uso: java br.inatel.Migracao.MigradorEsquema [--so-verificar]
+ *   aplica as migrações pendentes e depois confere os planos das consultas dos DAOs
+ *   (VerificadorPlanos); sai com código 1 se alguma varrer uma tabela grande.
+ */
+public class MigradorEsquema {
+    private final ConnectionProvider connectionProvider;
+    private final List<Migracao> migracoes;
+
+    public MigradorEsquema(ConnectionProvider connectionProvider, List<Migracao> migracoes) {
+        List<Migracao> ordenadas = new ArrayList<>(migracoes);
+        ordenadas.sort(Comparator.comparingInt(Migracao::versao));
+        for (int i = 1; i < ordenadas.size(); i++) {
+            if (ordenadas.get(i).versao() == ordenadas.get(i - 1).versao()) {
+                throw new IllegalArgumentException("Versão de migração repetida: " + ordenadas.get(i).versao());
+            }
+        }
+        this.connectionProvider = connectionProvider;
+        this.migracoes = List.copyOf(ordenadas);
+    }
+
+    public static void main(String[] args) {
+        boolean soVerificar = args.length == 1 && args[0].equals("--so-verificar");
+        if (args.length > 1 || (args.length == 1 && !soVerificar)) {
+            System.err.println("Uso: MigradorEsquema [--so-verificar]");
+            System.exit(2);
+        }
+        ConnectionPool pool = null;
+        int status = 0;
+        try {
+            pool = DatabaseFactory.getPool();
+            if (!soVerificar) {
+                int aplicadas = new MigradorEsquema(pool, Migracoes.todas()).migrar();
+                System.out.println(aplicadas == 0 ? "Esquema já está atualizado." : aplicadas + " migração(ões) aplicada(s).");
+            }
+            List<VerificadorPlanos.Problema> problemas =
+                    new VerificadorPlanos(pool).verificar(VerificadorPlanos.consultasDosDaos());
+            if (problemas.isEmpty()) {
+                System.out.println("Nenhuma consulta dos DAOs varre uma tabela grande.");
+            } else {
+                System.err.println(problemas.size() + " consulta(s) varrem tabelas grandes:");
+                problemas.forEach(System.err::println);
+                status = 1;
+            }
+        } catch (SQLException e) {
+            System.err.println("Migração interrompida: " + e.getMessage());
+            e.printStackTrace();
+            status = 1;
+        } finally {
+            if (pool != null) {
+                pool.close();
+            }
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Aplica as migrações pendentes, em ordem.
+     * @return Quantidade de migrações aplicadas agora.
+     */
+    public int migrar() throws SQLException {
+        criarTabelaVersoes();
+        Set<Integer> aplicadas = versoesAplicadas();
+        int ultimaConhecida = migracoes.isEmpty() ? 0 : migracoes.getLast().versao();
+        for (int versao : aplicadas) {
+            if (versao > ultimaConhecida) {
+                System.err.println("O banco tem a versão " + versao + " do esquema, mais nova que esta aplicação ("
+                        + ultimaConhecida + ").");
+            }
+        }
+        int quantidade = 0;
+        for (Migracao migracao : migracoes) {
+            if (aplicadas.contains(migracao.versao())) {
+                continue;
+            }
+            aplicar(migracao);
+            System.out.println("Migração " + migracao.versao() + " aplicada: " + migracao.descricao());
+            quantidade++;
+        }
+        return quantidade;
+    }
+
+    /**
+     * Versões já registradas em schema_versao.
+     */
+    public Set<Integer> versoesAplicadas() throws SQLException {
+        Set<Integer> versoes = new HashSet<>();
+        try (Connection conn = connectionProvider.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT versao FROM schema_versao")) {
+            while (rs.next()) {
+                versoes.add(rs.getInt(1));
+            }
+        }
+        return versoes;
+    }
+
+    private void criarTabelaVersoes() throws SQLException {
+        String sql = """
+                CREATE TABLE IF NOT EXISTS schema_versao (
+                    versao INT PRIMARY KEY,
+                    descricao VARCHAR(200) NOT NULL,
+                    aplicadaEm TIMESTAMP NOT NULL
+                )""";
+        try (Connection conn = connectionProvider.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    private void aplicar(Migracao migracao) throws SQLException {
+        String sql = "INSERT INTO schema_versao (versao, descricao, aplicadaEm) VALUES (?, ?, ?)";
+        connectionProvider.inTransaction(conn -> {
+            for (Migracao.Passo passo : migracao.passos()) {
+                passo.aplicar(conn);
+            }
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+                stmt.setInt(1, migracao.versao());
+                stmt.setString(2, migracao.descricao());
+                stmt.setTimestamp(3, Timestamp.valueOf(LocalDateTime.now()));
+                stmt.executeUpdate();
+            }
+            return null;
+        });
+    }
+}
@@ -0,0 +1,182 @@
+package br.inatel.Migracao;
+
+import br.inatel.DAO.EmprestimoDao;
+import br.inatel.DAO.ExemplarDao;
+import br.inatel.DAO.IndexedQuery;
+import br.inatel.DAO.LivroDao;
+import br.inatel.DAO.MultaDao;
+import br.inatel.Interfaces.ConnectionProvider;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Roda EXPLAIN nas consultas seletivas dos DAOs (IndexedQuery) e acusa as que leem uma
+ * tabela grande inteira, o sinal de que falta um índice ou de que o banco não o está usando.
+ *
+ * - MySQL/MariaDB: uma linha do plano com type ALL (tabela inteira) ou index (índice inteiro)
+ *   em uma tabela estimada em 'limiteLinhas' linhas ou mais.
+ * - H2 (benchmarks): um tableScan no plano de uma tabela com 'limiteLinhas' linhas ou mais.
+ *
+ * "Grande" é medido no próprio banco: num banco quase vazio o otimizador pode preferir varrer
+ * e nada é acusado. Para a verificação valer, rode contra uma base com volume real.
+ */
+public class VerificadorPlanos {
+    public static final long LIMITE_LINHAS_PADRAO = 1_000;
+
+    // FROM/JOIN tabela [AS] apelido; o apelido é opcional e não pode ser uma palavra-chave.
+    private static final Pattern TABELA = Pattern.compile(
+            "\\b(?:FROM|JOIN|UPDATE)\\s+(\\w+)(?:\\s+(?:AS\\s+)?(?!(?:WHERE|ON|JOIN|LEFT|INNER|ORDER|GROUP|LIMIT|SET)\\b)(\\w+))?",
+            Pattern.CASE_INSENSITIVE);
+    // H2: "/* PUBLIC.LIVRO.tableScan */"
+    private static final Pattern VARREDURA_H2 = Pattern.compile("(\\w+)\\.(\\w+)\\.tableScan");
+    private static final Set<String> VARREDURAS_MYSQL = Set.of("ALL", "index");
+
+    private final ConnectionProvider connectionProvider;
+    private final long limiteLinhas;
+
+    /**
+     * Uma consulta que varre uma tabela grande.
+     * @param linhas Linhas estimadas (MySQL) ou contadas (H2) na tabela varrida.
+     */
+    public record Problema(String consulta, String tabela, long linhas, String sql) {
+        @Override
+        public String toString() {
+            return consulta + ": lê a tabela " + tabela + " inteira (~" + linhas + " linhas)\n    "
+                    + sql.strip().replaceAll("\\s+", " ");
+        }
+    }
+
+    public VerificadorPlanos(ConnectionProvider connectionProvider) {
+        this(connectionProvider, LIMITE_LINHAS_PADRAO);
+    }
+
+    public VerificadorPlanos(ConnectionProvider connectionProvider, long limiteLinhas) {
+        this.connectionProvider = connectionProvider;
+        this.limiteLinhas = limiteLinhas;
+    }
+
+    /**
+     * As consultas seletivas de todos os DAOs complexos.
+     */
+    public static List<IndexedQuery> consultasDosDaos() {
+        List<IndexedQuery> consultas = new ArrayList<>();
+        consultas.addAll(LivroDao.indexedQueries());
+        consultas.addAll(ExemplarDao.indexedQueries());
+        consultas.addAll(EmprestimoDao.indexedQueries());
+        consultas.addAll(MultaDao.indexedQueries());
+        return consultas;
+    }
+
+    /**
+     * @return As varreduras encontradas; vazia se todas as consultas usam índices nas tabelas grandes.
+     */
+    public List<Problema> verificar(List<IndexedQuery> consultas) throws SQLException {
+        List<Problema> problemas = new ArrayList<>();
+        try (Connection conn = connectionProvider.getConnection()) {
+            String produto = conn.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT);
+            boolean h2 = produto.contains("h2");
+            if (!h2 && !produto.contains("mysql") && !produto.contains("mariadb")) {
+                throw new SQLFeatureNotSupportedException("Verificação de planos não suportada em " + produto);
+            }
+            Map<String, Long> linhasH2 = new HashMap<>();
+            for (IndexedQuery consulta : consultas) {
+                if (h2) {
+                    verificarH2(conn, consulta, linhasH2, problemas);
+                } else {
+                    verificarMySql(conn, consulta, problemas);
+                }
+            }
+        }
+        return problemas;
+    }
+
+    private void verificarMySql(Connection conn, IndexedQuery consulta, List<Problema> problemas) throws SQLException {
+        Map<String, String> tabelas = tabelasPorApelido(consulta.sql());
+        try (PreparedStatement stmt = explain(conn, consulta);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                String apelido = rs.getString("table");
+                String tipo = rs.getString("type");
+                long linhas = rs.getLong("rows");
+                // <derived2>, <subquery3>...: tabelas temporárias do próprio plano, do tamanho do LIMIT.
+                if (apelido == null || apelido.startsWith("<") || !VARREDURAS_MYSQL.contains(tipo)) {
+                    continue;
+                }
+                if (linhas >= limiteLinhas) {
+                    String tabela = tabelas.getOrDefault(apelido.toLowerCase(Locale.ROOT), apelido);
+                    problemas.add(new Problema(consulta.nome(), tabela, linhas, consulta.sql()));
+                }
+            }
+        }
+    }
+
+    private void verificarH2(Connection conn, IndexedQuery consulta, Map<String, Long> linhasPorTabela,
+                             List<Problema> problemas) throws SQLException {
+        StringBuilder plano = new StringBuilder();
+        try (PreparedStatement stmt = explain(conn, consulta);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                plano.append(rs.getString(1)).append('\n');
+            }
+        }
+        Matcher varredura = VARREDURA_H2.matcher(plano);
+        while (varredura.find()) {
+            String esquema = varredura.group(1);
+            String tabela = varredura.group(2);
+            Long linhas = linhasPorTabela.get(tabela);
+            if (linhas == null) {
+                // Nomes vindos do plano: só letras, dígitos e '_' (\w), seguros para concatenar.
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + esquema + "." + tabela)) {
+                    rs.next();
+                    linhas = rs.getLong(1);
+                }
+                linhasPorTabela.put(tabela, linhas);
+            }
+            if (linhas >= limiteLinhas) {
+                problemas.add(new Problema(consulta.nome(), tabela.toLowerCase(Locale.ROOT), linhas, consulta.sql()));
+            }
+        }
+    }
+
+    private static PreparedStatement explain(Connection conn, IndexedQuery consulta) throws SQLException {
+        PreparedStatement stmt = conn.prepareStatement("EXPLAIN " + consulta.sql());
+        try {
+            List<Object> parametros = consulta.parametros();
+            for (int i = 0; i < parametros.size(); i++) {
+                stmt.setObject(i + 1, parametros.get(i));
+            }
+            return stmt;
+        } catch (SQLException | RuntimeException e) {
+            stmt.close();
+            throw e;
+        }
+    }
+
+    // O EXPLAIN do MySQL mostra o apelido (l, em, ex...); o problema é reportado pelo nome da tabela.
+    static Map<String, String> tabelasPorApelido(String sql) {
+        Map<String, String> tabelas = new HashMap<>();
+        Matcher m = TABELA.matcher(sql);
+        while (m.find()) {
+            String tabela = m.group(1).toLowerCase(Locale.ROOT);
+            tabelas.put(tabela, tabela);
+            if (m.group(2) != null) {
+                tabelas.put(m.group(2).toLowerCase(Locale.ROOT), tabela);
+            }
+        }
+        return tabelas;
+    }
+}
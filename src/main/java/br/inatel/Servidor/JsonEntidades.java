@@ -0,0 +1,111 @@
+package br.inatel.Servidor;
+
+import br.inatel.Biblioteca.*;
+
+import java.io.IOException;
+
+/**
+ * Representação JSON de cada entidade.
+ *
+ * Livros que vêm aninhados em empréstimos e multas são simplificados pelos DAOs (só ISBN
+ * e título), então aqui também só esses campos são escritos para eles.
+ */
+final class JsonEntidades {
+
+    private JsonEntidades() {
+    }
+
+    static void escrever(JsonWriter json, Livro livro) throws IOException {
+        json.beginObject()
+                .name("isbn").value(livro.getIsbn())
+                .name("titulo").value(livro.getTitulo())
+                .name("anoPublicacao").value(livro.getAnoPublicacao())
+                .name("quantidadeExemplares").value(livro.getQuantidadeExemplares());
+        json.name("categoria");
+        escrever(json, livro.getCategoria());
+        json.name("autores").beginArray();
+        for (Autor autor : livro.getAutores()) {
+            escrever(json, autor);
+        }
+        json.endArray().endObject();
+    }
+
+    static void escrever(JsonWriter json, Categoria categoria) throws IOException {
+        if (categoria == null) {
+            json.nullValue();
+            return;
+        }
+        json.beginObject()
+                .name("id").value(categoria.getId())
+                .name("nome").value(categoria.getNome())
+                .endObject();
+    }
+
+    static void escrever(JsonWriter json, Autor autor) throws IOException {
+        json.beginObject()
+                .name("id").value(autor.getId())
+                .name("nome").value(autor.getNome())
+                .name("nacionalidade").value(autor.getNacionalidade())
+                .endObject();
+    }
+
+    static void escrever(JsonWriter json, Usuario usuario) throws IOException {
+        json.beginObject()
+                .name("id").value(usuario.getId())
+                .name("nome").value(usuario.getNome())
+                .name("email").value(usuario.getEmail())
+                .name("telefone").value(usuario.getTelefone())
+                .name("tipo").value(usuario.getTipo())
+                .endObject();
+    }
+
+    /**
+     * Exemplar com o livro completo (sem os autores), como lido pelo ExemplarDao.
+     */
+    static void escrever(JsonWriter json, Exemplar_livro exemplar) throws IOException {
+        Livro livro = exemplar.getLivro();
+        json.beginObject()
+                .name("id").value(exemplar.getId())
+                .name("emprestado").value(exemplar.isStatus())
+                .name("livro").beginObject()
+                .name("isbn").value(livro.getIsbn())
+                .name("titulo").value(livro.getTitulo())
+                .name("anoPublicacao").value(livro.getAnoPublicacao());
+        json.name("categoria");
+        escrever(json, livro.getCategoria());
+        json.endObject().endObject();
+    }
+
+    static void escrever(JsonWriter json, Emprestimo emprestimo) throws IOException {
+        json.beginObject()
+                .name("id").value(emprestimo.getId())
+                .name("dataEmprestimo").value(emprestimo.getDataEmprestimo())
+                .name("dataDevolucao").value(emprestimo.getDataDevolucao());
+        json.name("usuario");
+        escrever(json, emprestimo.getUsuario());
+        json.name("exemplar");
+        escreverExemplarResumido(json, emprestimo.getLivro());
+        json.endObject();
+    }
+
+    static void escrever(JsonWriter json, Multa multa) throws IOException {
+        json.beginObject()
+                .name("id").value(multa.getId())
+                .name("multa").value(multa.getMulta())
+                .name("juros").value(multa.getJuros());
+        json.name("emprestimo");
+        escrever(json, multa.getEmprestimo());
+        json.endObject();
+    }
+
+    private static void escreverExemplarResumido(JsonWriter json, Exemplar_livro exemplar) throws IOException {
+        json.beginObject()
+                .name("id").value(exemplar.getId())
+                .name("emprestado").value(exemplar.isStatus())
+                .name("livro").beginObject()
+                .name("isbn").value(exemplar.getLivro().getIsbn())
+                .name("titulo").value(exemplar.getLivro().getTitulo())
+                .endObject()
+                .endObject();
+    }
+}
@@ -0,0 +1,161 @@
+package br.inatel.Servidor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Escritor de JSON em fluxo: cada valor vai direto para o Writer, sem montar a
+ * resposta inteira em memória. Listas grandes saem item a item enquanto o banco ainda
+ * está entregando as linhas.
+ *
+ * Uso:
+ * <pre>
+ *   json.beginObject().name("id").value(1).name("nome").value("Ana").endObject();
+ * </pre>
+ *
+ * Não valida a estrutura (nome fora de objeto, chaves desbalanceadas): quem chama é
+ * responsável por abrir e fechar na ordem certa.
+ */
+final class JsonWriter {
+    private final Writer out;
+    // temItens[n]: o objeto/array aberto no nível n já recebeu algum item (precisa de vírgula).
+    private boolean[] temItens = new boolean[16];
+    private int nivel;
+    // Acabou de escrever "nome": o próximo valor não leva vírgula.
+    private boolean depoisDoNome;
+
+    JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    JsonWriter beginObject() throws IOException {
+        return abrir('{');
+    }
+
+    JsonWriter endObject() throws IOException {
+        return fechar('}');
+    }
+
+    JsonWriter beginArray() throws IOException {
+        return abrir('[');
+    }
+
+    JsonWriter endArray() throws IOException {
+        return fechar(']');
+    }
+
+    JsonWriter name(String nome) throws IOException {
+        separar();
+        texto(nome);
+        out.write(':');
+        depoisDoNome = true;
+        return this;
+    }
+
+    JsonWriter value(String valor) throws IOException {
+        if (valor == null) {
+            return nullValue();
+        }
+        separar();
+        texto(valor);
+        return this;
+    }
+
+    JsonWriter value(long valor) throws IOException {
+        separar();
+        out.write(Long.toString(valor));
+        return this;
+    }
+
+    JsonWriter value(double valor) throws IOException {
+        if (Double.isNaN(valor) || Double.isInfinite(valor)) {
+            return nullValue();
+        }
+        separar();
+        out.write(Double.toString(valor));
+        return this;
+    }
+
+    JsonWriter value(boolean valor) throws IOException {
+        separar();
+        out.write(valor ? "true" : "false");
+        return this;
+    }
+
+    /**
+     * Números saem como número JSON; qualquer outro valor (datas, por exemplo) como texto; null como null.
+     */
+    JsonWriter value(Object valor) throws IOException {
+        if (valor instanceof Double || valor instanceof Float) {
+            return value(((Number) valor).doubleValue());
+        }
+        if (valor instanceof Number numero) {
+            separar();
+            out.write(numero.toString());
+            return this;
+        }
+        return valor == null ? nullValue() : value(valor.toString());
+    }
+
+    JsonWriter nullValue() throws IOException {
+        separar();
+        out.write("null");
+        return this;
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    private JsonWriter abrir(char c) throws IOException {
+        separar();
+        out.write(c);
+        if (++nivel == temItens.length) {
+            temItens = Arrays.copyOf(temItens, nivel * 2);
+        }
+        temItens[nivel] = false;
+        return this;
+    }
+
+    private JsonWriter fechar(char c) throws IOException {
+        out.write(c);
+        nivel--;
+        return this;
+    }
+
+    // Vírgula antes de todo item que não seja o primeiro do objeto/array atual.
+    private void separar() throws IOException {
+        if (depoisDoNome) {
+            depoisDoNome = false;
+            return;
+        }
+        if (temItens[nivel]) {
+            out.write(',');
+        }
+        temItens[nivel] = true;
+    }
+
+    private void texto(String s) throws IOException {
+        out.write('"');
+        int inicio = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            String escape = switch (c) {
+                case '"' -> "\\\"";
+                case '\\' -> "\\\\";
+                case '\n' -> "\\n";
+                case '\r' -> "\\r";
+                case '\t' -> "\\t";
+                default -> c < 0x20 ? String.format("\\u%04x", (int) c) : null;
+            };
+            if (escape != null) {
+                out.write(s, inicio, i - inicio);
+                out.write(escape);
+                inicio = i + 1;
+            }
+        }
+        out.write(s, inicio, s.length() - inicio);
+        out.write('"');
+    }
+}
@@ -0,0 +1,648 @@
+package br.inatel.Servidor;
+
+import br.inatel.Biblioteca.*;
+import br.inatel.DAO.*;
+import br.inatel.Database.ConnectionPool;
+import br.inatel.Database.DatabaseFactory;
+import br.inatel.Database.InstrumentedConnectionProvider;
+import br.inatel.Database.LimiteTempoConsultas;
+import br.inatel.Database.RoteadorLeituraEscrita;
+import br.inatel.Database.TransactionManager;
+import br.inatel.Interfaces.ConnectionProvider;
+import br.inatel.Interfaces.Dao;
+import br.inatel.Metricas.ExportadorPrometheus;
+import br.inatel.Metricas.RegistroMetricas;
+import br.inatel.Migracao.MigradorEsquema;
+import br.inatel.Migracao.Migracoes;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Modo servidor: expõe os DAOs como endpoints HTTP/JSON, para vários balcões e quiosques
+ * usarem a mesma instância ao mesmo tempo (o Menu atende um usuário só).
+ *
+ * - HttpServer do JDK, com uma virtual thread por requisição.
+ * - Cada DAO fica atrás de um AsyncDao: uma conexão do pool por chamada e no máximo
+ *   CHAMADAS_POR_DAO chamadas simultâneas por DAO.
+ * - Toda operação tem prazo: TIMEOUT_MILLIS para leituras e escritas (estourou, 503) e
+ *   TIMEOUT_FLUXO_MILLIS para as listas completas. Cada comando SQL também para no banco
+ *   depois de TIMEOUT_MILLIS (LimiteTempoConsultas), liberando a conexão.
+ * - As listas completas (/todos) saem em fluxo (chunked), item a item, direto do streamAll
+ *   dos DAOs: a memória usada não depende do tamanho da tabela. Elas não passam pelo
+ *   AsyncDao (não ocupam as vagas de CHAMADAS_POR_DAO) e têm um limite próprio:
+ *   FLUXOS_SIMULTANEOS ao todo; sem vaga em TIMEOUT_MILLIS, 503.
+ * - Leituras (GET) vão para as réplicas do RoteadorLeituraEscrita, se houver; escritas, para o
+ *   primário. Depois de uma escrita, a resposta leva o cookie COOKIE_PRIMARIO com o prazo
+ *   da leitura própria: as requisições seguintes do mesmo cliente leem do primário até ele.
+ *
+ * Endpoints (respostas em JSON; corpo dos POST em application/x-www-form-urlencoded):
+ * <pre>
+ *   GET  /livros?depois=&amp;limite=       uma página (paginação por chave); "proximo" vai no "depois" seguinte
+ *   GET  /livros/todos                  todos, em fluxo
+ *   GET  /livros/{isbn}
+ *   GET  /exemplares, /emprestimos, /multas, /usuarios   o mesmo, com chave numérica
+ *   POST /usuarios                      nome, email, telefone, tipo
+ *   POST /emprestimos                   usuario, exemplar ou isbn (o primeiro exemplar livre), data (AAAA-MM-DD; padrão: hoje)
+ *   POST /emprestimos/{id}/devolucao    data (AAAA-MM-DD; padrão: hoje)
+ *   GET  /busca?q=&amp;limite=            livros por título, autor ou categoria (prefixos), do índice em memória
+ *   GET  /disponibilidade/{isbn}        exemplares livres do livro, direto do índice em memória
+ *   GET  /saude                         métricas do pool de conexões
+ *   GET  /metricas                      latência, erros e linhas por DAO e por SQL, no formato do Prometheus
+ * </pre>
+ *
+ * Uso: java br.inatel.Servidor.ServidorBiblioteca [porta]
+ */
+public class ServidorBiblioteca {
+    private static final int PORTA_PADRAO = 8080;
+    private static final long TIMEOUT_MILLIS = 10_000;
+    private static final long TIMEOUT_FLUXO_MILLIS = 5 * 60_000;
+    private static final int CHAMADAS_POR_DAO = 8;
+    private static final int FLUXOS_SIMULTANEOS = 2;
+    private static final int LIMITE_PADRAO = 50;
+    private static final int LIMITE_MAXIMO = 1_000;
+    private static final int TAMANHO_BUFFER = 16 * 1024;
+    private static final int SEGUNDOS_PARA_PARAR = 5;
+    private static final Duration LIMITE_CONSULTA_LENTA = Duration.ofMillis(200);
+    private static final String COOKIE_PRIMARIO = "primario-ate";
+
+    private final HttpServer server;
+    private final ExecutorService requisicoes = Executors.newVirtualThreadPerTaskExecutor();
+    private final ConnectionPool pool;
+    private final RoteadorLeituraEscrita roteador;
+    private final EmprestimoDao emprestimoDao;
+    private final AsyncDao<Usuario, Integer> usuarios;
+    private final AsyncDao<Exemplar_livro, Integer> exemplares;
+    private final AsyncDao<Emprestimo, Integer> emprestimos;
+    private final AvailabilityIndex availability;
+    private final CatalogSearchIndex searchIndex;
+    private final RegistroMetricas metricas;
+    // Listas completas em andamento, somando todos os recursos: cada uma prende uma conexão do pool.
+    private final Semaphore fluxos = new Semaphore(FLUXOS_SIMULTANEOS, true);
+
+    /**
+     * @param roteador O roteador pelo qual passam as conexões dos DAOs; as leituras deles vão para as réplicas.
+     * @param metricas Onde ficam as métricas de cada DAO (medidos aqui, por método) e de /metricas.
+     */
+    public ServidorBiblioteca(ConnectionPool pool, RoteadorLeituraEscrita roteador, LivroDao livroDao, ExemplarDao exemplarDao, EmprestimoDao emprestimoDao,
+                              MultaDao multaDao, Dao<Usuario, Integer> usuarioDao, AvailabilityIndex availability,
+                              CatalogSearchIndex searchIndex, RegistroMetricas metricas, int porta) throws IOException {
+        this.pool = pool;
+        this.roteador = roteador;
+        this.emprestimoDao = emprestimoDao;
+        this.availability = availability;
+        this.searchIndex = searchIndex;
+        this.metricas = metricas;
+        AsyncDao<Livro, String> livros = new AsyncDao<>(new InstrumentedDao<>(new ReadReplicaDao<>(livroDao, roteador), "livro", metricas), CHAMADAS_POR_DAO);
+        AsyncDao<Multa, Integer> multas = new AsyncDao<>(new InstrumentedDao<>(new ReadReplicaDao<>(multaDao, roteador), "multa", metricas), CHAMADAS_POR_DAO);
+        this.usuarios = new AsyncDao<>(new InstrumentedDao<>(new ReadReplicaDao<>(usuarioDao, roteador), "usuario", metricas), CHAMADAS_POR_DAO);
+        this.exemplares = new AsyncDao<>(new InstrumentedDao<>(new ReadReplicaDao<>(exemplarDao, roteador), "exemplar", metricas), CHAMADAS_POR_DAO);
+        this.emprestimos = new AsyncDao<>(new InstrumentedDao<>(new ReadReplicaDao<>(emprestimoDao, roteador), "emprestimo", metricas), CHAMADAS_POR_DAO);
+
+        this.server = HttpServer.create(new InetSocketAddress(porta), 0);
+        server.setExecutor(requisicoes);
+        registrar(new Recurso<>("livros", livros, chave -> chave, Livro::getIsbn,
+                JsonEntidades::escrever, livroDao::streamAll, null));
+        registrar(new Recurso<>("exemplares", exemplares, Integer::valueOf, Exemplar_livro::getId,
+                JsonEntidades::escrever, exemplarDao::streamAll, null));
+        registrar(new Recurso<>("emprestimos", emprestimos, Integer::valueOf, Emprestimo::getId,
+                JsonEntidades::escrever, emprestimoDao::streamAll, this::escreverEmprestimo));
+        registrar(new Recurso<>("multas", multas, Integer::valueOf, Multa::getId,
+                JsonEntidades::escrever, multaDao::streamAll, null));
+        registrar(new Recurso<>("usuarios", usuarios, Integer::valueOf, Usuario::getId,
+                JsonEntidades::escrever, porPaginas(usuarioDao, Usuario::getId), this::criarUsuario));
+        server.createContext("/busca", exchange -> atender(exchange, () -> {
+            exigirMetodo(exchange, "GET");
+            Map<String, String> params = parametros(exchange);
+            int limite = params.containsKey("limite") ? Integer.parseInt(params.get("limite")) : LIMITE_PADRAO;
+            if (limite < 1 || limite > LIMITE_MAXIMO) {
+                throw new HttpErro(400, "O limite deve estar entre 1 e " + LIMITE_MAXIMO + ".");
+            }
+            List<CatalogSearchIndex.Hit> hits = searchIndex.search(params.getOrDefault("q", ""), limite);
+            responder(exchange, 200, json -> {
+                json.beginArray();
+                for (CatalogSearchIndex.Hit hit : hits) {
+                    json.beginObject()
+                            .name("isbn").value(hit.isbn())
+                            .name("titulo").value(hit.titulo())
+                            .name("relevancia").value(hit.score())
+                            .endObject();
+                }
+                json.endArray();
+            });
+        }));
+        server.createContext("/disponibilidade", exchange -> atender(exchange, () -> {
+            exigirMetodo(exchange, "GET");
+            List<String> partes = partes(exchange);
+            if (partes.size() != 2) {
+                throw new HttpErro(404, "Não encontrado.");
+            }
+            String isbn = partes.get(1);
+            Integer primeiro = availability.firstAvailableCopy(isbn);
+            int disponiveis = availability.availableCount(isbn);
+            responder(exchange, 200, json -> json.beginObject()
+                    .name("isbn").value(isbn)
+                    .name("disponiveis").value(disponiveis)
+                    .name("primeiroExemplar").value(primeiro)
+                    .endObject());
+        }));
+        server.createContext("/saude", exchange -> atender(exchange, () -> {
+            exigirMetodo(exchange, "GET");
+            responder(exchange, 200, json -> json.beginObject()
+                    .name("pool").value(pool.getStats().toString())
+                    .name("replicas").value(roteador.toString())
+                    .endObject());
+        }));
+        server.createContext("/metricas", exchange -> atender(exchange, () -> {
+            exigirMetodo(exchange, "GET");
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, 0);
+            Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), TAMANHO_BUFFER);
+            ExportadorPrometheus.escrever(metricas, out);
+            out.flush();
+        }));
+    }
+
+    public static void main(String[] args) {
+        int porta = args.length > 0 ? Integer.parseInt(args[0]) : PORTA_PADRAO;
+        try {
+            ConnectionPool pool = DatabaseFactory.getPool();
+            // Cria as tabelas e os índices que faltarem antes de carregar os índices em memória.
+            new MigradorEsquema(pool, Migracoes.todas()).migrar();
+            RegistroMetricas metricas = new RegistroMetricas(LIMITE_CONSULTA_LENTA, System.err);
+            // Cada requisição roda na sua thread virtual; a transação de uma não enxerga a de outra.
+            RoteadorLeituraEscrita roteador = DatabaseFactory.getRoteador();
+            // Nenhum comando passa do prazo das requisições: estourou, o banco o cancela.
+            ConnectionProvider limitado = new LimiteTempoConsultas(roteador, Duration.ofMillis(TIMEOUT_MILLIS));
+            TransactionManager transacoes = new TransactionManager(new InstrumentedConnectionProvider(limitado, metricas));
+            CopyCountCache copyCounts = new CopyCountCache(pool);
+            AvailabilityIndex availability = new AvailabilityIndex(pool);
+            availability.load();
+            CatalogSearchIndex searchIndex = new CatalogSearchIndex();
+            LivroDao livroDao = new LivroDao(transacoes, copyCounts, FetchMode.EAGER, availability, searchIndex);
+            roteador.lendo(() -> {
+                searchIndex.load(livroDao);
+                return null;
+            });
+            // As listagens de exemplares não mostram autores: modo LAZY, como no Menu.
+            ExemplarDao exemplarDao = new ExemplarDao(transacoes, copyCounts, FetchMode.LAZY, availability);
+            EmprestimoDao emprestimoDao = new EmprestimoDao(transacoes, FetchMode.EAGER, availability);
+            MultaDao multaDao = new MultaDao(transacoes);
+            livroDao.setMetricas(metricas);
+            exemplarDao.setMetricas(metricas);
+            emprestimoDao.setMetricas(metricas);
+            multaDao.setMetricas(metricas);
+            ServidorBiblioteca servidor = new ServidorBiblioteca(pool, roteador, livroDao, exemplarDao, emprestimoDao, multaDao,
+                    new CachedDao<>(new UsuarioDao(transacoes), Usuario::getId, 10_000, Duration.ofMinutes(5), transacoes),
+                    availability, searchIndex, metricas, porta);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                servidor.parar();
+                System.out.println(pool.getStats());
+                DatabaseFactory.closeReplicas();
+                pool.close();
+            }, "servidor-shutdown"));
+            servidor.iniciar();
+            System.out.println("Servidor da biblioteca ouvindo na porta " + porta + ".");
+        } catch (SQLException | IOException e) {
+            System.err.println("Não foi possível iniciar o servidor: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    public void iniciar() {
+        server.start();
+    }
+
+    /**
+     * Para de aceitar conexões e espera até SEGUNDOS_PARA_PARAR pelas requisições em andamento.
+     */
+    public void parar() {
+        server.stop(SEGUNDOS_PARA_PARAR);
+        requisicoes.shutdown();
+    }
+
+    private <T, K> void registrar(Recurso<T, K> recurso) {
+        server.createContext("/" + recurso.nome, exchange -> atender(exchange, () -> {
+            List<String> partes = partes(exchange);
+            switch (exchange.getRequestMethod()) {
+                case "GET" -> ler(exchange, recurso, partes);
+                case "POST" -> {
+                    if (recurso.escrita == null) {
+                        throw new HttpErro(405, "Método não permitido.");
+                    }
+                    recurso.escrita.atender(exchange, partes, parametros(exchange));
+                }
+                default -> throw new HttpErro(405, "Método não permitido.");
+            }
+        }));
+    }
+
+    private <T, K> void ler(HttpExchange exchange, Recurso<T, K> recurso, List<String> partes) throws Exception {
+        if (partes.size() == 1) {
+            Map<String, String> params = parametros(exchange);
+            int limite = params.containsKey("limite") ? Integer.parseInt(params.get("limite")) : LIMITE_PADRAO;
+            if (limite < 1 || limite > LIMITE_MAXIMO) {
+                throw new HttpErro(400, "O limite deve estar entre 1 e " + LIMITE_MAXIMO + ".");
+            }
+            K depois = params.containsKey("depois") ? recurso.chave.apply(params.get("depois")) : null;
+            List<T> pagina = aguardar(recurso.dao.readPage(depois, limite));
+            responder(exchange, 200, json -> {
+                json.beginObject().name("itens").beginArray();
+                for (T item : pagina) {
+                    recurso.escritor.escrever(json, item);
+                }
+                json.endArray().name("proximo");
+                json.value(pagina.size() == limite ? recurso.chaveDe.apply(pagina.getLast()) : null);
+                json.endObject();
+            });
+        } else if (partes.size() == 2 && partes.get(1).equals("todos")) {
+            transmitir(exchange, recurso);
+        } else if (partes.size() == 2) {
+            T item = aguardar(recurso.dao.read(recurso.chave.apply(partes.get(1))));
+            if (item == null) {
+                throw new HttpErro(404, "Não encontrado.");
+            }
+            responder(exchange, 200, json -> recurso.escritor.escrever(json, item));
+        } else {
+            throw new HttpErro(404, "Não encontrado.");
+        }
+    }
+
+    /**
+     * Lista completa em fluxo: cada entidade é escrita assim que o DAO a entrega.
+     * O cabeçalho (200) só sai com a primeira entidade, para que uma falha ao abrir a
+     * consulta ainda vire um erro de verdade. Depois dele não dá mais para mudar o status,
+     * então um erro (ou o prazo estourado) no meio apenas interrompe a resposta.
+     */
+    private <T, K> void transmitir(HttpExchange exchange, Recurso<T, K> recurso) throws Exception {
+        // Roda na própria thread da requisição, fora do AsyncDao: um fluxo lento não ocupa
+        // por minutos as vagas de CHAMADAS_POR_DAO das leituras curtas do mesmo DAO.
+        if (!fluxos.tryAcquire(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+            throw new HttpErro(503, "Muitas listas completas em andamento; tente /" + recurso.nome + "?limite= em páginas.");
+        }
+        try {
+            long prazo = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(TIMEOUT_FLUXO_MILLIS);
+            JsonWriter[] json = new JsonWriter[1];
+            // Listas completas são relatórios: vão para uma réplica, como as outras leituras.
+            roteador.lendo(() -> {
+                recurso.todos.percorrer(item -> {
+                    if (System.nanoTime() - prazo > 0) {
+                        throw new TempoEsgotado();
+                    }
+                    try {
+                        if (json[0] == null) {
+                            json[0] = abrirResposta(exchange, 200).beginArray();
+                        }
+                        recurso.escritor.escrever(json[0], item);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                return null;
+            });
+            if (json[0] == null) {
+                json[0] = abrirResposta(exchange, 200).beginArray();
+            }
+            json[0].endArray().flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (TempoEsgotado e) {
+            throw new HttpErro(503, "Tempo esgotado ao transmitir /" + recurso.nome + "/todos.");
+        } finally {
+            fluxos.release();
+        }
+    }
+
+    // POST /usuarios
+    private void criarUsuario(HttpExchange exchange, List<String> partes, Map<String, String> params) throws Exception {
+        if (partes.size() != 1) {
+            throw new HttpErro(404, "Não encontrado.");
+        }
+        Usuario usuario = new Usuario(0, obrigatorio(params, "nome"), obrigatorio(params, "email"),
+                obrigatorio(params, "telefone"), obrigatorio(params, "tipo"));
+        if (aguardar(usuarios.create(usuario)) == null) {
+            throw new HttpErro(500, "Falha ao inserir usuário.");
+        }
+        responder(exchange, 201, json -> JsonEntidades.escrever(json, usuario));
+    }
+
+    // POST /emprestimos e POST /emprestimos/{id}/devolucao
+    private void escreverEmprestimo(HttpExchange exchange, List<String> partes, Map<String, String> params) throws Exception {
+        LocalDate data = params.containsKey("data") ? LocalDate.parse(params.get("data")) : LocalDate.now();
+        if (partes.size() == 1) {
+            // Usuário e exemplar são independentes: as duas leituras rodam ao mesmo tempo.
+            CompletableFuture<Usuario> usuarioFuturo = usuarios.read(Integer.valueOf(obrigatorio(params, "usuario")));
+            CompletableFuture<Exemplar_livro> exemplarFuturo = exemplares.read(exemplarPedido(params));
+            Usuario usuario = aguardar(usuarioFuturo);
+            Exemplar_livro exemplar = aguardar(exemplarFuturo);
+            if (usuario == null || exemplar == null) {
+                throw new HttpErro(404, usuario == null ? "Usuário não encontrado." : "Exemplar não encontrado.");
+            }
+            Emprestimo emprestimo = new Emprestimo(data, usuario, exemplar);
+            Integer id = aguardar(emprestimos.create(emprestimo));
+            if (id == null) {
+                throw new HttpErro(409, "O exemplar já está emprestado.");
+            }
+            responder(exchange, 201, json -> json.beginObject().name("id").value(id).endObject());
+        } else if (partes.size() == 3 && partes.get(2).equals("devolucao")) {
+            int id = Integer.parseInt(partes.get(1));
+            if (!aguardar(emprestimos.submit(() -> emprestimoDao.update(id, data)))) {
+                throw new HttpErro(404, "Empréstimo não encontrado.");
+            }
+            responder(exchange, 200, json -> json.beginObject()
+                    .name("id").value(id)
+                    .name("dataDevolucao").value(data)
+                    .endObject());
+        } else {
+            throw new HttpErro(404, "Não encontrado.");
+        }
+    }
+
+    // O exemplar informado ou, se veio só o ISBN, o primeiro exemplar livre segundo o índice.
+    private int exemplarPedido(Map<String, String> params) throws SQLException {
+        if (params.containsKey("exemplar") || !params.containsKey("isbn")) {
+            return Integer.parseInt(obrigatorio(params, "exemplar"));
+        }
+        Integer livre = availability.firstAvailableCopy(obrigatorio(params, "isbn"));
+        if (livre == null) {
+            throw new HttpErro(409, "Nenhum exemplar disponível para o ISBN " + params.get("isbn") + ".");
+        }
+        return livre;
+    }
+
+    /**
+     * Roda o atendimento e transforma as falhas em respostas de erro em JSON.
+     */
+    private void atender(HttpExchange exchange, Atendimento atendimento) {
+        try (exchange) {
+            try {
+                // Cada requisição tem a sua thread e, com ela, uma sessão nova no roteador, criada
+                // aqui para que as threads do AsyncDao herdem esta mesma sessão.
+                RoteadorLeituraEscrita.Sessao sessao = roteador.sessaoAtual();
+                long primarioAte = primarioAteDoCookie(exchange);
+                if (primarioAte > 0) {
+                    // Nunca além de uma janela a partir de agora: o cookie vem do cliente.
+                    long limite = System.currentTimeMillis() + roteador.getJanelaLeituraPropria().toMillis();
+                    sessao.lerDoPrimarioAte(Math.min(primarioAte, limite));
+                }
+                atendimento.executar();
+            } catch (HttpErro e) {
+                responderErro(exchange, e.status, e.getMessage());
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                // Inclui NumberFormatException: chave ou parâmetro numérico inválido.
+                responderErro(exchange, 400, "Parâmetro inválido: " + e.getMessage());
+            } catch (SQLException e) {
+                System.err.println("Erro de banco de dados em " + exchange.getRequestURI() + ": " + e.getMessage());
+                responderErro(exchange, 500, "Erro de banco de dados.");
+            }
+        } catch (IOException e) {
+            // O cliente desconectou no meio da resposta; não há a quem responder.
+            System.err.println("Falha ao responder " + exchange.getRequestURI() + ": " + e.getMessage());
+        } catch (Exception e) {
+            System.err.println("Erro inesperado em " + exchange.getRequestURI() + ": " + e);
+            responderErro(exchange, 500, "Erro interno.");
+        }
+    }
+
+    /**
+     * Espera o DAO até TIMEOUT_MILLIS. Estourou o prazo: 503 para o cliente, e a chamada é
+     * cancelada: se ainda esperava vaga no AsyncDao, não roda mais; se já está no banco, o
+     * limite de cada comando (LimiteTempoConsultas) a interrompe e a conexão volta ao pool.
+     */
+    private static <R> R aguardar(CompletableFuture<R> futuro) throws SQLException {
+        try {
+            return futuro.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            futuro.cancel(true);
+            throw new HttpErro(503, "Tempo esgotado aguardando o banco de dados.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new HttpErro(503, "Requisição interrompida.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sql) {
+                throw sql;
+            }
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void responder(HttpExchange exchange, int status, Corpo corpo) throws IOException {
+        JsonWriter json = abrirResposta(exchange, status);
+        corpo.escrever(json);
+        json.flush();
+    }
+
+    private JsonWriter abrirResposta(HttpExchange exchange, int status) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        // Se a requisição escreveu, o cliente leva o prazo de leitura própria para as próximas.
+        long primarioAte = roteador.sessaoAtual().getPrimarioAte();
+        long restante = primarioAte - System.currentTimeMillis();
+        if (restante > 0) {
+            exchange.getResponseHeaders().add("Set-Cookie", COOKIE_PRIMARIO + "=" + primarioAte
+                    + "; Max-Age=" + TimeUnit.MILLISECONDS.toSeconds(restante + 999) + "; Path=/; HttpOnly");
+        }
+        // Tamanho 0 = resposta chunked: o corpo vai saindo enquanto é escrito.
+        exchange.sendResponseHeaders(status, 0);
+        return new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), TAMANHO_BUFFER));
+    }
+
+    private void responderErro(HttpExchange exchange, int status, String mensagem) {
+        if (exchange.getResponseCode() != -1) {
+            // Cabeçalho já enviado (resposta em fluxo): só resta interromper a resposta.
+            System.err.println("Resposta de " + exchange.getRequestURI() + " interrompida: " + mensagem);
+            return;
+        }
+        try {
+            responder(exchange, status, json -> json.beginObject().name("erro").value(mensagem).endObject());
+        } catch (IOException e) {
+            System.err.println("Falha ao responder " + exchange.getRequestURI() + ": " + e.getMessage());
+        }
+    }
+
+    // O prazo de leitura própria que o cliente trouxe no cookie, ou 0.
+    private static long primarioAteDoCookie(HttpExchange exchange) {
+        for (String cabecalho : exchange.getRequestHeaders().getOrDefault("Cookie", List.of())) {
+            for (String cookie : cabecalho.split(";")) {
+                String[] partes = cookie.strip().split("=", 2);
+                if (partes.length == 2 && partes[0].equals(COOKIE_PRIMARIO)) {
+                    try {
+                        return Long.parseLong(partes[1]);
+                    } catch (NumberFormatException e) {
+                        return 0; // cookie adulterado: ignora
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static void exigirMetodo(HttpExchange exchange, String metodo) {
+        if (!exchange.getRequestMethod().equals(metodo)) {
+            throw new HttpErro(405, "Método não permitido.");
+        }
+    }
+
+    // "/livros/123/" -> ["livros", "123"]
+    private static List<String> partes(HttpExchange exchange) {
+        List<String> partes = new ArrayList<>();
+        for (String parte : exchange.getRequestURI().getPath().split("/")) {
+            if (!parte.isEmpty()) {
+                partes.add(URLDecoder.decode(parte, StandardCharsets.UTF_8));
+            }
+        }
+        return partes;
+    }
+
+    /**
+     * Parâmetros da query string e, nos POST, do corpo em application/x-www-form-urlencoded.
+     */
+    private static Map<String, String> parametros(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new HashMap<>();
+        lerFormulario(exchange.getRequestURI().getRawQuery(), params);
+        if (exchange.getRequestMethod().equals("POST")) {
+            lerFormulario(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8), params);
+        }
+        return params;
+    }
+
+    private static void lerFormulario(String texto, Map<String, String> params) {
+        if (texto == null || texto.isBlank()) {
+            return;
+        }
+        for (String par : texto.split("&")) {
+            int igual = par.indexOf('=');
+            String nome = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            params.put(URLDecoder.decode(nome, StandardCharsets.UTF_8), URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String obrigatorio(Map<String, String> params, String nome) {
+        String valor = params.get(nome);
+        if (valor == null || valor.isBlank()) {
+            throw new HttpErro(400, "Parâmetro obrigatório ausente: " + nome);
+        }
+        return valor.trim();
+    }
+
+    /**
+     * Para DAOs sem streamAll: percorre a tabela por páginas (paginação por chave),
+     * com no máximo uma página em memória.
+     */
+    private static <T, K> Fonte<T> porPaginas(Dao<T, K> dao, Function<T, K> chaveDe) {
+        return acao -> {
+            K depois = null;
+            List<T> pagina;
+            do {
+                pagina = dao.readPage(depois, LIMITE_MAXIMO);
+                pagina.forEach(acao);
+                if (!pagina.isEmpty()) {
+                    depois = chaveDe.apply(pagina.getLast());
+                }
+            } while (pagina.size() == LIMITE_MAXIMO);
+        };
+    }
+
+    /**
+     * Uma coleção exposta em /{nome}: como ler a chave da URL, escrever cada item e
+     * percorrer todos os itens.
+     */
+    private static final class Recurso<T, K> {
+        private final String nome;
+        private final AsyncDao<T, K> dao;
+        private final Function<String, K> chave;
+        private final Function<T, K> chaveDe;
+        private final Escritor<T> escritor;
+        private final Fonte<T> todos;
+        private final Escrita escrita; // null: só leitura
+
+        private Recurso(String nome, AsyncDao<T, K> dao, Function<String, K> chave, Function<T, K> chaveDe,
+                        Escritor<T> escritor, Fonte<T> todos, Escrita escrita) {
+            this.nome = nome;
+            this.dao = dao;
+            this.chave = chave;
+            this.chaveDe = chaveDe;
+            this.escritor = escritor;
+            this.todos = todos;
+            this.escrita = escrita;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Atendimento {
+        void executar() throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface Escrita {
+        void atender(HttpExchange exchange, List<String> partes, Map<String, String> params) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface Escritor<T> {
+        void escrever(JsonWriter json, T item) throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Fonte<T> {
+        void percorrer(Consumer<T> acao) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface Corpo {
+        void escrever(JsonWriter json) throws IOException;
+    }
+
+    /**
+     * Falha que vira uma resposta com o status indicado.
+     */
+    private static final class HttpErro extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        private HttpErro(int status, String mensagem) {
+            super(mensagem);
+            this.status = status;
+        }
+    }
+
+    // Lançada de dentro do streamAll para interromper uma lista completa que passou do prazo.
+    private static final class TempoEsgotado extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private TempoEsgotado() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package br.inatel.Tarefas;
+
+import br.inatel.Biblioteca.Emprestimo;
+import br.inatel.Biblioteca.Multa;
+import br.inatel.DAO.EmprestimoDao;
+import br.inatel.DAO.MultaDao;
+import br.inatel.Database.ConnectionPool;
+import br.inatel.Database.DatabaseFactory;
+import br.inatel.Database.TransactionManager;
+
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tarefa em lote que gera as multas dos empréstimos atrasados.
+ *
+ * - Percorre só os empréstimos abertos (sem devolução) em páginas por chave
+ *   (EmprestimoDao.readOpenPage), então a memória usada é a de uma página, com qualquer
+ *   quantidade de empréstimos no histórico.
+ * - Calcula multa e juros pela regra do tipo do usuário (PoliticaMultas).
+ * - Grava com MultaDao.upsertAll: atualiza a multa do empréstimo se ela já existir, senão insere,
+ *   tudo em lote. O índice único de multa (emprestimo_idEmprestimo) garante uma multa por
+ *   empréstimo: rodar de novo no mesmo dia não duplica multas; em outro dia atualiza os juros.
+ * - As multas de cada página e a última chave dela no TarefaCheckpoint são gravadas na mesma
+ *   transação (TransactionManager). Se o processo cair, a próxima execução do mesmo dia
+ *   continua depois da última página confirmada; uma execução de outro dia recomeça do zero.
+ *
+ * Para a consulta não varrer a tabela toda, o banco precisa de um índice em
+ * emprestimo (dataDevolucao, idEmprestimo).
+ *
+ * Uso: java br.inatel.Tarefas.GeradorMultas [--agendar HH:mm]
+ *   sem argumentos roda uma vez; com --agendar roda todo dia no horário informado.
+ */
+public class GeradorMultas {
+    static final String NOME_TAREFA = "gerador_multas";
+    private static final int EMPRESTIMOS_POR_PAGINA = 1_000;
+    private static final int SEGUNDOS_PARA_PARAR = 30;
+
+    private final TransactionManager transacoes;
+    private final EmprestimoDao emprestimoDao;
+    private final MultaDao multaDao;
+    private final TarefaCheckpoint checkpoint;
+    private final PoliticaMultas politica;
+    private final Clock clock;
+    private final ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor();
+
+    /**
+     * @param transacoes O gerenciador com que multaDao e checkpoint foram criados.
+     */
+    public GeradorMultas(TransactionManager transacoes, EmprestimoDao emprestimoDao, MultaDao multaDao,
+                         TarefaCheckpoint checkpoint, PoliticaMultas politica, Clock clock) {
+        this.transacoes = transacoes;
+        this.emprestimoDao = emprestimoDao;
+        this.multaDao = multaDao;
+        this.checkpoint = checkpoint;
+        this.politica = politica;
+        this.clock = clock;
+    }
+
+    public static void main(String[] args) {
+        LocalTime horario = null;
+        if (args.length == 2 && args[0].equals("--agendar")) {
+            horario = LocalTime.parse(args[1]);
+        } else if (args.length != 0) {
+            System.err.println("Uso: GeradorMultas [--agendar HH:mm]");
+            System.exit(2);
+        }
+        ConnectionPool pool = null;
+        int status = 0;
+        try {
+            pool = DatabaseFactory.getPool();
+            TransactionManager transacoes = new TransactionManager(pool);
+            TarefaCheckpoint checkpoint = new TarefaCheckpoint(transacoes, NOME_TAREFA);
+            checkpoint.criarTabela();
+            GeradorMultas gerador = new GeradorMultas(transacoes, new EmprestimoDao(transacoes), new MultaDao(transacoes),
+                    checkpoint, PoliticaMultas.padrao(), Clock.systemDefaultZone());
+            if (horario != null) {
+                // A thread do agendador mantém o processo vivo; o pool é fechado no encerramento.
+                ConnectionPool poolAgendado = pool;
+                pool = null;
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    gerador.parar();
+                    System.out.println(poolAgendado.getStats());
+                    poolAgendado.close();
+                }, "gerador-multas-shutdown"));
+                gerador.agendar(horario);
+                return;
+            }
+            gerador.executar();
+        } catch (SQLException e) {
+            System.err.println("Geração de multas interrompida: " + e.getMessage());
+            e.printStackTrace();
+            status = 1;
+        } finally {
+            if (pool != null) {
+                System.out.println(pool.getStats());
+                pool.close();
+            }
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Agenda uma execução por dia no horário informado e retorna; as execuções seguem até parar().
+     * Uma execução que falhar é registrada e tentada de novo no dia seguinte (retomando do checkpoint).
+     */
+    public void agendar(LocalTime horario) {
+        LocalDateTime agora = LocalDateTime.now(clock);
+        LocalDateTime proxima = agora.toLocalDate().atTime(horario);
+        if (!proxima.isAfter(agora)) {
+            proxima = proxima.plusDays(1);
+        }
+        System.out.println("Geração de multas agendada para " + horario + " (próxima: " + proxima + ").");
+        agendador.scheduleAtFixedRate(() -> {
+            try {
+                executar();
+            } catch (SQLException e) {
+                System.err.println("Geração de multas falhou: " + e.getMessage());
+            }
+        }, Duration.between(agora, proxima).toMillis(), TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancela as próximas execuções e espera a atual terminar a página em andamento.
+     */
+    public void parar() {
+        agendador.shutdown();
+        try {
+            if (!agendador.awaitTermination(SEGUNDOS_PARA_PARAR, TimeUnit.SECONDS)) {
+                agendador.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            agendador.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Uma execução completa (ou o que faltou da execução de hoje).
+     * @return Quantidade de empréstimos multados nesta execução.
+     */
+    public long executar() throws SQLException {
+        LocalDate hoje = LocalDate.now(clock);
+        TarefaCheckpoint.Estado estado = checkpoint.carregar();
+        int depois = 0;
+        if (estado != null && estado.dataReferencia().equals(hoje)) {
+            if (estado.concluida()) {
+                System.out.println("Multas de " + hoje + " já foram geradas.");
+                return 0;
+            }
+            depois = estado.ultimaChave();
+            System.out.println("Retomando a geração de multas depois do empréstimo " + depois + ".");
+        }
+
+        // Empréstimos mais recentes que o menor prazo não podem estar atrasados: nem são lidos.
+        LocalDate emprestadoAntesDe = hoje.minusDays(politica.menorPrazoDias());
+        long inicio = System.nanoTime();
+        long lidos = 0;
+        long multados = 0;
+        List<Emprestimo> pagina;
+        do {
+            pagina = emprestimoDao.readOpenPage(depois, emprestadoAntesDe, EMPRESTIMOS_POR_PAGINA);
+            if (pagina.isEmpty()) {
+                break;
+            }
+            List<Multa> multas = calcular(pagina, hoje);
+            int ultimaChave = pagina.getLast().getId();
+            transacoes.inTransaction(conn -> {
+                multaDao.upsertAll(multas);
+                checkpoint.salvar(new TarefaCheckpoint.Estado(hoje, ultimaChave, false));
+                return null;
+            });
+            lidos += pagina.size();
+            multados += multas.size();
+            depois = ultimaChave;
+        } while (pagina.size() == EMPRESTIMOS_POR_PAGINA);
+
+        checkpoint.salvar(new TarefaCheckpoint.Estado(hoje, depois, true));
+        System.out.printf("Multas de %s: %d empréstimos abertos lidos, %d multados em %.1f s%n",
+                hoje, lidos, multados, (System.nanoTime() - inicio) / 1e9);
+        return multados;
+    }
+
+    /**
+     * As multas dos empréstimos da página que estão atrasados em 'hoje'.
+     */
+    List<Multa> calcular(List<Emprestimo> pagina, LocalDate hoje) {
+        List<Multa> multas = new ArrayList<>();
+        for (Emprestimo emprestimo : pagina) {
+            String tipo = emprestimo.getUsuario().getTipo();
+            long dias = politica.diasAtraso(tipo, emprestimo.getDataEmprestimo(), hoje);
+            if (dias > 0) {
+                PoliticaMultas.Regra regra = politica.regra(tipo);
+                multas.add(new Multa(emprestimo, centavos(regra.jurosPorDia() * dias), regra.valorMulta(), 0));
+            }
+        }
+        return multas;
+    }
+
+    private static double centavos(double valor) {
+        return Math.round(valor * 100) / 100.0;
+    }
+}
@@ -0,0 +1,65 @@
+package br.inatel.Tarefas;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Regras de multa por tipo de usuário: prazo de devolução, valor fixo da multa e juros por dia de atraso.
+ * Tipos sem regra própria (o campo 'tipo' é texto livre) usam a regra padrão.
+ */
+public class PoliticaMultas {
+    /**
+     * @param prazoDias    Dias de empréstimo antes de começar a contar atraso.
+     * @param valorMulta   Valor fixo cobrado a partir do primeiro dia de atraso.
+     * @param jurosPorDia  Valor acrescentado por dia de atraso.
+     */
+    public record Regra(int prazoDias, double valorMulta, double jurosPorDia) {
+    }
+
+    private final Map<String, Regra> regrasPorTipo;
+    private final Regra padrao;
+
+    public PoliticaMultas(Map<String, Regra> regrasPorTipo, Regra padrao) {
+        this.regrasPorTipo = Map.copyOf(regrasPorTipo);
+        this.padrao = padrao;
+    }
+
+    /**
+     * A política da biblioteca: professores têm prazo maior e juros menores.
+     */
+    public static PoliticaMultas padrao() {
+        return new PoliticaMultas(Map.of(
+                "aluno", new Regra(14, 5.00, 0.50),
+                "professor", new Regra(30, 5.00, 0.25),
+                "funcionario", new Regra(21, 5.00, 0.50)
+        ), new Regra(14, 5.00, 0.50));
+    }
+
+    public Regra regra(String tipo) {
+        if (tipo == null) {
+            return padrao;
+        }
+        return regrasPorTipo.getOrDefault(tipo.trim().toLowerCase(Locale.ROOT), padrao);
+    }
+
+    /**
+     * Dias de atraso em 'hoje' de um empréstimo feito em 'dataEmprestimo' (0 se ainda está no prazo).
+     */
+    public long diasAtraso(String tipo, LocalDate dataEmprestimo, LocalDate hoje) {
+        LocalDate vencimento = dataEmprestimo.plusDays(regra(tipo).prazoDias());
+        return Math.max(0, ChronoUnit.DAYS.between(vencimento, hoje));
+    }
+
+    /**
+     * O menor prazo entre todas as regras: empréstimos mais recentes que isso não podem estar atrasados.
+     */
+    public int menorPrazoDias() {
+        int menor = padrao.prazoDias();
+        for (Regra regra : regrasPorTipo.values()) {
+            menor = Math.min(menor, regra.prazoDias());
+        }
+        return menor;
+    }
+}
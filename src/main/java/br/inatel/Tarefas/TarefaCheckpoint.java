@@ -0,0 +1,88 @@
+package br.inatel.Tarefas;
+
+import br.inatel.Interfaces.ConnectionProvider;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+/**
+ * Progresso de uma tarefa em lote, guardado no próprio banco (tabela tarefa_checkpoint):
+ * a data de referência da execução, a última chave processada e se ela terminou.
+ * Uma execução interrompida recomeça depois da última chave salva.
+ *
+ * Fica no banco, e não em arquivo como o ImportCheckpoint, porque a tarefa pode rodar em
+ * qualquer máquina que acesse o banco.
+ */
+public class TarefaCheckpoint {
+    private final ConnectionProvider connectionProvider;
+    private final String tarefa;
+
+    /**
+     * Estado salvo de uma execução.
+     */
+    public record Estado(LocalDate dataReferencia, int ultimaChave, boolean concluida) {
+    }
+
+    public TarefaCheckpoint(ConnectionProvider connectionProvider, String tarefa) {
+        this.connectionProvider = connectionProvider;
+        this.tarefa = tarefa;
+    }
+
+    /**
+     * Cria a tabela se ela ainda não existir.
+     */
+    public void criarTabela() throws SQLException {
+        String sql = """
+                CREATE TABLE IF NOT EXISTS tarefa_checkpoint (
+                    tarefa VARCHAR(50) PRIMARY KEY,
+                    dataReferencia DATE NOT NULL,
+                    ultimaChave INT NOT NULL,
+                    concluida BOOLEAN NOT NULL
+                )""";
+        try (Connection conn = connectionProvider.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    /**
+     * O último estado salvo, ou null se a tarefa nunca rodou.
+     */
+    public Estado carregar() throws SQLException {
+        String sql = "SELECT dataReferencia, ultimaChave, concluida FROM tarefa_checkpoint WHERE tarefa = ?";
+        try (Connection conn = connectionProvider.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, tarefa);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    return null;
+                }
+                return new Estado(rs.getDate("dataReferencia").toLocalDate(), rs.getInt("ultimaChave"), rs.getBoolean("concluida"));
+            }
+        }
+    }
+
+    public void salvar(Estado estado) throws SQLException {
+        String sqlUpdate = "UPDATE tarefa_checkpoint SET dataReferencia = ?, ultimaChave = ?, concluida = ? WHERE tarefa = ?";
+        String sqlInsert = "INSERT INTO tarefa_checkpoint (dataReferencia, ultimaChave, concluida, tarefa) VALUES (?, ?, ?, ?)";
+        try (Connection conn = connectionProvider.getConnection()) {
+            if (executar(conn, sqlUpdate, estado) == 0) {
+                executar(conn, sqlInsert, estado);
+            }
+        }
+    }
+
+    private int executar(Connection conn, String sql, Estado estado) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setDate(1, java.sql.Date.valueOf(estado.dataReferencia()));
+            stmt.setInt(2, estado.ultimaChave());
+            stmt.setBoolean(3, estado.concluida());
+            stmt.setString(4, tarefa);
+            return stmt.executeUpdate();
+        }
+    }
+}